@@ -45,6 +45,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
 
 import javax.net.ServerSocketFactory;
@@ -66,6 +67,8 @@ import saker.build.runtime.execution.InternalExecutionContext;
 import saker.build.runtime.execution.SakerLog;
 import saker.build.runtime.execution.SakerLog.CommonExceptionFormat;
 import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.runtime.params.ExecutionRepositoryConfiguration;
+import saker.build.runtime.params.ExecutionScriptConfiguration;
 import saker.build.runtime.params.InvalidBuildConfigurationException;
 import saker.build.runtime.project.ProjectCacheHandle;
 import saker.build.runtime.project.SakerExecutionCache;
@@ -119,6 +122,8 @@ public class LocalDaemonEnvironment implements DaemonEnvironment {
 	private static final int STATE_CLOSED = 3;
 	private static final AtomicIntegerFieldUpdater<LocalDaemonEnvironment> AIFU_state = AtomicIntegerFieldUpdater
 			.newUpdater(LocalDaemonEnvironment.class, "state");
+	private static final AtomicReferenceFieldUpdater<LocalDaemonEnvironment, SakerExecutionCache> ARFU_warmUpExecutionCache = AtomicReferenceFieldUpdater
+			.newUpdater(LocalDaemonEnvironment.class, SakerExecutionCache.class, "warmUpExecutionCache");
 
 	private static final Method METHOD_TASK_INVOKER_FACTORY_RUN = ReflectUtils.getMethodAssert(TaskInvoker.class, "run",
 			ExecutionContext.class, TaskInvokerInformation.class, TaskInvocationContext.class);
@@ -198,6 +203,10 @@ public class LocalDaemonEnvironment implements DaemonEnvironment {
 	private final Set<ProjectCacheKey> loadedProjectCacheKeys = Collections.newSetFromMap(new WeakHashMap<>());
 
 	private final Lock projectCacheKeysLock = ThreadUtils.newExclusiveLock();
+	/**
+	 * The execution cache loaded by {@link #warmUp()} that is not yet used by a project.
+	 */
+	private volatile SakerExecutionCache warmUpExecutionCache;
 	private final Lock stateLock = ThreadUtils.newExclusiveLock();
 
 	public LocalDaemonEnvironment(Path sakerJarPath, DaemonLaunchParameters launchParameters,
@@ -449,6 +458,57 @@ public class LocalDaemonEnvironment implements DaemonEnvironment {
 		startAfterInitialization();
 	}
 
+	/**
+	 * Warms up the daemon environment by loading the default build repositories and script providers.
+	 * <p>
+	 * The repositories are loaded into an execution cache that is kept by the daemon. The first project that is
+	 * created afterwards takes over this cache, so the first build in a new workspace reuses the already loaded
+	 * repository and script provider classpaths if it uses the default repository and script configurations. The
+	 * build repositories are created by that build, for its own path configuration and user parameters. Otherwise
+	 * only the retrieved repository classpaths and the populated environment caches are reused by it.
+	 * <p>
+	 * No build is run as part of the warm-up.
+	 * <p>
+	 * This method is a no-op if the environment has no storage directory.
+	 * 
+	 * @throws IllegalStateException
+	 *             If the daemon is not started.
+	 * @throws Exception
+	 *             If the loading of the repositories failed.
+	 * @since saker.build 0.8.21
+	 */
+	public void warmUp() throws IllegalStateException, Exception {
+		checkStarted();
+		Path storagedir = environment.getStorageDirectoryPath();
+		if (storagedir == null) {
+			return;
+		}
+		SakerExecutionCache cache = new SakerExecutionCache(environment);
+		try {
+			cache.preload(ExecutionRepositoryConfiguration.getDefault(), ExecutionScriptConfiguration.getDefault());
+		} catch (Throwable e) {
+			IOUtils.addExc(e, IOUtils.closeExc(cache));
+			throw e;
+		}
+		if (!ARFU_warmUpExecutionCache.compareAndSet(this, null, cache)) {
+			//already warmed up
+			cache.close();
+			return;
+		}
+		if (state == STATE_CLOSED) {
+			//closed concurrently
+			IOUtils.closePrint(ARFU_warmUpExecutionCache.getAndSet(this, null));
+		}
+	}
+
+	private SakerProjectCache createProjectCache() {
+		SakerExecutionCache execcache = ARFU_warmUpExecutionCache.getAndSet(this, null);
+		if (execcache == null) {
+			return new SakerProjectCache(environment);
+		}
+		return new SakerProjectCache(environment, execcache);
+	}
+
 	private void startConnectionsToClusters() {
 		if (ObjectUtils.isNullOrEmpty(connectToAsClusterAddresses)) {
 			return;
@@ -695,6 +755,7 @@ public class LocalDaemonEnvironment implements DaemonEnvironment {
 			} finally {
 				projectCacheKeysLock.unlock();
 			}
+			IOUtils.closePrint(ARFU_warmUpExecutionCache.getAndSet(this, null));
 			SakerEnvironmentImpl environment = this.environment;
 			if (environment != null) {
 				while (true) {
@@ -985,7 +1046,7 @@ public class LocalDaemonEnvironment implements DaemonEnvironment {
 	private DaemonProjectHandle getProjectImpl(PathKey workingdir) throws IOException {
 		checkStarted();
 		try {
-			ProjectCacheKey cachekey = new ProjectCacheKey(environment, workingdir);
+			ProjectCacheKey cachekey = new ProjectCacheKey(this, workingdir);
 			DaemonProjectHandle result = environment.getCachedData(cachekey);
 			projectCacheKeysLock.lock();
 			try {
@@ -1277,17 +1338,17 @@ public class LocalDaemonEnvironment implements DaemonEnvironment {
 	}
 
 	private static class ProjectCacheKey implements CacheKey<DaemonProjectHandle, SakerProjectCache> {
-		private final transient SakerEnvironmentImpl environment;
+		private final transient LocalDaemonEnvironment daemonEnvironment;
 		private final PathKey workingDirectory;
 
-		public ProjectCacheKey(SakerEnvironmentImpl environment, PathKey workingDirectory) {
-			this.environment = environment;
+		public ProjectCacheKey(LocalDaemonEnvironment daemonEnvironment, PathKey workingDirectory) {
+			this.daemonEnvironment = daemonEnvironment;
 			this.workingDirectory = workingDirectory;
 		}
 
 		@Override
 		public SakerProjectCache allocate() throws Exception {
-			return new SakerProjectCache(environment);
+			return daemonEnvironment.createProjectCache();
 		}
 
 		@Override
@@ -16,6 +16,7 @@
 package saker.build.file;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.Set;
 
@@ -25,6 +26,7 @@ import saker.build.thirdparty.saker.rmi.annot.transfer.RMIWrap;
 import saker.build.thirdparty.saker.rmi.io.RMIObjectInput;
 import saker.build.thirdparty.saker.rmi.io.RMIObjectOutput;
 import saker.build.thirdparty.saker.rmi.io.wrap.RMIWrapper;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
 import saker.build.thirdparty.saker.util.io.ByteSink;
 
 @RMIWrap(SynchronizingContentUpdater.UpdaterRMIWrapper.class)
@@ -47,6 +49,22 @@ public final class SynchronizingContentUpdater implements ContentUpdater {
 		return file.synchronizeImpl(pathKey, os);
 	}
 
+	@Override
+	public ByteArrayRegion getEfficientContentBytes() throws IOException {
+		int effopenmethods = file.getEfficientOpeningMethods();
+		if (((effopenmethods & SakerFile.OPENING_METHOD_GETBYTES) == SakerFile.OPENING_METHOD_GETBYTES)) {
+			return file.getBytesImpl();
+		}
+		if (((effopenmethods & SakerFile.OPENING_METHOD_GETCONTENTS) == SakerFile.OPENING_METHOD_GETCONTENTS)) {
+			String contents = file.getContentImpl();
+			if (contents == null) {
+				return null;
+			}
+			return ByteArrayRegion.wrap(contents.getBytes(StandardCharsets.UTF_8));
+		}
+		return null;
+	}
+
 	@Override
 	public Set<PosixFilePermission> getPosixFilePermissions() {
 		return file.getPosixFilePermissions();
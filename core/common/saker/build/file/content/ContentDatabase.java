@@ -94,6 +94,27 @@ public interface ContentDatabase {
 			return false;
 		}
 
+		/**
+		 * Gets the raw contents that this updater would write to the file, if they are efficiently available.
+		 * <p>
+		 * The content database may call this method before executing the update in order to compare the new contents
+		 * with the current contents of the file on the disk. If they are the same, then the writing of the file can be
+		 * skipped.
+		 * <p>
+		 * Implementations should only return non-<code>null</code> if the contents are available without significant
+		 * overhead. (E.g. they are already in memory.)
+		 * <p>
+		 * The default implementation returns <code>null</code>.
+		 * 
+		 * @return The contents that are to be written to the file, or <code>null</code> if not available.
+		 * @throws IOException
+		 *             In case of I/O error.
+		 * @since saker.build 0.8.21
+		 */
+		public default ByteArrayRegion getEfficientContentBytes() throws IOException {
+			return null;
+		}
+
 //		This method is defined in this interface instead of being passed as a parameter
 //		in the various synchronization or content retrieval methods in ContentDatabase.
 //		This is due that it is directly associated with the synchronization itself but not with
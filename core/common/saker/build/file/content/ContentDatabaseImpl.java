@@ -29,8 +29,12 @@ import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
@@ -59,14 +63,17 @@ import saker.build.file.path.SakerPath;
 import saker.build.file.path.SimplePathKey;
 import saker.build.file.path.SimpleProviderHolderPathKey;
 import saker.build.file.provider.FileEntry;
+import saker.build.file.provider.FileHashResult;
 import saker.build.file.provider.LocalFileProvider;
 import saker.build.file.provider.RootFileProviderKey;
 import saker.build.file.provider.SakerFileProvider;
 import saker.build.file.provider.SakerPathFiles;
+import saker.build.meta.PropertyNames;
 import saker.build.meta.Versions;
 import saker.build.runtime.execution.BuildUserPromptHandler;
 import saker.build.runtime.params.DatabaseConfiguration;
 import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.scripting.ScriptInformationProvider;
 import saker.build.task.BuildTaskResultDatabase;
 import saker.build.task.TaskExecutionResult;
 import saker.build.task.TaskExecutionResult.FileDependencies;
@@ -88,9 +95,15 @@ import saker.build.thirdparty.saker.util.io.SerialUtils;
 import saker.build.thirdparty.saker.util.io.StreamUtils;
 import saker.build.thirdparty.saker.util.io.UnsyncBufferedInputStream;
 import saker.build.thirdparty.saker.util.io.UnsyncBufferedOutputStream;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
 import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
 import saker.build.thirdparty.saker.util.io.function.IORunnable;
+import saker.build.thirdparty.saker.util.thread.ParallelExecutionException;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils.ThreadWorkPool;
+import saker.build.trace.BuildEventStream;
+import saker.build.trace.InternalBuildTraceImpl;
+import saker.build.util.exc.ExceptionView;
 import saker.build.util.serial.ContentReaderObjectInput;
 import saker.build.util.serial.ContentWriterObjectOutput;
 
@@ -483,6 +496,47 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 	private static final int STREAM_HEADER_SIZE = Integer.BYTES * 3;
 	private static final int STREAM_MAGIC = 0x5A7E30BB;
 
+	/**
+	 * Flag for the stream header signaling that the contents are split into independently decodable segments.
+	 * <p>
+	 * Each segment is preceeded by its type and length, and has its own serialized object and string tables, so they
+	 * can be read concurrently.
+	 */
+	private static final int STREAM_FLAG_SEGMENTED = 1 << 0;
+
+	private static final int SEGMENT_HEADER_SIZE = Integer.BYTES * 2;
+	private static final int SEGMENT_END = 0;
+	private static final int SEGMENT_DEPENDENCIES = 1;
+	private static final int SEGMENT_TASK_RESULTS = 2;
+	private static final int SEGMENT_SCRIPT_INFORMATIONS = 3;
+
+	private static final int SEGMENT_MAX_DEPENDENCY_COUNT = 1024;
+	private static final int SEGMENT_MAX_TASK_RESULT_COUNT = 64;
+
+	private static long getSynchronizeCompareMaxSizeProperty() {
+		long val = 0;
+		String prop = PropertyNames.getProperty(PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE);
+		if (prop != null) {
+			try {
+				try {
+					val = Long.parseLong(prop);
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException("Property "
+							+ PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE + " is not an integer: " + prop, e);
+				}
+				if (val < 0) {
+					throw new IllegalArgumentException("Property " + PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE
+							+ " must be a non-negative integer number. (Current: " + val + ")");
+				}
+			} catch (IllegalArgumentException e) {
+				//ignore for build trace
+				InternalBuildTraceImpl.ignoredStaticException(ExceptionView.create(e));
+				val = 0;
+			}
+		}
+		return val;
+	}
+
 	private static final ToIntBiFunction<SakerPath, Entry<SakerPath, ?>> PATH_ENTRYKEY_PATH_COMPARATOR = (p,
 			chentry) -> p.compareTo(chentry.getKey());
 
@@ -506,8 +560,13 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 	private ClassLoaderResolver classLoaderResolver;
 
 	private boolean trackHandleAttributes = false;
+	/**
+	 * Read when the database is created, so the property can be changed between executions.
+	 */
+	private final long synchronizeCompareMaxSize = getSynchronizeCompareMaxSizeProperty();
 
 	private PathProtectionSettings protectionSettings;
+	private volatile BuildEventStream buildEvents;
 
 	private final Lock descriptorFileIOLock = ThreadUtils.newExclusiveLock();
 
@@ -542,6 +601,7 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 		} catch (Exception e) {
 			//failed to read, ignored.
 			e.printStackTrace();
+			discardReadContents();
 		}
 	}
 
@@ -564,6 +624,10 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 		this.protectionSettings = protectionSettings;
 	}
 
+	public void setBuildEventStream(BuildEventStream buildEvents) {
+		this.buildEvents = buildEvents;
+	}
+
 	public DatabaseConfiguration getDatabaseConfiguration() {
 		return databaseConfiguration;
 	}
@@ -735,32 +799,39 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 				ByteSink.toOutputStream(descriptorsFileProvider.openOutput(descriptorsFilePath)), OUTPUT_BUFFER_SIZE)) {
 			{
 				byte[] header = new byte[STREAM_HEADER_SIZE];
-				int flags = 0; // for future compatibility
+				int flags = STREAM_FLAG_SEGMENTED;
 				int version = Versions.VERSION_FULL_COMPOUND;
 				SerialUtils.writeIntToBuffer(STREAM_MAGIC, header, 0);
 				SerialUtils.writeIntToBuffer(flags, header, Integer.BYTES);
 				SerialUtils.writeIntToBuffer(version, header, Integer.BYTES * 2);
 				descos.write(header);
 			}
-			try (ContentWriterObjectOutput descobjout = new FlushingContentWriterObjectOutput(classLoaderResolver,
-					descos)) {
-				for (Entry<RootFileProviderKey, ConcurrentSkipListMap<SakerPath, ContentHandleImpl>> entry : providerKeyPathDependencies
-						.entrySet()) {
-					RootFileProviderKey fpk = entry.getKey();
-					descobjout.writeObject(fpk);
-					descobjout.flush();
-
-					writeDependencies(entry.getValue(), descobjout);
+			//the entries are written in limited size segments
+			//so the internal buffer of the object output doesn't grow unnecessarily large
+			//and the segments can be decoded concurrently when read
+			for (Entry<RootFileProviderKey, ConcurrentSkipListMap<SakerPath, ContentHandleImpl>> entry : providerKeyPathDependencies
+					.entrySet()) {
+				RootFileProviderKey fpk = entry.getKey();
+				Iterator<Entry<SakerPath, ContentHandleImpl>> it = entry.getValue().entrySet().iterator();
+				while (it.hasNext()) {
+					ContentWriterObjectOutput segmentout = new ContentWriterObjectOutput(classLoaderResolver);
+					segmentout.writeObject(fpk);
+					writeDependencies(it, segmentout);
+					writeSegment(descos, SEGMENT_DEPENDENCIES, segmentout);
 				}
-				descobjout.writeNull();
-				descobjout.flush();
-
-				//call .writeExternal directly, so not the whole object is buffered
-				//and the objects are flushed more often
-				//so the internal buffer doesn't grow unnecessarily large
-				taskResults.writeExternal(descobjout, true);
-				descobjout.flush();
 			}
+			Iterator<Entry<TaskIdentifier, TaskExecutionResult<?>>> resultsit = taskResults.getTaskIdTaskResults()
+					.entrySet().iterator();
+			while (resultsit.hasNext()) {
+				ContentWriterObjectOutput segmentout = new ContentWriterObjectOutput(classLoaderResolver);
+				BuildTaskResultDatabase.writeTaskResultsExternal(segmentout, resultsit, SEGMENT_MAX_TASK_RESULT_COUNT);
+				writeSegment(descos, SEGMENT_TASK_RESULTS, segmentout);
+			}
+			ContentWriterObjectOutput segmentout = new ContentWriterObjectOutput(classLoaderResolver);
+			taskResults.writeScriptInformationProvidersExternal(segmentout);
+			writeSegment(descos, SEGMENT_SCRIPT_INFORMATIONS, segmentout);
+
+			writeSegmentHeader(descos, SEGMENT_END, 0);
 		} catch (Exception e) {
 			setDirty();
 			throw new IOException(e);
@@ -800,10 +871,24 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 
 	}
 
-	private static void writeDependencies(ConcurrentSkipListMap<SakerPath, ContentHandleImpl> dependencies,
+	private static void writeSegmentHeader(OutputStream os, int segmenttype, int length) throws IOException {
+		byte[] header = new byte[SEGMENT_HEADER_SIZE];
+		SerialUtils.writeIntToBuffer(segmenttype, header, 0);
+		SerialUtils.writeIntToBuffer(length, header, Integer.BYTES);
+		os.write(header);
+	}
+
+	private static void writeSegment(OutputStream os, int segmenttype, ContentWriterObjectOutput segmentout)
+			throws IOException {
+		ByteArrayRegion bytes = segmentout.drainToBytes();
+		writeSegmentHeader(os, segmenttype, bytes.getLength());
+		bytes.writeTo(os);
+	}
+
+	private static void writeDependencies(Iterator<Entry<SakerPath, ContentHandleImpl>> it,
 			ContentWriterObjectOutput descobjout) throws IOException {
 		SakerPath relative = null;
-		for (Iterator<Entry<SakerPath, ContentHandleImpl>> it = dependencies.entrySet().iterator(); it.hasNext();) {
+		for (int c = 0; c < SEGMENT_MAX_DEPENDENCY_COUNT && it.hasNext();) {
 			Entry<SakerPath, ContentHandleImpl> entry = it.next();
 			ContentHandleImpl dep = entry.getValue();
 			UserContentState usercontent = dep.userContent;
@@ -832,12 +917,10 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
-			//this can throw, so that should be propagated to the caller
-			descobjout.flush();
+			++c;
 		}
 		//empty path last item marker
 		descobjout.writeObject(null);
-		descobjout.flush();
 	}
 
 	private void read(ExecutionPathConfiguration pathconfig) {
@@ -865,6 +948,10 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 					throw new IOException("Dependencies file version mismatch: " + version + " vs expected: "
 							+ Versions.VERSION_FULL_COMPOUND);
 				}
+				if (flags == STREAM_FLAG_SEGMENTED) {
+					readSegments(descis, pathconfig);
+					return;
+				}
 				if (flags != 0) {
 					throw new IOException("Unrecognized flags in dependencies file: 0x" + Integer.toHexString(flags));
 				}
@@ -896,6 +983,90 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 		} catch (NoSuchFileException | FileNotFoundException e) {
 		} catch (IOException | ClassNotFoundException e) {
 			e.printStackTrace();
+			discardReadContents();
+		}
+	}
+
+	/**
+	 * Discards the partially read contents if the database file couldn't be read completely.
+	 * <p>
+	 * The database file is used as a whole, so the build runs with a clean state instead of using parts of it.
+	 */
+	private void discardReadContents() {
+		providerKeyPathDependencies.clear();
+		taskResults = BuildTaskResultDatabase.empty();
+	}
+
+	private void readSegments(InputStream descis, ExecutionPathConfiguration pathconfig)
+			throws IOException, ClassNotFoundException {
+		Map<TaskIdentifier, TaskExecutionResult<?>> taskidresults = new HashMap<>();
+		NavigableMap<SakerPath, ScriptInformationProvider> scriptinfos = Collections.emptyNavigableMap();
+		//the segments are read sequentially from the stream, and decoded concurrently
+		//if the decoding of any segment fails, the exception is rethrown when the pool is closed
+		try (ThreadWorkPool pool = ThreadUtils.newFixedWorkPool("Database-read-")) {
+			byte[] segmentheader = new byte[SEGMENT_HEADER_SIZE];
+			while (true) {
+				StreamUtils.readStreamBytesExactly(descis, segmentheader);
+				int segmenttype = SerialUtils.readIntFromBuffer(segmentheader, 0);
+				int length = SerialUtils.readIntFromBuffer(segmentheader, Integer.BYTES);
+				if (segmenttype == SEGMENT_END) {
+					break;
+				}
+				if (length < 0) {
+					throw new IOException("Invalid segment length in dependencies file: " + length);
+				}
+				byte[] segment = new byte[length];
+				StreamUtils.readStreamBytesExactly(descis, segment);
+				switch (segmenttype) {
+					case SEGMENT_DEPENDENCIES: {
+						pool.offer(() -> readDependenciesSegment(pathconfig, segment));
+						break;
+					}
+					case SEGMENT_TASK_RESULTS: {
+						pool.offer(() -> {
+							Map<TaskIdentifier, TaskExecutionResult<?>> segmentresults = new HashMap<>();
+							try (ContentReaderObjectInput reader = new ContentReaderObjectInput(classLoaderResolver,
+									new UnsyncByteArrayInputStream(segment))) {
+								BuildTaskResultDatabase.readTaskResultsExternal(reader, segmentresults);
+							}
+							synchronized (taskidresults) {
+								taskidresults.putAll(segmentresults);
+							}
+						});
+						break;
+					}
+					case SEGMENT_SCRIPT_INFORMATIONS: {
+						try (ContentReaderObjectInput reader = new ContentReaderObjectInput(classLoaderResolver,
+								new UnsyncByteArrayInputStream(segment))) {
+							scriptinfos = BuildTaskResultDatabase.readScriptInformationProvidersExternal(reader);
+						}
+						break;
+					}
+					default: {
+						//unrecognized segment, ignore
+						break;
+					}
+				}
+			}
+		} catch (ParallelExecutionException e) {
+			throw new IOException("Failed to decode dependencies file segment.", e);
+		}
+		taskResults = BuildTaskResultDatabase.createRead(taskidresults, scriptinfos);
+	}
+
+	private void readDependenciesSegment(ExecutionPathConfiguration pathconfig, byte[] segment)
+			throws IOException, ClassNotFoundException {
+		try (ContentReaderObjectInput reader = new ContentReaderObjectInput(classLoaderResolver,
+				new UnsyncByteArrayInputStream(segment))) {
+			RootFileProviderKey fpkey = (RootFileProviderKey) reader.readObject();
+			SakerFileProvider fileprovider = pathconfig.getFileProviderIfPresent(fpkey);
+			if (fileprovider == null) {
+				if (localFilesProviderKey.equals(fpkey)) {
+					fileprovider = localFiles;
+				}
+			}
+			ConcurrentSkipListMap<SakerPath, ContentHandleImpl> coll = getContentHandleCollection(fpkey);
+			readDependencies(fpkey, fileprovider, coll, reader);
 		}
 	}
 
@@ -1497,6 +1668,7 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 				IOUtils.addExc(e, secondaryioexc);
 				throw e;
 			}
+			reportFileSynchronized(path);
 			IOUtils.throwExc(secondaryioexc);
 		} finally {
 			lock.unlock();
@@ -1575,12 +1747,14 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 						if (calculated) {
 							handle.setContent(content, contentsupplier.getCalculatedOutput(pathkey, contentcalcoutput),
 									getFileAttributesIfTracked(fp, path), getUpdaterPosixFilePermissions(updater));
+							reportFileSynchronized(path);
 							return baos.toByteArrayRegion();
 						}
 						ByteArrayRegion result = fp.getAllBytes(path);
 						BasicFileAttributes trackedattrs = getFileAttributesIfTracked(fp, path);
 						handle.setContent(content, contentsupplier.getUsingFileContent(pathkey, result, trackedattrs),
 								trackedattrs, getUpdaterPosixFilePermissions(updater));
+						reportFileSynchronized(path);
 						return result;
 					} finally {
 						contentcalcoutput.close();
@@ -1603,6 +1777,7 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 				BasicFileAttributes trackedattrs = getFileAttributesIfTracked(fp, path);
 				ContentDescriptor diskcontent = contentsupplier.getUsingFileContent(pathkey, result, trackedattrs);
 				handle.setContent(content, diskcontent, trackedattrs, getUpdaterPosixFilePermissions(updater));
+				reportFileSynchronized(path);
 				return result;
 			} catch (IOException e) {
 				handle.invalidate();
@@ -1651,6 +1826,10 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 		checkWriteEnabled(providerkey, path);
 
 		setDirty();
+		if (synchronizeCompareMaxSize > 0 && trySkipIdenticalSynchronizeLocked(fp, path, content, updater, handle,
+				pathkey, expectedposixpermissions)) {
+			return;
+		}
 		ContentDescriptorSupplier contentsupplier = handle.contentSupplier;
 		IOException secondaryioexc = null;
 		try {
@@ -1697,9 +1876,77 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 			IOUtils.addExc(e, secondaryioexc);
 			throw e;
 		}
+		reportFileSynchronized(path);
 		IOUtils.throwExc(secondaryioexc);
 	}
 
+	private void reportFileSynchronized(SakerPath path) {
+		BuildEventStream events = buildEvents;
+		if (events != null) {
+			events.fileSynchronized(path);
+		}
+	}
+
+	/**
+	 * Compares the current contents of the file on the disk with the contents that the updater would write, and sets
+	 * the contents of the handle without rewriting the file if they are the same.
+	 * <p>
+	 * Skipping the write keeps the last modified time of the file intact, so watchers of the output files don't see
+	 * spurious modifications when a task regenerates the same contents.
+	 * 
+	 * <p>
+	 * Any I/O errors during the comparison are ignored, and the file is written normally.
+	 * 
+	 * @return <code>true</code> if the contents are the same, and the synchronization was skipped.
+	 */
+	private boolean trySkipIdenticalSynchronizeLocked(SakerFileProvider fp, SakerPath path, ContentDescriptor content,
+			ContentUpdater updater, ContentHandleImpl handle, ProviderHolderPathKey pathkey,
+			Set<PosixFilePermission> expectedposixpermissions) {
+		try {
+			BasicFileAttributes diskattributes = fp.getFileAttributes(path);
+			if (!diskattributes.isRegularFile() || diskattributes.size() > synchronizeCompareMaxSize) {
+				return false;
+			}
+			ByteArrayRegion bytes = updater.getEfficientContentBytes();
+			if (bytes == null || bytes.getLength() != diskattributes.size()) {
+				return false;
+			}
+			if (!isSameDiskContents(fp, path, bytes)) {
+				return false;
+			}
+			if (expectedposixpermissions != null) {
+				Set<PosixFilePermission> diskpermissions = fp.getPosixFilePermissions(path);
+				if (diskpermissions != null && !diskpermissions.equals(expectedposixpermissions)) {
+					fp.setPosixFilePermissions(path, expectedposixpermissions);
+				}
+			}
+			ContentDescriptor diskcontent = handle.contentSupplier.getUsingFileContent(pathkey, bytes,
+					diskattributes);
+			handle.setContent(content, diskcontent, trackHandleAttributes ? diskattributes : null,
+					expectedposixpermissions);
+			return true;
+		} catch (IOException e) {
+			//the file doesn't exist, is not accessible, or failed to compare, it needs to be written
+			return false;
+		}
+	}
+
+	private static boolean isSameDiskContents(SakerFileProvider fp, SakerPath path, ByteArrayRegion bytes)
+			throws IOException {
+		if (fp instanceof LocalFileProvider) {
+			return bytes.regionEquals(fp.getAllBytes(path));
+		}
+		//compare the hashes for remote file providers, so the file contents don't need to be transferred
+		try {
+			MessageDigest digest = MessageDigest.getInstance("MD5");
+			digest.update(bytes.getArray(), bytes.getOffset(), bytes.getLength());
+			FileHashResult diskhash = fp.hash(path, "MD5");
+			return diskhash.getCount() == bytes.getLength() && Arrays.equals(diskhash.getHash(), digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			return false;
+		}
+	}
+
 	public void clean() {
 		final Lock lock = descriptorFileIOLock;
 		lock.lock();
@@ -1818,19 +2065,4 @@ public class ContentDatabaseImpl implements ContentDatabase, Closeable {
 			throw new SecurityException("Write request forbidden on: " + path);
 		}
 	}
-
-	private static final class FlushingContentWriterObjectOutput extends ContentWriterObjectOutput {
-		private final OutputStream os;
-
-		private FlushingContentWriterObjectOutput(ClassLoaderResolver registry, OutputStream os) {
-			super(registry);
-			this.os = os;
-		}
-
-		@Override
-		public void flush() throws IOException {
-			super.flush();
-			drainTo(os);
-		}
-	}
 }
@@ -133,6 +133,73 @@ public class PropertyNames {
 	 */
 	public static final String PROPERTY_DEFAULT_EXCEPTION_FORMAT = "saker.build.log.exception.default.format";
 
+	/**
+	 * Property name for specifying the maximum size of files in bytes for which the build system compares the new
+	 * contents with the current disk contents before synchronizing them.
+	 * <p>
+	 * If the contents of a file that is being synchronized are the same as the file contents on the disk, then the
+	 * writing of the file will be skipped. This avoids modifying the last modified time of the file, therefore tools
+	 * that watch the output files won't see spurious changes.
+	 * <p>
+	 * The comparison is only performed if the contents of the file to synchronize are efficiently available in memory.
+	 * <p>
+	 * The value should be a non-negative integer. The default value is 0, meaning that the comparison is disabled.
+	 * 
+	 * @since saker.build 0.8.21
+	 */
+	public static final String PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE = "saker.build.file.synchronize.compare.max";
+
+	/**
+	 * Property name for enabling class data sharing for the daemon processes started by the launcher.
+	 * <p>
+	 * If this property is set to <code>true</code>, the launcher starts the daemon processes with a dynamic class data
+	 * sharing (CDS) archive of the build system classes. The archive is created by the first daemon process that is
+	 * started, and reused by the subsequent ones. This reduces the startup time of the daemons.
+	 * <p>
+	 * The archives are stored in the storage directory of the daemon, and are keyed by the hash of the build system
+	 * JAR and the version of the JVM.
+	 * <p>
+	 * Class data sharing is only used if the daemon is started with the same JVM as the launcher, and the JVM supports
+	 * dynamic archiving. (I.e. Java 13 or later.)
+	 * <p>
+	 * The value is parsed using {@link Boolean#parseBoolean(String)}. The default value is <code>false</code>.
+	 * 
+	 * @since saker.build 0.8.21
+	 */
+	public static final String PROPERTY_DAEMON_CLASS_DATA_SHARING = "saker.build.daemon.cds";
+
+	/**
+	 * Property name for specifying a file path to which the events of the build executions are written.
+	 * <p>
+	 * If this property is set, the build executions in the JVM append the events of the build (task started, finished,
+	 * up-to-date, cache lookups, cluster dispatches, file synchronizations) to the specified file as newline delimited
+	 * JSON objects while the build is running. The path may denote a named pipe to stream the events directly to an
+	 * external consumer.
+	 * <p>
+	 * The events are written by a background thread. If the consumer can't keep up with the build, the events are
+	 * dropped instead of blocking the build, and the number of dropped events is reported in an
+	 * <code>"events.dropped"</code> event.
+	 * <p>
+	 * If this property is not set, no events are recorded.
+	 *
+	 * @since saker.build 0.8.21
+	 */
+	public static final String PROPERTY_BUILD_EVENT_OUTPUT = "saker.build.event.output";
+
+	/**
+	 * Property name for enabling the prefetching of the file dependencies of the previous build.
+	 * <p>
+	 * If this property is set to <code>true</code>, the build executions load the files and content descriptors of the
+	 * input and output file dependencies of the tasks that were run by the previous build in a background pass. The
+	 * build doesn't wait for the prefetching, but the dependency checks of the tasks will find the files already loaded.
+	 * This can reduce the time of the incremental builds when the file system is slow to access.
+	 * <p>
+	 * The value is parsed using {@link Boolean#parseBoolean(String)}. The default value is <code>false</code>.
+	 * 
+	 * @since saker.build 0.8.21
+	 */
+	public static final String PROPERTY_PREFETCH_FILE_DEPENDENCIES = "saker.build.task.dependencies.prefetch";
+
 	/**
 	 * Gets the JVM level property with the given name.
 	 * <p>
@@ -15,10 +15,15 @@
  */
 package saker.build.runtime.classpath;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
 import java.lang.ref.Reference;
@@ -27,8 +32,23 @@ import java.lang.ref.WeakReference;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -38,6 +58,7 @@ import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
 
@@ -48,6 +69,7 @@ import saker.build.file.provider.LocalFileProvider;
 import saker.build.file.provider.SakerPathFiles;
 import saker.build.thirdparty.saker.util.ConcurrentPrependAccumulator;
 import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.StringUtils;
 import saker.build.thirdparty.saker.util.classloader.ClassLoaderDataFinder;
 import saker.build.thirdparty.saker.util.classloader.CloseProtectedClassLoaderDataFinder;
 import saker.build.thirdparty.saker.util.classloader.JarClassLoaderDataFinder;
@@ -78,6 +100,12 @@ import testing.saker.build.flag.TestFlag;
  */
 public class ClassPathLoadManager implements Closeable {
 	private static final String STORAGE_SUBDIRECTORY_NAME = "classpath";
+	private static final String CONTENT_STORE_SUBDIRECTORY_NAME = "store";
+	private static final String CONTENT_STORE_INDEX_SUBDIRECTORY_NAME = "index";
+	private static final String CONTENT_STORE_FILE_EXTENSION = ".jar";
+	private static final String CONTENT_STORE_HASH_ALGORITHM = "SHA-256";
+	private static final AtomicIntegerFieldUpdater<ClassPathLoadManager> AIFU_contentStorePruned = AtomicIntegerFieldUpdater
+			.newUpdater(ClassPathLoadManager.class, "contentStorePruned");
 
 	/**
 	 * A handle and a lock to a loaded classpath.
@@ -101,6 +129,9 @@ public class ClassPathLoadManager implements Closeable {
 		 * <p>
 		 * The returned path is either a path to a JAR file, or a directory containing class files in the respective
 		 * package hierarchy.
+		 * <p>
+		 * The returned path is in the {@linkplain #getClassPathLoadDirectory() load directory}, even if the classes are
+		 * loaded from the shared content store of the manager.
 		 * 
 		 * @return The path to the classpath.
 		 */
@@ -156,6 +187,11 @@ public class ClassPathLoadManager implements Closeable {
 	 */
 	private final ConcurrentNavigableMap<Path, ClassPathLoadState> loadDirectoryLoadStates = new ConcurrentSkipListMap<>();
 	private final ConcurrentNavigableMap<Path, Lock> loadDirectoryLoadStatesLocks = new ConcurrentSkipListMap<>();
+	/**
+	 * Set to 1 when the content store has been pruned by this manager.
+	 */
+	@SuppressWarnings("unused")
+	private volatile int contentStorePruned;
 
 	private volatile boolean closed = false;
 
@@ -408,6 +444,216 @@ public class ClassPathLoadManager implements Closeable {
 		return null;
 	}
 
+	/**
+	 * Gets the path to the content store file which has the same contents as the argument JAR.
+	 * <p>
+	 * The content store contains copies of the loaded JARs named by the hash of their contents. It is in the storage
+	 * directory of the manager, and is shared by all classpath locations and by all managers using the same storage
+	 * directory. The store files are never modified after they've been created.
+	 * <p>
+	 * The content hash of the argument JAR is persisted in the index of the store, along with its size and modification
+	 * time. If the JAR was just loaded by this manager, the index is not used, and the JAR is hashed while it is copied
+	 * to the store. Otherwise the JAR is only hashed again if its attributes changed, or the store file is missing.
+	 * <p>
+	 * If the content store file cannot be used, the argument path is returned.
+	 */
+	private Path getContentStoreJarPath(Path jarpath, FileEntry attrs, boolean loaded) {
+		pruneContentStoreOnce();
+		try {
+			Path indexpath = getContentStoreIndexFilePath(jarpath);
+			if (!loaded) {
+				ContentStoreIndexEntry indexentry = ContentStoreIndexEntry.read(indexpath);
+				if (indexentry != null && indexentry.isSameFile(jarpath, attrs)) {
+					Path storepath = getContentStoreFilePath(indexentry.hash);
+					if (Files.isRegularFile(storepath) && Files.size(storepath) == attrs.size()) {
+						return storepath;
+					}
+				}
+			}
+			return createContentStoreFile(jarpath, attrs, indexpath);
+		} catch (IOException e) {
+			//failed to use the content store, use the load directory file
+			return jarpath;
+		}
+	}
+
+	private Path createContentStoreFile(Path jarpath, FileEntry attrs, Path indexpath) throws IOException {
+		Path storedir = getContentStoreDirectoryPath();
+		Files.createDirectories(storedir);
+		//not matched by the store file pattern, so it is not pruned
+		Path temppath = storedir.resolve(UUID.randomUUID() + ".tmp");
+		try {
+			MessageDigest digest = createContentStoreDigest();
+			//hash the contents while copying, so the JAR is only read once,
+			//and the stored contents are guaranteed to match the hash
+			try (InputStream is = new DigestInputStream(Files.newInputStream(jarpath), digest)) {
+				Files.copy(is, temppath);
+			}
+			BasicFileAttributes currentattrs = Files.readAttributes(jarpath, BasicFileAttributes.class);
+			if (currentattrs.size() != attrs.size()
+					|| currentattrs.lastModifiedTime().toMillis() != attrs.getLastModifiedMillis()) {
+				//the file was modified concurrently
+				return jarpath;
+			}
+			String hash = StringUtils.toHexString(digest.digest());
+			//write the index before the store file is created, so it is not pruned concurrently
+			new ContentStoreIndexEntry(jarpath, attrs.size(), attrs.getLastModifiedMillis(), hash).write(indexpath);
+			Path storepath = getContentStoreFilePath(hash);
+			try {
+				Files.move(temppath, storepath, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException e) {
+				//already stored for an other location, or by an other agent
+			}
+			return storepath;
+		} finally {
+			Files.deleteIfExists(temppath);
+		}
+	}
+
+	/**
+	 * Removes the files from the content store which are not referenced by the index.
+	 * <p>
+	 * The index entries for JARs that no longer exist are removed as well. The pruning is performed once for each
+	 * manager, when the content store is first used.
+	 */
+	private void pruneContentStoreOnce() {
+		if (!AIFU_contentStorePruned.compareAndSet(this, 0, 1)) {
+			return;
+		}
+		try {
+			pruneContentStore();
+		} catch (IOException e) {
+			//pruning is not required for the store to work
+			if (TestFlag.ENABLED) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void pruneContentStore() throws IOException {
+		//list the store files before reading the index
+		//the index is written before the store files are created, so a concurrently added file is always referenced
+		List<Path> storefiles = new ArrayList<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(getContentStoreDirectoryPath(),
+				"*" + CONTENT_STORE_FILE_EXTENSION)) {
+			for (Path p : ds) {
+				storefiles.add(p);
+			}
+		} catch (NoSuchFileException e) {
+			return;
+		}
+		if (storefiles.isEmpty()) {
+			return;
+		}
+		Set<String> referencedhashes = new HashSet<>();
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(getContentStoreIndexDirectoryPath())) {
+			for (Path indexpath : ds) {
+				if (indexpath.getFileName().toString().indexOf('.') >= 0) {
+					//temporary file
+					continue;
+				}
+				ContentStoreIndexEntry indexentry = ContentStoreIndexEntry.read(indexpath);
+				if (indexentry == null) {
+					continue;
+				}
+				if (!Files.exists(indexentry.jarPath)) {
+					Files.deleteIfExists(indexpath);
+					continue;
+				}
+				referencedhashes.add(indexentry.hash);
+			}
+		} catch (NoSuchFileException e) {
+		}
+		for (Path storefile : storefiles) {
+			String fname = storefile.getFileName().toString();
+			String hash = fname.substring(0, fname.length() - CONTENT_STORE_FILE_EXTENSION.length());
+			if (referencedhashes.contains(hash)) {
+				continue;
+			}
+			try {
+				Files.deleteIfExists(storefile);
+			} catch (IOException e) {
+				//may be in use on some platforms
+			}
+		}
+	}
+
+	private Path getContentStoreDirectoryPath() {
+		return getStorageDirectoryPath(STORAGE_SUBDIRECTORY_NAME + "/" + CONTENT_STORE_SUBDIRECTORY_NAME);
+	}
+
+	private Path getContentStoreIndexDirectoryPath() {
+		return getContentStoreDirectoryPath().resolve(CONTENT_STORE_INDEX_SUBDIRECTORY_NAME);
+	}
+
+	private Path getContentStoreFilePath(String hash) {
+		return getContentStoreDirectoryPath().resolve(hash + CONTENT_STORE_FILE_EXTENSION);
+	}
+
+	private Path getContentStoreIndexFilePath(Path jarpath) {
+		byte[] pathhash = FileUtils.getDefaultFileHasher().digest(jarpath.toString().getBytes(StandardCharsets.UTF_8));
+		return getContentStoreIndexDirectoryPath().resolve(StringUtils.toHexString(pathhash));
+	}
+
+	private static MessageDigest createContentStoreDigest() throws IOException {
+		try {
+			return MessageDigest.getInstance(CONTENT_STORE_HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Content store hash algorithm not found: " + CONTENT_STORE_HASH_ALGORITHM, e);
+		}
+	}
+
+	/**
+	 * Persisted index entry of the content store, which maps a loaded JAR to the hash of its contents.
+	 */
+	private static final class ContentStoreIndexEntry {
+		protected final Path jarPath;
+		protected final long size;
+		protected final long lastModifiedMillis;
+		protected final String hash;
+
+		public ContentStoreIndexEntry(Path jarPath, long size, long lastModifiedMillis, String hash) {
+			this.jarPath = jarPath;
+			this.size = size;
+			this.lastModifiedMillis = lastModifiedMillis;
+			this.hash = hash;
+		}
+
+		public static ContentStoreIndexEntry read(Path indexpath) {
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(indexpath)))) {
+				Path jarpath = Paths.get(in.readUTF());
+				long size = in.readLong();
+				long lastmodified = in.readLong();
+				String hash = in.readUTF();
+				return new ContentStoreIndexEntry(jarpath, size, lastmodified, hash);
+			} catch (IOException | InvalidPathException e) {
+				return null;
+			}
+		}
+
+		public void write(Path indexpath) throws IOException {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(baos)) {
+				out.writeUTF(jarPath.toString());
+				out.writeLong(size);
+				out.writeLong(lastModifiedMillis);
+				out.writeUTF(hash);
+			}
+			Files.createDirectories(indexpath.getParent());
+			Path temppath = indexpath.resolveSibling(indexpath.getFileName() + "." + UUID.randomUUID());
+			try {
+				Files.write(temppath, baos.toByteArray());
+				Files.move(temppath, indexpath, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temppath);
+			}
+		}
+
+		public boolean isSameFile(Path jarpath, FileEntry attrs) {
+			return jarPath.equals(jarpath) && size == attrs.size() && lastModifiedMillis == attrs.getLastModifiedMillis();
+		}
+	}
+
 	private Lock getClassPathLoadDirectoryLoadStateLock(Path loaddir) {
 		return loadDirectoryLoadStatesLocks.computeIfAbsent(loaddir, x -> ThreadUtils.newExclusiveLock());
 	}
@@ -766,7 +1012,7 @@ public class ClassPathLoadManager implements Closeable {
 									//some other agents are still using the classpath, do not try to load now
 									if (!loaduuid.equals(currentLoadUUID)) {
 										fillClassPathLoadData(localfiles, dirpath, readrelative, loaduuid,
-												filelocationidentifier);
+												filelocationidentifier, false);
 									}
 									//else the currently loaded classpath is already the same
 								} else {
@@ -779,7 +1025,7 @@ public class ClassPathLoadManager implements Closeable {
 										//the classpath changed or not yet loaded, try to load
 										if (thislocation == null) {
 											fillClassPathLoadData(localfiles, dirpath, readrelative, loaduuid,
-													filelocationidentifier);
+													filelocationidentifier, false);
 										} else {
 											executeClassPathLoadingAndWriteFileState(thislocation, localfiles,
 													targetdirpathkey, dirpath, thislocation.getIdentifier(), raf);
@@ -804,6 +1050,10 @@ public class ClassPathLoadManager implements Closeable {
 				ProviderHolderPathKey targetdirpathkey, SakerPath dirpath, String locationidentifier,
 				RandomAccessFile raf) throws IOException {
 			try {
+				//mark the classpath as not loaded while the loader modifies the files
+				//so others don't use a partially loaded classpath if the loading is interrupted
+				raf.seek(0);
+				raf.writeBoolean(false);
 				SakerPath relative = executeClassPathLoading(location, localfiles, targetdirpathkey, dirpath,
 						locationidentifier);
 				raf.seek(0);
@@ -846,25 +1096,29 @@ public class ClassPathLoadManager implements Closeable {
 			SakerPath relative = loader.loadTo(targetdirpathkey);
 			UUID newuuid = new UUID(CLASSPATH_LOADING_RANDOMER.nextLong(), CLASSPATH_LOADING_RANDOMER.nextLong());
 
-			fillClassPathLoadData(localfiles, dirpath, relative, newuuid, locationid);
+			//the classpath was loaded by us, the content store index may be outdated for the loaded JAR
+			fillClassPathLoadData(localfiles, dirpath, relative, newuuid, locationid, true);
 			return relative;
 		}
 
 		private void fillClassPathLoadData(LocalFileProvider localfiles, SakerPath dirpath, SakerPath relative,
-				UUID newuuid, String locationid) throws IOException {
+				UUID newuuid, String locationid, boolean loaded) throws IOException {
 			SakerPath classpathabsolute = dirpath.resolve(relative);
 			FileEntry cpattrs = localfiles.getFileAttributes(classpathabsolute);
 
 			ClassLoaderDataFinder datafinder;
+			Path classpathrealpath = LocalFileProvider.toRealPath(classpathabsolute);
 			if (cpattrs.isDirectory()) {
 				datafinder = new SakerPathClassLoaderDataFinder(localfiles, classpathabsolute);
 			} else if (FileUtils.hasExtensionIgnoreCase(classpathabsolute.getFileName(), "jar")) {
-				datafinder = new JarClassLoaderDataFinder(LocalFileProvider.toRealPath(classpathabsolute));
+				//the JAR is opened from the content store, but the classpath path stays in the load directory
+				datafinder = new JarClassLoaderDataFinder(
+						getContentStoreJarPath(classpathrealpath, cpattrs, loaded));
 			} else {
 				throw new IOException("Unsupported class path: " + classpathabsolute);
 			}
 			clearLoadState();
-			this.classPathPath = LocalFileProvider.toRealPath(classpathabsolute);
+			this.classPathPath = classpathrealpath;
 			this.loadedDataFinder = datafinder;
 			this.currentLoadUUID = newuuid;
 			this.locationIdentifier = locationid;
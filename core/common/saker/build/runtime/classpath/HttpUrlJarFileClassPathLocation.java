@@ -22,8 +22,11 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.UUID;
 
 import saker.build.file.path.ProviderHolderPathKey;
 import saker.build.file.path.SakerPath;
@@ -291,8 +294,22 @@ public final class HttpUrlJarFileClassPathLocation implements ClassPathLocation,
 				SakerPath outputpath = targetdirpath.resolve(filenamepath);
 
 				targetfp.createDirectories(targetdirpath);
-				try (InputStream is = conn.getInputStream()) {
-					targetfp.writeToFile(ByteSource.valueOf(is), outputpath);
+				//write to a temp file first and then move to the target location
+				//so a failed download doesn't leave a partially written file at the output path
+				SakerPath tempoutputpath = targetdirpath.resolve(filenamepath.getFileName() + "." + UUID.randomUUID());
+				try {
+					try (InputStream is = conn.getInputStream()) {
+						targetfp.writeToFile(ByteSource.valueOf(is), tempoutputpath, StandardOpenOption.CREATE_NEW);
+					}
+					targetfp.moveFile(tempoutputpath, outputpath, StandardCopyOption.REPLACE_EXISTING);
+				} catch (IOException e) {
+					//failed to download or move, clean up the temp file
+					try {
+						targetfp.delete(tempoutputpath);
+					} catch (IOException e2) {
+						e.addSuppressed(e2);
+					}
+					throw e;
 				}
 			} catch (Exception e) {
 				throw new IOException("Failed to download: " + url, e);
@@ -110,6 +110,7 @@ import saker.build.thirdparty.saker.util.rmi.wrap.RMITreeMapSerializeKeyRemoteVa
 import saker.build.thirdparty.saker.util.rmi.wrap.RMITreeMapWrapper;
 import saker.build.thirdparty.saker.util.thread.BooleanLatch;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.trace.BuildEventStream;
 import saker.build.trace.InternalBuildTrace;
 import saker.build.trace.InternalBuildTrace.NullInternalBuildTrace;
 import saker.build.trace.InternalBuildTraceImpl;
@@ -178,6 +179,10 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 	private TaskExecutionManager tasExecutionManager;
 
 	private final InternalBuildTrace buildTrace;
+	/**
+	 * The event stream to report the build events to, or <code>null</code> if there's no consumer.
+	 */
+	private final BuildEventStream buildEvents;
 
 	public ExecutionContextImpl(SakerEnvironmentImpl environment, ExecutionParametersImpl parameters) throws Exception {
 		this.environment = environment;
@@ -229,6 +234,9 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 		this.pathConfiguration = pathconfiguration;
 		this.scriptConfiguration = scriptconfiguration;
 		this.repositoryConfiguration = parameters.getRepositoryConfiguration();
+		//opened last, so it isn't leaked if the constructor fails
+		//the output is opened asynchronously, this doesn't block
+		this.buildEvents = BuildEventStream.openConfigured();
 	}
 
 	public void initialize(SakerProjectCache project) throws Exception {
@@ -385,6 +393,7 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 			pathprotectionsettings = new PathProtectionSettings(fpkeywriteenabledirs, prompter);
 		}
 		this.contentDatabase.setProtectionSettings(pathprotectionsettings);
+		this.contentDatabase.setBuildEventStream(buildEvents);
 
 		this.environmentExecutionKey = environment.getStartExecutionKey();
 
@@ -497,11 +506,21 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 
 			try {
 				this.buildTrace.startExecute();
+				BuildEventStream events = this.buildEvents;
+				if (events != null) {
+					events.buildStarted(taskid);
+				}
 				try {
 					manager.execute(taskfactory, taskid, this, taskinvokers, buildCacheAccessor, buildTrace);
 					this.buildTrace.endExecute(true);
+					if (events != null) {
+						events.buildFinished(true);
+					}
 				} catch (Throwable e) {
 					this.buildTrace.endExecute(false);
+					if (events != null) {
+						events.buildFinished(false);
+					}
 					throw e;
 				}
 			} finally {
@@ -690,6 +709,7 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 			try {
 				if (contentdb != null) {
 					contentdb.setProtectionSettings(null);
+					contentdb.setBuildEventStream(null);
 				}
 				Map<TaskIdentifier, TaskExecutionResult<?>> cacheabletasks;
 				if (results == null || !executionParameters.isPublishCachedTasks() || buildCacheAccessor == null) {
@@ -720,6 +740,7 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 						ioexc = IOUtils.closeExc(ioexc, ownedExecutionCache, buildTrace);
 					}
 				}
+				ioexc = IOUtils.closeExc(ioexc, buildEvents);
 			}
 			IOUtils.throwExc(ioexc);
 		} finally {
@@ -797,6 +818,10 @@ public final class ExecutionContextImpl implements ExecutionContext, InternalExe
 		return this.buildTrace;
 	}
 
+	public BuildEventStream getBuildEventStream() {
+		return buildEvents;
+	}
+
 	@Override
 	public boolean isRecordsBuildTrace() {
 		return this.buildTrace != NullInternalBuildTrace.INSTANCE;
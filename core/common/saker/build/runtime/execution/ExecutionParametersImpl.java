@@ -23,10 +23,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.UUID;
 import java.util.concurrent.locks.Lock;
 
 import saker.build.cache.BuildDataCache;
+import saker.build.exception.InvalidPathFormatException;
 import saker.build.file.path.PathKey;
 import saker.build.file.path.ProviderHolderPathKey;
 import saker.build.file.path.SakerPath;
@@ -88,6 +90,8 @@ public final class ExecutionParametersImpl implements ExecutionParameters {
 
 	private BuildInformation buildInfo;
 
+	private NavigableSet<SakerPath> changedFilePaths;
+
 	public ExecutionParametersImpl() {
 	}
 
@@ -113,6 +117,7 @@ public final class ExecutionParametersImpl implements ExecutionParameters {
 		this.buildTraceOutputPathKey = copy.buildTraceOutputPathKey;
 		this.buildInfo = copy.buildInfo;
 		this.buildTraceEmbedArtifacts = copy.buildTraceEmbedArtifacts;
+		this.changedFilePaths = copy.changedFilePaths;
 	}
 
 	public void defaultize() throws IOException {
@@ -241,6 +246,20 @@ public final class ExecutionParametersImpl implements ExecutionParameters {
 		return buildInfo;
 	}
 
+	/**
+	 * Gets the paths of the files that were modified since the previous build finished.
+	 * <p>
+	 * If the changed paths are known, only the tasks that depend on them (or on the files that are modified during
+	 * the build) have their file dependencies checked. Files under a directory in the set are considered to be
+	 * changed as well.
+	 * 
+	 * @return The absolute paths of the changed files or <code>null</code> if they are unknown and all file
+	 *             dependencies should be checked.
+	 */
+	public NavigableSet<SakerPath> getChangedFilePaths() {
+		return changedFilePaths;
+	}
+
 	public void setSecretInputReader(SecretInputReader secretInputReader) {
 		this.secretInputReader = secretInputReader;
 	}
@@ -341,6 +360,27 @@ public final class ExecutionParametersImpl implements ExecutionParameters {
 		this.buildInfo = buildInfo;
 	}
 
+	/**
+	 * Sets the paths of the files that were modified since the previous build finished.
+	 * 
+	 * @param changedFilePaths
+	 *            The absolute changed paths or <code>null</code> if they are unknown.
+	 * @throws InvalidPathFormatException
+	 *             If any of the paths are relative.
+	 * @see #getChangedFilePaths()
+	 */
+	public void setChangedFilePaths(Collection<? extends SakerPath> changedFilePaths)
+			throws InvalidPathFormatException {
+		if (changedFilePaths == null) {
+			this.changedFilePaths = null;
+			return;
+		}
+		for (SakerPath path : changedFilePaths) {
+			SakerPathFiles.requireAbsolutePath(path);
+		}
+		this.changedFilePaths = ImmutableUtils.makeImmutableNavigableSet(changedFilePaths);
+	}
+
 	public static class BuildInformation implements Externalizable {
 		private static final long serialVersionUID = 1L;
 
@@ -502,6 +542,7 @@ public final class ExecutionParametersImpl implements ExecutionParameters {
 			out.writeObject(params.buildTraceOutputPathKey);
 			out.writeBoolean(params.buildTraceEmbedArtifacts);
 			out.writeSerializedObject(params.buildInfo);
+			SerialUtils.writeExternalCollection(out, params.changedFilePaths);
 		}
 
 		@Override
@@ -539,6 +580,7 @@ public final class ExecutionParametersImpl implements ExecutionParameters {
 			params.buildTraceOutputPathKey = (ProviderHolderPathKey) in.readObject();
 			params.buildTraceEmbedArtifacts = in.readBoolean();
 			params.buildInfo = (BuildInformation) in.readObject();
+			params.changedFilePaths = SerialUtils.readExternalSortedImmutableNavigableSet(in);
 		}
 
 		@Override
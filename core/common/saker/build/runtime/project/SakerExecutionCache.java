@@ -21,6 +21,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
@@ -65,6 +67,8 @@ import saker.build.thirdparty.saker.util.function.LazySupplier;
 import saker.build.thirdparty.saker.util.io.IOUtils;
 import saker.build.thirdparty.saker.util.io.ResourceCloser;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.trace.BuildTrace;
+import saker.build.trace.InternalBuildTrace;
 import saker.build.util.cache.CacheKey;
 
 public class SakerExecutionCache implements Closeable {
@@ -87,6 +91,15 @@ public class SakerExecutionCache implements Closeable {
 	private Map<String, ExecutionCacheRepositoryBuildEnvironmentBase> loadedRepositoryBuildEnvironments = Collections
 			.emptyNavigableMap();
 
+	/**
+	 * The configurations loaded by {@link #preload}, which are not yet used by {@link #set}.
+	 */
+	private ExecutionRepositoryConfiguration preloadedRepositoryConfiguration;
+	private ExecutionScriptConfiguration preloadedScriptConfiguration;
+	private Map<String, ? extends SakerRepository> preloadedRepositories = Collections.emptyNavigableMap();
+	private Map<ExecutionScriptConfiguration.ScriptProviderLocation, ScriptAccessorClassPathData> preloadedScriptProviderLocators = Collections
+			.emptyMap();
+
 	private final ConcurrentPrependAccumulator<ClassLoaderResolver> trackedClassLoaderResolvers = new ConcurrentPrependAccumulator<>();
 	private Map<String, ClassLoaderResolver> registeredClassLoaderResolvers = Collections.emptyNavigableMap();
 
@@ -224,8 +237,27 @@ public class SakerExecutionCache implements Closeable {
 			//close any resources which were loaded but are unused due to an exception
 			//the resource closer is cleared if the loading is successful
 			try (ResourceCloser closer = new ResourceCloser()) {
-				Map<String, ? extends SakerRepository> loadedrepositories = loadRepositoriesForConfiguration(
-						repositoryconfig, closer);
+				Set<? extends ScriptProviderLocation> scriptproviderlocators = scriptconfig
+						.getScriptProviderLocations();
+				Map<ScriptProviderLocation, ScriptAccessorClassPathData> loadedscriptlocators;
+				Map<String, ? extends SakerRepository> loadedrepositories;
+				if (preloadedRepositoryConfiguration != null
+						&& ObjectUtils.equalsExcCheck(repositoryconfig, preloadedRepositoryConfiguration)
+						&& ObjectUtils.equalsExcCheck(scriptconfig, preloadedScriptConfiguration)) {
+					//use the preloaded classpaths, but create the build repositories for this configuration
+					loadedscriptlocators = preloadedScriptProviderLocators;
+					loadedrepositories = preloadedRepositories;
+					closer.add(loadedrepositories.values());
+					preloadedRepositoryConfiguration = null;
+					preloadedScriptConfiguration = null;
+					preloadedRepositories = Collections.emptyNavigableMap();
+					preloadedScriptProviderLocators = Collections.emptyMap();
+				} else {
+					IOUtils.closePrint(this::clearPreloadedConfiguration);
+					loadedscriptlocators = new HashMap<>();
+					loadedrepositories = loadClassPathsForConfiguration(repositoryconfig, scriptproviderlocators,
+							loadedscriptlocators, closer);
+				}
 				Map<String, BuildRepository> loadedbuildrepositories = new TreeMap<>();
 				Map<String, ExecutionCacheRepositoryBuildEnvironmentBase> loadedrepositorybuildenvironments = new TreeMap<>();
 				Collection<ClassLoaderResolver> trackedclresolvers = new ArrayList<>();
@@ -268,15 +300,9 @@ public class SakerExecutionCache implements Closeable {
 					}
 				}
 
-				Set<? extends ScriptProviderLocation> scriptproviderlocators = scriptconfig
-						.getScriptProviderLocations();
-				Map<ScriptProviderLocation, ScriptAccessorClassPathData> loadedscriptlocators = new HashMap<>();
-				if (!scriptproviderlocators.isEmpty()) {
-					ClassPathLoadManager classpathmanager = environment.getClassPathManager();
+				if (!loadedscriptlocators.isEmpty()) {
 					for (ScriptProviderLocation scriptproviderlocator : scriptproviderlocators) {
-						ScriptAccessorClassPathData classpathdata = environment.getCachedData(
-								new ScriptAccessorClassPathCacheKey(scriptproviderlocator, classpathmanager));
-						loadedscriptlocators.put(scriptproviderlocator, classpathdata);
+						ScriptAccessorClassPathData classpathdata = loadedscriptlocators.get(scriptproviderlocator);
 						ClassLoader scriptcl = classpathdata.getClassLoader();
 						if (scriptcl != null) {
 							ScriptAccessProvider scriptaccessor = classpathdata.getScriptAccessor();
@@ -317,50 +343,113 @@ public class SakerExecutionCache implements Closeable {
 		}
 	}
 
-	private Map<String, ? extends SakerRepository> loadRepositoriesForConfiguration(
-			ExecutionRepositoryConfiguration repositoryconfig, ResourceCloser closer) throws IOException {
-		RepositoryManager repositorymanager = environment.getRepositoryManager();
-		Collection<? extends RepositoryConfig> repos;
-		if (repositoryconfig == null) {
-			//no repositories
-			return Collections.emptyNavigableMap();
+	/**
+	 * Loads the classpaths of the repositories and script providers of the given configuration ahead of an execution.
+	 * <p>
+	 * The loaded repositories and script providers are used by the next {@link #set} call if it specifies the same
+	 * repository and script configuration. The build repositories are not created by this method, but by that
+	 * {@link #set} call, for the path configuration and user parameters of its execution.
+	 * 
+	 * @see #set
+	 */
+	public void preload(ExecutionRepositoryConfiguration repositoryconfig, ExecutionScriptConfiguration scriptconfig)
+			throws InterruptedException, IOException, Exception {
+		final Lock lock = accessLock;
+		lock.lockInterruptibly();
+		try {
+			IOUtils.closePrint(this::clearPreloadedConfiguration);
+			try (ResourceCloser closer = new ResourceCloser()) {
+				Map<ScriptProviderLocation, ScriptAccessorClassPathData> loadedscriptlocators = new HashMap<>();
+				Map<String, ? extends SakerRepository> loadedrepositories = loadClassPathsForConfiguration(
+						repositoryconfig, scriptconfig.getScriptProviderLocations(), loadedscriptlocators, closer);
+				closer.clearWithoutClosing();
+
+				preloadedRepositoryConfiguration = repositoryconfig;
+				preloadedScriptConfiguration = scriptconfig;
+				preloadedRepositories = loadedrepositories;
+				preloadedScriptProviderLocators = ImmutableUtils.unmodifiableMap(loadedscriptlocators);
+			}
+		} finally {
+			lock.unlock();
 		}
-		repos = repositoryconfig.getRepositories();
-		if (ObjectUtils.isNullOrEmpty(repos)) {
-			//no repositories
+	}
+
+	private Map<String, ? extends SakerRepository> loadClassPathsForConfiguration(
+			ExecutionRepositoryConfiguration repositoryconfig,
+			Set<? extends ScriptProviderLocation> scriptproviderlocators,
+			Map<ScriptProviderLocation, ScriptAccessorClassPathData> loadedscriptlocators, ResourceCloser closer)
+			throws Exception {
+		List<ClassPathLoader> loaders = new ArrayList<>();
+		if (repositoryconfig != null) {
+			Collection<? extends RepositoryConfig> repos = repositoryconfig.getRepositories();
+			if (!ObjectUtils.isNullOrEmpty(repos)) {
+				RepositoryManager repositorymanager = environment.getRepositoryManager();
+				for (RepositoryConfig repoconfig : repos) {
+					loaders.add(new RepositoryClassPathLoader(repositorymanager, repoconfig, closer));
+				}
+			}
+		}
+		if (!ObjectUtils.isNullOrEmpty(scriptproviderlocators)) {
+			ClassPathLoadManager classpathmanager = environment.getClassPathManager();
+			for (ScriptProviderLocation scriptproviderlocator : scriptproviderlocators) {
+				loaders.add(new ScriptProviderClassPathLoader(classpathmanager, scriptproviderlocator));
+			}
+		}
+		if (loaders.isEmpty()) {
+			//no repositories and script providers
 			return Collections.emptyNavigableMap();
 		}
-		//XXX we could parallelize the classpath loading
+		//the classpaths are independent from each other, so they can be loaded concurrently
+		//    the loaded repositories are added to the closer as soon as they're loaded, so they're closed in case of errors
+		if (loaders.size() == 1) {
+			loaders.get(0).run();
+		} else {
+			ThreadUtils.parallelRunner().setNamePrefix("classpath-load-").runItems(loaders, ClassPathLoader::run);
+		}
+		Exception exc = null;
+		Map<String, Object> loadtimes = new LinkedHashMap<>();
+		for (ClassPathLoader loader : loaders) {
+			exc = IOUtils.addExc(exc, loader.exception);
+			loadtimes.put(loader.getTraceIdentifier(), loader.loadNanos / 1_000_000);
+		}
+		if (exc != null) {
+			throw exc;
+		}
+
 		Map<String, SakerRepository> result = new TreeMap<>();
-		try {
-			for (RepositoryConfig repoconfig : repos) {
-				String repoid = repoconfig.getRepositoryIdentifier();
-				ClassPathLocation repolocation = repoconfig.getClassPathLocation();
-				ClassPathServiceEnumerator<? extends SakerRepositoryFactory> enumerator = repoconfig
-						.getRepositoryFactoryEnumerator();
-				SakerRepository repo = loadRepositoryFromManager(repositorymanager, repolocation, enumerator);
+		for (ClassPathLoader loader : loaders) {
+			if (loader instanceof RepositoryClassPathLoader) {
+				RepositoryClassPathLoader repoloader = (RepositoryClassPathLoader) loader;
+				SakerRepository repo = repoloader.repository;
 				if (repo == null) {
 					//the subclass decided to handle the exception, and returns null as this repository shouldn't be used
 					continue;
 				}
-				closer.add(repo);
-				SakerRepository prev = result.putIfAbsent(repoid, repo);
+				SakerRepository prev = result.putIfAbsent(repoloader.repositoryConfig.getRepositoryIdentifier(), repo);
 				if (prev != null) {
 					throw new AssertionError("Multiple repositories found for identifier. "
 							+ "This should not happen, as ExecutionRepositoryConfiguration should already handle this case.");
 				}
+			} else {
+				ScriptProviderClassPathLoader scriptloader = (ScriptProviderClassPathLoader) loader;
+				loadedscriptlocators.put(scriptloader.scriptProviderLocation, scriptloader.classPathData);
 			}
-		} catch (Exception e) {
-			//if an exception is thrown, close the previously loaded repositories
-			IOException cexc = IOUtils.closeExc(result.values());
-			IOUtils.addExc(e, cexc);
-			throw e;
 		}
+		//not recorded as environment values, as the load times are specific to this build
+		InternalBuildTrace.current().addValues(ImmutableUtils.singletonMap("Class path load times (ms)", loadtimes),
+				BuildTrace.VALUE_CATEGORY_CONFIGURATION);
 		return result;
 	}
 
-	//can be overridden to handle the exception of loading the classpath
-	//subclasses can return null to signal that the repository load failure should be ignored
+	/**
+	 * Loads the repository from the given location.
+	 * <p>
+	 * Can be overridden to handle the exception of loading the classpath. Subclasses can return <code>null</code> to
+	 * signal that the repository load failure should be ignored.
+	 * <p>
+	 * The repositories of a configuration are loaded in parallel, so this method may be called concurrently on
+	 * multiple threads for different repositories. Overriding implementations must be thread-safe.
+	 */
 	protected SakerRepository loadRepositoryFromManager(RepositoryManager repositorymanager,
 			ClassPathLocation repolocation, ClassPathServiceEnumerator<? extends SakerRepositoryFactory> enumerator)
 			throws IOException {
@@ -418,6 +507,81 @@ public class SakerExecutionCache implements Closeable {
 		}
 	}
 
+	private static abstract class ClassPathLoader {
+		protected Exception exception;
+		protected long loadNanos;
+
+		public final void run() {
+			long start = System.nanoTime();
+			try {
+				load();
+			} catch (Exception e) {
+				exception = e;
+			} finally {
+				loadNanos = System.nanoTime() - start;
+			}
+		}
+
+		protected abstract void load() throws Exception;
+
+		protected abstract String getTraceIdentifier();
+	}
+
+	private final class RepositoryClassPathLoader extends ClassPathLoader {
+		private final RepositoryManager repositoryManager;
+		protected final RepositoryConfig repositoryConfig;
+		private final ResourceCloser closer;
+
+		protected SakerRepository repository;
+
+		public RepositoryClassPathLoader(RepositoryManager repositoryManager, RepositoryConfig repositoryConfig,
+				ResourceCloser closer) {
+			this.repositoryManager = repositoryManager;
+			this.repositoryConfig = repositoryConfig;
+			this.closer = closer;
+		}
+
+		@Override
+		protected void load() throws Exception {
+			SakerRepository repo = loadRepositoryFromManager(repositoryManager,
+					repositoryConfig.getClassPathLocation(), repositoryConfig.getRepositoryFactoryEnumerator());
+			if (repo != null) {
+				closer.add(repo);
+			}
+			repository = repo;
+		}
+
+		@Override
+		protected String getTraceIdentifier() {
+			return "repo/" + repositoryConfig.getRepositoryIdentifier();
+		}
+	}
+
+	private final class ScriptProviderClassPathLoader extends ClassPathLoader {
+		private final ClassPathLoadManager classPathManager;
+		protected final ScriptProviderLocation scriptProviderLocation;
+
+		protected ScriptAccessorClassPathData classPathData;
+
+		public ScriptProviderClassPathLoader(ClassPathLoadManager classPathManager,
+				ScriptProviderLocation scriptProviderLocation) {
+			this.classPathManager = classPathManager;
+			this.scriptProviderLocation = scriptProviderLocation;
+		}
+
+		@Override
+		protected void load() throws Exception {
+			classPathData = environment
+					.getCachedData(new ScriptAccessorClassPathCacheKey(scriptProviderLocation, classPathManager));
+		}
+
+		@Override
+		protected String getTraceIdentifier() {
+			ClassPathLocation cplocation = scriptProviderLocation.getClassPathLocation();
+			return "scripting/" + (cplocation == null ? "no-cp-location" : cplocation.getIdentifier());
+		}
+	}
+
 	public interface RepositoryBuildSharedObjectProvider {
 		public RepositoryBuildSharedObjectLookup getLookup(String repositoryid);
 	}
@@ -437,6 +601,15 @@ public class SakerExecutionCache implements Closeable {
 				&& ObjectUtils.equalsExcCheck(userparameters, currentUserParameters);
 	}
 
+	private void clearPreloadedConfiguration() throws IOException {
+		preloadedRepositoryConfiguration = null;
+		preloadedScriptConfiguration = null;
+		preloadedScriptProviderLocators = Collections.emptyMap();
+		Map<String, ? extends SakerRepository> repositories = preloadedRepositories;
+		preloadedRepositories = Collections.emptyNavigableMap();
+		IOUtils.close(repositories.values());
+	}
+
 	private void clearCurrentConfiguration() throws IOException {
 		currentPathConfiguration = null;
 		currentRepositoryConfiguration = null;
@@ -475,6 +648,8 @@ public class SakerExecutionCache implements Closeable {
 		loadedScriptProviderLocators = Collections.emptyMap();
 		trackedClassLoaderResolvers.clear();
 
+		exc = IOUtils.closeExc(exc, this::clearPreloadedConfiguration);
+
 		IOUtils.throwExc(exc);
 	}
 
@@ -105,6 +105,18 @@ public class SakerProjectCache implements ProjectCacheHandle {
 		this.executionCache = new SakerExecutionCache(environment);
 	}
 
+	/**
+	 * Creates a new project cache that uses the given execution cache.
+	 * <p>
+	 * The execution cache will be closed with the project.
+	 * 
+	 * @see SakerExecutionCache#preload
+	 */
+	public SakerProjectCache(SakerEnvironmentImpl environment, SakerExecutionCache executionCache) {
+		this.environment = environment;
+		this.executionCache = executionCache;
+	}
+
 	public SakerEnvironmentImpl getEnvironment() {
 		return environment;
 	}
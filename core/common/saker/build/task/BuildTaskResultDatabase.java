@@ -23,21 +23,27 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 
 import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
 import saker.build.ide.configuration.IDEConfiguration;
 import saker.build.ide.configuration.SimpleIDEConfiguration;
 import saker.build.scripting.ScriptInformationProvider;
+import saker.build.task.TaskExecutionResult.FileDependencies;
+import saker.build.task.TaskExecutionResult.TaskDependencies;
 import saker.build.task.identifier.TaskIdentifier;
 import saker.build.thirdparty.saker.util.ImmutableUtils;
 import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.io.SerialUtils;
 import saker.build.trace.InternalBuildTraceImpl;
+import saker.build.util.serial.ObjectSerializationException;
 import testing.saker.build.flag.TestFlag;
 
 public class BuildTaskResultDatabase implements Externalizable {
@@ -59,6 +65,10 @@ public class BuildTaskResultDatabase implements Externalizable {
 	protected transient Map<TaskIdentifier, TaskExecutionResult<?>> cacheableTaskIdResults;
 
 	private transient Collection<IDEConfiguration> ideConfigs = null;
+	/**
+	 * Lazily built from the task results, not persisted.
+	 */
+	private transient volatile FileDependentTaskIndex fileDependentTaskIndex;
 
 	/**
 	 * For {@link Externalizable}.
@@ -70,18 +80,45 @@ public class BuildTaskResultDatabase implements Externalizable {
 		return EMPTY_INSTANCE;
 	}
 
+	/**
+	 * Creates a new database for the results of a finished build execution.
+	 * <p>
+	 * The task results are compacted to immutable collections, as the database may be kept in memory until the next
+	 * build.
+	 */
 	public static BuildTaskResultDatabase create(Map<TaskIdentifier, TaskExecutionResult<?>> taskIdTaskResults,
 			Map<TaskIdentifier, TaskExecutionResult<?>> abandonedTaskIdResults,
 			Map<TaskIdentifier, TaskExecutionResult<?>> cacheableTaskIdResults,
 			NavigableMap<SakerPath, ScriptInformationProvider> scriptInformationProviders) {
 		BuildTaskResultDatabase result = new BuildTaskResultDatabase();
 		result.taskIdTaskResults = new HashMap<>(taskIdTaskResults);
+		Map<SakerPath, SakerPath> pathinterner = new HashMap<>();
+		for (TaskExecutionResult<?> taskres : result.taskIdTaskResults.values()) {
+			taskres.compact(pathinterner);
+		}
 		result.abandonedTaskIdResults = new HashMap<>(abandonedTaskIdResults);
 		result.cacheableTaskIdResults = new HashMap<>(cacheableTaskIdResults);
 		result.scriptInformationProviders = ImmutableUtils.makeImmutableNavigableMap(scriptInformationProviders);
 		return result;
 	}
 
+	/**
+	 * Creates a new database for the results that were read by
+	 * {@link #readTaskResultsExternal(ObjectInput, Map)} and
+	 * {@link #readScriptInformationProvidersExternal(ObjectInput)}.
+	 * <p>
+	 * The argument map is used directly by the created database.
+	 */
+	public static BuildTaskResultDatabase createRead(Map<TaskIdentifier, TaskExecutionResult<?>> taskIdTaskResults,
+			NavigableMap<SakerPath, ScriptInformationProvider> scriptInformationProviders) {
+		BuildTaskResultDatabase result = new BuildTaskResultDatabase();
+		result.taskIdTaskResults = taskIdTaskResults;
+		result.scriptInformationProviders = scriptInformationProviders;
+		result.abandonedTaskIdResults = Collections.emptyMap();
+		result.cacheableTaskIdResults = Collections.emptyMap();
+		return result;
+	}
+
 	public Collection<? extends IDEConfiguration> getIDEConfigurations() {
 		if (ideConfigs != null) {
 			return ideConfigs;
@@ -99,6 +136,44 @@ public class BuildTaskResultDatabase implements Externalizable {
 		return result;
 	}
 
+	/**
+	 * Gets the identifiers of the tasks which need their file dependencies checked if the files at the given paths
+	 * change.
+	 * <p>
+	 * The result contains the tasks that have input or output file dependencies on the argument paths, on any files
+	 * under them, or on any of their parent directories. The tasks which have file addition dependencies are always
+	 * part of the result, as the files they collect cannot be determined without querying the file system.
+	 * 
+	 * @param paths
+	 *            The absolute paths of the changed files.
+	 * @return The task identifiers.
+	 * @see #collectFileDependentTaskIds(SakerPath, Collection)
+	 */
+	public Set<TaskIdentifier> getFileDependentTaskIds(Iterable<? extends SakerPath> paths) {
+		FileDependentTaskIndex index = getFileDependentTaskIndex();
+		Set<TaskIdentifier> result = new HashSet<>(index.unindexedTaskIds);
+		for (SakerPath path : paths) {
+			index.collect(path, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Collects the identifiers of the tasks that have input or output file dependencies on the argument path, on any
+	 * files under it, or on any of its parent directories.
+	 * <p>
+	 * Unlike {@link #getFileDependentTaskIds(Iterable)}, this method doesn't add the tasks that need to be checked
+	 * regardless of the changed paths.
+	 * 
+	 * @param path
+	 *            The absolute path of the changed file.
+	 * @param result
+	 *            The collection to add the task identifiers to.
+	 */
+	public void collectFileDependentTaskIds(SakerPath path, Collection<? super TaskIdentifier> result) {
+		getFileDependentTaskIndex().collect(path, result);
+	}
+
 	public NavigableMap<SakerPath, ? extends ScriptInformationProvider> getScriptInformationProviders() {
 		return scriptInformationProviders;
 	}
@@ -140,24 +215,82 @@ public class BuildTaskResultDatabase implements Externalizable {
 		return ter.getOutput();
 	}
 
-	@Override
-	public void writeExternal(ObjectOutput out) throws IOException {
-		writeExternal(out, false);
+	private FileDependentTaskIndex getFileDependentTaskIndex() {
+		FileDependentTaskIndex index = fileDependentTaskIndex;
+		if (index == null) {
+			//building it concurrently multiple times is harmless
+			index = new FileDependentTaskIndex(taskIdTaskResults);
+			fileDependentTaskIndex = index;
+		}
+		return index;
 	}
 
-	public void writeExternal(ObjectOutput out, boolean flushperiodically) throws IOException {
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
 		Map<TaskIdentifier, TaskExecutionResult<?>> results = taskIdTaskResults;
 		out.writeInt(results.size());
 		for (Entry<TaskIdentifier, TaskExecutionResult<?>> entry : results.entrySet()) {
 			out.writeObject(entry.getKey());
 			out.writeObject(entry.getValue());
-			if (flushperiodically) {
-				out.flush();
+		}
+		SerialUtils.writeExternalMap(out, scriptInformationProviders);
+	}
+
+	/**
+	 * Writes at most the given number of task results from the argument iterator.
+	 * <p>
+	 * The written entries are terminated by a <code>null</code> object, and can be read by
+	 * {@link #readTaskResultsExternal(ObjectInput, Map)}.
+	 */
+	public static void writeTaskResultsExternal(ObjectOutput out,
+			Iterator<? extends Entry<TaskIdentifier, TaskExecutionResult<?>>> it, int maxcount) throws IOException {
+		for (int c = 0; c < maxcount && it.hasNext(); c++) {
+			Entry<TaskIdentifier, TaskExecutionResult<?>> entry = it.next();
+			out.writeObject(entry.getKey());
+			out.writeObject(entry.getValue());
+		}
+		out.writeObject(null);
+	}
+
+	/**
+	 * Reads the task results written by {@link #writeTaskResultsExternal(ObjectOutput, Iterator, int)} into the
+	 * argument map.
+	 * <p>
+	 * The entries which fail to be read are omitted.
+	 */
+	public static void readTaskResultsExternal(ObjectInput in,
+			Map<TaskIdentifier, TaskExecutionResult<?>> taskidtaskresults) throws IOException, ClassNotFoundException {
+		while (true) {
+			Object keyobj;
+			try {
+				keyobj = in.readObject();
+			} catch (ClassNotFoundException | ObjectSerializationException e) {
+				//other IOExceptions are propagated, as they are likely to be protocol errors that are not recoverable
+				skipTaskResultValue(in, e);
+				continue;
+			}
+			if (keyobj == null) {
+				break;
+			}
+			if (!(keyobj instanceof TaskIdentifier)) {
+				//if the class for the key is modified to no longer extend it
+				skipTaskResultValue(in, new ClassCastException(
+						"Read object is not a " + TaskIdentifier.class.getSimpleName() + ": " + keyobj.getClass()));
+				continue;
 			}
+			readTaskResultValue(in, (TaskIdentifier) keyobj, taskidtaskresults);
 		}
+	}
+
+	public void writeScriptInformationProvidersExternal(ObjectOutput out) throws IOException {
 		SerialUtils.writeExternalMap(out, scriptInformationProviders);
 	}
 
+	public static NavigableMap<SakerPath, ScriptInformationProvider> readScriptInformationProvidersExternal(
+			ObjectInput in) throws IOException, ClassNotFoundException {
+		return SerialUtils.readExternalSortedImmutableNavigableMap(in);
+	}
+
 	@Override
 	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
 		this.taskIdTaskResults = new HashMap<>();
@@ -168,37 +301,119 @@ public class BuildTaskResultDatabase implements Externalizable {
 				taskid = (TaskIdentifier) in.readObject();
 			} catch (ClassNotFoundException | IOException | ClassCastException e) {
 				//catch classcastexception too, if the class for the key is modified to no longer extend it
-				//failed to read key
-				//read the value from the stream, so next entry can be read
-				try {
-					in.readObject();
-				} catch (ClassNotFoundException | IOException e2) {
-					e.addSuppressed(e2);
-					//failed to read value, continue to the next entry
-				}
-				if (TestFlag.ENABLED) {
-					System.err.println(getClass().getSimpleName() + " readExternal TaskIdentifier: " + e);
-				}
-				InternalBuildTraceImpl.serializationException(e);
-				continue;
-			}
-			TaskExecutionResult<?> valexcres;
-			try {
-				valexcres = (TaskExecutionResult<?>) in.readObject();
-			} catch (ClassNotFoundException | IOException e) {
-				if (TestFlag.ENABLED) {
-					System.err.println(getClass().getSimpleName() + " readExternal TaskExecutionResult: " + e);
-				}
-				InternalBuildTraceImpl.serializationException(e);
-				//failed to read value
+				skipTaskResultValue(in, e);
 				continue;
 			}
-			//successfully read key and value, put it in the map
-			taskIdTaskResults.put(taskid, valexcres);
+			readTaskResultValue(in, taskid, taskIdTaskResults);
 		}
 		this.scriptInformationProviders = SerialUtils.readExternalSortedImmutableNavigableMap(in);
 		this.abandonedTaskIdResults = Collections.emptyMap();
 		this.cacheableTaskIdResults = Collections.emptyMap();
 	}
 
+	private static void skipTaskResultValue(ObjectInput in, Exception e) {
+		//failed to read key
+		//read the value from the stream, so next entry can be read
+		try {
+			in.readObject();
+		} catch (ClassNotFoundException | IOException e2) {
+			e.addSuppressed(e2);
+			//failed to read value, continue to the next entry
+		}
+		if (TestFlag.ENABLED) {
+			System.err.println(BuildTaskResultDatabase.class.getSimpleName() + " readExternal TaskIdentifier: " + e);
+		}
+		InternalBuildTraceImpl.serializationException(e);
+	}
+
+	private static void readTaskResultValue(ObjectInput in, TaskIdentifier taskid,
+			Map<TaskIdentifier, TaskExecutionResult<?>> taskidtaskresults) {
+		TaskExecutionResult<?> valexcres;
+		try {
+			valexcres = (TaskExecutionResult<?>) in.readObject();
+		} catch (ClassNotFoundException | IOException e) {
+			if (TestFlag.ENABLED) {
+				System.err.println(
+						BuildTaskResultDatabase.class.getSimpleName() + " readExternal TaskExecutionResult: " + e);
+			}
+			InternalBuildTraceImpl.serializationException(e);
+			//failed to read value
+			return;
+		}
+		//successfully read key and value, put it in the map
+		taskidtaskresults.put(taskid, valexcres);
+	}
+
+	/**
+	 * Reverse index of the file dependencies of the task results.
+	 */
+	private static final class FileDependentTaskIndex {
+		protected final NavigableMap<SakerPath, Set<TaskIdentifier>> pathTaskIds = new TreeMap<>();
+		/**
+		 * The tasks which need to be checked regardless of the changed paths.
+		 */
+		protected final Set<TaskIdentifier> unindexedTaskIds = new HashSet<>();
+
+		public FileDependentTaskIndex(Map<TaskIdentifier, TaskExecutionResult<?>> taskresults) {
+			for (Entry<TaskIdentifier, TaskExecutionResult<?>> entry : taskresults.entrySet()) {
+				TaskIdentifier taskid = entry.getKey();
+				if (!add(taskid, entry.getValue())) {
+					unindexedTaskIds.add(taskid);
+				}
+			}
+		}
+
+		public void collect(SakerPath path, Collection<? super TaskIdentifier> result) {
+			for (Set<TaskIdentifier> taskids : SakerPathFiles.getPathSubMapDirectoryChildren(pathTaskIds, path, true)
+					.values()) {
+				result.addAll(taskids);
+			}
+			for (SakerPath parent = path.getParent(); parent != null; parent = parent.getParent()) {
+				Set<TaskIdentifier> taskids = pathTaskIds.get(parent);
+				if (taskids != null) {
+					result.addAll(taskids);
+				}
+			}
+		}
+
+		private boolean add(TaskIdentifier taskid, TaskExecutionResult<?> taskres) {
+			TaskDependencies deps = taskres.getDependencies();
+			if (deps == null) {
+				return false;
+			}
+			Map<Object, FileDependencies> taggedfiledeps = deps.getTaggedFileDependencies();
+			if (ObjectUtils.isNullOrEmpty(taggedfiledeps)) {
+				return true;
+			}
+			for (FileDependencies filedeps : taggedfiledeps.values()) {
+				if (!ObjectUtils.isNullOrEmpty(filedeps.getAdditionDependencies())) {
+					return false;
+				}
+			}
+			SakerPath workingdir = taskres.getExecutionWorkingDirectory();
+			for (FileDependencies filedeps : taggedfiledeps.values()) {
+				if (!add(taskid, filedeps.getInputFileDependencies(), workingdir)
+						|| !add(taskid, filedeps.getOutputFileDependencies(), workingdir)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean add(TaskIdentifier taskid, NavigableMap<SakerPath, ?> paths, SakerPath workingdir) {
+			if (ObjectUtils.isNullOrEmpty(paths)) {
+				return true;
+			}
+			for (SakerPath path : paths.keySet()) {
+				if (path.isRelative()) {
+					if (workingdir == null) {
+						return false;
+					}
+					path = workingdir.resolve(path);
+				}
+				pathTaskIds.computeIfAbsent(path, x -> new HashSet<>()).add(taskid);
+			}
+			return true;
+		}
+	}
 }
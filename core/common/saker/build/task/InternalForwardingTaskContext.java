@@ -1,6 +1,7 @@
 package saker.build.task;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import saker.build.file.SakerDirectory;
@@ -70,6 +71,12 @@ public class InternalForwardingTaskContext extends ForwardingTaskContext impleme
 		return ((InternalTaskContext) taskContext).internalStartTaskOnTaskThread(taskid, taskfactory, parameters);
 	}
 
+	@Override
+	public void internalStartTasksOnTaskThread(Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+			TaskExecutionParameters parameters) {
+		((InternalTaskContext) taskContext).internalStartTasksOnTaskThread(tasks, parameters);
+	}
+
 	@Override
 	public <T> T internalRunTaskResultOnTaskThread(TaskIdentifier taskid, TaskFactory<T> taskfactory,
 			TaskExecutionParameters parameters) {
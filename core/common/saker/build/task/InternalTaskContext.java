@@ -16,6 +16,7 @@
 package saker.build.task;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Map.Entry;
 
 import saker.build.file.SakerDirectory;
@@ -65,6 +66,10 @@ public interface InternalTaskContext {
 	public <T> TaskFuture<T> internalStartTaskOnTaskThread(@RMISerialize TaskIdentifier taskid,
 			@RMISerialize TaskFactory<T> taskfactory, TaskExecutionParameters parameters);
 
+	public void internalStartTasksOnTaskThread(
+			@RMISerialize Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+			TaskExecutionParameters parameters);
+
 	public <T> T internalRunTaskResultOnTaskThread(@RMISerialize TaskIdentifier taskid,
 			@RMISerialize TaskFactory<T> taskfactory, TaskExecutionParameters parameters);
 
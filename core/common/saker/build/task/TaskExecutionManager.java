@@ -23,6 +23,7 @@ import java.lang.ref.WeakReference;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -91,6 +92,7 @@ import saker.build.file.provider.FileEntry;
 import saker.build.file.provider.SakerFileProvider;
 import saker.build.file.provider.SakerPathFiles;
 import saker.build.ide.configuration.IDEConfiguration;
+import saker.build.meta.PropertyNames;
 import saker.build.runtime.environment.EnvironmentProperty;
 import saker.build.runtime.environment.SakerEnvironmentImpl;
 import saker.build.runtime.execution.ExecutionContext;
@@ -182,6 +184,7 @@ import saker.build.thirdparty.saker.util.thread.ParallelExecutionException;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils.ParallelRunner;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils.ThreadWorkPool;
+import saker.build.trace.BuildEventStream;
 import saker.build.trace.InternalBuildTrace;
 import saker.build.trace.InternalBuildTrace.InternalTaskBuildTrace;
 import saker.build.util.exc.ExceptionView;
@@ -189,6 +192,18 @@ import testing.saker.build.flag.TestFlag;
 
 public final class TaskExecutionManager {
 	private static final TaskExecutionParameters DEFAULT_EXECUTION_PARAMETERS = new TaskExecutionParameters();
+	/**
+	 * The number of file dependencies in a directory above which the directory is listed fully during the dependency
+	 * prefetching rather than looking up the files separately.
+	 */
+	private static final int PREFETCH_DIRECTORY_LISTING_DEPENDENCY_COUNT = 8;
+	/**
+	 * The interval in milliseconds with which the standard output of the tasks is drained to the execution output.
+	 * <p>
+	 * The output of the tasks is collected during this interval, and written to the execution output in a single
+	 * batch.
+	 */
+	private static final long STANDARD_OUTPUT_DRAIN_INTERVAL_MILLIS = 20;
 	private static final InnerTaskExecutionParameters DEFAULT_INNER_TASK_EXECUTION_PARAMETERS = new InnerTaskExecutionParameters();
 
 	public static final char PRINTED_LINE_VARIABLES_MARKER_CHAR = '!';
@@ -481,6 +496,21 @@ public final class TaskExecutionManager {
 		@SuppressWarnings("rawtypes")
 		private static final AtomicReferenceFieldUpdater<TaskExecutionManager.TaskExecutorContext, BooleanLatch> ARFU_finishLatch = AtomicReferenceFieldUpdater
 				.newUpdater(TaskExecutionManager.TaskExecutorContext.class, BooleanLatch.class, "finishLatch");
+		@SuppressWarnings("rawtypes")
+		private static final AtomicIntegerFieldUpdater<TaskExecutionManager.TaskExecutorContext> AIFU_stdOutDrainScheduled = AtomicIntegerFieldUpdater
+				.newUpdater(TaskExecutionManager.TaskExecutorContext.class, "stdOutDrainScheduled");
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<TaskExecutionManager.TaskExecutorContext, ConcurrentMap> ARFU_environmentPropertyDependencies = AtomicReferenceFieldUpdater
+				.newUpdater(TaskExecutionManager.TaskExecutorContext.class, ConcurrentMap.class,
+						"environmentPropertyDependencies");
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<TaskExecutionManager.TaskExecutorContext, ConcurrentMap> ARFU_executionPropertyDependencies = AtomicReferenceFieldUpdater
+				.newUpdater(TaskExecutionManager.TaskExecutorContext.class, ConcurrentMap.class,
+						"executionPropertyDependencies");
+		@SuppressWarnings("rawtypes")
+		private static final AtomicReferenceFieldUpdater<TaskExecutionManager.TaskExecutorContext, ConcurrentMap> ARFU_taggedFileDependencyCollectors = AtomicReferenceFieldUpdater
+				.newUpdater(TaskExecutionManager.TaskExecutorContext.class, ConcurrentMap.class,
+						"taggedFileDependencyCollectors");
 
 		//cached lambdas for less object instantiation
 		private static final Function<? super TaskExecutorContext<?>, SakerDirectory> METHOD_REFERENCE_COMPUTE_TASK_WORKING_DIRECTORY = TaskExecutorContext::computeTaskWorkingDirectory;
@@ -517,8 +547,14 @@ public final class TaskExecutionManager {
 
 		protected final transient TaskDependencies resultDependencies;
 
-		protected final Map<EnvironmentProperty<?>, Optional<?>> environmentPropertyDependencies = new ConcurrentHashMap<>();
-		protected final Map<ExecutionProperty<?>, Optional<?>> executionPropertyDependencies = new ConcurrentHashMap<>();
+		/**
+		 * The dependency collections are lazily allocated, as most tasks (especially the short ones) don't report
+		 * environment, execution property, or file dependencies.
+		 * <p>
+		 * They are accessed via {@link #getOrCreateConcurrentMap(TaskExecutorContext, AtomicReferenceFieldUpdater)}.
+		 */
+		protected volatile ConcurrentMap<EnvironmentProperty<?>, Optional<?>> environmentPropertyDependencies;
+		protected volatile ConcurrentMap<ExecutionProperty<?>, Optional<?>> executionPropertyDependencies;
 
 		/**
 		 * The number of running operations on this task context.
@@ -532,7 +568,7 @@ public final class TaskExecutionManager {
 
 		private volatile BooleanLatch finishLatch;
 
-		private final ConcurrentMap<Object, FileDependencyCollector> taggedFileDependencyCollectors = new ConcurrentHashMap<>();
+		private volatile ConcurrentMap<Object, FileDependencyCollector> taggedFileDependencyCollectors;
 
 		private UnsyncByteArrayOutputStream stdOut;
 		private UnsyncByteArrayOutputStream stdErr;
@@ -542,6 +578,11 @@ public final class TaskExecutionManager {
 		private final LazySupplier<Boolean> streamCreationLazysupplier = LazySupplier.of(this,
 				METHOD_REFERENCE_CREATE_STANDARD_STREAMS);
 		private volatile int flushedStdOutOffset = 0;
+		/**
+		 * Non-zero if the context is scheduled for {@linkplain TaskExecutionManager#scheduleStandardOutputDrain
+		 * draining} its standard output.
+		 */
+		private volatile int stdOutDrainScheduled;
 
 		/**
 		 * A lock that synchronizes access to {@link #acquireStandardIOLock()}.
@@ -651,32 +692,20 @@ public final class TaskExecutionManager {
 								return;
 							}
 							StandardIOLock lock = acquiredExecutionStdIOLock;
-							ExecutionContextImpl executioncontext = executionContext;
 							if (lock != null) {
 								//write all bytes
 								try {
-									stdout.writeTo(executioncontext.getStdOutSink(), offset, size - offset);
+									stdout.writeTo(executionContext.getStdOutSink(), offset, size - offset);
 								} catch (IOException e) {
 								}
 								flushedStdOutOffset = size;
 							} else {
-								//write until last end of line
-								int eolidx = Math.max(stdout.lastIndexOf((byte) '\n'), stdout.lastIndexOf((byte) '\r'));
-								if (eolidx > offset) {
-									//try lock, as we dont want to block the task by waiting on output
-									//if we dont acquire the lock, then the message will be written out 
-									//    at the next flushing try
-									//    or when the task wants to read input
-									//    or when the task finishes
-									//either way is fine.
-									try (StandardIOLock l = executioncontext.tryAcquireStdIOLock()) {
-										if (l != null) {
-											flushedStdOutOffset = eolidx + 1;
-											stdout.writeTo(executioncontext.getStdOutSink(), offset,
-													eolidx - offset + 1);
-										}
-									} catch (IOException e) {
-									}
+								//don't write the output on the task thread, but let the drainer write it
+								//    the drainer batches the output of the tasks and writes it periodically
+								//if the task finishes before the draining, then the output is written
+								//    with the finalization of the task
+								if (AIFU_stdOutDrainScheduled.compareAndSet(TaskExecutorContext.this, 0, 1)) {
+									executionManager.scheduleStandardOutputDrain(TaskExecutorContext.this);
 								}
 							}
 						} finally {
@@ -719,6 +748,34 @@ public final class TaskExecutionManager {
 			return Boolean.TRUE;
 		}
 
+		/**
+		 * Writes the complete lines of the standard output to the argument batch.
+		 * <p>
+		 * The execution standard IO lock must be held by the caller.
+		 */
+		protected void drainStandardOutputLocked(UnsyncByteArrayOutputStream batch) {
+			AIFU_stdOutDrainScheduled.set(this, 0);
+			final Lock flushlock = streamFlushingLock;
+			flushlock.lock();
+			try {
+				int offset = flushedStdOutOffset;
+				UnsyncByteArrayOutputStream stdout = stdOut;
+				if (offset >= stdout.size()) {
+					return;
+				}
+				//write until last end of line
+				int eolidx = Math.max(stdout.lastIndexOf((byte) '\n'), stdout.lastIndexOf((byte) '\r'));
+				if (eolidx >= offset) {
+					stdout.writeTo((OutputStream) batch, offset, eolidx - offset + 1);
+					flushedStdOutOffset = eolidx + 1;
+				}
+			} catch (IOException e) {
+				//shouldn't happen when writing to byte array stream
+			} finally {
+				flushlock.unlock();
+			}
+		}
+
 		protected SakerDirectory computeTaskBuildDirectory() {
 			SakerPath builddir = this.taskDirectoryContext.getRelativeTaskBuildDirectoryPath();
 			if (builddir == null) {
@@ -1242,6 +1299,32 @@ public final class TaskExecutionManager {
 			});
 		}
 
+		@Override
+		public void startTasks(Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+				TaskExecutionParameters parameters)
+				throws TaskIdentifierConflictException, NullPointerException, IllegalTaskOperationException {
+			requireCalledOnTaskThread(this, false);
+			internalStartTasksOnTaskThread(tasks, parameters);
+		}
+
+		@Override
+		public void internalStartTasksOnTaskThread(Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+				TaskExecutionParameters parameters) {
+			Objects.requireNonNull(tasks, "tasks");
+			//validate all before starting any of them
+			for (Entry<? extends TaskIdentifier, ? extends TaskFactory<?>> entry : tasks.entrySet()) {
+				requireValidTaskIdForTaskStarting(entry.getKey());
+				Objects.requireNonNull(entry.getValue(), "taskfactory");
+			}
+			if (tasks.isEmpty()) {
+				return;
+			}
+			runOnUnfinished(() -> {
+				executionManager.startTasksImpl(tasks, executionContext, this.taskResult,
+						parameters == null ? DEFAULT_EXECUTION_PARAMETERS : parameters, this);
+			});
+		}
+
 		@Override
 		public <T> InnerTaskResults<T> startInnerTask(TaskFactory<T> taskfactory,
 				InnerTaskExecutionParameters parameters) {
@@ -1406,7 +1489,9 @@ public final class TaskExecutionManager {
 		public <T> void reportEnvironmentDependency(EnvironmentProperty<T> environmentproperty, T expectedvalue) {
 			Objects.requireNonNull(environmentproperty, "property");
 			runOnUnfinished(() -> {
-				this.environmentPropertyDependencies.compute(environmentproperty, (k, prev) -> {
+				ConcurrentMap<EnvironmentProperty<?>, Optional<?>> envpropdeps = getOrCreateConcurrentMap(this,
+						ARFU_environmentPropertyDependencies);
+				envpropdeps.compute(environmentproperty, (k, prev) -> {
 					if (prev == null) {
 						return Optional.ofNullable(expectedvalue);
 					}
@@ -1424,7 +1509,9 @@ public final class TaskExecutionManager {
 		public <T> void reportExecutionDependency(ExecutionProperty<T> executionproperty, T expectedvalue) {
 			Objects.requireNonNull(executionproperty, "property");
 			runOnUnfinished(() -> {
-				this.executionPropertyDependencies.compute(executionproperty, (k, prev) -> {
+				ConcurrentMap<ExecutionProperty<?>, Optional<?>> execpropdeps = getOrCreateConcurrentMap(this,
+						ARFU_executionPropertyDependencies);
+				execpropdeps.compute(executionproperty, (k, prev) -> {
 					if (prev == null) {
 						return Optional.ofNullable(expectedvalue);
 					}
@@ -1463,8 +1550,7 @@ public final class TaskExecutionManager {
 			Objects.requireNonNull(path, "path");
 			ContentDescriptor denullized = denullizeContentDescriptor(expectedcontent);
 			runOnUnfinished(() -> {
-				FileDependencyCollector fdeps = taggedFileDependencyCollectors
-						.computeIfAbsent(NullFileDependencyTag.denullize(tag), x -> new FileDependencyCollector());
+				FileDependencyCollector fdeps = getFileDependencyCollector(tag);
 				fdeps.singleReportedInputDependencies.putIfAbsent(path, denullized);
 			});
 		}
@@ -1474,8 +1560,7 @@ public final class TaskExecutionManager {
 				NavigableMap<SakerPath, ? extends ContentDescriptor> pathcontents) {
 			ObjectUtils.requireNaturalOrder(pathcontents);
 			runOnUnfinished(() -> {
-				FileDependencyCollector fdeps = taggedFileDependencyCollectors
-						.computeIfAbsent(NullFileDependencyTag.denullize(tag), x -> new FileDependencyCollector());
+				FileDependencyCollector fdeps = getFileDependencyCollector(tag);
 
 				NavigableMap<SakerPath, ContentDescriptor> denullizedpathcontents = denullizeContentDescriptors(
 						pathcontents);
@@ -1489,9 +1574,9 @@ public final class TaskExecutionManager {
 			Objects.requireNonNull(path, "path");
 			ContentDescriptor denullized = denullizeContentDescriptor(expectedcontent);
 			runOnUnfinished(() -> {
-				FileDependencyCollector fdeps = taggedFileDependencyCollectors
-						.computeIfAbsent(NullFileDependencyTag.denullize(tag), x -> new FileDependencyCollector());
+				FileDependencyCollector fdeps = getFileDependencyCollector(tag);
 				fdeps.singleReportedOutputDependencies.put(path, denullized);
+				executionManager.addFileChangeAffectedTasks(Collections.singleton(path), getTaskWorkingDirectoryPath());
 			});
 		}
 
@@ -1501,13 +1586,13 @@ public final class TaskExecutionManager {
 			ObjectUtils.requireNaturalOrder(pathcontents);
 			Objects.requireNonNull(pathcontents, "pathcontents");
 			runOnUnfinished(() -> {
-				FileDependencyCollector fdeps = taggedFileDependencyCollectors
-						.computeIfAbsent(NullFileDependencyTag.denullize(tag), x -> new FileDependencyCollector());
+				FileDependencyCollector fdeps = getFileDependencyCollector(tag);
 
 				NavigableMap<SakerPath, ContentDescriptor> denullizedpathcontents = denullizeContentDescriptors(
 						pathcontents);
 
 				fdeps.outputDependencies.add(denullizedpathcontents);
+				executionManager.addFileChangeAffectedTasks(pathcontents.keySet(), getTaskWorkingDirectoryPath());
 			});
 		}
 
@@ -1515,8 +1600,7 @@ public final class TaskExecutionManager {
 		public void reportInputFileAdditionDependency(Object tag, FileCollectionStrategy dependency) {
 			Objects.requireNonNull(dependency, "dependency");
 			runOnUnfinished(() -> {
-				FileDependencyCollector fdeps = taggedFileDependencyCollectors
-						.computeIfAbsent(NullFileDependencyTag.denullize(tag), x -> new FileDependencyCollector());
+				FileDependencyCollector fdeps = getFileDependencyCollector(tag);
 				fdeps.additionDependencies.add(dependency);
 			});
 		}
@@ -1636,6 +1720,8 @@ public final class TaskExecutionManager {
 						identifiedStdOut.finishLastLineLockedSinkLocked();
 						int outoffset = flushedStdOutOffset;
 						int outsize = stdOut.size();
+						//set the flushed offset so a pending draining doesn't write the remaining output again
+						flushedStdOutOffset = outsize;
 						boolean hasout = outoffset < outsize;
 						boolean haserr = !stdErr.isEmpty();
 						if (hasout || haserr) {
@@ -1672,10 +1758,31 @@ public final class TaskExecutionManager {
 			this.taskBuildTrace.close(this, taskResult);
 		}
 
+		private FileDependencyCollector getFileDependencyCollector(Object tag) {
+			ConcurrentMap<Object, FileDependencyCollector> collectors = getOrCreateConcurrentMap(this,
+					ARFU_taggedFileDependencyCollectors);
+			return collectors.computeIfAbsent(NullFileDependencyTag.denullize(tag), x -> new FileDependencyCollector());
+		}
+
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private static <K, V> ConcurrentMap<K, V> getOrCreateConcurrentMap(TaskExecutorContext<?> context,
+				AtomicReferenceFieldUpdater<TaskExecutionManager.TaskExecutorContext, ConcurrentMap> updater) {
+			ConcurrentMap<K, V> result = updater.get(context);
+			if (result != null) {
+				return result;
+			}
+			result = new ConcurrentHashMap<>();
+			if (updater.compareAndSet(context, null, result)) {
+				return result;
+			}
+			return updater.get(context);
+		}
+
 		protected void finishExecutionDependencies() {
-			if (!taggedFileDependencyCollectors.isEmpty()) {
+			ConcurrentMap<Object, FileDependencyCollector> filedepcollectors = taggedFileDependencyCollectors;
+			if (!ObjectUtils.isNullOrEmpty(filedepcollectors)) {
 				Map<Object, FileDependencies> taggedfiledeps = new HashMap<>();
-				for (Entry<Object, FileDependencyCollector> entry : taggedFileDependencyCollectors.entrySet()) {
+				for (Entry<Object, FileDependencyCollector> entry : filedepcollectors.entrySet()) {
 					FileDependencyCollector depcollector = entry.getValue();
 					FileDependencies fdeps = new FileDependencies();
 
@@ -1707,13 +1814,11 @@ public final class TaskExecutionManager {
 
 				this.resultDependencies.setTaggedFileDependencies(ImmutableUtils.unmodifiableMap(taggedfiledeps));
 			}
-			//create a new map, as the one we use is synchronized map
-			Map<EnvironmentProperty<?>, Object> envpropdeps = new HashMap<>(environmentPropertyDependencies);
-			replaceOptionalValuesWithTheirValues(envpropdeps);
+			//create a new map, as the one we use is a concurrent map
+			Map<EnvironmentProperty<?>, Object> envpropdeps = copyPropertyDependencies(environmentPropertyDependencies);
 			resultDependencies.setEnvironmentPropertyDependencies(envpropdeps);
 
-			HashMap<ExecutionProperty<?>, Object> execpropdeps = new HashMap<>(executionPropertyDependencies);
-			replaceOptionalValuesWithTheirValues(execpropdeps);
+			Map<ExecutionProperty<?>, Object> execpropdeps = copyPropertyDependencies(executionPropertyDependencies);
 			resultDependencies.setExecutionPropertyDependencies(execpropdeps);
 
 			for (ConcurrentPrependAccumulator<TaskDependencyFutureImpl<?>> deplist : unaddedTaskOutputDetectorTaskDependencyFutures
@@ -1738,6 +1843,15 @@ public final class TaskExecutionManager {
 			unaddedTaskOutputDetectorTaskDependencyFutures.clear();
 		}
 
+		private static <K> Map<K, Object> copyPropertyDependencies(Map<K, Optional<?>> dependencies) {
+			if (ObjectUtils.isNullOrEmpty(dependencies)) {
+				return Collections.emptyMap();
+			}
+			Map<K, Object> result = new HashMap<>(dependencies);
+			replaceOptionalValuesWithTheirValues(result);
+			return result;
+		}
+
 		protected static void replaceOptionalValuesWithTheirValues(Map<?, Object> envpropdeps) {
 			for (Entry<?, Object> entry : envpropdeps.entrySet()) {
 				Optional<?> optval = (Optional<?>) entry.getValue();
@@ -1860,6 +1974,10 @@ public final class TaskExecutionManager {
 			this.future.unparkWaitingThreads(executionManager, ManagerTaskFutureImpl.EVENT_WAITING_FOR_TASK_CHANGED);
 		}
 
+		protected void blockedWaitingForTask(TaskIdentifier taskid, long waitstartnanos) {
+			this.taskBuildTrace.waitedForTask(taskid, waitstartnanos, System.nanoTime());
+		}
+
 		@Override
 		public void reportInputFileDependency(Object tag, SakerFile file) {
 			SakerPath path = SakerPathFiles.requireAbsolutePath(file);
@@ -3445,11 +3563,16 @@ public final class TaskExecutionManager {
 		private TaskResultHolder<R> getWaitTaskResultImpl(TaskExecutorContext<?> context) {
 			FutureState s = checkGetWaitingPreconditions(context);
 			context.waitingForTask(this);
+			boolean blocking = s.state != STATE_RESULT_READY;
+			long waitstartnanos = System.nanoTime();
 			TaskResultHolder<R> result;
 			try {
 				result = waitResultWithStateWithAncestors(context, s);
 			} finally {
 				context.waitedForTask(this);
+				if (blocking) {
+					context.blockedWaitingForTask(taskId, waitstartnanos);
+				}
 			}
 			context.reportWaitedTaskDependency(taskId, result);
 			return result;
@@ -3460,10 +3583,12 @@ public final class TaskExecutionManager {
 			TaskResultHolder<R> result;
 			if (s.state != STATE_RESULT_READY) {
 				context.waitingForTask(this);
+				long waitstartnanos = System.nanoTime();
 				try {
 					result = waitResultWithoutAncestors(context.getExecutionManager(), s);
 				} finally {
 					context.waitedForTask(this);
+					context.blockedWaitingForTask(taskId, waitstartnanos);
 				}
 			} else {
 				result = getTaskResult();
@@ -4339,12 +4464,37 @@ public final class TaskExecutionManager {
 	private final ConcurrentHashMap<TaskIdentifier, TaskExecutionResult<?>> resultTaskIdTaskResults;
 	private Map<TaskIdentifier, TaskExecutionResult<?>> abandonedTaskIdResults = Collections.emptyMap();
 	private final ConcurrentHashMap<TaskIdentifier, Boolean> checkedHasAnyDeltas = new ConcurrentHashMap<>();
+	/**
+	 * The tasks that need their file dependencies checked, or <code>null</code> if all of them should be checked.
+	 * <p>
+	 * Initialized from the {@linkplain ExecutionParametersImpl#getChangedFilePaths() changed paths} of the execution,
+	 * and extended with the dependents of the files that are modified during the build. Only the modifications that
+	 * are reported as output file dependencies (or retrieved from the build cache) are tracked.
+	 */
+	private Set<TaskIdentifier> fileChangeAffectedTaskIds;
 
 	protected UUID buildUUID;
 
 	private ThreadGroup executionThreadGroup;
 	protected ThreadWorkPool generalExecutionThreadWorkPool;
 	private final ConcurrentPrependAccumulator<TaskExecutionThread> taskThreads = new ConcurrentPrependAccumulator<>();
+	private static final AtomicIntegerFieldUpdater<TaskExecutionManager> AIFU_standardOutputDrainerRunning = AtomicIntegerFieldUpdater
+			.newUpdater(TaskExecutionManager.class, "standardOutputDrainerRunning");
+
+	/**
+	 * The task contexts which have pending standard output to be drained, in the order of scheduling.
+	 */
+	private final ConcurrentAppendAccumulator<TaskExecutorContext<?>> standardOutputDrainContexts = new ConcurrentAppendAccumulator<>();
+	private volatile int standardOutputDrainerRunning;
+	/**
+	 * The dedicated thread that drains the standard output of the tasks. Started when the first drain is scheduled.
+	 */
+	private volatile Thread standardOutputDrainerThread;
+	private volatile boolean standardOutputDrainerStopped;
+	/**
+	 * Set when the task execution is done, so the file dependency prefetching stops if it hasn't finished yet.
+	 */
+	private volatile boolean fileDependencyPrefetchCancelled;
 
 	private final BuildTaskResultDatabase initTaskResults;
 
@@ -4369,6 +4519,10 @@ public final class TaskExecutionManager {
 	protected ExecutionContextImpl executionContext;
 
 	protected InternalBuildTrace buildTrace;
+	/**
+	 * The build event stream of the execution, or <code>null</code> if there's no consumer.
+	 */
+	protected BuildEventStream buildEvents;
 
 	protected ConcurrentPrependAccumulator<Entry<TaskIdentifier, TaskException>> taskRunningFailureExceptions = new ConcurrentPrependAccumulator<>();
 
@@ -4413,6 +4567,7 @@ public final class TaskExecutionManager {
 		//XXX maybe set executionThreadGroup to daemon thread group?
 		this.buildCache = buildcache;
 		this.buildTrace = buildtrace;
+		this.buildEvents = executioncontext.getBuildEventStream();
 
 		buildDirectoryPath = executioncontext.getBuildDirectoryPath();
 		buildSakerDirectory = executioncontext.getExecutionBuildDirectory();
@@ -4432,6 +4587,19 @@ public final class TaskExecutionManager {
 
 				runSpawnedTasks.put(taskid, new SpawnedResultTask(taskid));
 
+				NavigableSet<SakerPath> changedpaths = executioncontext.getExecutionParameters()
+						.getChangedFilePaths();
+				if (changedpaths != null && initTaskResults != null) {
+					Set<TaskIdentifier> affectedtaskids = ConcurrentHashMap.newKeySet();
+					affectedtaskids.addAll(initTaskResults.getFileDependentTaskIds(changedpaths));
+					fileChangeAffectedTaskIds = affectedtaskids;
+				}
+
+				if (Boolean.parseBoolean(
+						PropertyNames.getProperty(PropertyNames.PROPERTY_PREFETCH_FILE_DEPENDENCIES))) {
+					prefetchPreviousFileDependencies(taskid, executioncontext);
+				}
+
 				parallelRunnerStrategy(taskid, createTaskThreadName(factory)).execute(() -> {
 					TaskResultHolder<?> taskres = executeImpl(factory, taskid, executioncontext, null,
 							DEFAULT_EXECUTION_PARAMETERS, null).getTaskResult();
@@ -4473,6 +4641,7 @@ public final class TaskExecutionManager {
 						}
 					}
 				}
+				fileDependencyPrefetchCancelled = true;
 			} catch (ParallelExecutionException e) {
 				if (texc == null) {
 					texc = ExceptionAccessInternal.createMultiTaskExecutionFailedException(taskid);
@@ -4501,6 +4670,7 @@ public final class TaskExecutionManager {
 				}
 			}
 		} finally {
+			stopStandardOutputDrainer();
 			if (!failedexecution) {
 				//only abandon tasks if the execution was successful
 				Map<TaskIdentifier, TaskExecutionResult<?>> reusedtasks = new HashMap<>();
@@ -5016,6 +5186,41 @@ public final class TaskExecutionManager {
 				capabilities, ancestorfuture);
 	}
 
+	/**
+	 * Starts multiple tasks created by the same task.
+	 * <p>
+	 * Works the same way as calling {@link #startImpl} for each task, but the state that is common for the tasks is
+	 * only looked up once.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected void startTasksImpl(Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+			ExecutionContextImpl context, TaskExecutionResult<?> createdby, TaskExecutionParameters parameters,
+			TaskExecutorContext<?> currentexecutorcontext) {
+		ManagerTaskFutureImpl<?> ancestorfuture = currentexecutorcontext.future;
+		SimpleTaskDirectoryPathContext taskdircontext = currentexecutorcontext.getTaskDirectoryContext();
+		TaskIdentifier creatortaskid = createdby.getTaskIdentifier();
+		TaskDependencies creatordependencies = createdby.getDependencies();
+		SpawnedResultTask creatorspawned = runSpawnedTasks.get(creatortaskid);
+		for (Entry<? extends TaskIdentifier, ? extends TaskFactory<?>> entry : tasks.entrySet()) {
+			TaskIdentifier taskid = entry.getKey();
+			TaskFactory factory = entry.getValue();
+			if (currentexecutorcontext.fileDeltasAccessed) {
+				currentexecutorcontext.afterFileDeltaAccessedDirectlyCreatedTaskIds.add(taskid);
+			}
+			currentexecutorcontext.events.add(new TaskIdTaskEvent(TaskExecutionEventKind.START_TASK, taskid));
+
+			TaskInvocationConfiguration capabilities = getTaskInvocationConfiguration(factory);
+			Executor strategy = getExecutionStrategyForFactory(taskid, capabilities, createTaskThreadName(factory));
+
+			SpawnedResultTask spawnedtask = getCreateSpawnedTask(taskid);
+			creatordependencies.addCreatedTask(taskid, factory, parameters);
+			creatorspawned.addChild(taskid, spawnedtask);
+
+			startWithStrategyImpl(factory, taskid, context, strategy, creatortaskid, parameters, taskdircontext,
+					capabilities, ancestorfuture, spawnedtask);
+		}
+	}
+
 	private static String createTaskThreadName(TaskFactory<?> factory) {
 		return "Task: " + factory.getClass().getName();
 	}
@@ -5055,10 +5260,20 @@ public final class TaskExecutionManager {
 			SpawnedResultTask runspawned = runSpawnedTasks.get(createdby.getTaskIdentifier());
 			runspawned.addChild(taskid, spawnedtask);
 		}
+		return startWithStrategyImpl(factory, taskid, context, executionstrategy,
+				createdby == null ? null : createdby.getTaskIdentifier(), parameters, currenttaskdirectorycontext,
+				capabilities, ancestorfuture, spawnedtask);
+	}
+
+	private <R> ManagerTaskFutureImpl<R> startWithStrategyImpl(TaskFactory<R> factory, TaskIdentifier taskid,
+			ExecutionContextImpl context, Executor executionstrategy, TaskIdentifier createdbytaskid,
+			TaskExecutionParameters parameters, SimpleTaskDirectoryPathContext currenttaskdirectorycontext,
+			TaskInvocationConfiguration capabilities, ManagerTaskFutureImpl<?> ancestorfuture,
+			SpawnedResultTask spawnedtask) {
 		@SuppressWarnings("rawtypes")
 		ManagerTaskFutureImpl[] outfuture = { null };
-		boolean starting = initializeExecutionWithTaskFuture(taskid, factory,
-				createdby == null ? null : createdby.getTaskIdentifier(), outfuture, ancestorfuture, capabilities);
+		boolean starting = initializeExecutionWithTaskFuture(taskid, factory, createdbytaskid, outfuture,
+				ancestorfuture, capabilities);
 		@SuppressWarnings("unchecked")
 		ManagerTaskFutureImpl<R> future = outfuture[0];
 
@@ -5125,6 +5340,10 @@ public final class TaskExecutionManager {
 					TaskExecutionResult<R> prevexecres_r = (TaskExecutionResult<R>) prevexecresult;
 
 					this.buildTrace.taskUpToDate(prevexecresult, capabilities);
+					BuildEventStream events = this.buildEvents;
+					if (events != null) {
+						events.taskUpToDate(taskid);
+					}
 
 					//TODO use the all transitive map
 					startUnchangedTaskSubTasks(prevexecres_r, context, currenttaskdirectorycontext, future,
@@ -5878,6 +6097,29 @@ public final class TaskExecutionManager {
 
 	}
 
+	private void addFileChangeAffectedTasks(SakerPath path) {
+		Set<TaskIdentifier> affectedtaskids = fileChangeAffectedTaskIds;
+		if (affectedtaskids == null) {
+			return;
+		}
+		initTaskResults.collectFileDependentTaskIds(path, affectedtaskids);
+	}
+
+	private void addFileChangeAffectedTasks(Iterable<? extends SakerPath> paths, SakerPath workingdir) {
+		if (fileChangeAffectedTaskIds == null) {
+			return;
+		}
+		for (SakerPath path : paths) {
+			if (path.isRelative()) {
+				if (workingdir == null) {
+					continue;
+				}
+				path = workingdir.resolve(path);
+			}
+			addFileChangeAffectedTasks(path);
+		}
+	}
+
 	protected void collectDependencyDeltasImpl(DependencyDelta result, TaskExecutionResult<?> prevexecresult,
 			ExecutionContextImpl executioncontext, SimpleTaskDirectoryPathContext taskdircontext,
 			TaskIdDependencyCollector depcollector,
@@ -5943,6 +6185,14 @@ public final class TaskExecutionManager {
 
 			//this has to be called last as this function depends on not adding any deltas after this call
 			if (result.isEmpty()) {
+				Set<TaskIdentifier> affectedtaskids = fileChangeAffectedTaskIds;
+				if (affectedtaskids != null && !affectedtaskids.contains(taskid)) {
+					//none of the files changed that the task depends on
+					return;
+				}
+				if (TestFlag.ENABLED) {
+					TestFlag.metric().taskFileDependencyDeltasCollected(taskid);
+				}
 				SimpleTaskDirectoryContext simpledirectorycontext = createTaskDirectoryContextForDeltaCollection(
 						executioncontext, taskdircontext);
 
@@ -6452,6 +6702,195 @@ public final class TaskExecutionManager {
 		result.addFileDeltas(adddeltas);
 	}
 
+	/**
+	 * Asynchronously loads the files and content descriptors of the file dependencies of the previous task results that
+	 * are going to be checked in this build.
+	 * <p>
+	 * Only the tasks that were transitively created by the root task in the previous build are considered, as the
+	 * other previous results are not checked unless a task starts them again.
+	 * <p>
+	 * The paths are grouped by their parent directories, so a directory is only resolved once, and the directories
+	 * with many dependencies are listed at once instead of looking up the files one by one.
+	 * <p>
+	 * This pass doesn't compute any deltas, and the build doesn't wait for it. The dependencies are still checked for
+	 * each task by {@link #collectFileDependencyDeltas}. The prefetching populates the directories and the content
+	 * descriptor cache of the content database concurrently to the build, so the checks that run after it need no
+	 * further I/O. The prefetching stops when the task execution finishes.
+	 */
+	private void prefetchPreviousFileDependencies(TaskIdentifier roottaskid, ExecutionContextImpl executioncontext) {
+		if (taskIdTaskResults.isEmpty()) {
+			return;
+		}
+		generalExecutionThreadWorkPool.offer(() -> {
+			NavigableMap<SakerPath, Set<String>> dirfilenames = collectPrefetchDependencyPaths(roottaskid);
+			if (dirfilenames.isEmpty()) {
+				return;
+			}
+			try {
+				fileDeltaParallelRunner.runItems(dirfilenames.entrySet(), entry -> {
+					if (fileDependencyPrefetchCancelled) {
+						return;
+					}
+					prefetchDirectoryFileDependencies(executioncontext, entry.getKey(), entry.getValue());
+				});
+			} catch (ParallelExecutionException e) {
+				executioncontext.reportIgnoredException(ExceptionView.create(e));
+			}
+		});
+	}
+
+	private NavigableMap<SakerPath, Set<String>> collectPrefetchDependencyPaths(TaskIdentifier roottaskid) {
+		NavigableMap<SakerPath, Set<String>> dirfilenames = new TreeMap<>();
+		Set<TaskIdentifier> visited = new HashSet<>();
+		ArrayDeque<TaskIdentifier> queue = new ArrayDeque<>();
+		visited.add(roottaskid);
+		queue.add(roottaskid);
+		for (TaskIdentifier taskid; (taskid = queue.poll()) != null;) {
+			TaskExecutionResult<?> taskres = taskIdTaskResults.get(taskid);
+			if (taskres == null) {
+				continue;
+			}
+			TaskDependencies deps = taskres.getDependencies();
+			if (deps == null) {
+				continue;
+			}
+			for (TaskIdentifier createdtaskid : deps.getDirectlyCreatedTaskIds().keySet()) {
+				if (visited.add(createdtaskid)) {
+					queue.add(createdtaskid);
+				}
+			}
+			Set<TaskIdentifier> affectedtaskids = fileChangeAffectedTaskIds;
+			if (affectedtaskids != null && !affectedtaskids.contains(taskid)) {
+				//the file dependencies of the task won't be checked
+				continue;
+			}
+			Map<Object, FileDependencies> taggedfiledeps = deps.getTaggedFileDependencies();
+			if (ObjectUtils.isNullOrEmpty(taggedfiledeps)) {
+				continue;
+			}
+			for (FileDependencies filedeps : taggedfiledeps.values()) {
+				addPrefetchDependencyPaths(dirfilenames, filedeps.getInputFileDependencies(), taskres);
+				addPrefetchDependencyPaths(dirfilenames, filedeps.getOutputFileDependencies(), taskres);
+			}
+		}
+		return dirfilenames;
+	}
+
+	private static void prefetchDirectoryFileDependencies(ExecutionContextImpl executioncontext, SakerPath dirpath,
+			Set<String> filenames) {
+		try {
+			SakerDirectory dir = SakerPathFiles.resolveDirectoryAtAbsolutePath(executioncontext, dirpath);
+			if (dir == null) {
+				return;
+			}
+			NavigableMap<String, ? extends SakerFile> children = null;
+			if (filenames.size() >= PREFETCH_DIRECTORY_LISTING_DEPENDENCY_COUNT) {
+				children = dir.getChildren();
+			}
+			for (String fname : filenames) {
+				SakerFile file = children == null ? dir.get(fname) : children.get(fname);
+				if (file == null || file instanceof SakerDirectory) {
+					continue;
+				}
+				file.getContentDescriptor();
+			}
+		} catch (RuntimeException e) {
+			//the dependencies are checked again for the tasks, let those report the errors
+			executioncontext.reportIgnoredException(ExceptionView.create(e));
+		}
+	}
+
+	protected void scheduleStandardOutputDrain(TaskExecutorContext<?> context) {
+		standardOutputDrainContexts.add(context);
+		if (AIFU_standardOutputDrainerRunning.compareAndSet(this, 0, 1)) {
+			//the drainer sleeps between the drains, so it runs on its own thread instead of occupying a worker
+			//assign the field before starting, so a concurrent scheduling either sees the thread, or its context is
+			//    seen by the first drain
+			Thread drainer = new Thread(executionThreadGroup, this::runStandardOutputDrainer, "Task stdout drainer");
+			drainer.setDaemon(true);
+			standardOutputDrainerThread = drainer;
+			drainer.start();
+		} else {
+			Thread drainer = standardOutputDrainerThread;
+			if (drainer != null) {
+				LockSupport.unpark(drainer);
+			}
+		}
+	}
+
+	private void runStandardOutputDrainer() {
+		try {
+			while (!standardOutputDrainerStopped) {
+				if (standardOutputDrainContexts.isEmpty()) {
+					//unparked when a drain is scheduled, or the drainer is stopped
+					LockSupport.park(this);
+					continue;
+				}
+				//wait a bit so the output of multiple tasks and flushes is batched
+				Thread.sleep(STANDARD_OUTPUT_DRAIN_INTERVAL_MILLIS);
+				drainStandardOutput();
+			}
+		} catch (InterruptedException e) {
+			//the remaining output is written when the tasks finish
+		}
+		for (TaskExecutorContext<?> context : standardOutputDrainContexts.clearAndIterable()) {
+			TaskExecutorContext.AIFU_stdOutDrainScheduled.set(context, 0);
+		}
+	}
+
+	private void stopStandardOutputDrainer() {
+		standardOutputDrainerStopped = true;
+		Thread drainer = standardOutputDrainerThread;
+		if (drainer != null) {
+			LockSupport.unpark(drainer);
+			ThreadUtils.joinThreadsNonInterruptible(drainer);
+		}
+	}
+
+	@SuppressWarnings("try")
+	private void drainStandardOutput() throws InterruptedException {
+		if (standardOutputDrainContexts.isEmpty()) {
+			return;
+		}
+		ExecutionContextImpl executioncontext = executionContext;
+		UnsyncByteArrayOutputStream batch = new UnsyncByteArrayOutputStream();
+		try (StandardIOLock l = executioncontext.acquireStdIOLock()) {
+			//the output is written while holding the lock, so the output of a task is never reordered
+			//    the contexts are drained in the order they were scheduled
+			for (TaskExecutorContext<?> context : standardOutputDrainContexts.clearAndIterable()) {
+				context.drainStandardOutputLocked(batch);
+			}
+			if (!batch.isEmpty()) {
+				try {
+					batch.writeTo(executioncontext.getStdOutSink());
+				} catch (IOException e) {
+					//ignore exception
+				}
+			}
+		}
+	}
+
+	private static void addPrefetchDependencyPaths(NavigableMap<SakerPath, Set<String>> dirfilenames,
+			NavigableMap<SakerPath, ContentDescriptor> deps, TaskExecutionResult<?> taskres) {
+		if (ObjectUtils.isNullOrEmpty(deps)) {
+			return;
+		}
+		for (SakerPath path : deps.navigableKeySet()) {
+			if (path.isRelative()) {
+				SakerPath workingdir = taskres.getExecutionWorkingDirectory();
+				if (workingdir == null) {
+					continue;
+				}
+				path = workingdir.resolve(path);
+			}
+			SakerPath parent = path.getParent();
+			if (parent == null) {
+				continue;
+			}
+			dirfilenames.computeIfAbsent(parent, Functionals.hashSetComputer()).add(path.getFileName());
+		}
+	}
+
 	private static NavigableMap<SakerPath, ContentDescriptor> collectDependenciesMap(
 			NavigableMap<SakerPath, ContentDescriptor> deps, TaskDirectoryPathContext directorycontext) {
 		if (deps.isEmpty()) {
@@ -6479,6 +6918,16 @@ public final class TaskExecutionManager {
 			Supplier<? extends TaskInvocationManager.SelectionResult> invokerselectionresultsupplier,
 			SimpleTaskDirectoryPathContext taskdircontext, SpawnedResultTask spawnedtask) {
 		executedAnyTask = true;
+		if (previousExecutionResult != null && fileChangeAffectedTaskIds != null) {
+			//the task may overwrite or delete its previous outputs
+			TaskDependencies prevdeps = previousExecutionResult.getDependencies();
+			if (prevdeps != null) {
+				for (FileDependencies filedeps : prevdeps.getTaggedFileDependencies().values()) {
+					addFileChangeAffectedTasks(filedeps.getOutputFileDependencies().keySet(),
+							previousExecutionResult.getExecutionWorkingDirectory());
+				}
+			}
+		}
 		//TODO allow tasks to be able to run even when no deltas have changed for it
 		if (TestFlag.ENABLED) {
 			if (deltas.isEmpty()) {
@@ -6510,6 +6959,11 @@ public final class TaskExecutionManager {
 			throw new AssertionError("Failed to start execution on future.");
 		}
 
+		BuildEventStream buildevents = this.buildEvents;
+		if (buildevents != null) {
+			buildevents.taskStarted(taskid);
+		}
+
 		Throwable taskrunningexception = null;
 		try {
 			R result = null;
@@ -6558,6 +7012,9 @@ public final class TaskExecutionManager {
 					executionresult.setFailedOutput(taskrunningexception, abortexceptions, result, buildUUID);
 					spawnedtask.executionFailed(taskrunningexception, abortexceptions);
 					future.failed(this, taskrunningexception, abortexceptions, taskcontext.resultDependencies);
+					if (buildevents != null) {
+						buildevents.taskFinished(taskid, false);
+					}
 					taskRunningFailureExceptions.add(ImmutableUtils.makeImmutableMapEntry(taskid,
 							createFailException(taskid, taskrunningexception, abortexceptions)));
 					return;
@@ -6575,6 +7032,9 @@ public final class TaskExecutionManager {
 				putTaskToResults(taskid, executionresult);
 
 				future.finished(this, executionresult);
+				if (buildevents != null) {
+					buildevents.taskFinished(taskid, !hasabortedexception);
+				}
 
 				if (TestFlag.ENABLED) {
 					//call this after the future.finished() call
@@ -6837,6 +7297,7 @@ public final class TaskExecutionManager {
 					BuildCacheSakerFile syncfile = syncentry.getValue();
 					SakerPathFiles.resolveDirectoryAtAbsolutePathCreate(executioncontext, dirpath).add(syncfile);
 					syncfile.synchronize();
+					addFileChangeAffectedTasks(path);
 				}
 			}
 		} catch (BuildCacheException | IOException e) {
@@ -7002,8 +7463,13 @@ public final class TaskExecutionManager {
 		boolean cachecapable = capabilities.isCacheable();
 		if (cachecapable && buildCache != null) {
 			//cacheable task, try to retrieve cached result
-			if (executeCachedNewTaskRetrieve(taskid, executioncontext, future, factory, parameters, taskdircontext,
-					spawnedtask)) {
+			boolean cachehit = executeCachedNewTaskRetrieve(taskid, executioncontext, future, factory, parameters,
+					taskdircontext, spawnedtask);
+			BuildEventStream events = this.buildEvents;
+			if (events != null) {
+				events.taskCache(taskid, cachehit);
+			}
+			if (cachehit) {
 				return;
 			}
 		}
@@ -21,6 +21,8 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -111,6 +113,12 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 			additionDependencies = SerialUtils.readExternalImmutableHashSet(in);
 		}
 
+		void compact(Map<SakerPath, SakerPath> pathinterner) {
+			inputFileDependencies = compactNavigableMap(inputFileDependencies, pathinterner);
+			outputFileDependencies = compactNavigableMap(outputFileDependencies, pathinterner);
+			additionDependencies = ImmutableUtils.makeImmutableHashSet(additionDependencies);
+		}
+
 	}
 
 	public static final class CreatedTaskDependency implements Externalizable {
@@ -619,6 +627,26 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 			events = readTaskExecutionEvents(in);
 		}
 
+		void compact(Map<SakerPath, SakerPath> pathinterner) {
+			Map<Object, FileDependencies> taggedfiledeps = taggedFileDependencies;
+			if (taggedfiledeps != null) {
+				for (FileDependencies filedeps : taggedfiledeps.values()) {
+					filedeps.compact(pathinterner);
+				}
+				taggedFileDependencies = ImmutableUtils.makeImmutableHashMap(taggedfiledeps);
+			}
+			createdTaskIds = ImmutableUtils.makeImmutableHashMap(createdTaskIds);
+			dependentTasks = ImmutableUtils.makeImmutableHashMap(dependentTasks);
+			environmentPropertyDependencies = ImmutableUtils.makeImmutableHashMap(environmentPropertyDependencies);
+			environmentPropertyQualifierDependencies = ImmutableUtils
+					.makeImmutableHashMap(environmentPropertyQualifierDependencies);
+			executionPropertyDependencies = ImmutableUtils.makeImmutableHashMap(executionPropertyDependencies);
+			if (events != null) {
+				//the events are collected in a linked accumulator during execution, copy them to an exact sized array
+				events = ImmutableUtils.makeImmutableList(ObjectUtils.newArrayList(events));
+			}
+		}
+
 		private static void writeDependentTasks(ObjectOutput out,
 				Map<TaskIdentifier, ReportedTaskDependency> dependenttasks) throws IOException {
 			SerialUtils.writeExternalMap(out, dependenttasks, ObjectOutput::writeObject,
@@ -627,8 +655,12 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 
 		private static Map<TaskIdentifier, ReportedTaskDependency> readDependentTasks(ObjectInput in)
 				throws IOException, ClassNotFoundException {
-			return ImmutableUtils.unmodifiableMap(SerialUtils.readExternalMap(new HashMap<>(), in,
-					SerialUtils::readExternalObject, ReportedTaskDependency::readExternalFrom));
+			Map<TaskIdentifier, ReportedTaskDependency> result = SerialUtils.readExternalMap(new HashMap<>(), in,
+					SerialUtils::readExternalObject, ReportedTaskDependency::readExternalFrom);
+			if (result.isEmpty()) {
+				return Collections.emptyMap();
+			}
+			return ImmutableUtils.unmodifiableMap(result);
 		}
 
 		private static void writeCreatedTaskIds(ObjectOutput out,
@@ -638,8 +670,12 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 
 		private static Map<TaskIdentifier, CreatedTaskDependency> readCreatedTaskIds(ObjectInput in)
 				throws IOException, ClassNotFoundException {
-			return ImmutableUtils.unmodifiableMap(
-					SerialUtils.readExternalValueExternalizableMap(new HashMap<>(), in, CreatedTaskDependency::new));
+			Map<TaskIdentifier, CreatedTaskDependency> result = SerialUtils
+					.readExternalValueExternalizableMap(new HashMap<>(), in, CreatedTaskDependency::new);
+			if (result.isEmpty()) {
+				return Collections.emptyMap();
+			}
+			return ImmutableUtils.unmodifiableMap(result);
 		}
 
 		private static void writeTaskExecutionEvents(ObjectOutput out, Iterable<? extends TaskExecutionEvent> events)
@@ -682,7 +718,7 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 				}
 				eventslist.add(ev);
 			}
-			return eventslist;
+			return ImmutableUtils.makeImmutableList(eventslist);
 		}
 	}
 
@@ -715,6 +751,8 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 
 	protected Object buildTraceInfo;
 
+	protected transient boolean compacted = false;
+
 	/**
 	 * For {@link Externalizable}.
 	 */
@@ -932,6 +970,36 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 		this.buildTraceInfo = buildTraceInfo;
 	}
 
+	/**
+	 * Replaces the collections of this finished execution result with compact immutable ones.
+	 * <p>
+	 * The results are kept in memory between builds, so the concurrent collections that were used during the
+	 * execution of the task are replaced with ones that have the same form as the deserialized results. Empty
+	 * collections are replaced with shared instances, and the sorted maps are backed by arrays. Equal paths are
+	 * deduplicated using the argument interner, so they can be shared between the results of different tasks.
+	 * <p>
+	 * The created by task identifiers are not compacted, as they are modified in subsequent builds.
+	 * <p>
+	 * This method must only be called after the build execution is done. Calling it multiple times has no effect.
+	 *
+	 * @param pathinterner
+	 *            The interner map for the paths.
+	 */
+	void compact(Map<SakerPath, SakerPath> pathinterner) {
+		if (compacted) {
+			return;
+		}
+		compacted = true;
+		taggedOutputs = ImmutableUtils.makeImmutableHashMap(taggedOutputs);
+		reportedMetaDatas = compactNavigableMap(reportedMetaDatas, null);
+		printedLines = ImmutableUtils.makeImmutableList(printedLines);
+		executionWorkingDirectory = internPath(executionWorkingDirectory, pathinterner);
+		executionBuildDirectory = internPath(executionBuildDirectory, pathinterner);
+		if (dependencies != null) {
+			dependencies.compact(pathinterner);
+		}
+	}
+
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
 		out.writeObject(taskId);
@@ -1030,6 +1098,8 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 		createdByTaskIds = SerialUtils.readExternalCollection(ConcurrentHashMap.newKeySet(), in);
 		ideConfigurations = SerialUtils.readExternalArray(in, IDEConfiguration[]::new);
 		printedLines = SerialUtils.readExternalImmutableList(in);
+		//the deserialized collections are already in compact form
+		compacted = true;
 
 		try {
 			this.buildTraceInfo = in.readObject();
@@ -1061,13 +1131,53 @@ public class TaskExecutionResult<R> implements TaskResultHolder<R>, Externalizab
 			Object value = i.readObject();
 			return ImmutableUtils.makeImmutableMapEntry(key, value);
 		});
-		Map<Object, Object> readmap = new HashMap<>(entrieslist.size());
+		if (entrieslist.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		Map<Object, Object> readmap = new HashMap<>(entrieslist.size() * 4 / 3 + 1);
 		for (Entry<Object, Object> entry : entrieslist) {
 			readmap.put(entry.getKey(), entry.getValue());
 		}
 		return ImmutableUtils.unmodifiableMap(readmap);
 	}
 
+	private static SakerPath internPath(SakerPath path, Map<SakerPath, SakerPath> pathinterner) {
+		if (path == null || pathinterner == null) {
+			return path;
+		}
+		SakerPath prev = pathinterner.putIfAbsent(path, path);
+		return prev == null ? path : prev;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> NavigableMap<K, V> compactNavigableMap(NavigableMap<K, V> map, Map<K, K> interner) {
+		if (map == null) {
+			return null;
+		}
+		Comparator<? super K> comparator = map.comparator();
+		if (map.isEmpty()) {
+			return ImmutableUtils.emptyNavigableMap(comparator);
+		}
+		//the entries are copied to arrays, as the array based map has much less memory overhead than the tree ones
+		List<Entry<K, V>> entries = new ArrayList<>(map.entrySet());
+		int size = entries.size();
+		Object[] keys = new Object[size];
+		Object[] values = new Object[size];
+		for (int i = 0; i < size; i++) {
+			Entry<K, V> entry = entries.get(i);
+			K key = entry.getKey();
+			if (interner != null) {
+				K prev = interner.putIfAbsent(key, key);
+				if (prev != null) {
+					key = prev;
+				}
+			}
+			keys[i] = key;
+			values[i] = entry.getValue();
+		}
+		return ImmutableUtils.unmodifiableNavigableMap((K[]) keys, (V[]) values, comparator);
+	}
+
 	private static NavigableMap<SakerPath, ContentDescriptor> readContentDescriptorMap(ObjectInput in)
 			throws ClassNotFoundException, IOException {
 		return SerialUtils.readExternalSortedImmutableNavigableMap(in, SerialUtils::readExternalObject, i -> {
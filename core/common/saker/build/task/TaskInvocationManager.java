@@ -84,6 +84,7 @@ import saker.build.thirdparty.saker.util.rmi.wrap.RMIArrayListWrapper;
 import saker.build.thirdparty.saker.util.thread.BooleanLatch;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils;
 import saker.build.thirdparty.saker.util.thread.ThreadUtils.ThreadWorkPool;
+import saker.build.trace.BuildEventStream;
 import saker.build.trace.InternalBuildTrace.InternalTaskBuildTrace;
 import testing.saker.build.flag.TestFlag;
 
@@ -272,6 +273,13 @@ public class TaskInvocationManager implements Closeable {
 			request.waitForResult();
 			TaskInvocationResult<R> invocationresult = request.getTaskInvocationResult();
 			if (invocationresult != null) {
+				BuildEventStream events = executionContext.getBuildEventStream();
+				if (events != null) {
+					UUID starterenvid = request.getStarterEnvironmentIdentifier();
+					if (starterenvid != null) {
+						events.taskClusterDispatch(taskcontext.getTaskId(), starterenvid);
+					}
+				}
 				return invocationresult;
 			}
 			//all clusters failed to invoke
@@ -1112,6 +1120,14 @@ public class TaskInvocationManager implements Closeable {
 			return starterInvocationContext == invocationcontext;
 		}
 
+		public UUID getStarterEnvironmentIdentifier() {
+			TaskInvocationContext starter = starterInvocationContext;
+			if (starter instanceof TaskInvocationContextImpl) {
+				return ((TaskInvocationContextImpl) starter).getEnvironmentIdentifier();
+			}
+			return null;
+		}
+
 		public void waitForResult() throws InterruptedException {
 			finishedLatch.await();
 		}
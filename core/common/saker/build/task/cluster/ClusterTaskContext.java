@@ -17,6 +17,7 @@ package saker.build.task.cluster;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.Objects;
@@ -371,6 +372,12 @@ class ClusterTaskContext implements TaskContext, InternalTaskContext {
 		throw new AssertionError("This method shouldn't be called directly.");
 	}
 
+	@Override
+	public void internalStartTasksOnTaskThread(Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+			TaskExecutionParameters parameters) {
+		throw new AssertionError("This method shouldn't be called directly.");
+	}
+
 	@Override
 	public <T> T internalRunTaskResultOnTaskThread(TaskIdentifier taskid, TaskFactory<T> taskfactory,
 			TaskExecutionParameters parameters) {
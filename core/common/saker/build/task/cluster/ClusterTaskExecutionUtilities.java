@@ -21,6 +21,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Set;
@@ -149,6 +150,14 @@ class ClusterTaskExecutionUtilities implements TaskExecutionUtilities {
 		return new ClusterTaskFuture<>(taskid, future, clusterTaskContext);
 	}
 
+	@Override
+	public void startTasks(Map<? extends TaskIdentifier, ? extends TaskFactory<?>> tasks,
+			TaskExecutionParameters parameters) throws TaskIdentifierConflictException {
+		TaskExecutionManager.requireCalledOnTaskThread(clusterTaskContext, false);
+		((InternalTaskContext) clusterTaskContext.realTaskContext).internalStartTasksOnTaskThread(tasks,
+				parameters);
+	}
+
 	@Override
 	public <R> R runTaskResult(TaskIdentifier taskid, TaskFactory<R> taskfactory, TaskExecutionParameters parameters)
 			throws TaskIdentifierConflictException {
@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.build.trace;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import saker.build.file.path.SakerPath;
+import saker.build.meta.PropertyNames;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+
+/**
+ * Writes the events of a build execution as newline delimited JSON objects to an output stream.
+ * <p>
+ * Each event is written as a single line, that contains the <code>"event"</code> type, the <code>"time"</code> of the
+ * event in milliseconds since the epoch, and the event specific fields. The stream is written while the build is
+ * running, so external consumers can observe the progress of the build live.
+ * <p>
+ * The events are written asynchronously by a background thread, so the build is never blocked by the consumer. The
+ * output is opened by the writer thread as well, as opening a named pipe blocks until a reader is present. If no reader
+ * is present when the stream is closed, the pending events are dropped, and the writer thread exits without writing
+ * them. The pending events are stored in a bounded queue. If the queue is full, the new events are dropped, and an
+ * <code>"events.dropped"</code> event is written with the <code>"count"</code> of the dropped events when the writer
+ * catches up.
+ * <p>
+ * If no output is configured, the execution doesn't create an instance of this class, and the event reporting call
+ * sites only perform a <code>null</code> check.
+ *
+ * @see PropertyNames#PROPERTY_BUILD_EVENT_OUTPUT
+ */
+public final class BuildEventStream implements Closeable {
+	public static final String EVENT_BUILD_STARTED = "build.started";
+	public static final String EVENT_BUILD_FINISHED = "build.finished";
+	public static final String EVENT_TASK_STARTED = "task.started";
+	public static final String EVENT_TASK_FINISHED = "task.finished";
+	public static final String EVENT_TASK_UP_TO_DATE = "task.uptodate";
+	public static final String EVENT_TASK_CACHE = "task.cache";
+	public static final String EVENT_TASK_CLUSTER_DISPATCH = "task.cluster.dispatch";
+	public static final String EVENT_FILE_SYNCHRONIZED = "file.synchronized";
+	public static final String EVENT_EVENTS_DROPPED = "events.dropped";
+
+	private static final AtomicReferenceFieldUpdater<BuildEventStream, Closeable> ARFU_openUnblocker = AtomicReferenceFieldUpdater
+			.newUpdater(BuildEventStream.class, Closeable.class, "openUnblocker");
+
+	private static final int QUEUE_CAPACITY = 4096;
+	private static final int OUTPUT_BUFFER_SIZE = 1024 * 8;
+	/**
+	 * The maximum time to wait for the pending events to be written when the stream is closed.
+	 */
+	private static final long CLOSE_WAIT_MILLIS = 5000;
+	/**
+	 * Marker element in the queue that signals the writer thread to exit. Compared by identity.
+	 */
+	private static final byte[] END_MARKER = {};
+
+	private final OutputOpener opener;
+	private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final Thread writerThread;
+	/**
+	 * Set to <code>true</code> if the stream is closed, or writing to the output failed, and no more events should be
+	 * queued.
+	 */
+	private volatile boolean failed = false;
+	/**
+	 * Set to <code>true</code> by the writer thread when the output was opened.
+	 */
+	private volatile boolean opened = false;
+	/**
+	 * Set to <code>true</code> if the stream was closed before the output was opened. The writer thread closes the
+	 * output without writing anything after opening it.
+	 */
+	private volatile boolean abandoned = false;
+	/**
+	 * The resource that releases the blocked opening of the output after the stream is closed, or <code>null</code>.
+	 */
+	private volatile Closeable openUnblocker;
+
+	/**
+	 * Creates a new event stream that writes to the argument output stream.
+	 * <p>
+	 * The output stream is closed when this event stream is closed.
+	 * 
+	 * @param out
+	 *            The output stream.
+	 */
+	public BuildEventStream(OutputStream out) {
+		this(() -> out);
+	}
+
+	private BuildEventStream(OutputOpener opener) {
+		this.opener = opener;
+		this.writerThread = ThreadUtils.startDaemonThread("Build event stream writer", this::runWriter);
+	}
+
+	/**
+	 * Opens the event stream specified by the {@linkplain PropertyNames#PROPERTY_BUILD_EVENT_OUTPUT build event output
+	 * property}.
+	 *
+	 * @return The opened event stream or <code>null</code> if no output is configured, or it failed to open.
+	 */
+	public static BuildEventStream openConfigured() {
+		String outputpath = PropertyNames.getProperty(PropertyNames.PROPERTY_BUILD_EVENT_OUTPUT);
+		if (outputpath == null || outputpath.isEmpty()) {
+			return null;
+		}
+		Path path;
+		try {
+			path = Paths.get(outputpath);
+		} catch (IllegalArgumentException e) {
+			//don't fail the build because of the event stream
+			e.printStackTrace();
+			return null;
+		}
+		return new BuildEventStream(new PathOutputOpener(path));
+	}
+
+	public void buildStarted(TaskIdentifier roottaskid) {
+		StringBuilder sb = startEvent(EVENT_BUILD_STARTED);
+		appendField(sb, "task", roottaskid.toString());
+		endEvent(sb);
+	}
+
+	public void buildFinished(boolean successful) {
+		StringBuilder sb = startEvent(EVENT_BUILD_FINISHED);
+		appendField(sb, "successful", successful);
+		endEvent(sb);
+	}
+
+	public void taskStarted(TaskIdentifier taskid) {
+		StringBuilder sb = startEvent(EVENT_TASK_STARTED);
+		appendField(sb, "task", taskid.toString());
+		endEvent(sb);
+	}
+
+	public void taskFinished(TaskIdentifier taskid, boolean successful) {
+		StringBuilder sb = startEvent(EVENT_TASK_FINISHED);
+		appendField(sb, "task", taskid.toString());
+		appendField(sb, "successful", successful);
+		endEvent(sb);
+	}
+
+	public void taskUpToDate(TaskIdentifier taskid) {
+		StringBuilder sb = startEvent(EVENT_TASK_UP_TO_DATE);
+		appendField(sb, "task", taskid.toString());
+		endEvent(sb);
+	}
+
+	public void taskCache(TaskIdentifier taskid, boolean hit) {
+		StringBuilder sb = startEvent(EVENT_TASK_CACHE);
+		appendField(sb, "task", taskid.toString());
+		appendField(sb, "hit", hit);
+		endEvent(sb);
+	}
+
+	public void taskClusterDispatch(TaskIdentifier taskid, UUID environmentid) {
+		StringBuilder sb = startEvent(EVENT_TASK_CLUSTER_DISPATCH);
+		appendField(sb, "task", taskid.toString());
+		appendField(sb, "environment", environmentid.toString());
+		endEvent(sb);
+	}
+
+	public void fileSynchronized(SakerPath path) {
+		StringBuilder sb = startEvent(EVENT_FILE_SYNCHRONIZED);
+		appendField(sb, "path", path.toString());
+		endEvent(sb);
+	}
+
+	/**
+	 * Closes the event stream.
+	 * <p>
+	 * The pending events are written to the output before it is closed. If the output hasn't been opened yet, the
+	 * pending events are dropped, and the blocked opening of the output is released.
+	 * <p>
+	 * The writer thread is waited for a bounded time, and it is interrupted if it doesn't finish.
+	 */
+	@Override
+	public void close() throws IOException {
+		failed = true;
+		if (!opened && opener.isOpenBlocking()) {
+			abandoned = true;
+			queue.clear();
+		}
+		while (!queue.offer(END_MARKER)) {
+			//the queue is full, make room for the end marker
+			if (queue.poll() != null) {
+				droppedCount.incrementAndGet();
+			}
+		}
+		if (abandoned) {
+			//the writer closes the unblocker after its opening returns, as it may not have started opening yet
+			openUnblocker = opener.unblockOpen();
+		}
+		try {
+			writerThread.join(CLOSE_WAIT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (opened || !writerThread.isAlive()) {
+			//the writer already checked the unblocker before it was set
+			closeOpenUnblocker();
+		}
+		//if the writer is still running, the consumer doesn't read the output
+		//stop the writer instead of leaking the thread
+		writerThread.interrupt();
+	}
+
+	private void closeOpenUnblocker() {
+		Closeable unblocker = ARFU_openUnblocker.getAndSet(this, null);
+		if (unblocker != null) {
+			try {
+				unblocker.close();
+			} catch (IOException e) {
+				//ignore, it was only used to release the opening
+			}
+		}
+	}
+
+	private void runWriter() {
+		OutputStream out;
+		try {
+			out = opener.open();
+		} catch (IOException | UnsupportedOperationException | SecurityException e) {
+			//don't fail the build because of the event stream
+			e.printStackTrace();
+			failed = true;
+			queue.clear();
+			closeOpenUnblocker();
+			return;
+		}
+		opened = true;
+		closeOpenUnblocker();
+		if (abandoned) {
+			//closed while waiting for the output to be opened, the events are stale
+			try {
+				out.close();
+			} catch (IOException e) {
+				//ignore, nothing was written
+			}
+			queue.clear();
+			return;
+		}
+		List<byte[]> batch = new ArrayList<>();
+		try (OutputStream bufos = new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE)) {
+			boolean end = false;
+			while (!end) {
+				batch.add(queue.take());
+				queue.drainTo(batch);
+				for (byte[] bytes : batch) {
+					if (bytes == END_MARKER) {
+						end = true;
+						break;
+					}
+					bufos.write(bytes);
+				}
+				batch.clear();
+				long dropped = droppedCount.getAndSet(0);
+				if (dropped > 0) {
+					StringBuilder sb = startEvent(EVENT_EVENTS_DROPPED);
+					sb.append(",\"count\":");
+					sb.append(dropped);
+					sb.append("}\n");
+					bufos.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+				}
+				//flush when the queue is drained, so the consumers see the events live
+				bufos.flush();
+			}
+		} catch (IOException | InterruptedException e) {
+			//the consumer went away, stop reporting
+		} finally {
+			failed = true;
+			queue.clear();
+		}
+	}
+
+	private static StringBuilder startEvent(String event) {
+		StringBuilder sb = new StringBuilder(128);
+		sb.append("{\"event\":\"");
+		sb.append(event);
+		sb.append("\",\"time\":");
+		sb.append(System.currentTimeMillis());
+		return sb;
+	}
+
+	private void endEvent(StringBuilder sb) {
+		if (failed) {
+			return;
+		}
+		sb.append("}\n");
+		if (!queue.offer(sb.toString().getBytes(StandardCharsets.UTF_8))) {
+			//the consumer can't keep up, don't block the build
+			droppedCount.incrementAndGet();
+		}
+	}
+
+	private static void appendField(StringBuilder sb, String name, boolean value) {
+		sb.append(",\"");
+		sb.append(name);
+		sb.append("\":");
+		sb.append(value);
+	}
+
+	private static void appendField(StringBuilder sb, String name, String value) {
+		sb.append(",\"");
+		sb.append(name);
+		sb.append("\":\"");
+		appendJsonEscaped(sb, value);
+		sb.append('"');
+	}
+
+	@FunctionalInterface
+	private interface OutputOpener {
+		public OutputStream open() throws IOException;
+
+		/**
+		 * Checks if the {@link #open()} call may block until a consumer is present.
+		 */
+		public default boolean isOpenBlocking() {
+			return false;
+		}
+
+		/**
+		 * Releases the {@link #open()} call of the writer thread if it blocks.
+		 * <p>
+		 * Called when the stream is closed before the output was opened.
+		 * 
+		 * @return The resource that releases the opening until it is closed, or <code>null</code>.
+		 */
+		public default Closeable unblockOpen() {
+			return null;
+		}
+	}
+
+	private static final class PathOutputOpener implements OutputOpener {
+		private final Path path;
+
+		public PathOutputOpener(Path path) {
+			this.path = path;
+		}
+
+		@Override
+		public OutputStream open() throws IOException {
+			//APPEND so multiple consecutive builds can report to the same file, and FIFOs work as well
+			//the output is opened on the writer thread, as opening a FIFO blocks until there's a reader
+			return Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+		}
+
+		@Override
+		public boolean isOpenBlocking() {
+			//named pipes are other files, opening regular files and not yet existing ones doesn't block
+			try {
+				return Files.readAttributes(path, BasicFileAttributes.class).isOther();
+			} catch (IOException | UnsupportedOperationException | SecurityException e) {
+				return false;
+			}
+		}
+
+		@Override
+		public Closeable unblockOpen() {
+			//opening a FIFO for both reading and writing doesn't block, and it releases the blocked writer
+			try {
+				return FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			} catch (IOException | UnsupportedOperationException | SecurityException e) {
+				//the writer thread is interrupted and abandoned after the close timeout
+				return null;
+			}
+		}
+	}
+
+	private static void appendJsonEscaped(StringBuilder sb, String value) {
+		int len = value.length();
+		for (int i = 0; i < len; i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"': {
+					sb.append("\\\"");
+					break;
+				}
+				case '\\': {
+					sb.append("\\\\");
+					break;
+				}
+				case '\n': {
+					sb.append("\\n");
+					break;
+				}
+				case '\r': {
+					sb.append("\\r");
+					break;
+				}
+				case '\t': {
+					sb.append("\\t");
+					break;
+				}
+				default: {
+					if (c < 0x20) {
+						sb.append("\\u00");
+						sb.append(Character.forDigit(c >>> 4, 16));
+						sb.append(Character.forDigit(c & 0xF, 16));
+					} else {
+						sb.append(c);
+					}
+					break;
+				}
+			}
+		}
+	}
+}
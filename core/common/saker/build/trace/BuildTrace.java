@@ -388,6 +388,22 @@ public final class BuildTrace {
 	 * @since saker.build 0.8.9
 	 */
 	public static final String VALUE_CATEGORY_ENVIRONMENT = "environment";
+	/**
+	 * Custom value category for the configuration of the build execution.
+	 * <p>
+	 * This constant can be used with custom value setting functions such as {@link #setValues(Map, String)}.
+	 * <p>
+	 * The values associated with this category are recorded for the build execution, not for a task or a build
+	 * environment. They describe the setup of the current build, e.g. the loading of its repositories and script
+	 * languages.
+	 * <p>
+	 * Unlike the values of the {@link #VALUE_CATEGORY_ENVIRONMENT} category, these values are specific to the build
+	 * that set them.
+	 * 
+	 * @see #setValues(Map, String)
+	 * @since saker.build 0.8.21
+	 */
+	public static final String VALUE_CATEGORY_CONFIGURATION = "configuration";
 
 	/**
 	 * Sets custom values for the specified category.
@@ -245,6 +245,19 @@ public interface InternalBuildTrace extends Closeable {
 		public default void endInnerTask() {
 		}
 
+		/**
+		 * Reports that the task was blocked while waiting for the result of the given task.
+		 * 
+		 * @param taskid
+		 *            The waited task identifier.
+		 * @param startnanos
+		 *            The {@link System#nanoTime()} when the waiting started.
+		 * @param endnanos
+		 *            The {@link System#nanoTime()} when the waiting ended.
+		 */
+		public default void waitedForTask(TaskIdentifier taskid, long startnanos, long endnanos) {
+		}
+
 		public default void setThrownException(@RMISerialize Throwable e) {
 		}
 
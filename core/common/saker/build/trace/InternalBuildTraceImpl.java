@@ -16,6 +16,7 @@
 package saker.build.trace;
 
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
@@ -30,12 +31,15 @@ import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -135,6 +139,12 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 
 	private static final int BUILDTRACE_ARTIFACT_EMBED_FLAGS = BuildTrace.ARTIFACT_EMBED_FLAG_CONFIDENTAL;
 
+	/**
+	 * The minimum interval length and the maximum interval count for the parallelism analysis of the execution.
+	 */
+	private static final long PARALLELISM_MIN_INTERVAL_MILLIS = 10;
+	private static final long PARALLELISM_MAX_INTERVAL_COUNT = 200;
+
 	protected static final Method METHOD_IGNOREDEXCEPTION = ReflectUtils.getMethodAssert(
 			ClusterInternalBuildTrace.class, "ignoredException", TaskIdentifier.class, ExceptionView.class);
 	protected static final Method METHOD_STARTBUILDCLUSTER = ReflectUtils.getMethodAssert(
@@ -246,6 +256,25 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 	private long endNanos;
 
 	private final ConcurrentHashMap<TaskIdentifier, TaskBuildTraceImpl> taskBuildTraces = new ConcurrentHashMap<>();
+	/**
+	 * Temporary storage for the serialized contents of the finished tasks.
+	 * <p>
+	 * The task traces are serialized when the tasks finish, so they don't need to be kept in memory until the build
+	 * trace is written.
+	 */
+	private final TaskTraceSpool taskTraceSpool = new TaskTraceSpool();
+	/**
+	 * Whether the task traces should be spooled when the tasks finish.
+	 * <p>
+	 * Only enabled when the build doesn't use clusters, as the trace information from the clusters is reported
+	 * asynchronously, and may arrive after the task has finished.
+	 */
+	private boolean spoolTaskTraces;
+	/**
+	 * The output artifacts of the finished tasks. Synchronized on itself.
+	 */
+	private final NavigableMap<SakerPath, Collection<ArtifactOutputInformation>> artifacts = new TreeMap<>();
+	private final ConcurrentMap<ScriptParsingOptions, ByteArrayRegion> readScriptContents = new ConcurrentHashMap<>();
 	private SakerPath workingDirectoryPath;
 	private SakerPath buildDirectoryPath;
 	private SakerPath mirrorDirectoryPath;
@@ -593,6 +622,10 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 			}
 			traceinfo.standardOutBytes = baos == null ? ByteArrayRegion.EMPTY : baos.toByteArrayRegion();
 			traceinfo.standardErrBytes = ByteArrayRegion.EMPTY;
+			//the standard output is the last information that is reported for an up to date task
+			if (spoolTaskTrace(trace)) {
+				trace.releaseSpooledData();
+			}
 		});
 	}
 
@@ -728,6 +761,8 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 
 			BuildInformation buildinfo = executioncontext.getExecutionParameters().getBuildInfo();
 			this.buildInformation = buildinfo;
+
+			this.spoolTaskTraces = ObjectUtils.isNullOrEmpty(executioncontext.getExecutionParameters().getTaskInvokers());
 		});
 	}
 
@@ -1091,9 +1126,6 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 				writeFieldName(os, "");
 			}
 
-			Map<ScriptParsingOptions, ByteArrayRegion> readscriptcontents = new HashMap<>();
-			NavigableMap<SakerPath, Collection<ArtifactOutputInformation>> artifacts = new TreeMap<>();
-
 			if (!ignoredExceptions.isEmpty()) {
 				writeFieldName(os, "ignored_exceptions");
 				os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
@@ -1105,228 +1137,25 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 
 			writeFieldName(os, "tasks");
 			os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-			for (Entry<TaskIdentifier, TaskBuildTraceImpl> entry : taskBuildTraces.entrySet()) {
-				TaskBuildTraceImpl ttrace = entry.getValue();
+			for (TaskBuildTraceImpl ttrace : taskBuildTraces.values()) {
 				os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
-
-				writeFieldName(os, "trace_id");
-				writeInt(os, ttrace.taskTraceId);
-
-				writeFieldName(os, "start");
-				writeLong(os, (ttrace.startNanos - this.startNanos) / 1_000_000);
-				writeFieldName(os, "end");
-				writeLong(os, (ttrace.endNanos - this.startNanos) / 1_000_000);
-
-				if (ttrace.upToDate) {
-					writeFieldName(os, "up_to_date");
-					writeBoolean(os, true);
-				}
-
-				writeFieldName(os, "task_class");
-				writeString(os, ttrace.taskClassName);
-
-				if (ttrace.traceInfo != null) {
-					if (!ObjectUtils.isNullOrEmpty(ttrace.traceInfo.standardOutDisplayIdentifier)) {
-						writeFieldName(os, "display");
-						writeTypedObject(os, ttrace.traceInfo.standardOutDisplayIdentifier);
-					}
-					addDisplayInformation(os, ttrace.traceInfo.displayInformation);
-
-					if (!ObjectUtils.isNullOrEmpty(ttrace.traceInfo.classification)) {
-						writeFieldName(os, "classification");
-						writeString(os, ttrace.traceInfo.classification);
-					}
-					if (ttrace.traceInfo.structuredOutput) {
-						writeFieldName(os, "structured_output");
-						writeBoolean(os, true);
-					}
-
-					if (ttrace.traceInfo.computationTokenCount > 0) {
-						writeFieldName(os, "cpu_tokens");
-						writeInt(os, ttrace.traceInfo.computationTokenCount);
-					}
-					if (ttrace.traceInfo.cacheable) {
-						writeFieldName(os, "cacheable");
-						writeBoolean(os, true);
-					}
-					if (ttrace.traceInfo.innerTasksComputationals) {
-						writeFieldName(os, "inner_task_computational");
-						writeBoolean(os, true);
-					}
-					if (ttrace.traceInfo.remoteDispatchable) {
-						writeFieldName(os, "remote_dispatchable");
-						writeBoolean(os, true);
-					}
-					if (ttrace.traceInfo.shortTask) {
-						writeFieldName(os, "short_task");
-						writeBoolean(os, true);
-					}
-					if (!ttrace.traceInfo.standardOutBytes.isEmpty()) {
-						writeFieldName(os, "stdout");
-						writeByteArray(os, ttrace.traceInfo.standardOutBytes);
-					}
-					if (!ttrace.traceInfo.standardErrBytes.isEmpty()) {
-						writeFieldName(os, "stderr");
-						writeByteArray(os, ttrace.traceInfo.standardErrBytes);
-					}
-					if (!ObjectUtils.isNullOrEmpty(ttrace.traceInfo.artifacts)) {
-						//handle if multiple tasks report the same outputs
-						//should be rare, but better safe than sorry
-						for (ArtifactOutputInformation artifact : ttrace.traceInfo.artifacts) {
-							artifacts.computeIfAbsent(artifact.path, Functionals.arrayListComputer()).add(artifact);
-						}
-					}
-					if (!ttrace.traceInfo.values.isEmpty()) {
-						writeFieldName(os, "values");
-						writeObject(os, ttrace.traceInfo.values);
-					}
-					readscriptcontents.putAll(ttrace.traceInfo.readScriptContents);
-				}
-
-				if (ttrace.workingDirectory != null && !Objects.equals(workingDirectoryPath, ttrace.workingDirectory)) {
-					writeFieldName(os, "working_dir");
-					writeString(os, Objects.toString(ttrace.workingDirectory, null));
-				}
-				if (ttrace.buildDirectory != null && !Objects.equals(buildDirectoryPath, ttrace.buildDirectory)) {
-					writeFieldName(os, "build_dir");
-					writeString(os, Objects.toString(ttrace.buildDirectory, null));
-				}
-
-				addExecutionEnv(os, ttrace.executionEnvironmentUUID);
-
-				if (!ObjectUtils.isNullOrEmpty(ttrace.deltas)) {
-					writeFieldName(os, "deltas");
-					os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-					for (BuildDelta d : ttrace.deltas) {
-						switch (d.getType()) {
-							case INPUT_FILE_ADDITION:
-							case INPUT_FILE_CHANGE:
-							case OUTPUT_FILE_CHANGE: {
-								os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
-								writeFieldName(os, "kind");
-								writeString(os, d.getType().name());
-
-								writeFieldName(os, "file");
-								writeString(os, ((FileChangeDelta) d).getFilePath().toString());
-
-								writeFieldName(os, "");
-								break;
-							}
-							default: {
-								writeString(os, d.getType().name());
-								break;
-							}
-						}
-					}
-					writeNull(os);
-				}
-
-				addTraceExceptions(os, ttrace.thrownException, ttrace.abortExceptions, ttrace.ignoredExceptions);
-
-				if (!ObjectUtils.isNullOrEmpty(ttrace.innerBuildTraces)) {
-					writeFieldName(os, "inner_tasks");
-					os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-					//use foreach with lambda as the map is a synchronized identity map
-					ttrace.innerBuildTraces.values().forEach(ibt -> {
-						if (ibt.omitInnerTask) {
-							return;
-						}
-						try {
-							os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
-							writeFieldName(os, "trace_id");
-							writeInt(os, ibt.taskTraceId);
-							writeFieldName(os, "start");
-							writeLong(os, (ibt.startNanos - this.startNanos) / 1_000_000);
-							writeFieldName(os, "end");
-							writeLong(os, (ibt.endNanos - this.startNanos) / 1_000_000);
-
-							addDisplayInformation(os, ibt.displayInformation);
-
-							writeFieldName(os, "task_class");
-							writeString(os, ibt.innerTaskClassName);
-
-							if (ibt.computationTokenCount > 0) {
-								writeFieldName(os, "cpu_tokens");
-								writeInt(os, ibt.computationTokenCount);
-							}
-
-							addExecutionEnv(os, ibt.executionEnvironmentUUID);
-							addTraceExceptions(os, ibt.thrownException, ibt.abortExceptions, null);
-
-							if (!ibt.values.isEmpty()) {
-								writeFieldName(os, "values");
-								writeObject(os, ibt.values);
-							}
-
-							writeFieldName(os, "");
-						} catch (IOException e) {
-							throw ObjectUtils.sneakyThrow(e);
-						}
-					});
-					writeNull(os);
-				}
-
-				if (ttrace.taskDependencies != null) {
-					TreeSet<SakerPath> indeps = new TreeSet<>();
-					TreeSet<SakerPath> outdeps = new TreeSet<>();
-					for (FileDependencies fdep : ttrace.taskDependencies.getTaggedFileDependencies().values()) {
-						indeps.addAll(fdep.getInputFileDependencies().navigableKeySet());
-						outdeps.addAll(fdep.getOutputFileDependencies().navigableKeySet());
-					}
-					if (!indeps.isEmpty()) {
-						writeFieldName(os, "input_files");
-						os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-						for (SakerPath f : indeps) {
-							writeString(os, f.toString());
-						}
-						writeNull(os);
-					}
-					if (!outdeps.isEmpty()) {
-						writeFieldName(os, "output_files");
-						os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-						for (SakerPath f : outdeps) {
-							writeString(os, f.toString());
-						}
-						writeNull(os);
-					}
-					Map<TaskIdentifier, ReportedTaskDependency> taskdesp = ttrace.taskDependencies
-							.getTaskDependencies();
-					if (!ObjectUtils.isNullOrEmpty(taskdesp)) {
-						writeFieldName(os, "task_dependencies");
-						os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-						for (TaskIdentifier deptaskid : taskdesp.keySet()) {
-							TaskBuildTraceImpl deptrace = taskBuildTraces.get(deptaskid);
-							if (deptrace == null) {
-								continue;
-							}
-							writeInt(os, deptrace.taskTraceId);
-						}
-						writeNull(os);
-					}
-					Map<TaskIdentifier, CreatedTaskDependency> createdtasks = ttrace.taskDependencies
-							.getDirectlyCreatedTaskIds();
-					if (!ObjectUtils.isNullOrEmpty(createdtasks)) {
-						writeFieldName(os, "created_tasks");
-						os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
-						for (TaskIdentifier ctid : createdtasks.keySet()) {
-							TaskBuildTraceImpl createdtrace = taskBuildTraces.get(ctid);
-							if (createdtrace == null) {
-								continue;
-							}
-							writeInt(os, createdtrace.taskTraceId);
-						}
-						writeNull(os);
-					}
+				if (!taskTraceSpool.writeTo(ttrace, os)) {
+					//the task wasn't spooled, write it now
+					writeTaskTraceContents(os, ttrace);
+					collectTaskTraceOutputs(ttrace);
 				}
+				writeTaskTraceReferences(os, ttrace);
 
 				writeFieldName(os, "");
 			}
 			writeNull(os);
 
-			if (!readscriptcontents.isEmpty()) {
+			writeExecutionAnalysis(os);
+
+			if (!readScriptContents.isEmpty()) {
 				writeFieldName(os, "scripts");
 				os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
-				for (Entry<ScriptParsingOptions, ByteArrayRegion> entry : readscriptcontents.entrySet()) {
+				for (Entry<ScriptParsingOptions, ByteArrayRegion> entry : readScriptContents.entrySet()) {
 					ScriptParsingOptions scriptoptions = entry.getKey();
 					writeFieldName(os, scriptoptions.getScriptPath().toString());
 					writeByteArray(os, entry.getValue());
@@ -1379,9 +1208,460 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 		} catch (Exception e) {
 			//don't throw this one, be non-intrusive
 			e.printStackTrace();
+		} finally {
+			taskTraceSpool.close();
 		}
 	}
 
+	/**
+	 * Writes the fields of the task trace that don't change after the task has finished.
+	 * <p>
+	 * The written data is either directly written to the build trace, or spooled to a temporary file during the build.
+	 */
+	private void writeTaskTraceContents(DataOutputStream os, TaskBuildTraceImpl ttrace) throws IOException {
+		writeFieldName(os, "trace_id");
+		writeInt(os, ttrace.taskTraceId);
+
+		writeFieldName(os, "start");
+		writeLong(os, (ttrace.startNanos - this.startNanos) / 1_000_000);
+		writeFieldName(os, "end");
+		writeLong(os, (ttrace.endNanos - this.startNanos) / 1_000_000);
+
+		if (ttrace.upToDate) {
+			writeFieldName(os, "up_to_date");
+			writeBoolean(os, true);
+		}
+
+		writeFieldName(os, "task_class");
+		writeString(os, ttrace.taskClassName);
+
+		if (ttrace.traceInfo != null) {
+			if (!ObjectUtils.isNullOrEmpty(ttrace.traceInfo.standardOutDisplayIdentifier)) {
+				writeFieldName(os, "display");
+				writeTypedObject(os, ttrace.traceInfo.standardOutDisplayIdentifier);
+			}
+			addDisplayInformation(os, ttrace.traceInfo.displayInformation);
+
+			if (!ObjectUtils.isNullOrEmpty(ttrace.traceInfo.classification)) {
+				writeFieldName(os, "classification");
+				writeString(os, ttrace.traceInfo.classification);
+			}
+			if (ttrace.traceInfo.structuredOutput) {
+				writeFieldName(os, "structured_output");
+				writeBoolean(os, true);
+			}
+
+			if (ttrace.traceInfo.computationTokenCount > 0) {
+				writeFieldName(os, "cpu_tokens");
+				writeInt(os, ttrace.traceInfo.computationTokenCount);
+			}
+			if (ttrace.traceInfo.cacheable) {
+				writeFieldName(os, "cacheable");
+				writeBoolean(os, true);
+			}
+			if (ttrace.traceInfo.innerTasksComputationals) {
+				writeFieldName(os, "inner_task_computational");
+				writeBoolean(os, true);
+			}
+			if (ttrace.traceInfo.remoteDispatchable) {
+				writeFieldName(os, "remote_dispatchable");
+				writeBoolean(os, true);
+			}
+			if (ttrace.traceInfo.shortTask) {
+				writeFieldName(os, "short_task");
+				writeBoolean(os, true);
+			}
+			if (!ttrace.traceInfo.standardOutBytes.isEmpty()) {
+				writeFieldName(os, "stdout");
+				writeByteArray(os, ttrace.traceInfo.standardOutBytes);
+			}
+			if (!ttrace.traceInfo.standardErrBytes.isEmpty()) {
+				writeFieldName(os, "stderr");
+				writeByteArray(os, ttrace.traceInfo.standardErrBytes);
+			}
+			if (!ttrace.traceInfo.values.isEmpty()) {
+				writeFieldName(os, "values");
+				writeObject(os, ttrace.traceInfo.values);
+			}
+		}
+
+		if (ttrace.workingDirectory != null && !Objects.equals(workingDirectoryPath, ttrace.workingDirectory)) {
+			writeFieldName(os, "working_dir");
+			writeString(os, Objects.toString(ttrace.workingDirectory, null));
+		}
+		if (ttrace.buildDirectory != null && !Objects.equals(buildDirectoryPath, ttrace.buildDirectory)) {
+			writeFieldName(os, "build_dir");
+			writeString(os, Objects.toString(ttrace.buildDirectory, null));
+		}
+
+		addExecutionEnv(os, ttrace.executionEnvironmentUUID);
+
+		if (!ObjectUtils.isNullOrEmpty(ttrace.deltas)) {
+			writeFieldName(os, "deltas");
+			os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+			for (BuildDelta d : ttrace.deltas) {
+				switch (d.getType()) {
+					case INPUT_FILE_ADDITION:
+					case INPUT_FILE_CHANGE:
+					case OUTPUT_FILE_CHANGE: {
+						os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
+						writeFieldName(os, "kind");
+						writeString(os, d.getType().name());
+
+						writeFieldName(os, "file");
+						writeString(os, ((FileChangeDelta) d).getFilePath().toString());
+
+						writeFieldName(os, "");
+						break;
+					}
+					default: {
+						writeString(os, d.getType().name());
+						break;
+					}
+				}
+			}
+			writeNull(os);
+		}
+
+		addTraceExceptions(os, ttrace.thrownException, ttrace.abortExceptions, null);
+
+		if (!ObjectUtils.isNullOrEmpty(ttrace.innerBuildTraces)) {
+			writeFieldName(os, "inner_tasks");
+			os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+			//use foreach with lambda as the map is a synchronized identity map
+			ttrace.innerBuildTraces.values().forEach(ibt -> {
+				if (ibt.omitInnerTask) {
+					return;
+				}
+				try {
+					os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
+					writeFieldName(os, "trace_id");
+					writeInt(os, ibt.taskTraceId);
+					writeFieldName(os, "start");
+					writeLong(os, (ibt.startNanos - this.startNanos) / 1_000_000);
+					writeFieldName(os, "end");
+					writeLong(os, (ibt.endNanos - this.startNanos) / 1_000_000);
+
+					addDisplayInformation(os, ibt.displayInformation);
+
+					writeFieldName(os, "task_class");
+					writeString(os, ibt.innerTaskClassName);
+
+					if (ibt.computationTokenCount > 0) {
+						writeFieldName(os, "cpu_tokens");
+						writeInt(os, ibt.computationTokenCount);
+					}
+
+					addExecutionEnv(os, ibt.executionEnvironmentUUID);
+					addTraceExceptions(os, ibt.thrownException, ibt.abortExceptions, null);
+
+					if (!ibt.values.isEmpty()) {
+						writeFieldName(os, "values");
+						writeObject(os, ibt.values);
+					}
+
+					writeFieldName(os, "");
+				} catch (IOException e) {
+					throw ObjectUtils.sneakyThrow(e);
+				}
+			});
+			writeNull(os);
+		}
+
+		if (ttrace.taskDependencies != null) {
+			TreeSet<SakerPath> indeps = new TreeSet<>();
+			TreeSet<SakerPath> outdeps = new TreeSet<>();
+			for (FileDependencies fdep : ttrace.taskDependencies.getTaggedFileDependencies().values()) {
+				indeps.addAll(fdep.getInputFileDependencies().navigableKeySet());
+				outdeps.addAll(fdep.getOutputFileDependencies().navigableKeySet());
+			}
+			if (!indeps.isEmpty()) {
+				writeFieldName(os, "input_files");
+				os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+				for (SakerPath f : indeps) {
+					writeString(os, f.toString());
+				}
+				writeNull(os);
+			}
+			if (!outdeps.isEmpty()) {
+				writeFieldName(os, "output_files");
+				os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+				for (SakerPath f : outdeps) {
+					writeString(os, f.toString());
+				}
+				writeNull(os);
+			}
+		}
+	}
+
+	/**
+	 * Writes the fields of the task trace that reference other tasks, or may be modified after the task has finished.
+	 */
+	private void writeTaskTraceReferences(DataOutputStream os, TaskBuildTraceImpl ttrace) throws IOException {
+		addTraceExceptions(os, null, null, ttrace.ignoredExceptions);
+
+		Collection<TaskIdentifier> deptaskids = ttrace.getDependencyTaskIds();
+		if (!ObjectUtils.isNullOrEmpty(deptaskids)) {
+			writeFieldName(os, "task_dependencies");
+			os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+			for (TaskIdentifier deptaskid : deptaskids) {
+				TaskBuildTraceImpl deptrace = taskBuildTraces.get(deptaskid);
+				if (deptrace == null) {
+					continue;
+				}
+				writeInt(os, deptrace.taskTraceId);
+			}
+			writeNull(os);
+		}
+		Collection<TaskIdentifier> createdtaskids = ttrace.getCreatedTaskIds();
+		if (!ObjectUtils.isNullOrEmpty(createdtaskids)) {
+			writeFieldName(os, "created_tasks");
+			os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+			for (TaskIdentifier ctid : createdtaskids) {
+				TaskBuildTraceImpl createdtrace = taskBuildTraces.get(ctid);
+				if (createdtrace == null) {
+					continue;
+				}
+				writeInt(os, createdtrace.taskTraceId);
+			}
+			writeNull(os);
+		}
+		List<TaskWaitInterval> waits = getWaitIntervals(ttrace);
+		if (!waits.isEmpty()) {
+			writeFieldName(os, "blocked_time");
+			writeLong(os, getUnionDurationNanos(waits) / 1_000_000);
+
+			//sum the waiting times for the waited tasks
+			Map<TaskIdentifier, Long> waitedtasks = new LinkedHashMap<>();
+			for (TaskWaitInterval w : waits) {
+				waitedtasks.merge(w.taskId, w.endNanos - w.startNanos, Long::sum);
+			}
+			writeFieldName(os, "waited_tasks");
+			os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+			for (Entry<TaskIdentifier, Long> entry : waitedtasks.entrySet()) {
+				TaskBuildTraceImpl waitedtrace = taskBuildTraces.get(entry.getKey());
+				if (waitedtrace == null) {
+					continue;
+				}
+				os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
+				writeFieldName(os, "trace_id");
+				writeInt(os, waitedtrace.taskTraceId);
+				writeFieldName(os, "duration");
+				writeLong(os, entry.getValue() / 1_000_000);
+				writeFieldName(os, "");
+			}
+			writeNull(os);
+		}
+	}
+
+	/**
+	 * Writes the analysis of the task execution phase.
+	 * <p>
+	 * The analysis contains:
+	 * <ul>
+	 * <li>The critical path of the execution. It is the chain of tasks that bounded the execution time. It is
+	 * determined by starting from the task that finished last, and repeatedly stepping to the task that was waited for
+	 * last. If a task didn't wait for others, the path continues with the task that created it. The path is written
+	 * in dependency order, ending with the task that finished last.</li>
+	 * <li>The total time the tasks were blocked waiting for other tasks.</li>
+	 * <li>The parallelism over time. That is the average number of tasks that were running and not blocked in each
+	 * interval of the execution phase.</li>
+	 * </ul>
+	 */
+	private void writeExecutionAnalysis(DataOutputStream os) throws IOException {
+		if (taskBuildTraces.isEmpty() || endExecutionNanos - startExecutionNanos <= 0) {
+			return;
+		}
+		Map<TaskBuildTraceImpl, TaskBuildTraceImpl> creators = new IdentityHashMap<>();
+		TaskBuildTraceImpl lasttrace = null;
+		long totalblockednanos = 0;
+		for (TaskBuildTraceImpl ttrace : taskBuildTraces.values()) {
+			if (lasttrace == null || ttrace.endNanos - lasttrace.endNanos > 0) {
+				lasttrace = ttrace;
+			}
+			totalblockednanos += getUnionDurationNanos(getWaitIntervals(ttrace));
+			Collection<TaskIdentifier> createdtaskids = ttrace.getCreatedTaskIds();
+			if (ObjectUtils.isNullOrEmpty(createdtaskids)) {
+				continue;
+			}
+			for (TaskIdentifier ctid : createdtaskids) {
+				TaskBuildTraceImpl createdtrace = taskBuildTraces.get(ctid);
+				if (createdtrace != null) {
+					creators.putIfAbsent(createdtrace, ttrace);
+				}
+			}
+		}
+
+		List<TaskBuildTraceImpl> criticalpath = new ArrayList<>();
+		Set<TaskBuildTraceImpl> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+		TaskBuildTraceImpl current = lasttrace;
+		long limitnanos = lasttrace.endNanos;
+		while (current != null && visited.add(current)) {
+			criticalpath.add(current);
+			TaskWaitInterval lastwait = null;
+			TaskBuildTraceImpl next = null;
+			for (TaskWaitInterval w : getWaitIntervals(current)) {
+				if (w.endNanos - limitnanos > 0 || (lastwait != null && w.endNanos - lastwait.endNanos <= 0)) {
+					continue;
+				}
+				TaskBuildTraceImpl waitedtrace = taskBuildTraces.get(w.taskId);
+				if (waitedtrace == null || visited.contains(waitedtrace)) {
+					continue;
+				}
+				lastwait = w;
+				next = waitedtrace;
+			}
+			if (next != null) {
+				limitnanos = next.endNanos;
+			} else {
+				//nothing was waited for, the task was delayed by its creator
+				limitnanos = current.startNanos;
+				next = creators.get(current);
+			}
+			current = next;
+		}
+		Collections.reverse(criticalpath);
+
+		writeFieldName(os, "analysis");
+		os.writeByte(TYPE_OBJECT_EMPTY_BOUNDED);
+
+		writeFieldName(os, "critical_path");
+		os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+		for (TaskBuildTraceImpl ttrace : criticalpath) {
+			writeInt(os, ttrace.taskTraceId);
+		}
+		writeNull(os);
+		writeFieldName(os, "critical_path_duration");
+		writeLong(os, (lasttrace.endNanos - criticalpath.get(0).startNanos) / 1_000_000);
+
+		writeFieldName(os, "blocked_time");
+		writeLong(os, totalblockednanos / 1_000_000);
+
+		long executionnanos = endExecutionNanos - startExecutionNanos;
+		long intervalmillis = Math.max(PARALLELISM_MIN_INTERVAL_MILLIS,
+				(executionnanos / 1_000_000 + PARALLELISM_MAX_INTERVAL_COUNT - 1) / PARALLELISM_MAX_INTERVAL_COUNT);
+		long intervalnanos = intervalmillis * 1_000_000;
+		int intervalcount = (int) ((executionnanos + intervalnanos - 1) / intervalnanos);
+		long[] runningnanos = new long[intervalcount];
+		for (TaskBuildTraceImpl ttrace : taskBuildTraces.values()) {
+			long start = Math.max(ttrace.startNanos - startExecutionNanos, 0);
+			long end = Math.min(ttrace.endNanos - startExecutionNanos, executionnanos);
+			//subtract the blocked intervals from the running time of the task
+			for (long[] blocked : getUnionIntervals(getWaitIntervals(ttrace))) {
+				addRunningNanos(runningnanos, intervalnanos, start,
+						Math.min(blocked[0] - startExecutionNanos, end));
+				start = Math.max(start, blocked[1] - startExecutionNanos);
+			}
+			addRunningNanos(runningnanos, intervalnanos, start, end);
+		}
+		writeFieldName(os, "parallelism_interval");
+		writeLong(os, intervalmillis);
+		writeFieldName(os, "parallelism");
+		os.writeByte(TYPE_ARRAY_NULL_BOUNDED);
+		for (long rn : runningnanos) {
+			writeTypedObject(os, Math.round(rn * 100.0 / intervalnanos) / 100.0);
+		}
+		writeNull(os);
+
+		writeFieldName(os, "");
+	}
+
+	private static void addRunningNanos(long[] runningnanos, long intervalnanos, long start, long end) {
+		if (end <= start) {
+			return;
+		}
+		for (int i = (int) (start / intervalnanos); i < runningnanos.length; i++) {
+			long istart = i * intervalnanos;
+			if (istart >= end) {
+				break;
+			}
+			runningnanos[i] += Math.min(end, istart + intervalnanos) - Math.max(start, istart);
+		}
+	}
+
+	private static List<TaskWaitInterval> getWaitIntervals(TaskBuildTraceImpl ttrace) {
+		synchronized (ttrace.waitIntervals) {
+			return new ArrayList<>(ttrace.waitIntervals);
+		}
+	}
+
+	/**
+	 * Merges the overlapping wait intervals, as multiple threads of a task may wait concurrently.
+	 * 
+	 * @return The ordered non-overlapping intervals as <code>{start, end}</code> nano time pairs.
+	 */
+	private static List<long[]> getUnionIntervals(List<TaskWaitInterval> waits) {
+		if (waits.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<TaskWaitInterval> sorted = new ArrayList<>(waits);
+		sorted.sort((l, r) -> Long.compare(l.startNanos - r.startNanos, 0));
+		List<long[]> result = new ArrayList<>();
+		long[] current = null;
+		for (TaskWaitInterval w : sorted) {
+			if (current != null && w.startNanos - current[1] <= 0) {
+				if (w.endNanos - current[1] > 0) {
+					current[1] = w.endNanos;
+				}
+				continue;
+			}
+			current = new long[] { w.startNanos, w.endNanos };
+			result.add(current);
+		}
+		return result;
+	}
+
+	private static long getUnionDurationNanos(List<TaskWaitInterval> waits) {
+		long result = 0;
+		for (long[] interval : getUnionIntervals(waits)) {
+			result += interval[1] - interval[0];
+		}
+		return result;
+	}
+
+	private void collectTaskTraceOutputs(TaskBuildTraceImpl ttrace) {
+		TaskBuildTraceInfo traceinfo = ttrace.traceInfo;
+		if (traceinfo == null) {
+			return;
+		}
+		if (!ObjectUtils.isNullOrEmpty(traceinfo.artifacts)) {
+			//handle if multiple tasks report the same outputs
+			//should be rare, but better safe than sorry
+			synchronized (artifacts) {
+				for (ArtifactOutputInformation artifact : traceinfo.artifacts) {
+					artifacts.computeIfAbsent(artifact.path, Functionals.arrayListComputer()).add(artifact);
+				}
+			}
+		}
+		readScriptContents.putAll(traceinfo.readScriptContents);
+	}
+
+	/**
+	 * Serializes the contents of the finished task trace to the spool file.
+	 * <p>
+	 * If the spooling fails, the task trace is kept in memory, and written when the build trace is closed.
+	 * 
+	 * @return <code>true</code> if the trace was spooled, and the spooled data can be released.
+	 */
+	private boolean spoolTaskTrace(TaskBuildTraceImpl ttrace) {
+		if (!spoolTaskTraces) {
+			return false;
+		}
+		UnsyncByteArrayOutputStream buf = new UnsyncByteArrayOutputStream(1024);
+		try (DataOutputStream os = new DataOutputStream(buf)) {
+			writeTaskTraceContents(os, ttrace);
+		} catch (IOException | RuntimeException e) {
+			//IOException shouldn't happen, as we're writing to memory
+			//keep the trace in memory, it will be attempted to be written when the trace is closed
+			return false;
+		}
+		if (!taskTraceSpool.append(ttrace, buf.toByteArrayRegion())) {
+			return false;
+		}
+		collectTaskTraceOutputs(ttrace);
+		return true;
+	}
+
 	private static void addDisplayInformation(DataOutputStream os, TaskDisplayInformation dinfo) throws IOException {
 		if (dinfo == null) {
 			return;
@@ -1836,6 +2116,88 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 		return views;
 	}
 
+	/**
+	 * Temporary file that contains the serialized contents of the task traces.
+	 * <p>
+	 * The file is created lazily when the first task is spooled, and deleted when the spool is closed. If the file
+	 * cannot be created or written, the spooling is disabled, and the task traces are kept in memory.
+	 */
+	private static final class TaskTraceSpool {
+		private static final int TRANSFER_BUFFER_SIZE = 1024 * 32;
+
+		private FileChannel channel;
+		private long size;
+		private boolean disabled;
+
+		public synchronized boolean append(TaskBuildTraceImpl ttrace, ByteArrayRegion bytes) {
+			if (disabled) {
+				return false;
+			}
+			try {
+				if (channel == null) {
+					Path path = Files.createTempFile("saker-build-trace-", ".spool");
+					try {
+						channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE,
+								StandardOpenOption.DELETE_ON_CLOSE);
+					} catch (IOException | RuntimeException e) {
+						try {
+							Files.deleteIfExists(path);
+						} catch (IOException e2) {
+							e.addSuppressed(e2);
+						}
+						throw e;
+					}
+				}
+				ByteBuffer buffer = ByteBuffer.wrap(bytes.getArray(), bytes.getOffset(), bytes.getLength());
+				long offset = size;
+				while (buffer.hasRemaining()) {
+					channel.write(buffer, offset + buffer.position() - bytes.getOffset());
+				}
+				size += bytes.getLength();
+				ttrace.spoolOffset = offset;
+				ttrace.spoolLength = bytes.getLength();
+				return true;
+			} catch (IOException | RuntimeException e) {
+				if (TestFlag.ENABLED) {
+					e.printStackTrace();
+				}
+				disabled = true;
+				return false;
+			}
+		}
+
+		public synchronized boolean writeTo(TaskBuildTraceImpl ttrace, OutputStream os) throws IOException {
+			if (ttrace.spoolLength < 0) {
+				return false;
+			}
+			byte[] buf = new byte[Math.min(ttrace.spoolLength, TRANSFER_BUFFER_SIZE)];
+			ByteBuffer buffer = ByteBuffer.wrap(buf);
+			long position = ttrace.spoolOffset;
+			int remaining = ttrace.spoolLength;
+			while (remaining > 0) {
+				buffer.clear();
+				buffer.limit(Math.min(remaining, buf.length));
+				int read = channel.read(buffer, position);
+				if (read < 0) {
+					throw new EOFException("Unexpected end of build trace spool file.");
+				}
+				os.write(buf, 0, read);
+				position += read;
+				remaining -= read;
+			}
+			return true;
+		}
+
+		public synchronized void close() throws IOException {
+			disabled = true;
+			FileChannel c = channel;
+			channel = null;
+			if (c != null) {
+				c.close();
+			}
+		}
+	}
+
 	private static class TaskDisplayInformation implements Externalizable {
 		private static final long serialVersionUID = 1L;
 
@@ -1936,6 +2298,18 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 		}
 	}
 
+	protected static final class TaskWaitInterval {
+		protected final TaskIdentifier taskId;
+		protected final long startNanos;
+		protected final long endNanos;
+
+		public TaskWaitInterval(TaskIdentifier taskId, long startNanos, long endNanos) {
+			this.taskId = taskId;
+			this.startNanos = startNanos;
+			this.endNanos = endNanos;
+		}
+	}
+
 	@RMIWrap(TaskBuildTraceImplRMIWrapper.class)
 	public static final class TaskBuildTraceImpl implements ClusterTaskBuildTrace {
 		private final InternalBuildTraceImpl trace;
@@ -1952,6 +2326,16 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 		protected SakerPath buildDirectory;
 
 		protected TaskDependencies taskDependencies;
+		/**
+		 * The identifiers of the task dependencies, after the {@linkplain #taskDependencies dependencies} have been
+		 * released.
+		 */
+		protected List<TaskIdentifier> dependencyTaskIds;
+		/**
+		 * The identifiers of the created tasks, after the {@linkplain #taskDependencies dependencies} have been
+		 * released.
+		 */
+		protected List<TaskIdentifier> createdTaskIds;
 
 		protected UUID executionEnvironmentUUID;
 
@@ -1968,6 +2352,22 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 
 		protected ConcurrentSkipListSet<String> ignoredExceptions = new ConcurrentSkipListSet<>();
 
+		/**
+		 * The offset and length of the serialized contents in the {@linkplain InternalBuildTraceImpl#taskTraceSpool
+		 * spool}, or negative length if the trace is not spooled.
+		 * <p>
+		 * Accessed while locked on the spool.
+		 */
+		protected long spoolOffset;
+		protected int spoolLength = -1;
+
+		/**
+		 * The time intervals when the task was blocked waiting for the results of other tasks.
+		 * <p>
+		 * Synchronized list. Not released when the task is spooled, as it is needed for the execution analysis.
+		 */
+		protected List<TaskWaitInterval> waitIntervals = Collections.synchronizedList(new ArrayList<>());
+
 		public TaskBuildTraceImpl(InternalBuildTraceImpl trace) {
 			this.trace = trace;
 			eventId = AIFU_eventCounter.incrementAndGet(trace);
@@ -2140,6 +2540,11 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 			this.startNanos = System.nanoTime();
 		}
 
+		@Override
+		public void waitedForTask(TaskIdentifier taskid, long startnanos, long endnanos) {
+			waitIntervals.add(new TaskWaitInterval(taskid, startnanos, endnanos));
+		}
+
 		@Override
 		public void endTaskExecution() {
 			this.endNanos = System.nanoTime();
@@ -2206,8 +2611,67 @@ public class InternalBuildTraceImpl implements ClusterInternalBuildTrace {
 		public void close(TaskContext taskcontext, TaskExecutionResult<?> taskresult) {
 			//the end nanos are set in other appropriate methods
 			this.traceInfo.structuredOutput = taskresult.getOutput() instanceof StructuredTaskResult;
-			taskresult.setBuildTraceInfo(traceInfo);
 			collectDependencies(taskresult);
+			TaskBuildTraceInfo traceinfo = this.traceInfo;
+			if (trace.spoolTaskTrace(this)) {
+				//the standard IO is only needed for the trace of this build, and it was spooled
+				//the output of up to date tasks is reported separately, so don't keep it in the task result
+				traceinfo.standardOutBytes = ByteArrayRegion.EMPTY;
+				traceinfo.standardErrBytes = ByteArrayRegion.EMPTY;
+				releaseSpooledData();
+			}
+			taskresult.setBuildTraceInfo(traceinfo);
+		}
+
+		/**
+		 * Releases the data that was spooled and is not needed to write the task references.
+		 * <p>
+		 * Only the identifiers of the referenced tasks are kept, the trace info and the dependencies are no longer
+		 * referenced by the trace.
+		 */
+		protected void releaseSpooledData() {
+			this.deltas = Collections.emptySet();
+			this.innerBuildTraces = Collections.synchronizedMap(new IdentityHashMap<>());
+			this.thrownException = null;
+			this.abortExceptions = null;
+			this.traceInfo = null;
+			TaskDependencies deps = this.taskDependencies;
+			if (deps != null) {
+				this.dependencyTaskIds = toTaskIdList(deps.getTaskDependencies());
+				this.createdTaskIds = toTaskIdList(deps.getDirectlyCreatedTaskIds());
+				this.taskDependencies = null;
+			}
+		}
+
+		/**
+		 * Gets the identifiers of the tasks that this task depends on.
+		 */
+		protected Collection<TaskIdentifier> getDependencyTaskIds() {
+			TaskDependencies deps = this.taskDependencies;
+			if (deps != null) {
+				Map<TaskIdentifier, ReportedTaskDependency> taskdeps = deps.getTaskDependencies();
+				return taskdeps == null ? null : taskdeps.keySet();
+			}
+			return dependencyTaskIds;
+		}
+
+		/**
+		 * Gets the identifiers of the tasks that this task directly created.
+		 */
+		protected Collection<TaskIdentifier> getCreatedTaskIds() {
+			TaskDependencies deps = this.taskDependencies;
+			if (deps != null) {
+				Map<TaskIdentifier, CreatedTaskDependency> createdtasks = deps.getDirectlyCreatedTaskIds();
+				return createdtasks == null ? null : createdtasks.keySet();
+			}
+			return createdTaskIds;
+		}
+
+		private static List<TaskIdentifier> toTaskIdList(Map<TaskIdentifier, ?> map) {
+			if (ObjectUtils.isNullOrEmpty(map)) {
+				return null;
+			}
+			return ImmutableUtils.makeImmutableList(map.keySet());
 		}
 
 		protected void collectDependencies(TaskExecutionResult<?> taskresult) {
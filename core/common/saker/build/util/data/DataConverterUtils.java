@@ -880,6 +880,9 @@ public class DataConverterUtils {
 	 * Instantiates the argument {@link DataConverter} class.
 	 * <p>
 	 * Data converter implementations should have a public no-arg constructor.
+	 * <p>
+	 * As the data converters are stateless, the instances are cached, and the same instance may be returned for
+	 * subsequent calls.
 	 * 
 	 * @param <T>
 	 *            The {@link DataConverter} type to instantiate.
@@ -891,14 +894,10 @@ public class DataConverterUtils {
 	 */
 	public static <T extends DataConverter> T getDataConverterInstance(Class<T> convertertype)
 			throws ConversionFailedException {
-		//XXX cache the instantiated converters
 		try {
-			return ReflectUtils.newInstance(convertertype);
-		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | NoSuchMethodException
-				| SecurityException e) {
-			throw new ConversionFailedException("Failed to instantiate data converter class.", e);
-		} catch (InvocationTargetException e) {
-			throw new ConversionFailedException("Failed to instantiate data converter class.", e.getCause());
+			return convertertype.cast(DATA_CONVERTER_INSTANCES.get(convertertype));
+		} catch (DataConverterInstantiationException e) {
+			throw e.getCause();
 		}
 	}
 
@@ -1061,6 +1060,137 @@ public class DataConverterUtils {
 		return (T) Proxy.newProxyInstance(cl, classarray, h);
 	}
 
+	/**
+	 * Cache for the instantiated {@link DataConverter DataConverters}.
+	 */
+	private static final ClassValue<DataConverter> DATA_CONVERTER_INSTANCES = new ClassValue<DataConverter>() {
+		@Override
+		protected DataConverter computeValue(Class<?> type) {
+			try {
+				return (DataConverter) ReflectUtils.newInstance(type);
+			} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+					| NoSuchMethodException | SecurityException e) {
+				throw new DataConverterInstantiationException(
+						new ConversionFailedException("Failed to instantiate data converter class.", e));
+			} catch (InvocationTargetException e) {
+				throw new DataConverterInstantiationException(
+						new ConversionFailedException("Failed to instantiate data converter class.", e.getCause()));
+			}
+		}
+	};
+	/**
+	 * Cache for the inherited types of the converted value classes.
+	 */
+	private static final ClassValue<InheritedTypes> INHERITED_TYPES = new ClassValue<InheritedTypes>() {
+		@Override
+		protected InheritedTypes computeValue(Class<?> type) {
+			return new InheritedTypes(type);
+		}
+	};
+	/**
+	 * Cache for the conversion methods declared by the classes.
+	 */
+	private static final ClassValue<ConversionMethods> CONVERSION_METHODS = new ClassValue<ConversionMethods>() {
+		@Override
+		protected ConversionMethods computeValue(Class<?> type) {
+			return new ConversionMethods(type);
+		}
+	};
+
+	/**
+	 * Thrown when a data converter fails to instantiate.
+	 * <p>
+	 * The failed instantiations are not cached by {@link ClassValue}, so they are retried for subsequent calls.
+	 */
+	private static final class DataConverterInstantiationException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		public DataConverterInstantiationException(ConversionFailedException cause) {
+			super(cause);
+		}
+
+		@Override
+		public synchronized ConversionFailedException getCause() {
+			return (ConversionFailedException) super.getCause();
+		}
+	}
+
+	private static final class InheritedTypes {
+		protected final Map<Class<?>, Integer> typeDistances;
+		protected final Map<String, Class<?>> typeNameClasses;
+
+		public InheritedTypes(Class<?> type) {
+			this.typeDistances = ReflectUtils.getAllInheritedTypesWithDistance(type);
+			Map<String, Class<?>> typenameclasses = new TreeMap<>();
+			for (Class<?> c : typeDistances.keySet()) {
+				typenameclasses.put(c.getName(), c);
+			}
+			this.typeNameClasses = typenameclasses;
+		}
+	}
+
+	private static final class ConversionMethods {
+		/**
+		 * The static single parameter <code>valueOf</code> methods that return the declaring class, mapped by their
+		 * parameter types.
+		 */
+		protected final Map<Class<?>, Method> valueOfMethods = new HashMap<>();
+		/**
+		 * The <code>valueOf(StructuredTaskResult, ConversionContext)</code> method that returns the declaring class,
+		 * or <code>null</code> if not declared.
+		 */
+		protected final Method contextedValueOfMethod;
+		/**
+		 * The public no-arg methods with the <code>to</code> prefix, mapped by their names.
+		 */
+		protected final Map<String, Method> toMethods = new HashMap<>();
+
+		public ConversionMethods(Class<?> type) {
+			Method contextedvalueof = null;
+			for (Method m : type.getDeclaredMethods()) {
+				if (!"valueOf".equals(m.getName())) {
+					continue;
+				}
+				Class<?>[] paramtypes = m.getParameterTypes();
+				if (paramtypes.length == 2) {
+					if (paramtypes[0] == StructuredTaskResult.class && paramtypes[1] == ConversionContext.class
+							&& type.isAssignableFrom(m.getReturnType())) {
+						contextedvalueof = m;
+					}
+					continue;
+				}
+				if (paramtypes.length != 1) {
+					continue;
+				}
+				if (!Modifier.isStatic(m.getModifiers())) {
+					continue;
+				}
+				Type paramgentype = m.getGenericParameterTypes()[0];
+				if (!isValidValueOfGenericParameterType(paramgentype)) {
+					//the valueOf method parameter must not be generic, as we don't do conversion for the parameter
+					continue;
+				}
+				if (!type.isAssignableFrom(m.getReturnType())) {
+					continue;
+				}
+				valueOfMethods.put(paramtypes[0], m);
+			}
+			this.contextedValueOfMethod = contextedvalueof;
+
+			for (Method m : type.getMethods()) {
+				String name = m.getName();
+				if (!name.startsWith("to") || m.getParameterCount() != 0) {
+					continue;
+				}
+				Method prev = toMethods.putIfAbsent(name, m);
+				if (prev != null && prev.getReturnType().isAssignableFrom(m.getReturnType())) {
+					//use the one with the more specific return type, same as Class.getMethod
+					toMethods.put(name, m);
+				}
+			}
+		}
+	}
+
 	private static final Map<Class<?>, Function<Number, Object>> NUMBER_TO_PRIMITIVE_CONVERTERS = new HashMap<>(12);
 	static {
 		NUMBER_TO_PRIMITIVE_CONVERTERS.put(byte.class, Number::byteValue);
@@ -1255,14 +1385,13 @@ public class DataConverterUtils {
 			}
 			try {
 				Method tomethod = getToTargetClassConverterMethod(valueclass, targetclass);
-				if (Map.Entry.class.isAssignableFrom(tomethod.getReturnType())) {
+				if (tomethod != null && Map.Entry.class.isAssignableFrom(tomethod.getReturnType())) {
 					Entry<?, ?> entry = (Entry<?, ?>) tomethod.invoke(value);
 					Type keytype = ReflectTypes.getTypeArguments(targettype, 0);
 					Type valuetype = ReflectTypes.getTypeArguments(targettype, 1);
 					return new ProxyMapEntry(conversioncontext.genericChildContext(0),
 							conversioncontext.genericChildContext(1), entry, keytype, valuetype);
 				}
-			} catch (NoSuchMethodException e) {
 			} catch (Exception e) {
 				throw new ConversionFailedException("Failed to convert " + valueclass.getName() + " (" + value + ") to "
 						+ targetclass.getName() + ".", e);
@@ -1553,14 +1682,11 @@ public class DataConverterUtils {
 		}
 		Method strvalueof = null;
 		//loop until the object is no longer a structured task result
+		ConversionMethods targetclassmethods = CONVERSION_METHODS.get(targetclass);
 		while (true) {
-			Map<Class<?>, Integer> allvalueclassinheritedtypedistances = ReflectUtils
-					.getAllInheritedTypesWithDistance(valueclass);
-
-			Map<String, Class<?>> allvalueclassinheritedtypenameclasses = new TreeMap<>();
-			for (Class<?> c : allvalueclassinheritedtypedistances.keySet()) {
-				allvalueclassinheritedtypenameclasses.put(c.getName(), c);
-			}
+			InheritedTypes valueclassinheritedtypes = INHERITED_TYPES.get(valueclass);
+			Map<Class<?>, Integer> allvalueclassinheritedtypedistances = valueclassinheritedtypes.typeDistances;
+			Map<String, Class<?>> allvalueclassinheritedtypenameclasses = valueclassinheritedtypes.typeNameClasses;
 			if (targetclass.isInterface()) {
 				Class<?> valuesuperitf = allvalueclassinheritedtypenameclasses.get(targetclass.getName());
 				if (valuesuperitf != null) {
@@ -1580,47 +1706,27 @@ public class DataConverterUtils {
 			valueof_converter_block:
 			{
 				if (value instanceof StructuredTaskResult) {
-					try {
-						Method contextedvalueof = targetclass.getDeclaredMethod("valueOf", StructuredTaskResult.class,
-								ConversionContext.class);
-						if (targetclass.isAssignableFrom(contextedvalueof.getReturnType())) {
-							try {
-								return ReflectUtils.invokeMethod((Object) null, contextedvalueof, value,
-										conversioncontext);
-							} catch (IllegalAccessException | IllegalArgumentException e) {
-								excs = IOUtils.collectExc(excs, new ConversionFailedException(
-										"Failed to convert using: " + contextedvalueof, e));
-							} catch (InvocationTargetException e) {
-								excs = IOUtils.collectExc(excs, new ConversionFailedException(
-										"Failed to convert using: " + contextedvalueof, e.getCause()));
-							}
+					Method contextedvalueof = targetclassmethods.contextedValueOfMethod;
+					if (contextedvalueof != null) {
+						try {
+							return ReflectUtils.invokeMethod((Object) null, contextedvalueof, value,
+									conversioncontext);
+						} catch (IllegalAccessException | IllegalArgumentException e) {
+							excs = IOUtils.collectExc(excs, new ConversionFailedException(
+									"Failed to convert using: " + contextedvalueof, e));
+						} catch (InvocationTargetException e) {
+							excs = IOUtils.collectExc(excs, new ConversionFailedException(
+									"Failed to convert using: " + contextedvalueof, e.getCause()));
 						}
-					} catch (NoSuchMethodException | SecurityException e) {
+					} else {
 						excs = IOUtils.collectExc(excs, new ConversionFailedException(
-								"valueOf(StructuredTaskResult, ConversionContext) method not found.", e));
-					}
-				}
-				Map<Class<?>, Method> valueofs = new HashMap<>();
-				for (Method m : targetclass.getDeclaredMethods()) {
-					if (!"valueOf".equals(m.getName())) {
-						continue;
-					}
-					if (m.getParameterCount() != 1) {
-						continue;
-					}
-					if (!Modifier.isStatic(m.getModifiers())) {
-						continue;
-					}
-					Type paramgentype = m.getGenericParameterTypes()[0];
-					if (!isValidValueOfGenericParameterType(paramgentype)) {
-						//the valueOf method parameter must not be generic, as we don't do conversion for the parameter
-						continue;
-					}
-					if (!targetclass.isAssignableFrom(m.getReturnType())) {
-						continue;
+								"valueOf(StructuredTaskResult, ConversionContext) method not found.",
+								createMethodNotFoundException(targetclass, "valueOf", StructuredTaskResult.class,
+										ConversionContext.class)));
 					}
-					valueofs.put(m.getParameterTypes()[0], m);
 				}
+				//copy, as the matched methods are removed during the conversion
+				Map<Class<?>, Method> valueofs = new HashMap<>(targetclassmethods.valueOfMethods);
 				Method perfectvalueofmatch = valueofs.remove(valueclass);
 				if (perfectvalueofmatch != null) {
 					try {
@@ -1691,15 +1797,15 @@ public class DataConverterUtils {
 					Entry<Class<?>, Method> entry = it.next();
 					Method m = entry.getValue();
 					Class<?> paramtype = entry.getKey();
-					try {
-						Method tovalueofparammethod = getToTargetClassConverterMethod(valueclass, paramtype);
-						toconvertthenvalueof.add(ImmutableUtils.makeImmutableMapEntry(tovalueofparammethod, m));
-						it.remove();
-						continue;
-					} catch (NoSuchMethodException | SecurityException e) {
+					Method tovalueofparammethod = getToTargetClassConverterMethod(valueclass, paramtype);
+					if (tovalueofparammethod == null) {
 						excs = IOUtils.collectExc(excs,
-								new ConversionFailedException("No subject conversion for valueOf parameter: " + m, e));
+								new ConversionFailedException("No subject conversion for valueOf parameter: " + m,
+										createToTargetClassConverterMethodNotFoundException(valueclass, paramtype)));
+						continue;
 					}
+					toconvertthenvalueof.add(ImmutableUtils.makeImmutableMapEntry(tovalueofparammethod, m));
+					it.remove();
 				}
 				//sort by valueOf argument class name as don't have a better heuristic
 				toconvertthenvalueof.sort((l, r) -> l.getValue().getParameterTypes()[0].getName()
@@ -1817,8 +1923,11 @@ public class DataConverterUtils {
 				}
 			}
 
-			try {
-				Method totargetmethod = getToTargetClassConverterMethod(valueclass, targetclass);
+			Method totargetmethod = getToTargetClassConverterMethod(valueclass, targetclass);
+			if (totargetmethod == null) {
+				excs = IOUtils.collectExc(excs, new ConversionFailedException("No subject conversion method found.",
+						createToTargetClassConverterMethodNotFoundException(valueclass, targetclass)));
+			} else {
 				if (targetclass.isAssignableFrom(totargetmethod.getReturnType())) {
 					try {
 						return ReflectUtils.invokeMethod(value, totargetmethod);
@@ -1849,9 +1958,6 @@ public class DataConverterUtils {
 										+ totargetmethod + " for " + targetclass));
 					}
 				}
-			} catch (NoSuchMethodException | SecurityException e) {
-				excs = IOUtils.collectExc(excs,
-						new ConversionFailedException("No subject conversion method found.", e));
 			}
 
 			if (!(value instanceof StructuredTaskResult)) {
@@ -1906,17 +2012,54 @@ public class DataConverterUtils {
 	}
 
 	private static Method getToTargetClassConverterMethod(Class<? extends Object> valueclass,
-			final Class<?> targetclass) throws NoSuchMethodException, SecurityException {
-		try {
-			return valueclass.getMethod("to" + targetclass.getCanonicalName().replace('.', '_'));
-		} catch (NoSuchMethodException | SecurityException e) {
-			try {
-				return valueclass.getMethod("to" + targetclass.getSimpleName());
-			} catch (NoSuchMethodException | SecurityException e2) {
-				e.addSuppressed(e2);
-				throw e;
+			final Class<?> targetclass) {
+		Map<String, Method> tomethods = CONVERSION_METHODS.get(valueclass).toMethods;
+		if (tomethods.isEmpty()) {
+			return null;
+		}
+		String canonicalname = targetclass.getCanonicalName();
+		if (canonicalname != null) {
+			Method result = tomethods.get("to" + canonicalname.replace('.', '_'));
+			if (result != null) {
+				return result;
 			}
 		}
+		return tomethods.get("to" + targetclass.getSimpleName());
+	}
+
+	/**
+	 * Creates the exception that describes the methods which were looked up by
+	 * {@link #getToTargetClassConverterMethod(Class, Class)} and not found.
+	 */
+	private static NoSuchMethodException createToTargetClassConverterMethodNotFoundException(Class<?> valueclass,
+			Class<?> targetclass) {
+		NoSuchMethodException simplenameexc = createMethodNotFoundException(valueclass,
+				"to" + targetclass.getSimpleName());
+		String canonicalname = targetclass.getCanonicalName();
+		if (canonicalname == null) {
+			return simplenameexc;
+		}
+		NoSuchMethodException result = createMethodNotFoundException(valueclass,
+				"to" + canonicalname.replace('.', '_'));
+		result.addSuppressed(simplenameexc);
+		return result;
+	}
+
+	private static NoSuchMethodException createMethodNotFoundException(Class<?> type, String name,
+			Class<?>... parametertypes) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(type.getName());
+		sb.append('.');
+		sb.append(name);
+		sb.append('(');
+		for (int i = 0; i < parametertypes.length; i++) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(parametertypes[i].getName());
+		}
+		sb.append(')');
+		return new NoSuchMethodException(sb.toString());
 	}
 
 	private static boolean isValidValueOfGenericParameterType(Type paramgentype) {
@@ -2104,12 +2247,11 @@ public class DataConverterUtils {
 		}
 		try {
 			Method tomethod = getToTargetClassConverterMethod(value.getClass(), Map.Entry.class);
-			if (Map.Entry.class.isAssignableFrom(tomethod.getReturnType())) {
+			if (tomethod != null && Map.Entry.class.isAssignableFrom(tomethod.getReturnType())) {
 				Entry<?, ?> entry = (Entry<?, ?>) tomethod.invoke(value);
 				return new ProxyMapEntry(conversioncontext.genericChildContext(0),
 						conversioncontext.genericChildContext(1), entry, Object.class, Object.class);
 			}
-		} catch (NoSuchMethodException e) {
 		} catch (Exception e) {
 			throw new ConversionFailedException("Failed to convert " + value.getClass().getName() + " (" + value
 					+ ") to " + Map.Entry.class.getName() + ".", e);
@@ -108,12 +108,14 @@ public class ContentReaderObjectInput implements ObjectInput {
 					ContentWriterObjectOutput.C_OBJECT_LONG_F_2, ContentWriterObjectOutput.C_OBJECT_LONG_F_4,
 					ContentWriterObjectOutput.C_OBJECT_LONG_F_6, ContentWriterObjectOutput.C_OBJECT_LONG_ZERO,
 					ContentWriterObjectOutput.C_OBJECT_LONG_NEGATIVE_ONE,
-					ContentWriterObjectOutput.C_OBJECT_LONG_ONE, });
+					ContentWriterObjectOutput.C_OBJECT_LONG_ONE, ContentWriterObjectOutput.C_OBJECT_TYPE_REGISTERED,
+					ContentWriterObjectOutput.C_OBJECT_VALUE_REGISTERED, });
 	private static final NavigableSet<Integer> EXPECTED_COMMANDS_TYPE = ImmutableUtils
 			.makeImmutableNavigableSet(new Integer[] { ContentWriterObjectOutput.C_OBJECT_TYPE,
 					ContentWriterObjectOutput.C_OBJECT_REL_2, ContentWriterObjectOutput.C_OBJECT_REL_1,
 					ContentWriterObjectOutput.C_OBJECT_IDX_4, ContentWriterObjectOutput.C_OBJECT_IDX_3,
-					ContentWriterObjectOutput.C_OBJECT_IDX_2, ContentWriterObjectOutput.C_OBJECT_IDX_1 });
+					ContentWriterObjectOutput.C_OBJECT_IDX_2, ContentWriterObjectOutput.C_OBJECT_IDX_1,
+					ContentWriterObjectOutput.C_OBJECT_TYPE_REGISTERED });
 	private static final NavigableSet<Integer> EXPECTED_COMMANDS_BOOLEAN = ImmutableUtils.makeImmutableNavigableSet(
 			new Integer[] { ContentWriterObjectOutput.C_BOOLEAN_FALSE, ContentWriterObjectOutput.C_BOOLEAN_TRUE });
 	private static final NavigableSet<Integer> EXPECTED_COMMANDS_SHORT = ImmutableUtils.makeImmutableNavigableSet(
@@ -840,6 +842,9 @@ public class ContentReaderObjectInput implements ObjectInput {
 			case ContentWriterObjectOutput.C_OBJECT_TYPE: {
 				return readTypeImpl().get();
 			}
+			case ContentWriterObjectOutput.C_OBJECT_TYPE_REGISTERED: {
+				return readRegisteredTypeImpl().get();
+			}
 			case ContentWriterObjectOutput.C_OBJECT_SERIALIZABLE_ERROR:
 			case ContentWriterObjectOutput.C_OBJECT_SERIALIZABLE: {
 				return readSerializedObjectImpl(cmd);
@@ -854,6 +859,9 @@ public class ContentReaderObjectInput implements ObjectInput {
 			case ContentWriterObjectOutput.C_OBJECT_VALUE: {
 				return readValueObjectImpl();
 			}
+			case ContentWriterObjectOutput.C_OBJECT_VALUE_REGISTERED: {
+				return readRegisteredValueObjectImpl();
+			}
 			case ContentWriterObjectOutput.C_OBJECT_UTF: {
 				return readUTFImpl();
 			}
@@ -1030,6 +1038,9 @@ public class ContentReaderObjectInput implements ObjectInput {
 			case ContentWriterObjectOutput.C_OBJECT_TYPE: {
 				return readTypeImpl();
 			}
+			case ContentWriterObjectOutput.C_OBJECT_TYPE_REGISTERED: {
+				return readRegisteredTypeImpl();
+			}
 			case ContentWriterObjectOutput.C_OBJECT_REL_2: {
 				return getRelativeTypeIdxImpl(readIntImpl2());
 			}
@@ -1167,6 +1178,15 @@ public class ContentReaderObjectInput implements ObjectInput {
 		}
 	}
 
+	private SerializedTypeObject<?> readRegisteredTypeImpl() throws IOException {
+		int id = state.in.readUnsignedByte();
+		SerializedTypeObject<?>[] types = ContentWriterObjectOutput.REGISTERED_TYPE_OBJECTS;
+		if (id >= types.length) {
+			throw new SerializationProtocolException("Invalid registered type identifier: " + id);
+		}
+		return types[id];
+	}
+
 	private SerializedTypeObject<?> getTypeIdxImpl(int idx) throws IOException, ClassNotFoundException {
 		Object serobj;
 		try {
@@ -1376,6 +1396,18 @@ public class ContentReaderObjectInput implements ObjectInput {
 		return reader.apply(this);
 	}
 
+	private Object readRegisteredValueObjectImpl() throws IOException, ClassNotFoundException {
+		int id = state.in.readUnsignedByte();
+		ObjectReaderFunction<?, ?>[] readers = ContentWriterObjectOutput.REGISTERED_VALUE_CLASS_READERS;
+		if (id >= readers.length) {
+			//fatal error. we cannot preread the remaining, as we don't know whats there
+			throw new SerializationProtocolException("Invalid registered value type identifier: " + id);
+		}
+		@SuppressWarnings("unchecked")
+		ObjectReaderFunction<ContentReaderObjectInput, ?> reader = (ObjectReaderFunction<ContentReaderObjectInput, ?>) readers[id];
+		return reader.apply(this);
+	}
+
 	private Object readObjectIdxImpl() throws IOException, ClassNotFoundException {
 		return getObjectIdxImpl(readIntImpl());
 	}
@@ -1592,6 +1624,10 @@ public class ContentReaderObjectInput implements ObjectInput {
 					readTypeImpl();
 					break;
 				}
+				case ContentWriterObjectOutput.C_OBJECT_TYPE_REGISTERED: {
+					readRegisteredTypeImpl();
+					break;
+				}
 				case ContentWriterObjectOutput.C_OBJECT_EXTERNALIZABLE_ERROR:
 				case ContentWriterObjectOutput.C_OBJECT_EXTERNALIZABLE_1:
 				case ContentWriterObjectOutput.C_OBJECT_EXTERNALIZABLE_4: {
@@ -1606,6 +1642,10 @@ public class ContentReaderObjectInput implements ObjectInput {
 					readValueObjectImpl();
 					break;
 				}
+				case ContentWriterObjectOutput.C_OBJECT_VALUE_REGISTERED: {
+					readRegisteredValueObjectImpl();
+					break;
+				}
 				case ContentWriterObjectOutput.C_OBJECT_UTF: {
 					readUTFImpl();
 					break;
@@ -56,9 +56,18 @@ import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
+import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.content.FileAttributesContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
 import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimplePathKey;
 import saker.build.file.path.WildcardPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.task.identifier.BuildFileTargetTaskIdentifier;
+import saker.build.task.identifier.GlobalValueTaskIdentifier;
+import saker.build.task.identifier.SimpleTaskIdentifier;
 import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.ReflectUtils;
 import saker.build.thirdparty.saker.util.classloader.ClassLoaderResolver;
@@ -207,11 +216,16 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 
 	static final int C_OBJECT_PROXY = C_OBJECT_UTF_PREFIXED_LOWBYTES + 1;
 
-	static final int C_MAX_COMMAND_VALUE = 95;
+	//type that is identified by a single byte registered type identifier
+	static final int C_OBJECT_TYPE_REGISTERED = C_OBJECT_PROXY + 1;
+	//builtin value object that is identified by a single byte registered value type identifier
+	static final int C_OBJECT_VALUE_REGISTERED = C_OBJECT_TYPE_REGISTERED + 1;
+
+	static final int C_MAX_COMMAND_VALUE = 97;
 	static {
 		if (TestFlag.ENABLED) {
 			//check that the last command value equals to the max command value constants
-			if (C_MAX_COMMAND_VALUE != C_OBJECT_PROXY) {
+			if (C_MAX_COMMAND_VALUE != C_OBJECT_VALUE_REGISTERED) {
 				throw new AssertionError();
 			}
 		}
@@ -277,6 +291,7 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 			case C_OBJECT_IDX_2:
 			case C_OBJECT_IDX_1:
 			case C_OBJECT_VALUE:
+			case C_OBJECT_VALUE_REGISTERED:
 			case C_OBJECT_CUSTOM_SERIALIZABLE:
 			case C_OBJECT_CUSTOM_SERIALIZABLE_ERROR:
 				return "object";
@@ -302,6 +317,7 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 			case C_OBJECT_SERIALIZABLE_ERROR:
 				return "object (Serializable)";
 			case C_OBJECT_TYPE:
+			case C_OBJECT_TYPE_REGISTERED:
 				return "object (class)";
 			case C_OBJECT_ENUM:
 				return "object (enum)";
@@ -921,6 +937,47 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 		});
 	}
 
+	//the index of the classes in this array is their registered identifier
+	//only append to this array, as reordering the elements would break the compatibility with existing streams
+	private static final Class<?>[] REGISTERED_VALUE_CLASSES = { UUID.class, Date.class, SakerPath.class,
+			WildcardPath.class, URI.class };
+	private static final Map<Class<?>, Integer> REGISTERED_VALUE_CLASS_IDS = new HashMap<>();
+	static final ObjectReaderFunction<?, ?>[] REGISTERED_VALUE_CLASS_READERS = new ObjectReaderFunction<?, ?>[REGISTERED_VALUE_CLASSES.length];
+	static {
+		for (int i = 0; i < REGISTERED_VALUE_CLASSES.length; i++) {
+			Class<?> type = REGISTERED_VALUE_CLASSES[i];
+			REGISTERED_VALUE_CLASS_IDS.put(type, i);
+			REGISTERED_VALUE_CLASS_READERS[i] = VALUE_CLASS_READERS.get(type.getName());
+		}
+	}
+
+	//the index of the types in this array is their registered identifier
+	//only append to this list, as reordering the elements would break the compatibility with existing streams
+	//the types are instantiated without reflection, and their names and class loaders are not written to the stream
+	private static final Map<Class<?>, Integer> REGISTERED_TYPE_IDS = new HashMap<>();
+	static final SerializedTypeObject<?>[] REGISTERED_TYPE_OBJECTS;
+	static {
+		List<SerializedTypeObject<?>> types = new ArrayList<>();
+		addRegisteredExternalizableType(types, HashContentDescriptor.class, HashContentDescriptor::new);
+		addRegisteredExternalizableType(types, FileAttributesContentDescriptor.class,
+				FileAttributesContentDescriptor::new);
+		addRegisteredExternalizableType(types, DirectoryContentDescriptor.class, DirectoryContentDescriptor::new);
+		addRegisteredExternalizableType(types, LocalFileProvider.LocalFilesKey.class,
+				LocalFileProvider.LocalFilesKey::new);
+		addRegisteredExternalizableType(types, SimplePathKey.class, SimplePathKey::new);
+		addRegisteredExternalizableType(types, SimpleTaskIdentifier.class, SimpleTaskIdentifier::new);
+		addRegisteredExternalizableType(types, BuildFileTargetTaskIdentifier.class,
+				BuildFileTargetTaskIdentifier::new);
+		addRegisteredExternalizableType(types, GlobalValueTaskIdentifier.class, GlobalValueTaskIdentifier::new);
+		REGISTERED_TYPE_OBJECTS = types.toArray(new SerializedTypeObject<?>[types.size()]);
+	}
+
+	private static <T extends Externalizable> void addRegisteredExternalizableType(
+			List<SerializedTypeObject<?>> types, Class<T> type, Supplier<? extends T> factory) {
+		REGISTERED_TYPE_IDS.put(type, types.size());
+		types.add(new SerializedTypeObject<>(type, factory));
+	}
+
 	private static final Map<Class<?>, BiConsumer<? super DataOutputUnsyncByteArrayOutputStream, ?>> ARRAY_WRITERS = new HashMap<>();
 	static {
 		ARRAY_WRITERS.put(byte.class,
@@ -996,8 +1053,10 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 			IOBiConsumer<Object, ContentWriterObjectOutput> writer = (IOBiConsumer<Object, ContentWriterObjectOutput>) entry
 					.getValue();
 			Class<?> type = entry.getKey();
-			typedWriters.put(type, isComparableCacheable(type) ? BuiltinValueWriterCache.createTree(writer)
-					: BuiltinValueWriterCache.createHash(writer));
+			byte registeredid = REGISTERED_VALUE_CLASS_IDS.get(type).byteValue();
+			typedWriters.put(type,
+					isComparableCacheable(type) ? BuiltinValueWriterCache.createTree(writer, registeredid)
+							: BuiltinValueWriterCache.createHash(writer, registeredid));
 		}
 	}
 
@@ -1857,6 +1916,12 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 	}
 
 	private void writeTypeWithCommandImpl(Class<?> objclass) throws IOException {
+		Integer registeredid = REGISTERED_TYPE_IDS.get(objclass);
+		if (registeredid != null) {
+			//registered types are not added to the serialized objects, as referencing them is always 2 bytes
+			writeMultiBytes((byte) C_OBJECT_TYPE_REGISTERED, registeredid.byteValue());
+			return;
+		}
 		out.writeByte(C_OBJECT_TYPE);
 		writeExternalClass(objclass);
 		addSerializedObject(objclass);
@@ -2002,19 +2067,23 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 	private static final class BuiltinValueWriterCache implements IOBiConsumer<ContentWriterObjectOutput, Object> {
 		private IOBiConsumer<Object, ContentWriterObjectOutput> writer;
 		private Map<Object, InternedValue<Object>> cache;
+		private byte registeredId;
 
 		private BuiltinValueWriterCache(IOBiConsumer<Object, ContentWriterObjectOutput> writer,
-				Map<Object, InternedValue<Object>> cache) {
+				Map<Object, InternedValue<Object>> cache, byte registeredId) {
 			this.writer = writer;
 			this.cache = cache;
+			this.registeredId = registeredId;
 		}
 
-		public static BuiltinValueWriterCache createHash(IOBiConsumer<Object, ContentWriterObjectOutput> writer) {
-			return new BuiltinValueWriterCache(writer, new HashMap<>());
+		public static BuiltinValueWriterCache createHash(IOBiConsumer<Object, ContentWriterObjectOutput> writer,
+				byte registeredid) {
+			return new BuiltinValueWriterCache(writer, new HashMap<>(), registeredid);
 		}
 
-		public static BuiltinValueWriterCache createTree(IOBiConsumer<Object, ContentWriterObjectOutput> writer) {
-			return new BuiltinValueWriterCache(writer, new TreeMap<>());
+		public static BuiltinValueWriterCache createTree(IOBiConsumer<Object, ContentWriterObjectOutput> writer,
+				byte registeredid) {
+			return new BuiltinValueWriterCache(writer, new TreeMap<>(), registeredid);
 		}
 
 		@Override
@@ -2023,15 +2092,8 @@ public class ContentWriterObjectOutput implements ObjectOutput {
 			InternedValue<Object> internvalue = cache.computeIfAbsent(obj, computer);
 			if (computer.computed) {
 				//a newly added serialized object
-				try {
-					out.out.writeByte(C_OBJECT_VALUE);
-					out.writeUTF(obj.getClass().getName());
-				} catch (Exception e) {
-					// remove the object from the internalized map, as we failed to proceed with writing the value
-					// (although this shouldn't fail, as we only write strings and primitives in this try-catch block.)
-					cache.remove(obj, internvalue);
-					throw e;
-				}
+				//the type is written as its registered identifier instead of the class name
+				out.writeMultiBytes((byte) C_OBJECT_VALUE_REGISTERED, registeredId);
 				internvalue.index = out.addSerializedObject(obj);
 				this.writer.accept(obj, out);
 				return;
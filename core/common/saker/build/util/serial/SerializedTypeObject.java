@@ -18,6 +18,7 @@ package saker.build.util.serial;
 import java.io.Externalizable;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
 
 import saker.build.thirdparty.saker.util.io.function.ObjectReaderFunction;
 
@@ -25,12 +26,19 @@ final class SerializedTypeObject<T> implements SerializedObject<Class<T>> {
 	private final Class<T> type;
 
 	private Constructor<? extends Externalizable> externalizableConstructor;
+	private final Supplier<? extends Externalizable> externalizableFactory;
 
 	// if equals to SerializedTypeObject.class then the value hasn't been calculated yet
 	private Object customSerializableReader = SerializedTypeObject.class;
 
 	public SerializedTypeObject(Class<T> type) {
 		this.type = type;
+		this.externalizableFactory = null;
+	}
+
+	public SerializedTypeObject(Class<T> type, Supplier<? extends Externalizable> externalizableFactory) {
+		this.type = type;
+		this.externalizableFactory = externalizableFactory;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -49,6 +57,10 @@ final class SerializedTypeObject<T> implements SerializedObject<Class<T>> {
 
 	public Externalizable newExternalizableInstance() throws InstantiationException, IllegalAccessException,
 			IllegalArgumentException, InvocationTargetException, NoSuchMethodException, SecurityException {
+		Supplier<? extends Externalizable> factory = externalizableFactory;
+		if (factory != null) {
+			return factory.get();
+		}
 		return getExternalizableConstructor().newInstance();
 	}
 
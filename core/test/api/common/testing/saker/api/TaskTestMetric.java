@@ -46,6 +46,9 @@ public interface TaskTestMetric extends TestMetric {
 	public default void taskAbandoned(TaskIdentifier taskIdentifier) {
 	}
 
+	public default void taskFileDependencyDeltasCollected(TaskIdentifier taskid) {
+	}
+
 	public default void taskRetrievedFromCache(TaskIdentifier taskid) {
 	}
 
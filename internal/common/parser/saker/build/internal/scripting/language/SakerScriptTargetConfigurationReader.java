@@ -95,6 +95,7 @@ import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.StringUtils;
 import saker.build.thirdparty.saker.util.io.ByteSource;
 import saker.build.thirdparty.saker.util.io.StreamUtils;
+import saker.build.trace.BuildTrace;
 import sipka.syntax.parser.model.ParseFailedException;
 import sipka.syntax.parser.model.parse.document.DocumentRegion;
 import sipka.syntax.parser.model.rule.Language;
@@ -318,8 +319,13 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			Statement parsed = parseresult.getStatement();
 			SakerScriptInformationProvider positionlocator = new SakerScriptInformationProvider();
 			SimpleScriptParsingOptions parsingoptions = new SimpleScriptParsingOptions(options);
-			SakerScriptTargetConfiguration result = new ParserState(parsingoptions, positionlocator)
-					.parseStatements(parsed);
+			ParserState parserstate = new ParserState(parsingoptions, positionlocator);
+			SakerScriptTargetConfiguration result = parserstate.parseStatements(parsed);
+			if (parserstate.foldedExpressionCount > 0) {
+				BuildTrace.addValues(
+						Collections.singletonMap("Folded script expressions", parserstate.foldedExpressionCount),
+						BuildTrace.VALUE_CATEGORY_TASK);
+			}
 			return new SimpleTargetConfigurationReadingResult(result, positionlocator);
 		} catch (ParseFailedException e) {
 			//TODO set fail reasons
@@ -1120,6 +1126,14 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 
 		private NavigableSet<String> declaredBuildTargetNames = new TreeSet<>();
 		private Set<DefaultsDeclarationSakerTaskFactory> defaultDeclarations = new HashSet<>();
+		/**
+		 * The number of operands and unary operator expressions that were replaced by their constant value during
+		 * parsing.
+		 * <p>
+		 * Each folded expression elides at least one task that would be started during the build execution. The
+		 * constantization of whole expressions, lists, and maps is not counted, neither are the folds nested in them.
+		 */
+		private int foldedExpressionCount;
 
 		public ParserState(ScriptParsingOptions parsingoptions, SakerScriptInformationProvider positionlocator) {
 			this.parsingOptions = parsingoptions;
@@ -1317,6 +1331,56 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			return result;
 		}
 
+		/**
+		 * Evaluates the operand of an operator, and replaces it with its constant value if possible.
+		 * <p>
+		 * The operators only constantize themselves if all of their operands are constant, therefore the constant sub
+		 * expressions of a non-constant expression need to be folded separately. E.g. in
+		 * <code>$var * 2 + 3 * 4</code> the right operand is folded to <code>12</code>, so it is not evaluated as a
+		 * separate task.
+		 */
+		private SakerTaskFactory evaluateOperand(List<? extends FlattenedToken> statements,
+				FlattenedStatementFactoryVisitor visitor) {
+			int foldcount = foldedExpressionCount;
+			return foldOperandConstant(evaluateFlattenedStatements(statements, visitor), foldcount);
+		}
+
+		/**
+		 * Replaces the factory with its constant value if possible, and counts it as a single folded expression.
+		 * <p>
+		 * The folds of the sub expressions that were counted after the argument fold count was queried are included in
+		 * this fold.
+		 */
+		private SakerTaskFactory foldOperandConstant(SakerTaskFactory factory, int foldcount) {
+			if (factory instanceof SakerLiteralTaskFactory) {
+				return factory;
+			}
+			SakerLiteralTaskFactory constantized = factory.tryConstantize();
+			if (constantized == null) {
+				return factory;
+			}
+			foldedExpressionCount = foldcount + 1;
+			return constantized;
+		}
+
+		/**
+		 * Replaces the factory with its constant value if possible.
+		 * <p>
+		 * The whole expressions were constantized before the operands were folded, so the folds of the sub expressions
+		 * that were counted after the argument fold count was queried are discarded.
+		 */
+		private SakerTaskFactory foldConstant(SakerTaskFactory factory, int foldcount) {
+			if (factory instanceof SakerLiteralTaskFactory) {
+				return factory;
+			}
+			SakerLiteralTaskFactory constantized = factory.tryConstantize();
+			if (constantized == null) {
+				return factory;
+			}
+			foldedExpressionCount = foldcount;
+			return constantized;
+		}
+
 		private SakerTaskFactory evaluateFlattenedStatementsImpl(List<? extends FlattenedToken> statements,
 				ExpressionParsingState parsingstate, int flags) {
 			FlattenedStatementFactoryVisitor visitor = new FlattenedStatementFactoryVisitor(parsingstate);
@@ -1359,13 +1423,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			if (stm == null) {
 				result = new InvalidScriptDeclarationTaskFactory("Missing expression.", scriptpos);
 			} else {
-				SakerTaskFactory parsed = parseTaskExpression(stm, parsingstate, flags);
-				SakerLiteralTaskFactory constantized = parsed.tryConstantize();
-				if (constantized != null) {
-					result = constantized;
-				} else {
-					result = parsed;
-				}
+				int foldcount = foldedExpressionCount;
+				result = foldConstant(parseTaskExpression(stm, parsingstate, flags), foldcount);
 			}
 			positionLocator.addPositionIfAbsent(parsingstate.targetName, result, scriptpos);
 			return result;
@@ -1621,6 +1680,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitList(FlattenedToken stm) {
 				List<Statement> elements = stm.getStatement().scopeTo("list_element");
 
+				int foldcount = foldedExpressionCount;
 				ListTaskFactory listfactory = new ListTaskFactory();
 
 				for (Statement elem : elements) {
@@ -1632,15 +1692,12 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 					listfactory.addElement(parseTaskExpressionConstantize(elementexpression, expressionParsingState));
 				}
 
-				SakerLiteralTaskFactory clist = listfactory.tryConstantize();
-				if (clist != null) {
-					return clist;
-				}
-				return listfactory;
+				return foldConstant(listfactory, foldcount);
 			}
 
 			@Override
 			public SakerTaskFactory visitMap(FlattenedToken stm) {
+				int foldcount = foldedExpressionCount;
 				MapTaskFactory mapfactory = new MapTaskFactory();
 				List<Statement> elements = stm.getStatement().scopeTo("map_element");
 				for (Statement elem : elements) {
@@ -1657,11 +1714,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 							parseTaskExpressionConstantize(valexpression, expressionParsingState,
 									valexpression == null ? elem : valexpression));
 				}
-				SakerLiteralTaskFactory cmap = mapfactory.tryConstantize();
-				if (cmap != null) {
-					return cmap;
-				}
-				return mapfactory;
+				return foldConstant(mapfactory, foldcount);
 			}
 
 			@Override
@@ -1908,6 +1961,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			@Override
 			public SakerTaskFactory visitUnary(FlattenedToken token, List<? extends FlattenedToken> subject) {
 				Statement stm = token.getStatement();
+				int foldcount = foldedExpressionCount;
 				SakerTaskFactory unarysubexp = evaluateFlattenedStatements(subject, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
@@ -1926,7 +1980,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 							return prependCompoundLiteralFactory((CompoundStringLiteralTaskFactory) unarysubexp,
 									new SakerLiteralTaskFactory("-"));
 						}
-						return new UnaryMinusTaskFactory(unarysubexp);
+						return foldOperandConstant(new UnaryMinusTaskFactory(unarysubexp), foldcount);
 					}
 					case "~": {
 						if (unarysubexp instanceof SakerLiteralTaskFactory) {
@@ -1946,7 +2000,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 							return prependCompoundLiteralFactory((CompoundStringLiteralTaskFactory) unarysubexp,
 									new SakerLiteralTaskFactory("~"));
 						}
-						return new BitwiseNegateTaskFactory(unarysubexp);
+						return foldOperandConstant(new BitwiseNegateTaskFactory(unarysubexp), foldcount);
 					}
 					case "!": {
 						if (unarysubexp instanceof SakerLiteralTaskFactory) {
@@ -1962,7 +2016,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 							return prependCompoundLiteralFactory((CompoundStringLiteralTaskFactory) unarysubexp,
 									new SakerLiteralTaskFactory("!"));
 						}
-						return new BoolNegateTaskFactory(unarysubexp);
+						return foldOperandConstant(new BoolNegateTaskFactory(unarysubexp), foldcount);
 					}
 					default: {
 						throw new AssertionError("invalid operator: " + op);
@@ -1985,7 +2039,7 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitAssignment(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				return new AssignmentTaskFactory(leftfac, rightfac);
 			}
 
@@ -1993,8 +2047,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitAddOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "+": {
@@ -2013,8 +2067,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitMultiplyOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "*": {
@@ -2036,8 +2090,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitEqualityOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "==": {
@@ -2056,8 +2110,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitComparisonOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "<": {
@@ -2082,8 +2136,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitShiftOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "<<": {
@@ -2102,8 +2156,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitBitOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "&": {
@@ -2125,8 +2179,8 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 			public SakerTaskFactory visitBoolOp(FlattenedToken token, List<? extends FlattenedToken> left,
 					List<? extends FlattenedToken> right) {
 				Statement stm = token.getStatement();
-				SakerTaskFactory leftfac = evaluateFlattenedStatements(left, this);
-				SakerTaskFactory rightfac = evaluateFlattenedStatements(right, this);
+				SakerTaskFactory leftfac = evaluateOperand(left, this);
+				SakerTaskFactory rightfac = evaluateOperand(right, this);
 				String op = stm.firstValue("operator_value");
 				switch (op) {
 					case "&&": {
@@ -2147,10 +2201,10 @@ public class SakerScriptTargetConfigurationReader implements TargetConfiguration
 				Statement stm = token.getStatement();
 				Statement trueexpplaceholder = stm.firstScope("exp_true");
 				Statement trueexpstm = trueexpplaceholder.firstScope("expression");
-				SakerTaskFactory conditionfac = evaluateFlattenedStatements(condition, this);
+				SakerTaskFactory conditionfac = evaluateOperand(condition, this);
 				SakerTaskFactory trueexp = parseTaskExpressionConstantize(trueexpstm, expressionParsingState,
 						trueexpplaceholder);
-				SakerTaskFactory falseexp = evaluateFlattenedStatements(falseres, this);
+				SakerTaskFactory falseexp = evaluateOperand(falseres, this);
 				return TernaryTaskFactory.create(conditionfac, trueexp, falseexp);
 			}
 		}
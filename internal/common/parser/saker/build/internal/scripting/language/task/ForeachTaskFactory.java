@@ -24,6 +24,7 @@ import java.math.BigInteger;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -245,6 +246,7 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 			resultfactoryconsumer = Functionals.nullConsumer();
 		}
 
+		SubTaskStarter starter = new SubTaskStarter(taskcontext);
 		Object iterableobject;
 		try {
 			SakerTaskResult iterablesakerresult = runForResult(taskcontext, iterabletasktaskid, iterableTask);
@@ -258,10 +260,10 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 
 		if (iterableobject instanceof StructuredListTaskResult) {
 			((StructuredListTaskResult) iterableobject)
-					.forEach(getListFutureConsumer(taskcontext, thistaskid, resultfactoryconsumer));
+					.forEach(getListFutureConsumer(starter, thistaskid, resultfactoryconsumer));
 		} else if (iterableobject instanceof StructuredMapTaskResult) {
 			BiConsumer<? super String, ? super StructuredTaskResult> mapfuturehandler = getMapFutureConsumer(
-					taskcontext, thistaskid, resultfactoryconsumer);
+					starter, thistaskid, resultfactoryconsumer);
 			((StructuredMapTaskResult) iterableobject).forEach(mapfuturehandler);
 		} else {
 			if (iterableobject instanceof StructuredTaskResult) {
@@ -272,9 +274,9 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 			}
 			if (iterableobject instanceof Iterable<?>) {
 				((Iterable<?>) iterableobject).forEach(
-						getListObjectConsumer(taskcontext, thistaskid, iterabletasktaskid, resultfactoryconsumer));
+						getListObjectConsumer(starter, thistaskid, iterabletasktaskid, resultfactoryconsumer));
 			} else if (iterableobject instanceof Map<?, ?>) {
-				BiConsumer<Object, Object> mapelemhandler = getMapObjectConsumer(taskcontext, thistaskid,
+				BiConsumer<Object, Object> mapelemhandler = getMapObjectConsumer(starter, thistaskid,
 						iterabletasktaskid, resultfactoryconsumer);
 				((Map<?, ?>) iterableobject).forEach(mapelemhandler);
 			} else {
@@ -282,6 +284,7 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 						iterabletasktaskid);
 			}
 		}
+		starter.flush();
 		if (resultfac == null) {
 			NoSakerTaskResult result = new NoSakerTaskResult(thistaskid);
 			taskcontext.reportSelfTaskOutputChangeDetector(new EqualityTaskOutputChangeDetector(result));
@@ -299,7 +302,7 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 		return null;
 	}
 
-	private BiConsumer<? super String, ? super StructuredTaskResult> getMapFutureConsumer(TaskContext taskcontext,
+	private BiConsumer<? super String, ? super StructuredTaskResult> getMapFutureConsumer(SubTaskStarter starter,
 			SakerScriptTaskIdentifier thistaskid, Consumer<SakerTaskFactory> resultfactoryconsumer) {
 		checkVariableCount(2);
 		String keyVarName = loopVariableNames.get(0);
@@ -312,14 +315,14 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 				SakerTaskFactory keyfactory = new SakerLiteralTaskFactory(key);
 				SakerTaskFactory valuefactory = new StructuredSakeringTaskFactory(vfut);
 
-				handleMapEntryElement(taskcontext, thistaskid, keyVarName, valueVarName, resultfactoryconsumer,
+				handleMapEntryElement(starter, thistaskid, keyVarName, valueVarName, resultfactoryconsumer,
 						keyfactory, valuefactory);
 			}
 		};
 		return mapfuturehandler;
 	}
 
-	private BiConsumer<Object, Object> getMapObjectConsumer(TaskContext taskcontext,
+	private BiConsumer<Object, Object> getMapObjectConsumer(SubTaskStarter starter,
 			SakerScriptTaskIdentifier thistaskid, TaskIdentifier iterabletasktaskid,
 			Consumer<SakerTaskFactory> resultfactoryconsumer) {
 		checkVariableCount(2);
@@ -343,14 +346,14 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 							new MapEntryFieldTaskIdentifier(iterabletasktaskid, k, "value", iterableModificationStamp),
 							v);
 				}
-				handleMapEntryElement(taskcontext, thistaskid, keyVarName, valueVarName, resultfactoryconsumer,
+				handleMapEntryElement(starter, thistaskid, keyVarName, valueVarName, resultfactoryconsumer,
 						keyfactory, valuefactory);
 			}
 		};
 		return mapelemhandler;
 	}
 
-	private Consumer<Object> getListObjectConsumer(TaskContext taskcontext, SakerScriptTaskIdentifier thistaskid,
+	private Consumer<Object> getListObjectConsumer(SubTaskStarter starter, SakerScriptTaskIdentifier thistaskid,
 			TaskIdentifier iterabletasktaskid, Consumer<SakerTaskFactory> resultfactoryconsumer) {
 		checkVariableCount(1);
 		String varName = loopVariableNames.get(0);
@@ -366,7 +369,7 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 					itemfactory = new NamedLiteralTaskFactory(
 							new IterableIndexTaskIdentifier(iterabletasktaskid, idx, iterableModificationStamp), o);
 				}
-				handleListElement(taskcontext, thistaskid, varName, resultfactoryconsumer, itemfactory, idx);
+				handleListElement(starter, thistaskid, varName, resultfactoryconsumer, itemfactory, idx);
 				idx++;
 			}
 
@@ -374,7 +377,7 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 		return listelemhandler;
 	}
 
-	private Consumer<? super StructuredTaskResult> getListFutureConsumer(TaskContext taskcontext,
+	private Consumer<? super StructuredTaskResult> getListFutureConsumer(SubTaskStarter starter,
 			SakerScriptTaskIdentifier thistaskid, Consumer<SakerTaskFactory> resultfactoryconsumer) {
 		checkVariableCount(1);
 		String varName = loopVariableNames.get(0);
@@ -385,25 +388,25 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 			@Override
 			public void accept(StructuredTaskResult futureid) {
 				SakerTaskFactory itemfactory = new StructuredSakeringTaskFactory(futureid);
-				handleListElement(taskcontext, thistaskid, varName, resultfactoryconsumer, itemfactory, idx);
+				handleListElement(starter, thistaskid, varName, resultfactoryconsumer, itemfactory, idx);
 				idx++;
 			}
 		};
 		return listfuturehandler;
 	}
 
-	private void handleListElement(TaskContext taskcontext, SakerScriptTaskIdentifier thistaskid, String varname,
+	private void handleListElement(SubTaskStarter starter, SakerScriptTaskIdentifier thistaskid, String varname,
 			Consumer<SakerTaskFactory> resultfactoryconsumer, SakerTaskFactory itemfactory, int index) {
 		Map<SakerTaskFactory, SakerTaskFactory> replacer = new HashMap<>();
 		replacer.put(createForeachVariablePlaceholderTaskFactory(varname), itemfactory);
 		replacer.put(createForeachVariablePlaceholderTaskFactory(varname + ".index"),
 				new SakerLiteralTaskFactory((long) index));
-		initLocalVariables(taskcontext, thistaskid, replacer, itemfactory);
+		initLocalVariables(starter, thistaskid, replacer, itemfactory);
 
 		for (SakerTaskFactory stf : subTasks) {
 			stf = cloneHelper(replacer, stf);
 
-			taskcontext.getTaskUtilities().startTask(stf.createSubTaskIdentifier(thistaskid), stf);
+			starter.start(stf.createSubTaskIdentifier(thistaskid), stf);
 		}
 		if (resultFactory != null) {
 			SakerTaskFactory clonedresult = cloneHelper(replacer, resultFactory);
@@ -411,19 +414,19 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 		}
 	}
 
-	private void handleMapEntryElement(TaskContext taskcontext, SakerScriptTaskIdentifier thistaskid, String keyvarname,
+	private void handleMapEntryElement(SubTaskStarter starter, SakerScriptTaskIdentifier thistaskid, String keyvarname,
 			String valuevarname, Consumer<SakerTaskFactory> resultfactoryconsumer, SakerTaskFactory keyfactory,
 			SakerTaskFactory valuefactory) {
 		Map<SakerTaskFactory, SakerTaskFactory> replacer = new HashMap<>();
 		replacer.put(createForeachVariablePlaceholderTaskFactory(keyvarname), keyfactory);
 		replacer.put(createForeachVariablePlaceholderTaskFactory(valuevarname), valuefactory);
-		initLocalVariables(taskcontext, thistaskid, replacer,
+		initLocalVariables(starter, thistaskid, replacer,
 				ImmutableUtils.asUnmodifiableArrayList(keyfactory, valuefactory));
 
 		for (SakerTaskFactory stf : subTasks) {
 			stf = cloneHelper(replacer, stf);
 
-			taskcontext.getTaskUtilities().startTask(stf.createSubTaskIdentifier(thistaskid), stf);
+			starter.start(stf.createSubTaskIdentifier(thistaskid), stf);
 		}
 		if (resultFactory != null) {
 			SakerTaskFactory clonedresult = cloneHelper(replacer, resultFactory);
@@ -735,7 +738,7 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 		}
 	}
 
-	private void initLocalVariables(TaskContext taskcontext, SakerScriptTaskIdentifier thistaskid,
+	private void initLocalVariables(SubTaskStarter starter, SakerScriptTaskIdentifier thistaskid,
 			Map<SakerTaskFactory, SakerTaskFactory> replacer, Object loopidentity) {
 		if (localVariableInitializers.isEmpty()) {
 			return;
@@ -754,14 +757,61 @@ public class ForeachTaskFactory extends SelfSakerTaskFactory {
 			if (init != null) {
 				init = cloneHelper(replacer, init);
 				TaskIdentifier inittaskid = init.createSubTaskIdentifier(thistaskid);
-				taskcontext.getTaskUtilities().startTask(inittaskid, init);
+				starter.start(inittaskid, init);
 				TaskIdentifier localvaluetaskid = localfactories.get(localname).valueTaskId;
 				SakerTaskFactory localfut = new SakerTaskResultLiteralTaskFactory(inittaskid);
-				taskcontext.getTaskUtilities().startTask(localvaluetaskid, localfut);
+				starter.start(localvaluetaskid, localfut);
 			}
 		}
 	}
 
+	/**
+	 * Collects the tasks started by the loop iterations, and starts them in batches.
+	 * <p>
+	 * Starting the tasks in batches reduces the overhead of expanding the loop bodies, especially when the foreach is
+	 * executed remotely, and the task starting calls are performed over the network.
+	 * <p>
+	 * The tasks are started in the order they were added. A batch is started when it reaches
+	 * {@link #TASK_START_BATCH_SIZE}, so the tasks of the first iterations are started before the whole iterable is
+	 * processed.
+	 */
+	private static final class SubTaskStarter {
+		private static final int TASK_START_BATCH_SIZE = 64;
+
+		private final TaskContext taskContext;
+		private Map<TaskIdentifier, SakerTaskFactory> tasks = new LinkedHashMap<>();
+
+		public SubTaskStarter(TaskContext taskContext) {
+			this.taskContext = taskContext;
+		}
+
+		public void start(TaskIdentifier taskid, SakerTaskFactory factory) {
+			SakerTaskFactory prev = tasks.putIfAbsent(taskid, factory);
+			if (prev != null) {
+				if (prev.equals(factory)) {
+					//same task started multiple times
+					return;
+				}
+				//start the pending tasks, and let the task execution report the conflict
+				flush();
+				taskContext.getTaskUtilities().startTask(taskid, factory);
+				return;
+			}
+			if (tasks.size() >= TASK_START_BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		public void flush() {
+			if (tasks.isEmpty()) {
+				return;
+			}
+			Map<TaskIdentifier, SakerTaskFactory> starttasks = tasks;
+			tasks = new LinkedHashMap<>();
+			taskContext.getTaskUtilities().startTasks(starttasks);
+		}
+	}
+
 	private void checkVariableCount(int c) {
 		int size = loopVariableNames.size();
 		if (size != c) {
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.net.BindException;
 import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -70,6 +71,12 @@ public class RunDaemonCommand {
 		private static StreamToken token = null;
 	}
 
+	private static class ClassDataSharingRefs {
+		//only just for holding the reference, the lock is released when the process exits
+		@SuppressWarnings("unused")
+		private static FileChannel dumpLockChannel = null;
+	}
+
 	@ParameterContext
 	public RunGeneralDaemonParams daemonParams = new RunGeneralDaemonParams();
 	@ParameterContext
@@ -113,6 +120,14 @@ public class RunDaemonCommand {
 		boolean ioreplaced = false;
 
 		boolean[] noexit = { noJvmExit };
+		if (startParams.classDataSharing) {
+			try {
+				ClassDataSharingRefs.dumpLockChannel = StartDaemonCommand.lockDumpedClassDataSharingArchive();
+			} catch (IOException e) {
+				//don't fail the daemon because of the archive
+				//nothing is printed, as the first line of the output is parsed by the starter process
+			}
+		}
 		try {
 			DaemonLaunchParameters launchparams = daemonParams.toLaunchParameters(envParams);
 
@@ -199,6 +214,9 @@ public class RunDaemonCommand {
 				System.out.println("Running daemon with configuration: ");
 				InfoDaemonCommand.printInformation(daemonenv.getRuntimeLaunchConfiguration(), System.out);
 			}
+			if (startParams.warmUp) {
+				startWarmUp(daemonenv, noOutput);
+			}
 		} catch (Throwable e) {
 			//an exception happened, don't exit the JVM when the daemon env is closing
 			//the main function of saker.build will call system.exit if appropriate
@@ -218,4 +236,22 @@ public class RunDaemonCommand {
 		}
 	}
 
+	private static void startWarmUp(LocalDaemonEnvironment daemonenv, boolean nooutput) {
+		Thread thread = new Thread(() -> {
+			try {
+				daemonenv.warmUp();
+				if (!nooutput) {
+					System.out.println("Daemon warm-up finished.");
+				}
+			} catch (Exception | LinkageError e) {
+				//the daemon is still usable, the builds will load the repositories themselves
+				if (!nooutput) {
+					System.err.println("Failed to warm up daemon: " + e);
+				}
+			}
+		}, "Daemon warm-up");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
 }
\ No newline at end of file
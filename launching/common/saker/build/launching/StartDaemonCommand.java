@@ -18,14 +18,19 @@ package saker.build.launching;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.PosixFilePermission;
@@ -38,6 +43,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.regex.Matcher;
 
@@ -49,9 +55,12 @@ import saker.build.daemon.LocalDaemonEnvironment.RunningDaemonConnectionInfo;
 import saker.build.daemon.RemoteDaemonConnection;
 import saker.build.file.path.SakerPath;
 import saker.build.file.provider.LocalFileProvider;
+import saker.build.meta.PropertyNames;
+import saker.build.runtime.environment.SakerEnvironmentImpl;
 import saker.build.thirdparty.saker.rmi.exception.RMIRuntimeException;
 import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.StringUtils;
+import saker.build.thirdparty.saker.util.io.FileUtils;
 import saker.build.thirdparty.saker.util.io.IOUtils;
 import saker.build.thirdparty.saker.util.io.StreamUtils;
 import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
@@ -82,6 +91,10 @@ public class StartDaemonCommand {
 			.of(StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
 	private static final FileAttribute<Set<PosixFilePermission>> FILEATTRIBUTE_POSIX_RW____ = PosixFilePermissions
 			.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+	private static final String CLASS_DATA_SHARING_DIRECTORY_NAME = "cds";
+	private static final String CLASS_DATA_SHARING_DUMP_FILE_EXTENSION = ".tmp";
+	private static final String CLASS_DATA_SHARING_DUMP_LOCK_FILE_EXTENSION = ".lock";
+	private static final String JVM_OPTION_ARCHIVE_CLASSES_AT_EXIT = "-XX:ArchiveClassesAtExit=";
 
 	@ParameterContext
 	public GeneralDaemonParams daemonParams = new GeneralDaemonParams();
@@ -247,6 +260,12 @@ public class StartDaemonCommand {
 		List<String> commands = new ArrayList<>();
 		commands.add(javaexe.toString());
 		//TODO should also add -D system properties if necessary
+		boolean dumpsclassdatasharingarchive = false;
+		if ((startparams != null && startparams.classDataSharing) || Boolean
+				.parseBoolean(PropertyNames.getProperty(PropertyNames.PROPERTY_DAEMON_CLASS_DATA_SHARING))) {
+			dumpsclassdatasharingarchive = addClassDataSharingArguments(commands, javaexe, sakerjarpath,
+					launchparams);
+		}
 		commands.add("-cp");
 		commands.add(sakerjarpath.toString());
 		commands.add(saker.build.launching.Main.class.getName());
@@ -254,6 +273,10 @@ public class StartDaemonCommand {
 		commands.add(DaemonCommand.SUBCOMMAND_RUN);
 
 		addDaemonLaunchParametersToCommandLine(commands, launchparams, startparams);
+		if (dumpsclassdatasharingarchive) {
+			//so the daemon locks the archive that is dumped when it exits
+			commands.add(StartDaemonParams.PARAM_NAME_CDS);
+		}
 
 		Throwable thrownexc = null;
 		Path cmdfilepath = null;
@@ -387,6 +410,162 @@ public class StartDaemonCommand {
 		}
 	}
 
+	/**
+	 * Adds the JVM arguments for using a class data sharing archive to the daemon command line.
+	 * <p>
+	 * On Java 13 to 18 the archive is dumped by the JVM when the daemon exits. It is dumped to a temporary file which
+	 * is moved to the final archive path by a later daemon start after the dumping process has exited. The dumping
+	 * daemon locks the {@linkplain #lockDumpedClassDataSharingArchive() lock file} of the temporary archive for its
+	 * lifetime, so the archive isn't used while it is being written.
+	 * 
+	 * @return <code>true</code> if the daemon dumps the archive when it exits.
+	 */
+	private static boolean addClassDataSharingArguments(List<String> commands, Path javaexe, Path sakerjarpath,
+			DaemonLaunchParameters launchparams) {
+		int majorversion = JavaTools.getCurrentJavaMajorVersion();
+		if (majorversion < 13) {
+			//dynamic archiving is not supported
+			return false;
+		}
+		if (!javaexe.equals(JavaTools.getCurrentJavaExePath())) {
+			//the archive would be created by a different JVM, we can't determine its version
+			return false;
+		}
+		if (!Files.isRegularFile(sakerjarpath)) {
+			//the classes can only be archived from JARs
+			return false;
+		}
+		Path archivepath;
+		try {
+			SakerPath storagedir = launchparams.getStorageDirectory();
+			Path storagedirpath = storagedir == null ? SakerEnvironmentImpl.getDefaultStorageDirectory()
+					: LocalFileProvider.toRealPath(storagedir);
+			Path cdsdir = storagedirpath.resolve(CLASS_DATA_SHARING_DIRECTORY_NAME);
+			Files.createDirectories(cdsdir);
+			String jarhash = StringUtils.toHexString(FileUtils.hashFiles(sakerjarpath));
+			archivepath = cdsdir.resolve("saker.build-" + jarhash + "-"
+					+ System.getProperty("java.vm.version").replaceAll("[^a-zA-Z0-9.\\-_]", "_") + ".jsa");
+		} catch (IOException | RuntimeException e) {
+			//failed to determine the archive, start the daemon without it
+			e.printStackTrace();
+			return false;
+		}
+		//don't print the messages of class data sharing, as the first line of the daemon output is parsed
+		commands.add("-Xlog:cds*=off");
+		if (majorversion >= 19) {
+			commands.add("-XX:+AutoCreateSharedArchive");
+			commands.add("-XX:SharedArchiveFile=" + archivepath);
+			return false;
+		}
+		publishDumpedClassDataSharingArchives(archivepath);
+		if (Files.isRegularFile(archivepath)) {
+			commands.add("-XX:SharedArchiveFile=" + archivepath);
+			return false;
+		}
+		Path dumppath = archivepath.resolveSibling(
+				archivepath.getFileName() + "." + UUID.randomUUID() + CLASS_DATA_SHARING_DUMP_FILE_EXTENSION);
+		commands.add(JVM_OPTION_ARCHIVE_CLASSES_AT_EXIT + dumppath);
+		return true;
+	}
+
+	/**
+	 * Moves the archives that were completely dumped by exited daemons to the given archive path.
+	 * <p>
+	 * A dumped archive is complete if its lock file can be locked, as the dumping process holds the lock until it
+	 * exits.
+	 * <p>
+	 * The lock files of the exited daemons are deleted, even if the JVM didn't dump the archive.
+	 */
+	private static void publishDumpedClassDataSharingArchives(Path archivepath) {
+		//list the lock files as well, as they remain without the dump file if the JVM fails to dump the archive
+		String dumpfileglob = archivepath.getFileName() + ".*" + CLASS_DATA_SHARING_DUMP_FILE_EXTENSION + "*";
+		Set<Path> dumppaths = new TreeSet<>();
+		try (DirectoryStream<Path> dumps = Files.newDirectoryStream(archivepath.getParent(), dumpfileglob)) {
+			for (Path path : dumps) {
+				String filename = path.getFileName().toString();
+				if (filename.endsWith(CLASS_DATA_SHARING_DUMP_FILE_EXTENSION)) {
+					dumppaths.add(path);
+				} else if (filename.endsWith(
+						CLASS_DATA_SHARING_DUMP_FILE_EXTENSION + CLASS_DATA_SHARING_DUMP_LOCK_FILE_EXTENSION)) {
+					dumppaths.add(path.resolveSibling(filename.substring(0,
+							filename.length() - CLASS_DATA_SHARING_DUMP_LOCK_FILE_EXTENSION.length())));
+				}
+			}
+		} catch (IOException e) {
+			//failed to list the directory, the daemon will dump a new archive
+			return;
+		}
+		for (Path dumppath : dumppaths) {
+			Path lockpath = getClassDataSharingDumpLockPath(dumppath);
+			boolean dumpingexited = false;
+			try {
+				try (FileChannel lockchannel = FileChannel.open(lockpath, StandardOpenOption.CREATE,
+						StandardOpenOption.WRITE);
+						FileLock lock = lockchannel.tryLock()) {
+					if (lock == null) {
+						//the dumping daemon is still running
+						continue;
+					}
+					dumpingexited = true;
+					if (!Files.isRegularFile(dumppath)) {
+						//the JVM didn't dump the archive
+						continue;
+					}
+					if (Files.isRegularFile(archivepath)) {
+						//already published by someone else
+						Files.deleteIfExists(dumppath);
+					} else {
+						Files.move(dumppath, archivepath, StandardCopyOption.ATOMIC_MOVE);
+					}
+				} finally {
+					if (dumpingexited) {
+						Files.deleteIfExists(lockpath);
+					}
+				}
+			} catch (IOException | OverlappingFileLockException e) {
+				//the dump is locked in this JVM, or failed to move, try again with the next daemon start
+			}
+		}
+	}
+
+	/**
+	 * Locks the class data sharing archive that the current JVM dumps when it exits.
+	 * <p>
+	 * The returned channel needs to be kept open until the JVM exits. The lock is released by the operating system
+	 * when the process exits, after the archive is written.
+	 * 
+	 * @return The channel that holds the lock or <code>null</code> if the JVM doesn't dump an archive that was set up
+	 *             by {@link #createDaemon}.
+	 * @throws IOException
+	 *             If the lock file couldn't be locked.
+	 */
+	static FileChannel lockDumpedClassDataSharingArchive() throws IOException {
+		for (String arg : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			if (!arg.startsWith(JVM_OPTION_ARCHIVE_CLASSES_AT_EXIT)
+					|| !arg.endsWith(CLASS_DATA_SHARING_DUMP_FILE_EXTENSION)) {
+				continue;
+			}
+			Path lockpath = getClassDataSharingDumpLockPath(
+					Paths.get(arg.substring(JVM_OPTION_ARCHIVE_CLASSES_AT_EXIT.length())));
+			FileChannel lockchannel = FileChannel.open(lockpath, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE);
+			try {
+				if (lockchannel.tryLock() == null) {
+					throw new IOException("Class data sharing archive is already locked: " + lockpath);
+				}
+			} catch (Throwable e) {
+				IOUtils.addExc(e, IOUtils.closeExc(lockchannel));
+				throw e;
+			}
+			return lockchannel;
+		}
+		return null;
+	}
+
+	private static Path getClassDataSharingDumpLockPath(Path dumppath) {
+		return dumppath.resolveSibling(dumppath.getFileName() + CLASS_DATA_SHARING_DUMP_LOCK_FILE_EXTENSION);
+	}
+
 	private static void addDaemonLaunchParametersToCommandLine(List<String> commands,
 			DaemonLaunchParameters launchparams, StartDaemonParams startparams) {
 		SakerPath storagedir = launchparams.getStorageDirectory();
@@ -427,6 +606,9 @@ public class StartDaemonCommand {
 				commands.add(StartDaemonParams.PARAM_NAME_CONNECT_CLIENT);
 				commands.add(addr.getArgumentString());
 			}
+			if (startparams.warmUp) {
+				commands.add(StartDaemonParams.PARAM_NAME_WARM_UP);
+			}
 		}
 	}
 
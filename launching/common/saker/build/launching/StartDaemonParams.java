@@ -18,11 +18,14 @@ package saker.build.launching;
 import java.util.ArrayList;
 import java.util.Collection;
 
+import sipka.cmdline.api.Flag;
 import sipka.cmdline.api.MultiParameter;
 import sipka.cmdline.api.Parameter;
 
 class StartDaemonParams {
 	public static final String PARAM_NAME_CONNECT_CLIENT = "-connect-client";
+	public static final String PARAM_NAME_CDS = "-cds";
+	public static final String PARAM_NAME_WARM_UP = "-warm-up";
 
 	/**
 	 * <pre>
@@ -40,4 +43,55 @@ class StartDaemonParams {
 	@Parameter(PARAM_NAME_CONNECT_CLIENT)
 	@MultiParameter(DaemonAddressParam.class)
 	public Collection<DaemonAddressParam> connectClientParam = new ArrayList<>();
+
+	/**
+	 * <pre>
+	 * Flag that specifies that the daemon process should be started with
+	 * class data sharing enabled.
+	 * 
+	 * The first daemon started with this flag will create a class data sharing
+	 * archive of the loaded build system classes when it exits. Subsequent daemons
+	 * use the archive to reduce their startup time. On Java 13 to 18 the
+	 * archive is used by the daemons that are started after the creating 
+	 * daemon has exited.
+	 * 
+	 * The archive is stored in the storage directory, and is specific to the 
+	 * build system release and the Java Runtime Environment version.
+	 * It is only used when running on Java 13 or later.
+	 * 
+	 * This can also be enabled by setting the saker.build.daemon.cds
+	 * system property to true.
+	 * 
+	 * When running a daemon in the current process, this flag cannot change
+	 * the options of the already running JVM. It only causes the daemon to
+	 * lock the archive that the JVM creates when it exits, so other daemons
+	 * don't use it before it is completely written. The daemon start command
+	 * passes this flag to the daemon processes that create the archive.
+	 * </pre>
+	 */
+	@Parameter(PARAM_NAME_CDS)
+	@Flag
+	public boolean classDataSharing;
+
+	/**
+	 * <pre>
+	 * Flag that specifies that the daemon should warm itself up after it 
+	 * has been started.
+	 * 
+	 * The daemon will load the default build repositories and script
+	 * language providers in the background. The loaded repositories are
+	 * kept, and the first build that is run in a new workspace uses them
+	 * if it doesn't specify custom repositories, script configurations or
+	 * user parameters. Otherwise only the repository classpaths are 
+	 * reused, as they're already retrieved.
+	 * 
+	 * No build is run as part of the warm-up, so it doesn't warm up the 
+	 * JIT compiler of the daemon.
+	 * 
+	 * The daemon accepts connections while it is being warmed up.
+	 * </pre>
+	 */
+	@Parameter(PARAM_NAME_WARM_UP)
+	@Flag
+	public boolean warmUp;
 }
@@ -1761,6 +1761,7 @@ public final class SakerIDEProject {
 			try {
 				return super.loadRepositoryFromManager(repositorymanager, repolocation, enumerator);
 			} catch (Exception e) {
+				//called concurrently for the repositories, displaying the exceptions is thread-safe
 				displayException(SakerLog.SEVERITY_ERROR, "Failed to load repository for scripting environment.", e);
 				return null;
 			}
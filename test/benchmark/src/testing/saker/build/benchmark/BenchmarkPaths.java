@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import saker.build.file.path.SakerPath;
+
+/**
+ * Generates deterministic synthetic path data sets for the benchmarks.
+ */
+public class BenchmarkPaths {
+	private static final String[] DIRECTORY_NAMES = { "src", "main", "java", "test", "resources", "saker", "build",
+			"file", "path", "content", "task", "util", "internal", "impl", "api", "gen" };
+	private static final String[] EXTENSIONS = { ".java", ".class", ".txt", ".xml", ".properties", ".build" };
+
+	private BenchmarkPaths() {
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Generates relative paths that resemble the layout of a source tree.
+	 * <p>
+	 * The generated paths have varying depth and share common prefixes in a similar manner to real projects. The same
+	 * seed always generates the same paths.
+	 * 
+	 * @param count
+	 *            The number of paths to generate.
+	 * @param seed
+	 *            The random seed.
+	 * @return The generated paths in generation order. (Not sorted.)
+	 */
+	public static List<SakerPath> generateRelativePaths(int count, long seed) {
+		Random random = new Random(seed);
+		List<SakerPath> result = new ArrayList<>(count);
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			sb.setLength(0);
+			int depth = 2 + random.nextInt(8);
+			for (int d = 0; d < depth; d++) {
+				sb.append(DIRECTORY_NAMES[random.nextInt(DIRECTORY_NAMES.length)]);
+				if (random.nextInt(4) == 0) {
+					sb.append(random.nextInt(16));
+				}
+				sb.append('/');
+			}
+			sb.append("file");
+			sb.append(i);
+			sb.append(EXTENSIONS[random.nextInt(EXTENSIONS.length)]);
+			result.add(SakerPath.valueOf(sb.toString()));
+		}
+		return result;
+	}
+
+	/**
+	 * Generates absolute paths by resolving the {@linkplain #generateRelativePaths(int, long) relative paths} against
+	 * the given base directory.
+	 * 
+	 * @param basedir
+	 *            The absolute base directory.
+	 * @param count
+	 *            The number of paths to generate.
+	 * @param seed
+	 *            The random seed.
+	 * @return The generated paths in generation order. (Not sorted.)
+	 */
+	public static List<SakerPath> generateAbsolutePaths(SakerPath basedir, int count, long seed) {
+		List<SakerPath> relatives = generateRelativePaths(count, seed);
+		List<SakerPath> result = new ArrayList<>(count);
+		for (SakerPath p : relatives) {
+			result.add(basedir.resolve(p));
+		}
+		return result;
+	}
+
+	/**
+	 * Shuffles the argument list deterministically.
+	 * 
+	 * @param list
+	 *            The list.
+	 * @param seed
+	 *            The random seed.
+	 * @return The argument list.
+	 */
+	public static <T> List<T> shuffle(List<T> list, long seed) {
+		Collections.shuffle(list, new Random(seed));
+		return list;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import saker.build.file.content.ContentDatabase.ContentHandle;
+import saker.build.file.content.ContentDatabaseImpl;
+import saker.build.file.content.ContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.runtime.params.DatabaseConfiguration;
+import saker.build.runtime.params.ExecutionPathConfiguration;
+
+/**
+ * Benchmarks the discovery of files in the {@link ContentDatabaseImpl}.
+ * <p>
+ * The files are created in a temporary directory on the local file system, and discovered with the default database
+ * configuration. The first discovery of a file reads its attributes from the disk, while the subsequent discoveries
+ * reuse the already existing content handle.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentDatabaseDiscoveryBenchmark {
+	@Param({ "10000" })
+	public int fileCount;
+
+	private Path directory;
+	private ExecutionPathConfiguration pathConfiguration;
+	private List<ProviderHolderPathKey> pathKeys;
+	private List<ContentDescriptor> contents;
+	private ContentDatabaseImpl discoveredDatabase;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("saker-benchmark-contentdb");
+		LocalFileProvider fp = LocalFileProvider.getInstance();
+		SakerPath basedir = SakerPath.valueOf(directory);
+		pathConfiguration = ExecutionPathConfiguration.local(basedir);
+
+		List<SakerPath> paths = BenchmarkPaths.generateRelativePaths(fileCount, 1);
+		pathKeys = new ArrayList<>(fileCount);
+		contents = new ArrayList<>(fileCount);
+		for (SakerPath relpath : paths) {
+			byte[] bytes = relpath.getFileName().getBytes(StandardCharsets.UTF_8);
+			Path localpath = directory.resolve(relpath.toString());
+			Files.createDirectories(localpath.getParent());
+			Files.write(localpath, bytes);
+			pathKeys.add(fp.getPathKey(basedir.resolve(relpath)));
+			contents.add(HashContentDescriptor.hash(bytes));
+		}
+		discoveredDatabase = createDatabase();
+		discoverAll(discoveredDatabase, null);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		discoveredDatabase.close();
+		LocalFileProvider.getInstance().deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public void discoverNew(Blackhole bh) throws IOException {
+		try (ContentDatabaseImpl db = createDatabase()) {
+			discoverAll(db, bh);
+		}
+	}
+
+	@Benchmark
+	public void discoverExisting(Blackhole bh) throws IOException {
+		discoverAll(discoveredDatabase, bh);
+	}
+
+	@Benchmark
+	public void getContentDescriptor(Blackhole bh) {
+		ContentDatabaseImpl db = discoveredDatabase;
+		for (ProviderHolderPathKey pathkey : pathKeys) {
+			bh.consume(db.getContentDescriptor(pathkey));
+		}
+	}
+
+	private ContentDatabaseImpl createDatabase() {
+		return new ContentDatabaseImpl(DatabaseConfiguration.getDefault(), pathConfiguration);
+	}
+
+	private void discoverAll(ContentDatabaseImpl db, Blackhole bh) throws IOException {
+		List<ProviderHolderPathKey> keys = pathKeys;
+		List<ContentDescriptor> contents = this.contents;
+		for (int i = 0, size = keys.size(); i < size; i++) {
+			ContentHandle handle = db.discover(keys.get(i), contents.get(i));
+			if (bh != null) {
+				bh.consume(handle);
+			}
+		}
+	}
+}
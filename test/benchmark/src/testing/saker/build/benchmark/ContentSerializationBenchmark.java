@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.io.IOException;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import saker.build.file.content.FileAttributesContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimplePathKey;
+import saker.build.file.provider.FileEntry;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.thirdparty.saker.util.classloader.ClassLoaderResolverRegistry;
+import saker.build.thirdparty.saker.util.classloader.SingleClassLoaderResolver;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
+import saker.build.util.serial.ContentReaderObjectInput;
+import saker.build.util.serial.ContentWriterObjectOutput;
+
+/**
+ * Benchmarks the serialization round-trip of build data using {@link ContentWriterObjectOutput} and
+ * {@link ContentReaderObjectInput}.
+ * <p>
+ * The serialized objects are the ones that commonly occur in the build database: paths, path keys, content
+ * descriptors and task identifiers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentSerializationBenchmark {
+	@Param({ "10000", "100000" })
+	public int objectCount;
+
+	private ClassLoaderResolverRegistry registry;
+	private List<Object> objects;
+	private ByteArrayRegion serialized;
+
+	@Setup
+	public void setup() throws IOException {
+		registry = new ClassLoaderResolverRegistry(
+				new SingleClassLoaderResolver("default", SakerPath.class.getClassLoader()));
+
+		List<SakerPath> paths = BenchmarkPaths.generateAbsolutePaths(SakerPath.valueOf("/home/user/project"),
+				objectCount, 1);
+		objects = new ArrayList<>(objectCount);
+		for (int i = 0; i < objectCount; i++) {
+			SakerPath path = paths.get(i);
+			switch (i % 4) {
+				case 0: {
+					objects.add(path);
+					break;
+				}
+				case 1: {
+					SimplePathKey pathkey = new SimplePathKey(path, LocalFileProvider.getProviderKeyStatic());
+					objects.add(FileAttributesContentDescriptor.create(pathkey,
+							new FileEntry(FileEntry.TYPE_FILE, i, FileTime.fromMillis(i))));
+					break;
+				}
+				case 2: {
+					objects.add(HashContentDescriptor.hash(path.toString().getBytes()));
+					break;
+				}
+				default: {
+					objects.add(TaskIdentifier.builder("bench.task").field("path", path).build());
+					break;
+				}
+			}
+		}
+		serialized = write();
+	}
+
+	@Benchmark
+	public ByteArrayRegion serialize() throws IOException {
+		return write();
+	}
+
+	@Benchmark
+	public void deserialize(Blackhole bh) throws IOException, ClassNotFoundException {
+		try (ContentReaderObjectInput in = new ContentReaderObjectInput(registry,
+				new UnsyncByteArrayInputStream(serialized))) {
+			for (int i = 0; i < objectCount; i++) {
+				bh.consume(in.readObject());
+			}
+		}
+	}
+
+	private ByteArrayRegion write() throws IOException {
+		try (ContentWriterObjectOutput out = new ContentWriterObjectOutput(registry)) {
+			for (Object o : objects) {
+				out.writeObject(o);
+			}
+			return out.drainToBytes();
+		}
+	}
+}
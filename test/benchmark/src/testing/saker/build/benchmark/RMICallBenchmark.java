@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import saker.build.thirdparty.saker.rmi.connection.RMIConnection;
+import saker.build.thirdparty.saker.rmi.connection.RMIOptions;
+import saker.build.thirdparty.saker.rmi.connection.RMIServer;
+import saker.build.thirdparty.saker.rmi.connection.RMIVariables;
+import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.util.rmi.SakerRMIHelper;
+
+/**
+ * Benchmarks the latency of remote method calls over a loopback RMI connection.
+ * <p>
+ * The calls go through the RMI streams of the connection, so this measures the request dispatching, the
+ * serialization of the arguments and results, and the response notification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RMICallBenchmark {
+	public interface BenchmarkRemote {
+		public void call();
+
+		public int echo(int value);
+
+		public byte[] echoBytes(byte[] bytes);
+	}
+
+	public static class BenchmarkRemoteImpl implements BenchmarkRemote {
+		@Override
+		public void call() {
+		}
+
+		@Override
+		public int echo(int value) {
+			return value;
+		}
+
+		@Override
+		public byte[] echoBytes(byte[] bytes) {
+			return bytes;
+		}
+	}
+
+	@Param({ "1024" })
+	public int payloadSize;
+
+	private RMIServer server;
+	private RMIConnection connection;
+	private RMIVariables variables;
+	private BenchmarkRemote remote;
+	private byte[] payload;
+
+	public static BenchmarkRemote createRemote() {
+		return new BenchmarkRemoteImpl();
+	}
+
+	@Setup
+	public void setup() throws Exception {
+		RMIOptions options = SakerRMIHelper.createBaseRMIOptions();
+		options.classLoader(RMICallBenchmark.class.getClassLoader());
+		server = new RMIServer() {
+			@Override
+			protected RMIOptions getRMIOptionsForAcceptedConnection(Socket acceptedsocket, int protocolversion)
+					throws IOException, RuntimeException {
+				return options;
+			}
+		};
+		RMIServer fserver = server;
+		ThreadUtils.startDaemonThread(() -> {
+			fserver.acceptConnections();
+		});
+		connection = options.connect(server.getLocalSocketAddress());
+		variables = connection.newVariables();
+		remote = (BenchmarkRemote) variables
+				.invokeRemoteStaticMethod(RMICallBenchmark.class.getMethod("createRemote"));
+		payload = new byte[payloadSize];
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		IOUtils.close(variables, connection, server);
+	}
+
+	@Benchmark
+	public void voidCall() {
+		remote.call();
+	}
+
+	@Benchmark
+	public int intEcho() {
+		return remote.echo(123);
+	}
+
+	@Benchmark
+	public byte[] bytesEcho() {
+		return remote.echoBytes(payload);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public int concurrentIntEcho() {
+		return remote.echo(123);
+	}
+}
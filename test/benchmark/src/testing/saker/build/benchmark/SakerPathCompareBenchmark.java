@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import saker.build.file.path.SakerPath;
+
+/**
+ * Benchmarks the comparison of {@link SakerPath} instances, mainly through sorted collections as the build system uses
+ * them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SakerPathCompareBenchmark {
+	@Param({ "100000" })
+	public int pathCount;
+
+	private List<SakerPath> paths;
+	private List<SakerPath> lookupPaths;
+	private NavigableSet<SakerPath> sortedPaths;
+
+	@Setup
+	public void setup() {
+		paths = BenchmarkPaths.generateAbsolutePaths(SakerPath.valueOf("/home/user/project"), pathCount, 1);
+		sortedPaths = new TreeSet<>(paths);
+		lookupPaths = BenchmarkPaths.shuffle(new ArrayList<>(paths), 2);
+	}
+
+	@Benchmark
+	public NavigableSet<SakerPath> sortIntoTreeSet() {
+		return new TreeSet<>(paths);
+	}
+
+	@Benchmark
+	public void lookupInSortedSet(Blackhole bh) {
+		NavigableSet<SakerPath> set = sortedPaths;
+		for (SakerPath p : lookupPaths) {
+			bh.consume(set.contains(p));
+		}
+	}
+
+	@Benchmark
+	public void compareAdjacent(Blackhole bh) {
+		List<SakerPath> list = paths;
+		SakerPath prev = list.get(0);
+		for (int i = 1, size = list.size(); i < size; i++) {
+			SakerPath p = list.get(i);
+			bh.consume(prev.compareTo(p));
+			prev = p;
+		}
+	}
+
+	@Benchmark
+	public void subSetOfDirectories(Blackhole bh) {
+		NavigableSet<SakerPath> set = sortedPaths;
+		for (int i = 0, size = lookupPaths.size(); i < size; i += 100) {
+			SakerPath dir = lookupPaths.get(i).getParent();
+			bh.consume(set.subSet(dir, false, dir.nextSiblingPathInNaturalOrder(), false).size());
+		}
+	}
+}
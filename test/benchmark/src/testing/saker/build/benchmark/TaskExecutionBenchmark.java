@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.runtime.environment.BuildTaskExecutionResult;
+import saker.build.runtime.environment.EnvironmentParameters;
+import saker.build.runtime.environment.SakerEnvironmentImpl;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.runtime.execution.ExecutionParametersImpl;
+import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.TaskInvocationConfiguration;
+import saker.build.task.identifier.TaskIdentifier;
+
+/**
+ * Benchmarks the per task overhead of the build execution.
+ * <p>
+ * Each benchmark invocation runs a clean build in an in-process environment. The executed tasks don't do anything
+ * besides starting other tasks, so the measured time is dominated by the task management of the build system.
+ * <p>
+ * The <code>fanOut</code> benchmark starts the given number of trivial tasks from a single root task. The
+ * <code>tree</code> benchmark executes a task tree with the given depth where each inner task starts 4 subtasks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TaskExecutionBenchmark {
+	private static final int TREE_BRANCHING = 4;
+
+	@State(Scope.Benchmark)
+	public static class FanOutParameters {
+		@Param({ "1000", "100000" })
+		public int taskCount;
+	}
+
+	@State(Scope.Benchmark)
+	public static class TreeParameters {
+		@Param({ "6", "8" })
+		public int treeDepth;
+	}
+
+	private Path directory;
+	private SakerEnvironmentImpl environment;
+	private ExecutionPathConfiguration pathConfiguration;
+
+	@Setup
+	public void setup() throws Exception {
+		directory = Files.createTempDirectory("saker-benchmark-taskexec");
+		Path sakerjar = Paths.get(SakerEnvironmentImpl.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		environment = new SakerEnvironmentImpl(
+				EnvironmentParameters.builder(sakerjar).setStorageDirectory(directory.resolve("storage")).build());
+		pathConfiguration = ExecutionPathConfiguration.local(SakerPath.valueOf(directory));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		environment.close();
+		LocalFileProvider.getInstance().deleteRecursively(directory);
+	}
+
+	@Benchmark
+	public BuildTaskExecutionResult fanOut(FanOutParameters parameters) throws Throwable {
+		return run(TaskIdentifier.builder("bench.fanout").build(), new FanOutTaskFactory(parameters.taskCount));
+	}
+
+	@Benchmark
+	public BuildTaskExecutionResult tree(TreeParameters parameters) throws Throwable {
+		return run(TaskIdentifier.builder("bench.tree").build(), new TreeTaskFactory("", parameters.treeDepth));
+	}
+
+	private BuildTaskExecutionResult run(TaskIdentifier taskid, TaskFactory<?> factory) throws Throwable {
+		ExecutionParametersImpl params = new ExecutionParametersImpl();
+		params.setPathConfiguration(pathConfiguration);
+		BuildTaskExecutionResult result = environment.run(taskid, factory, params);
+		if (!result.getResultKind().isSuccessful()) {
+			throw result.getException();
+		}
+		return result;
+	}
+
+	public static class FanOutTaskFactory implements TaskFactory<Void>, Task<Void>, Externalizable {
+		private static final long serialVersionUID = 1L;
+
+		private int count;
+
+		/**
+		 * For {@link Externalizable}.
+		 */
+		public FanOutTaskFactory() {
+		}
+
+		public FanOutTaskFactory(int count) {
+			this.count = count;
+		}
+
+		@Override
+		public TaskInvocationConfiguration getInvocationConfiguration() {
+			return TaskInvocationConfiguration.INSTANCE_SHORT_TASK;
+		}
+
+		@Override
+		public Task<? extends Void> createTask(ExecutionContext executioncontext) {
+			return this;
+		}
+
+		@Override
+		public Void run(TaskContext taskcontext) throws Exception {
+			Map<TaskIdentifier, TaskFactory<?>> tasks = new LinkedHashMap<>();
+			for (int i = 0; i < count; i++) {
+				String subpath = "/" + i;
+				tasks.put(TaskIdentifier.builder("bench.trivial").field("path", subpath).build(),
+						new TreeTaskFactory(subpath, 0));
+			}
+			taskcontext.getTaskUtilities().startTasks(tasks);
+			return null;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeInt(count);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			count = in.readInt();
+		}
+
+		@Override
+		public int hashCode() {
+			return count;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			FanOutTaskFactory other = (FanOutTaskFactory) obj;
+			if (count != other.count)
+				return false;
+			return true;
+		}
+	}
+
+	public static class TreeTaskFactory implements TaskFactory<Void>, Task<Void>, Externalizable {
+		private static final long serialVersionUID = 1L;
+
+		private String path;
+		private int depth;
+
+		/**
+		 * For {@link Externalizable}.
+		 */
+		public TreeTaskFactory() {
+		}
+
+		public TreeTaskFactory(String path, int depth) {
+			this.path = path;
+			this.depth = depth;
+		}
+
+		@Override
+		public TaskInvocationConfiguration getInvocationConfiguration() {
+			return TaskInvocationConfiguration.INSTANCE_SHORT_TASK;
+		}
+
+		@Override
+		public Task<? extends Void> createTask(ExecutionContext executioncontext) {
+			return this;
+		}
+
+		@Override
+		public Void run(TaskContext taskcontext) throws Exception {
+			if (depth <= 0) {
+				return null;
+			}
+			Map<TaskIdentifier, TaskFactory<?>> tasks = new LinkedHashMap<>();
+			for (int i = 0; i < TREE_BRANCHING; i++) {
+				String subpath = path + "/" + i;
+				tasks.put(TaskIdentifier.builder("bench.tree").field("path", subpath).build(),
+						new TreeTaskFactory(subpath, depth - 1));
+			}
+			taskcontext.getTaskUtilities().startTasks(tasks);
+			return null;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeUTF(path);
+			out.writeInt(depth);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			path = in.readUTF();
+			depth = in.readInt();
+		}
+
+		@Override
+		public int hashCode() {
+			return path.hashCode() * 31 + depth;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			TreeTaskFactory other = (TreeTaskFactory) obj;
+			if (depth != other.depth)
+				return false;
+			if (!path.equals(other.path))
+				return false;
+			return true;
+		}
+	}
+}
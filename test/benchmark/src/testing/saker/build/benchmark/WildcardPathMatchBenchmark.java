@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.WildcardPath;
+
+/**
+ * Benchmarks the matching of {@link WildcardPath} instances against a large number of paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WildcardPathMatchBenchmark {
+	@Param({ "100000" })
+	public int pathCount;
+
+	@Param({ "**", "**/*.java", "src/**/test/**/*.txt", "src*/main/**", "*/*/java/**/file1*.class" })
+	public String wildcard;
+
+	private List<SakerPath> paths;
+	private WildcardPath wildcardPath;
+
+	@Setup
+	public void setup() {
+		paths = BenchmarkPaths.generateRelativePaths(pathCount, 1);
+		wildcardPath = WildcardPath.valueOf(wildcard);
+	}
+
+	@Benchmark
+	public int includes() {
+		WildcardPath wc = wildcardPath;
+		int count = 0;
+		for (SakerPath p : paths) {
+			if (wc.includes(p)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int finishable() {
+		WildcardPath wc = wildcardPath;
+		int count = 0;
+		for (SakerPath p : paths) {
+			if (wc.finishable(p.getParent())) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public WildcardPath parse() {
+		return WildcardPath.valueOf(wildcard);
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.classpath;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimpleProviderHolderPathKey;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.runtime.classpath.ClassPathLoadManager;
+import saker.build.runtime.classpath.ClassPathLoadManager.ClassPathLock;
+import saker.build.runtime.classpath.JarFileClassPathLocation;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.ByteSink;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.EnvironmentTestCase;
+import testing.saker.build.tests.MemoryFileProvider;
+import testing.saker.build.tests.tasks.repo.RepositoryTestUtils;
+
+@SakerTest
+public class ClassPathContentStoreTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		MemoryFileProvider files = new MemoryFileProvider(ImmutableUtils.singletonSet("wd:"),
+				UUID.nameUUIDFromBytes(getClass().toString().getBytes(StandardCharsets.UTF_8)));
+		SakerPath firstpath = SakerPath.valueOf("wd:/first.jar");
+		SakerPath secondpath = SakerPath.valueOf("wd:/second.jar");
+		SakerPath otherpath = SakerPath.valueOf("wd:/other.jar");
+		RepositoryTestUtils.exportTestRepositoryJar(files, firstpath);
+		try (ByteSink out = files.openOutput(secondpath)) {
+			out.write(files.getAllBytes(firstpath));
+		}
+		RepositoryTestUtils.exportJarWithClasses(files, otherpath, ClassPathContentStoreTest.class);
+
+		Path storagedir = EnvironmentTestCase.getTestingBaseBuildDirectory()
+				.resolve(getClass().getName().replace('.', '/'));
+		LocalFileProvider.getInstance().createDirectories(storagedir);
+		LocalFileProvider.getInstance().clearDirectoryRecursively(storagedir);
+
+		Path storedir = storagedir.resolve("classpath/store");
+		//an unreferenced store file, which should be pruned
+		Path unusedstorefile = storedir.resolve("0000000000000000000000000000000000000000000000000000000000000000.jar");
+		Files.createDirectories(storedir);
+		Files.write(unusedstorefile, new byte[] { 1, 2, 3 });
+
+		try (ClassPathLoadManager classpathmanager = new ClassPathLoadManager(storagedir)) {
+			try (ClassPathLock first = classpathmanager
+					.loadClassPath(new JarFileClassPathLocation(new SimpleProviderHolderPathKey(files, firstpath)));
+					ClassPathLock second = classpathmanager.loadClassPath(
+							new JarFileClassPathLocation(new SimpleProviderHolderPathKey(files, secondpath)));
+					ClassPathLock other = classpathmanager.loadClassPath(
+							new JarFileClassPathLocation(new SimpleProviderHolderPathKey(files, otherpath)))) {
+				assertNotEquals(first.getClassPathLoadDirectory(), second.getClassPathLoadDirectory());
+
+				//the classpath paths stay in the load directories
+				assertTrue(first.getClassPathPath().startsWith(first.getClassPathLoadDirectory()));
+				assertTrue(second.getClassPathPath().startsWith(second.getClassPathLoadDirectory()));
+
+				//the same contents are stored once, the loaded JARs are not linked to the store
+				assertFalse(Files.isSameFile(first.getClassPathPath(), second.getClassPathPath()));
+				assertEquals(getStoreFileCount(storedir), 2);
+				assertFalse(Files.exists(unusedstorefile));
+
+				assertNonNull(first.getClassLoaderDataFinder()
+						.getResource("META-INF/services/saker.build.runtime.repository.SakerRepositoryFactory"));
+				assertNonNull(other.getClassLoaderDataFinder()
+						.getResource(ClassPathContentStoreTest.class.getName().replace('.', '/') + ".class"));
+			}
+		}
+		//the index is persisted, and reused by other managers
+		try (ClassPathLoadManager classpathmanager = new ClassPathLoadManager(storagedir)) {
+			try (ClassPathLock first = classpathmanager
+					.loadClassPath(new JarFileClassPathLocation(new SimpleProviderHolderPathKey(files, firstpath)))) {
+				assertNonNull(first.getClassLoaderDataFinder()
+						.getResource("META-INF/services/saker.build.runtime.repository.SakerRepositoryFactory"));
+			}
+			assertEquals(getStoreFileCount(storedir), 2);
+		}
+		//the reloaded JAR is hashed again, the previous index entry is not used
+		try (ByteSink out = files.openOutput(firstpath)) {
+			out.write(files.getAllBytes(otherpath));
+		}
+		try (ClassPathLoadManager classpathmanager = new ClassPathLoadManager(storagedir)) {
+			try (ClassPathLock first = classpathmanager
+					.loadClassPath(new JarFileClassPathLocation(new SimpleProviderHolderPathKey(files, firstpath)))) {
+				assertNonNull(first.getClassLoaderDataFinder()
+						.getResource(ClassPathContentStoreTest.class.getName().replace('.', '/') + ".class"));
+				assertNull(first.getClassLoaderDataFinder()
+						.getResource("META-INF/services/saker.build.runtime.repository.SakerRepositoryFactory"));
+			}
+		}
+	}
+
+	private static int getStoreFileCount(Path storedir) throws IOException {
+		int result = 0;
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(storedir, "*.jar")) {
+			for (@SuppressWarnings("unused")
+			Path p : ds) {
+				++result;
+			}
+		}
+		return result;
+	}
+
+}
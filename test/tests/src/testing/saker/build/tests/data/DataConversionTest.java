@@ -201,6 +201,7 @@ public class DataConversionTest extends SakerTestCase {
 		testAnnotationConversions();
 
 		testRecursiveConversion();
+		testNoSubjectConversionCause();
 
 		Object current;
 
@@ -896,6 +897,41 @@ public class DataConversionTest extends SakerTestCase {
 		});
 	}
 
+	private void testNoSubjectConversionCause() throws AssertionError {
+		ConversionFailedException e = assertException(ConversionFailedException.class, () -> {
+			DataConverterUtils.convert(new Object(), Recursive3.class);
+		});
+		//the exceptions report the to...() methods that weren't found
+		assertNoSuchMethodCause(e, "No subject conversion method found.");
+		assertNoSuchMethodCause(e, "No subject conversion for valueOf parameter: ");
+	}
+
+	private static void assertNoSuchMethodCause(Throwable t, String messageprefix) throws AssertionError {
+		Throwable found = findExceptionWithMessagePrefix(t, messageprefix);
+		assertNonNull(found, messageprefix);
+		assertInstanceOf(found.getCause(), NoSuchMethodException.class);
+	}
+
+	private static Throwable findExceptionWithMessagePrefix(Throwable t, String messageprefix) {
+		if (t == null) {
+			return null;
+		}
+		if (t.getMessage() != null && t.getMessage().startsWith(messageprefix)) {
+			return t;
+		}
+		Throwable result = findExceptionWithMessagePrefix(t.getCause(), messageprefix);
+		if (result != null) {
+			return result;
+		}
+		for (Throwable s : t.getSuppressed()) {
+			result = findExceptionWithMessagePrefix(s, messageprefix);
+			if (result != null) {
+				return result;
+			}
+		}
+		return null;
+	}
+
 	private static final Object TAG_SOMEINTERFACE = new Object();
 
 	public interface SomeRunnableSubInterface extends Runnable {
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.data;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import saker.build.file.content.DirectoryContentDescriptor;
+import saker.build.file.content.FileAttributesContentDescriptor;
+import saker.build.file.content.HashContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimplePathKey;
+import saker.build.file.provider.FileEntry;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.task.identifier.BuildFileTargetTaskIdentifier;
+import saker.build.task.identifier.GlobalValueTaskIdentifier;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.thirdparty.saker.util.classloader.ClassLoaderResolverRegistry;
+import saker.build.thirdparty.saker.util.classloader.SingleClassLoaderResolver;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
+import saker.build.util.serial.ContentReaderObjectInput;
+import saker.build.util.serial.ContentWriterObjectOutput;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+@SakerTest
+public class RegisteredTypeContentSerializationTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ClassLoaderResolverRegistry registry = new ClassLoaderResolverRegistry(
+				new SingleClassLoaderResolver("default", SakerPath.class.getClassLoader()));
+
+		SimplePathKey pathkey = new SimplePathKey(SakerPath.valueOf("/home/user/file.txt"),
+				LocalFileProvider.getProviderKeyStatic());
+
+		List<Object> serials = new ArrayList<>();
+		serials.add(HashContentDescriptor.hash(new byte[] { 1, 2, 3 }));
+		serials.add(HashContentDescriptor.hash(new byte[] { 4, 5, 6 }));
+		serials.add(FileAttributesContentDescriptor.create(pathkey,
+				new FileEntry(FileEntry.TYPE_FILE, 123, FileTime.fromMillis(456))));
+		serials.add(DirectoryContentDescriptor.INSTANCE);
+		serials.add(LocalFileProvider.getProviderKeyStatic());
+		serials.add(pathkey);
+		serials.add(TaskIdentifier.builder("task.name").field("f", "v").build());
+		serials.add(new BuildFileTargetTaskIdentifier("build", SakerPath.valueOf("/home/user/saker.build")));
+		serials.add(new GlobalValueTaskIdentifier("global.var"));
+		serials.add(HashContentDescriptor.class);
+		serials.add(SakerPath.valueOf("/home/user/other"));
+
+		ByteArrayRegion bytes;
+		try (ContentWriterObjectOutput out = new ContentWriterObjectOutput(registry)) {
+			for (Object o : serials) {
+				out.writeObject(o);
+				out.writeObject(o);
+			}
+
+			bytes = out.drainToBytes();
+		}
+		//the registered types are not written with their names
+		String content = new String(bytes.copyOptionally(), StandardCharsets.ISO_8859_1);
+		for (Object o : serials) {
+			Class<?> c = o instanceof Class ? (Class<?>) o : o.getClass();
+			assertFalse(content.contains(c.getName()), c.getName());
+		}
+		try (ContentReaderObjectInput in = new ContentReaderObjectInput(registry,
+				new UnsyncByteArrayInputStream(bytes))) {
+			for (Object o : serials) {
+				Object read = in.readObject();
+				Object second = in.readObject();
+				assertEquals(o, read);
+				assertEquals(o, second);
+			}
+		}
+	}
+
+}
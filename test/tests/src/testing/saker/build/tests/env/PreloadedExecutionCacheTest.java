@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.env;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimpleProviderHolderPathKey;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.runtime.classpath.ClassPathLocation;
+import saker.build.runtime.classpath.ClassPathServiceEnumerator;
+import saker.build.runtime.classpath.JarFileClassPathLocation;
+import saker.build.runtime.classpath.ServiceLoaderClassPathServiceEnumerator;
+import saker.build.runtime.environment.RepositoryManager;
+import saker.build.runtime.environment.SakerEnvironmentImpl;
+import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.runtime.params.ExecutionRepositoryConfiguration;
+import saker.build.runtime.params.ExecutionScriptConfiguration;
+import saker.build.runtime.project.SakerExecutionCache;
+import saker.build.runtime.repository.RepositoryBuildEnvironment;
+import saker.build.runtime.repository.SakerRepository;
+import saker.build.runtime.repository.SakerRepositoryFactory;
+import saker.build.thirdparty.saker.util.classloader.ClassLoaderResolverRegistry;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.EnvironmentTestCase;
+import testing.saker.build.tests.EnvironmentTestCaseConfiguration;
+import testing.saker.build.tests.tasks.repo.RepositoryTestUtils;
+import testing.saker.build.tests.tasks.repo.testrepo.TestRepo;
+import testing.saker.build.tests.tasks.repo.testrepo.TestRepoFactory;
+import testing.saker.build.tests.tasks.repo.testrepo.TestTask;
+
+/**
+ * Tests that the repositories loaded by {@link SakerExecutionCache#preload} are used by the next execution, and its
+ * build repositories are created for the path configuration of that execution.
+ */
+@SakerTest
+public class PreloadedExecutionCacheTest extends EnvironmentTestCase {
+	private static class LoadCountingSakerExecutionCache extends SakerExecutionCache {
+		protected final AtomicInteger loadCount = new AtomicInteger();
+
+		public LoadCountingSakerExecutionCache(SakerEnvironmentImpl environment) {
+			super(environment);
+		}
+
+		@Override
+		protected SakerRepository loadRepositoryFromManager(RepositoryManager repositorymanager,
+				ClassPathLocation repolocation, ClassPathServiceEnumerator<? extends SakerRepositoryFactory> enumerator)
+				throws IOException {
+			loadCount.incrementAndGet();
+			return super.loadRepositoryFromManager(repositorymanager, repolocation, enumerator);
+		}
+	}
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		SakerPath repopath = PATH_WORKING_DIRECTORY.resolve(RepositoryTestUtils.createRepositoryJarName(getClass()));
+		RepositoryTestUtils.exportTestRepositoryJarWithClasses(files, repopath, TestRepoFactory.class, TestRepo.class,
+				TestTask.class);
+		ExecutionRepositoryConfiguration repoconfig = ExecutionRepositoryConfiguration.builder()
+				.add(new JarFileClassPathLocation(new SimpleProviderHolderPathKey(files, repopath)),
+						new ServiceLoaderClassPathServiceEnumerator<>(SakerRepositoryFactory.class))
+				.build();
+
+		ExecutionPathConfiguration firstpathconfig = ExecutionPathConfiguration
+				.local(SakerPath.valueOf(getWorkingDirectory().resolve("first")));
+		ExecutionPathConfiguration secondpathconfig = ExecutionPathConfiguration
+				.local(SakerPath.valueOf(getWorkingDirectory().resolve("second")));
+
+		try (LoadCountingSakerExecutionCache cache = new LoadCountingSakerExecutionCache(environment)) {
+			cache.preload(repoconfig, ExecutionScriptConfiguration.empty());
+			assertEquals(cache.loadCount.get(), 1);
+			assertEmpty(cache.getLoadedBuildRepositories());
+
+			//the preloaded repository is used by the first execution, the build repository is created for it
+			assertTrue(setConfiguration(cache, firstpathconfig, repoconfig, Collections.singletonMap("key", "value")));
+			assertEquals(cache.loadCount.get(), 1);
+			assertEquals(cache.getLoadedBuildRepositories().size(), 1);
+			for (RepositoryBuildEnvironment buildenv : cache.getLoadedRepositoryBuildEnvironments().values()) {
+				assertEquals(buildenv.getPathConfiguration(), firstpathconfig);
+				assertEquals(buildenv.getUserParameters(), Collections.singletonMap("key", "value"));
+			}
+			assertFalse(
+					setConfiguration(cache, firstpathconfig, repoconfig, Collections.singletonMap("key", "value")));
+
+			//the preloaded repository is only used once
+			assertTrue(setConfiguration(cache, secondpathconfig, repoconfig, Collections.emptyMap()));
+			assertEquals(cache.loadCount.get(), 2);
+		}
+		try (LoadCountingSakerExecutionCache cache = new LoadCountingSakerExecutionCache(environment)) {
+			cache.preload(repoconfig, ExecutionScriptConfiguration.empty());
+			//a different configuration is loaded anew
+			assertTrue(setConfiguration(cache, firstpathconfig, ExecutionRepositoryConfiguration.empty(),
+					Collections.emptyMap()));
+			assertEmpty(cache.getLoadedBuildRepositories());
+			assertTrue(setConfiguration(cache, firstpathconfig, repoconfig, Collections.emptyMap()));
+			assertEquals(cache.loadCount.get(), 2);
+		}
+	}
+
+	@Override
+	protected Set<EnvironmentTestCaseConfiguration> getTestConfigurations() {
+		//so the environment and classpath is closed after this test
+		return EnvironmentTestCaseConfiguration.builder(super.getTestConfigurations())
+				.setEnvironmentStorageDirectory(null).build();
+	}
+
+	private static boolean setConfiguration(SakerExecutionCache cache, ExecutionPathConfiguration pathconfig,
+			ExecutionRepositoryConfiguration repoconfig, Map<String, String> userparams) throws Exception {
+		return cache.set(pathconfig, repoconfig, ExecutionScriptConfiguration.empty(), userparams,
+				LocalFileProvider.getInstance(), new ClassLoaderResolverRegistry(), false, null);
+	}
+
+}
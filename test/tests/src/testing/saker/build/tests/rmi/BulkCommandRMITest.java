@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.rmi;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import saker.build.thirdparty.saker.rmi.connection.RMIConnection;
+import saker.build.thirdparty.saker.rmi.connection.RMIOptions;
+import saker.build.thirdparty.saker.rmi.connection.RMIServer;
+import saker.build.thirdparty.saker.rmi.connection.RMIVariables;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.util.rmi.SakerRMIHelper;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that large commands which are transferred in segments are received correctly while other commands are being
+ * written on the same stream.
+ */
+@SakerTest
+public class BulkCommandRMITest extends SakerTestCase {
+	private static final int SMALL_CALLER_COUNT = 4;
+
+	public interface Echo {
+		public byte[] echo(byte[] v);
+
+		public int length(byte[] v);
+
+		public int call(int v);
+	}
+
+	public static class EchoImpl implements Echo {
+		@Override
+		public byte[] echo(byte[] v) {
+			return v;
+		}
+
+		@Override
+		public int length(byte[] v) {
+			return v.length;
+		}
+
+		@Override
+		public int call(int v) {
+			return v;
+		}
+	}
+
+	public static Echo createEcho() {
+		return new EchoImpl();
+	}
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		RMIOptions opt = SakerRMIHelper.createBaseRMIOptions();
+		opt.classLoader(this.getClass().getClassLoader());
+		try (RMIServer server = new RMIServer() {
+			@Override
+			protected RMIOptions getRMIOptionsForAcceptedConnection(Socket acceptedsocket, int protocolversion)
+					throws IOException, RuntimeException {
+				return opt;
+			}
+		}) {
+			ThreadUtils.startDaemonThread(() -> {
+				server.acceptConnections();
+			});
+
+			try (RMIConnection connection = opt.connect(server.getLocalSocketAddress());
+					RMIVariables vars = connection.newVariables()) {
+				Echo echo = (Echo) vars.invokeRemoteStaticMethod(BulkCommandRMITest.class.getMethod("createEcho"));
+
+				Random random = new Random(123);
+				int[] sizes = { 0, 1, 64 * 1024 - 100, 64 * 1024, 64 * 1024 + 1, 3 * 64 * 1024 + 17, 4 * 1024 * 1024 };
+				List<byte[]> datas = new ArrayList<>();
+				for (int size : sizes) {
+					byte[] data = new byte[size];
+					random.nextBytes(data);
+					datas.add(data);
+				}
+
+				AtomicReference<Throwable> smallcallexc = new AtomicReference<>();
+				List<Thread> smallcallers = new ArrayList<>();
+				for (int i = 0; i < SMALL_CALLER_COUNT; i++) {
+					int threadidx = i;
+					Thread t = new Thread(() -> {
+						try {
+							for (int j = 0; j < 1000; j++) {
+								int val = threadidx * 1000 + j;
+								if (echo.call(val) != val) {
+									throw new AssertionError("Small call result mismatch.");
+								}
+							}
+						} catch (Throwable e) {
+							smallcallexc.compareAndSet(null, e);
+						}
+					}, "Small caller " + i);
+					smallcallers.add(t);
+					t.start();
+				}
+				for (int i = 0; i < 4; i++) {
+					for (byte[] data : datas) {
+						assertTrue(Arrays.equals(echo.echo(data), data), () -> "Echo mismatch: " + data.length);
+						assertEquals(echo.length(data), data.length);
+					}
+				}
+				for (Thread t : smallcallers) {
+					t.join();
+				}
+				if (smallcallexc.get() != null) {
+					throw smallcallexc.get();
+				}
+			}
+		}
+	}
+
+}
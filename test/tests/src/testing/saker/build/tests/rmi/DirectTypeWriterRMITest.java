@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.rmi;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+
+import saker.build.thirdparty.saker.rmi.connection.RMIConnection;
+import saker.build.thirdparty.saker.rmi.connection.RMIOptions;
+import saker.build.thirdparty.saker.rmi.connection.RMIServer;
+import saker.build.thirdparty.saker.rmi.connection.RMIVariables;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.util.rmi.SakerRMIHelper;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests that the arguments and return values which are written directly based on their declared type are transferred
+ * correctly.
+ */
+@SakerTest
+public class DirectTypeWriterRMITest extends SakerTestCase {
+	public interface Echo {
+		public void call();
+
+		public boolean echo(boolean v);
+
+		public byte echo(byte v);
+
+		public short echo(short v);
+
+		public int echo(int v);
+
+		public long echo(long v);
+
+		public float echo(float v);
+
+		public double echo(double v);
+
+		public char echo(char v);
+
+		public Boolean echo(Boolean v);
+
+		public Byte echo(Byte v);
+
+		public Short echo(Short v);
+
+		public Integer echo(Integer v);
+
+		public Long echo(Long v);
+
+		public Float echo(Float v);
+
+		public Double echo(Double v);
+
+		public Character echo(Character v);
+
+		public String echo(String v);
+
+		public boolean[] echo(boolean[] v);
+
+		public byte[] echo(byte[] v);
+
+		public short[] echo(short[] v);
+
+		public int[] echo(int[] v);
+
+		public long[] echo(long[] v);
+
+		public float[] echo(float[] v);
+
+		public double[] echo(double[] v);
+
+		public char[] echo(char[] v);
+
+		public String concat(String a, int b, long[] c, String d);
+	}
+
+	public static class EchoImpl implements Echo {
+		@Override
+		public void call() {
+		}
+
+		//@formatter:off
+		@Override public boolean echo(boolean v) { return v; }
+		@Override public byte echo(byte v) { return v; }
+		@Override public short echo(short v) { return v; }
+		@Override public int echo(int v) { return v; }
+		@Override public long echo(long v) { return v; }
+		@Override public float echo(float v) { return v; }
+		@Override public double echo(double v) { return v; }
+		@Override public char echo(char v) { return v; }
+		@Override public Boolean echo(Boolean v) { return v; }
+		@Override public Byte echo(Byte v) { return v; }
+		@Override public Short echo(Short v) { return v; }
+		@Override public Integer echo(Integer v) { return v; }
+		@Override public Long echo(Long v) { return v; }
+		@Override public Float echo(Float v) { return v; }
+		@Override public Double echo(Double v) { return v; }
+		@Override public Character echo(Character v) { return v; }
+		@Override public String echo(String v) { return v; }
+		@Override public boolean[] echo(boolean[] v) { return v; }
+		@Override public byte[] echo(byte[] v) { return v; }
+		@Override public short[] echo(short[] v) { return v; }
+		@Override public int[] echo(int[] v) { return v; }
+		@Override public long[] echo(long[] v) { return v; }
+		@Override public float[] echo(float[] v) { return v; }
+		@Override public double[] echo(double[] v) { return v; }
+		@Override public char[] echo(char[] v) { return v; }
+		//@formatter:on
+
+		@Override
+		public String concat(String a, int b, long[] c, String d) {
+			return a + b + (c == null ? "null" : c.length) + d;
+		}
+	}
+
+	public static Echo createEcho() {
+		return new EchoImpl();
+	}
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		RMIOptions opt = SakerRMIHelper.createBaseRMIOptions();
+		opt.classLoader(this.getClass().getClassLoader());
+		try (RMIServer server = new RMIServer() {
+			@Override
+			protected RMIOptions getRMIOptionsForAcceptedConnection(Socket acceptedsocket, int protocolversion)
+					throws IOException, RuntimeException {
+				return opt;
+			}
+		}) {
+			ThreadUtils.startDaemonThread(() -> {
+				server.acceptConnections();
+			});
+
+			try (RMIConnection connection = opt.connect(server.getLocalSocketAddress());
+					RMIVariables vars = connection.newVariables()) {
+				Echo echo = (Echo) vars.invokeRemoteStaticMethod(DirectTypeWriterRMITest.class.getMethod("createEcho"));
+				assertFalse(echo instanceof EchoImpl);
+
+				echo.call();
+
+				assertEquals(echo.echo(true), true);
+				assertEquals(echo.echo(false), false);
+				assertEquals(echo.echo((byte) -12), (byte) -12);
+				assertEquals(echo.echo((short) -1234), (short) -1234);
+				assertEquals(echo.echo(Integer.MIN_VALUE), Integer.MIN_VALUE);
+				assertEquals(echo.echo(Long.MAX_VALUE), Long.MAX_VALUE);
+				assertEquals(echo.echo(1.5f), 1.5f);
+				assertEquals(echo.echo(Double.NaN), Double.NaN);
+				assertEquals(echo.echo('ሴ'), 'ሴ');
+
+				assertEquals(echo.echo(Boolean.TRUE), Boolean.TRUE);
+				assertEquals(echo.echo(Byte.valueOf((byte) 3)), Byte.valueOf((byte) 3));
+				assertEquals(echo.echo(Short.valueOf((short) 4)), Short.valueOf((short) 4));
+				assertEquals(echo.echo(Integer.valueOf(5)), Integer.valueOf(5));
+				assertEquals(echo.echo(Long.valueOf(6)), Long.valueOf(6));
+				assertEquals(echo.echo(Float.valueOf(7)), Float.valueOf(7));
+				assertEquals(echo.echo(Double.valueOf(8)), Double.valueOf(8));
+				assertEquals(echo.echo(Character.valueOf('9')), Character.valueOf('9'));
+				assertEquals(echo.echo("str\u0000€"), "str\u0000€");
+				assertEquals(echo.echo(""), "");
+
+				assertNull(echo.echo((Boolean) null));
+				assertNull(echo.echo((Byte) null));
+				assertNull(echo.echo((Short) null));
+				assertNull(echo.echo((Integer) null));
+				assertNull(echo.echo((Long) null));
+				assertNull(echo.echo((Float) null));
+				assertNull(echo.echo((Double) null));
+				assertNull(echo.echo((Character) null));
+				assertNull(echo.echo((String) null));
+
+				assertEquals(echo.echo(new boolean[] { true, false }), new boolean[] { true, false });
+				assertEquals(echo.echo(new byte[] { 1, -2, 3 }), new byte[] { 1, -2, 3 });
+				assertEquals(echo.echo(new short[] { 1, -2, 3 }), new short[] { 1, -2, 3 });
+				assertEquals(echo.echo(new int[] { 1, -2, 3 }), new int[] { 1, -2, 3 });
+				assertEquals(echo.echo(new long[] { 1, -2, 3 }), new long[] { 1, -2, 3 });
+				assertEquals(echo.echo(new float[] { 1, -2, 3 }), new float[] { 1, -2, 3 });
+				assertEquals(echo.echo(new double[] { 1, -2, 3 }), new double[] { 1, -2, 3 });
+				assertEquals(echo.echo(new char[] { 'a', 'b' }), new char[] { 'a', 'b' });
+				assertEquals(echo.echo(new int[0]), new int[0]);
+
+				assertNull(echo.echo((boolean[]) null));
+				assertNull(echo.echo((byte[]) null));
+				assertNull(echo.echo((short[]) null));
+				assertNull(echo.echo((int[]) null));
+				assertNull(echo.echo((long[]) null));
+				assertNull(echo.echo((float[]) null));
+				assertNull(echo.echo((double[]) null));
+				assertNull(echo.echo((char[]) null));
+
+				assertEquals(echo.concat("a", 1, new long[2], "d"), "a12d");
+				assertEquals(echo.concat(null, 1, null, null), "null1nullnull");
+			}
+		}
+	}
+
+}
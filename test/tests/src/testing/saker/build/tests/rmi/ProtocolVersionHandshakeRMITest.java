@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.rmi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import saker.build.thirdparty.saker.rmi.connection.RMIConnection;
+import saker.build.thirdparty.saker.rmi.connection.RMIOptions;
+import saker.build.thirdparty.saker.rmi.connection.RMIServer;
+import saker.build.thirdparty.saker.rmi.connection.RMIVariables;
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.util.rmi.SakerRMIHelper;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.rmi.BulkCommandRMITest.Echo;
+
+/**
+ * Tests the protocol version negotiation between peers of protocol version 2 and 3.
+ * <p>
+ * The connection is made through a proxy that can rewrite the protocol versions in the handshake, so both endpoints
+ * see the other one as a protocol version 2 peer. The proxy records the transferred blocks, and the test checks that
+ * bulk command segments are only transferred on protocol version 3 connections.
+ */
+@SakerTest
+public class ProtocolVersionHandshakeRMITest extends SakerTestCase {
+	private static final String RMISTREAM_CLASS_NAME = "saker.build.thirdparty.saker.rmi.connection.RMIStream";
+
+	//magic, version, command
+	private static final int CLIENT_HELLO_SIZE = 3 * 2;
+	//magic, version, response, connection uuid
+	private static final int SERVER_HELLO_SIZE = 3 * 2 + 2 * 8;
+	private static final int VERSION_OFFSET = 2;
+
+	private short bulkSegmentCommand;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Class<?> streamclass = Class.forName(RMISTREAM_CLASS_NAME, false, RMIConnection.class.getClassLoader());
+		bulkSegmentCommand = (short) ReflectUtils
+				.getFieldValue(ReflectUtils.getDeclaredFieldAssert(streamclass, "COMMAND_BULK_SEGMENT"), null);
+
+		runHandshakeTest(-1, RMIConnection.PROTOCOL_VERSION_3);
+		runHandshakeTest(RMIConnection.PROTOCOL_VERSION_2, RMIConnection.PROTOCOL_VERSION_2);
+	}
+
+	private void runHandshakeTest(int rewriteversion, int expectedversion) throws Throwable {
+		RMIOptions opt = SakerRMIHelper.createBaseRMIOptions();
+		opt.classLoader(this.getClass().getClassLoader());
+		//a single stream, so the proxy only needs to handle the connection handshake
+		opt.maxStreamCount(1);
+		int[] serverversion = { -1 };
+		try (RMIServer server = new RMIServer() {
+			@Override
+			protected RMIOptions getRMIOptionsForAcceptedConnection(Socket acceptedsocket, int protocolversion)
+					throws IOException, RuntimeException {
+				serverversion[0] = protocolversion;
+				return opt;
+			}
+		};
+				VersionRewritingProxy proxy = new VersionRewritingProxy(server.getPort(), rewriteversion)) {
+			ThreadUtils.startDaemonThread(() -> {
+				server.acceptConnections();
+			});
+
+			try (RMIConnection connection = opt.connect(proxy.getLocalSocketAddress());
+					RMIVariables vars = connection.newVariables()) {
+				assertEquals(getProtocolVersion(connection), expectedversion);
+
+				Echo echo = (Echo) vars.invokeRemoteStaticMethod(BulkCommandRMITest.class.getMethod("createEcho"));
+				byte[] data = new byte[4 * 1024 * 1024];
+				new Random(123).nextBytes(data);
+				assertTrue(Arrays.equals(echo.echo(data), data));
+				assertEquals(echo.call(123), 123);
+			}
+			assertEquals(serverversion[0], expectedversion);
+
+			proxy.join();
+			Set<Short> clientcommands = getBlockCommands(proxy.clientToServer, CLIENT_HELLO_SIZE);
+			Set<Short> servercommands = getBlockCommands(proxy.serverToClient, SERVER_HELLO_SIZE);
+			boolean segmented = expectedversion >= RMIConnection.PROTOCOL_VERSION_3;
+			assertEquals(clientcommands.contains(bulkSegmentCommand), segmented, clientcommands::toString);
+			assertEquals(servercommands.contains(bulkSegmentCommand), segmented, servercommands::toString);
+		}
+	}
+
+	private static int getProtocolVersion(RMIConnection connection) throws Exception {
+		return ((Number) ReflectUtils.invokeMethod(connection,
+				ReflectUtils.getDeclaredMethodAssert(RMIConnection.class, "getProtocolVersion"))).intValue();
+	}
+
+	/**
+	 * Gets the commands of the recorded blocks, which are the first two bytes of each block.
+	 */
+	private static Set<Short> getBlockCommands(ByteArrayOutputStream recorded, int hellosize) {
+		byte[] bytes = recorded.toByteArray();
+		Set<Short> result = new HashSet<>();
+		int blockid = 0;
+		byte[] commandbytes = new byte[2];
+		int commandbytecount = commandbytes.length;
+		//the block stream consists of chunks with an int block id and an int payload length header
+		for (int offset = hellosize; offset + 8 <= bytes.length;) {
+			int chunkid = SerialUtils.readIntFromBuffer(bytes, offset);
+			int len = SerialUtils.readIntFromBuffer(bytes, offset + 4);
+			offset += 8;
+			if (chunkid != blockid) {
+				blockid = chunkid;
+				commandbytecount = 0;
+			}
+			for (int i = 0; i < len && commandbytecount < commandbytes.length && offset + i < bytes.length; i++) {
+				commandbytes[commandbytecount++] = bytes[offset + i];
+				if (commandbytecount == commandbytes.length) {
+					result.add(SerialUtils.readShortFromBuffer(commandbytes, 0));
+				}
+			}
+			offset += len;
+		}
+		return result;
+	}
+
+	private static class VersionRewritingProxy implements AutoCloseable {
+		private final ServerSocket serverSocket;
+		private final int targetPort;
+		private final int rewriteVersion;
+
+		protected final ByteArrayOutputStream clientToServer = new ByteArrayOutputStream();
+		protected final ByteArrayOutputStream serverToClient = new ByteArrayOutputStream();
+
+		private Thread acceptorThread;
+		private Thread clientToServerThread;
+		private Thread serverToClientThread;
+
+		public VersionRewritingProxy(int targetport, int rewriteversion) throws IOException {
+			this.targetPort = targetport;
+			this.rewriteVersion = rewriteversion;
+			this.serverSocket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress());
+			this.acceptorThread = ThreadUtils.startDaemonThread(this::acceptConnection);
+		}
+
+		public InetSocketAddress getLocalSocketAddress() {
+			return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+		}
+
+		private void acceptConnection() {
+			try {
+				Socket client = serverSocket.accept();
+				Socket target = new Socket(InetAddress.getLoopbackAddress(), targetPort);
+				clientToServerThread = ThreadUtils.startDaemonThread(
+						() -> pump(client, target, CLIENT_HELLO_SIZE, clientToServer));
+				serverToClientThread = ThreadUtils.startDaemonThread(
+						() -> pump(target, client, SERVER_HELLO_SIZE, serverToClient));
+			} catch (IOException e) {
+				//the proxy was closed
+			}
+		}
+
+		private void pump(Socket from, Socket to, int hellosize, ByteArrayOutputStream recorded) {
+			try {
+				InputStream in = from.getInputStream();
+				OutputStream out = to.getOutputStream();
+				byte[] hello = new byte[hellosize];
+				int hellolen = 0;
+				while (hellolen < hellosize) {
+					int read = in.read(hello, hellolen, hellosize - hellolen);
+					if (read < 0) {
+						return;
+					}
+					hellolen += read;
+				}
+				if (rewriteVersion > 0) {
+					SerialUtils.writeShortToBuffer((short) rewriteVersion, hello, VERSION_OFFSET);
+				}
+				recorded.write(hello);
+				out.write(hello);
+				out.flush();
+				byte[] buffer = new byte[64 * 1024];
+				for (int read; (read = in.read(buffer)) > 0;) {
+					recorded.write(buffer, 0, read);
+					out.write(buffer, 0, read);
+					out.flush();
+				}
+			} catch (IOException e) {
+				//the connection was closed
+			} finally {
+				IOUtils.closePrint(from, to);
+			}
+		}
+
+		public void join() throws InterruptedException {
+			acceptorThread.join();
+			clientToServerThread.join();
+			serverToClientThread.join();
+		}
+
+		@Override
+		public void close() throws IOException {
+			serverSocket.close();
+		}
+	}
+}
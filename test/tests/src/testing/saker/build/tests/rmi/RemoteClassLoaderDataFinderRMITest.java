@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.rmi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import saker.build.thirdparty.saker.rmi.connection.RMIConnection;
+import saker.build.thirdparty.saker.rmi.connection.RMIOptions;
+import saker.build.thirdparty.saker.rmi.connection.RMIServer;
+import saker.build.thirdparty.saker.rmi.connection.RMIVariables;
+import saker.build.thirdparty.saker.util.classloader.ClassLoaderDataFinder;
+import saker.build.thirdparty.saker.util.classloader.MultiDataClassLoader;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+import saker.build.thirdparty.saker.util.thread.ThreadUtils;
+import saker.build.util.rmi.SakerRMIHelper;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.TestUtils.MemoryClassLoaderDataFinder;
+
+/**
+ * Tests that the resource directories of remote data finders are not transferred, and that the classloaders query them
+ * for all resources.
+ */
+@SakerTest
+public class RemoteClassLoaderDataFinderRMITest extends SakerTestCase {
+	private static final AtomicInteger DIRECTORY_NAMES_CALL_COUNT = new AtomicInteger();
+
+	public static class DirectoryReportingDataFinder extends MemoryClassLoaderDataFinder {
+		public DirectoryReportingDataFinder() {
+			super(Collections.singletonMap("pkg/res.txt",
+					ByteArrayRegion.wrap("remote".getBytes(StandardCharsets.UTF_8))));
+		}
+
+		@Override
+		public Set<String> getResourceDirectoryNames() {
+			DIRECTORY_NAMES_CALL_COUNT.incrementAndGet();
+			return Collections.singleton("pkg");
+		}
+	}
+
+	public static ClassLoaderDataFinder createDataFinder() {
+		return new DirectoryReportingDataFinder();
+	}
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		RMIOptions opt = SakerRMIHelper.createBaseRMIOptions();
+		opt.classLoader(this.getClass().getClassLoader());
+		try (RMIServer server = new RMIServer() {
+			@Override
+			protected RMIOptions getRMIOptionsForAcceptedConnection(Socket acceptedsocket, int protocolversion)
+					throws IOException, RuntimeException {
+				return opt;
+			}
+		}) {
+			ThreadUtils.startDaemonThread(() -> {
+				server.acceptConnections();
+			});
+
+			try (RMIConnection connection = opt.connect(server.getLocalSocketAddress());
+					RMIVariables vars = connection.newVariables()) {
+				ClassLoaderDataFinder finder = (ClassLoaderDataFinder) vars
+						.invokeRemoteStaticMethod(RemoteClassLoaderDataFinderRMITest.class.getMethod("createDataFinder"));
+				assertFalse(finder instanceof DirectoryReportingDataFinder);
+
+				assertNull(finder.getResourceDirectoryNames());
+
+				MultiDataClassLoader cl = new MultiDataClassLoader((ClassLoader) null, finder);
+				try (InputStream is = cl.getResourceAsStream("pkg/res.txt")) {
+					assertNonNull(is);
+					assertEquals(StreamUtils.readStreamStringFully(is, StandardCharsets.UTF_8), "remote");
+				}
+				assertNull(cl.getResourceAsStream("other/res.txt"));
+				assertEquals(DIRECTORY_NAMES_CALL_COUNT.get(), 0);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.rmi;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import saker.build.thirdparty.saker.rmi.connection.RMIVariables;
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+/**
+ * Tests the open addressing int keyed table used by {@link RMIVariables}.
+ * <p>
+ * The table class is package private, so it is accessed reflectively. The keys for the collision tests are selected
+ * using the hash function of the table.
+ */
+@SakerTest
+public class StripedIntReferenceTableTest extends SakerTestCase {
+	private static final String TABLE_CLASS_NAME = "saker.build.thirdparty.saker.rmi.connection.StripedIntReferenceTable";
+
+	private Class<?> tableClass;
+	private int stripeShift;
+	private int initialCapacity;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		tableClass = Class.forName(TABLE_CLASS_NAME, false, RMIVariables.class.getClassLoader());
+		stripeShift = getStaticInt("STRIPE_SHIFT");
+		initialCapacity = getStaticInt("INITIAL_STRIPE_CAPACITY");
+
+		testBasic();
+		testCollisions();
+		testWrapAroundRemove();
+		testGrowth();
+		testExpectedValues();
+		testRandomOperations();
+	}
+
+	private void testBasic() throws Exception {
+		Table t = new Table();
+		assertEquals(t.size(), 0);
+		assertNull(t.get(1));
+
+		Object a = new Object();
+		Object b = new Object();
+		t.put(1, a);
+		t.put(-1, b);
+		assertIdentityEquals(t.get(1), a);
+		assertIdentityEquals(t.get(-1), b);
+		assertNull(t.get(2));
+		assertEquals(t.size(), 2);
+
+		Object c = new Object();
+		t.put(1, c);
+		assertIdentityEquals(t.get(1), c);
+		assertEquals(t.size(), 2);
+
+		assertIdentityEquals(t.putIfAbsent(1, a), c);
+		assertIdentityEquals(t.get(1), c);
+		assertNull(t.putIfAbsent(2, a));
+		assertIdentityEquals(t.get(2), a);
+		assertEquals(t.size(), 3);
+
+		t.clear();
+		assertEquals(t.size(), 0);
+		assertNull(t.get(1));
+		assertNull(t.get(-1));
+		assertNull(t.get(2));
+	}
+
+	private void testCollisions() throws Exception {
+		//keys that have the same stripe and the same home slot
+		int[] keys = findKeys(5, 0, 3);
+		Table t = new Table();
+		Object[] values = putAll(t, keys);
+		assertContainsExactly(t, keys, values, null);
+
+		//remove from the start, middle and end of the probe sequence
+		assertTrue(t.remove(keys[0], values[0]));
+		assertContainsExactly(t, keys, values, new boolean[] { false, true, true, true, true });
+		assertTrue(t.remove(keys[2], values[2]));
+		assertContainsExactly(t, keys, values, new boolean[] { false, true, false, true, true });
+		assertTrue(t.remove(keys[4], values[4]));
+		assertContainsExactly(t, keys, values, new boolean[] { false, true, false, true, false });
+
+		//re-add the removed ones
+		t.put(keys[0], values[0]);
+		t.put(keys[2], values[2]);
+		t.put(keys[4], values[4]);
+		assertContainsExactly(t, keys, values, null);
+	}
+
+	private void testWrapAroundRemove() throws Exception {
+		int lastslot = initialCapacity - 1;
+		//keys with the home slot at the end of the table, the probe sequence wraps around to the start
+		int[] wrapping = findKeys(3, 5, lastslot);
+		//a key with the home slot at the start of the table, which is displaced by the wrapping keys
+		int[] start = findKeys(1, 5, 0);
+		int[] keys = { wrapping[0], wrapping[1], wrapping[2], start[0] };
+
+		Table t = new Table();
+		Object[] values = putAll(t, keys);
+		assertContainsExactly(t, keys, values, null);
+
+		//removing the entry at the last slot shifts back the wrapped entries
+		assertTrue(t.remove(keys[0], values[0]));
+		assertContainsExactly(t, keys, values, new boolean[] { false, true, true, true });
+
+		//removing a wrapped entry must not move the entry that is at its home slot to an earlier one
+		assertTrue(t.remove(keys[1], values[1]));
+		assertContainsExactly(t, keys, values, new boolean[] { false, false, true, true });
+
+		assertTrue(t.remove(keys[3], values[3]));
+		assertContainsExactly(t, keys, values, new boolean[] { false, false, true, false });
+
+		t.put(keys[0], values[0]);
+		t.put(keys[1], values[1]);
+		t.put(keys[3], values[3]);
+		assertContainsExactly(t, keys, values, null);
+	}
+
+	private void testGrowth() throws Exception {
+		//put enough keys to a single stripe to grow it multiple times
+		int[] keys = findKeys(initialCapacity * 16, 7, -1);
+		Table t = new Table();
+		Object[] values = putAll(t, keys);
+		assertContainsExactly(t, keys, values, null);
+
+		boolean[] present = new boolean[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			if (i % 3 == 0) {
+				assertTrue(t.remove(keys[i], values[i]));
+			} else {
+				present[i] = true;
+			}
+		}
+		assertContainsExactly(t, keys, values, present);
+	}
+
+	private void testExpectedValues() throws Exception {
+		Table t = new Table();
+		String value = new String("value");
+		String equalvalue = new String("value");
+		String replacement = new String("replacement");
+		t.put(1, value);
+
+		//the values are compared by identity
+		assertFalse(t.replace(1, equalvalue, replacement));
+		assertIdentityEquals(t.get(1), value);
+		assertFalse(t.remove(1, equalvalue));
+		assertIdentityEquals(t.get(1), value);
+
+		//missing keys
+		assertFalse(t.replace(2, value, replacement));
+		assertFalse(t.remove(2, value));
+		assertNull(t.get(2));
+
+		assertTrue(t.replace(1, value, replacement));
+		assertIdentityEquals(t.get(1), replacement);
+		assertFalse(t.remove(1, value));
+		assertTrue(t.remove(1, replacement));
+		assertNull(t.get(1));
+		assertEquals(t.size(), 0);
+	}
+
+	private void testRandomOperations() throws Exception {
+		Random random = new Random(1234);
+		Table t = new Table();
+		Map<Integer, Object> expected = new HashMap<>();
+		//small key range, so the operations often hit existing entries
+		int keyrange = 512;
+		for (int i = 0; i < 200_000; i++) {
+			int key = random.nextInt(keyrange) - keyrange / 2;
+			Object current = expected.get(key);
+			switch (random.nextInt(5)) {
+				case 0: {
+					Object v = new Object();
+					t.put(key, v);
+					expected.put(key, v);
+					break;
+				}
+				case 1: {
+					Object v = new Object();
+					assertIdentityEquals(t.putIfAbsent(key, v), current);
+					if (current == null) {
+						expected.put(key, v);
+					}
+					break;
+				}
+				case 2: {
+					Object v = new Object();
+					if (current != null && random.nextBoolean()) {
+						assertTrue(t.replace(key, current, v));
+						expected.put(key, v);
+					} else {
+						assertFalse(t.replace(key, new Object(), v));
+					}
+					break;
+				}
+				case 3: {
+					if (current != null && random.nextBoolean()) {
+						assertTrue(t.remove(key, current));
+						expected.remove(key);
+					} else {
+						assertFalse(t.remove(key, new Object()));
+					}
+					break;
+				}
+				default: {
+					assertIdentityEquals(t.get(key), current);
+					break;
+				}
+			}
+		}
+		assertEquals(t.size(), expected.size());
+		for (int key = -keyrange / 2; key < keyrange / 2; key++) {
+			assertIdentityEquals(t.get(key), expected.get(key));
+		}
+	}
+
+	private static Object[] putAll(Table t, int[] keys) throws Exception {
+		Object[] values = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			values[i] = new Object();
+			assertNull(t.putIfAbsent(keys[i], values[i]));
+		}
+		return values;
+	}
+
+	private static void assertContainsExactly(Table t, int[] keys, Object[] values, boolean[] present)
+			throws Exception {
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (present == null || present[i]) {
+				assertIdentityEquals(t.get(keys[i]), values[i], "key: " + keys[i]);
+				++count;
+			} else {
+				assertNull(t.get(keys[i]), "key: " + keys[i]);
+			}
+		}
+		assertEquals(t.size(), count);
+	}
+
+	/**
+	 * Finds keys that are in the given stripe and have the given home slot in a stripe with the initial capacity.
+	 * <p>
+	 * If the slot is negative, only the stripe is matched.
+	 */
+	private int[] findKeys(int count, int stripe, int slot) throws Exception {
+		List<Integer> result = new ArrayList<>();
+		for (int key = 0; result.size() < count; key++) {
+			int hash = hash(key);
+			if ((hash >>> stripeShift) != stripe) {
+				continue;
+			}
+			if (slot >= 0 && (hash & (initialCapacity - 1)) != slot) {
+				continue;
+			}
+			result.add(key);
+		}
+		return result.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private int hash(int key) throws Exception {
+		Method m = tableClass.getDeclaredMethod("hash", int.class);
+		return (int) ReflectUtils.invokeMethod(null, m, key);
+	}
+
+	private int getStaticInt(String name) throws Exception {
+		Field f = tableClass.getDeclaredField(name);
+		return (int) ReflectUtils.getFieldValue(f, null);
+	}
+
+	private final class Table {
+		private final Object table;
+
+		public Table() throws Exception {
+			Constructor<?> constructor = tableClass.getDeclaredConstructor();
+			this.table = ReflectUtils.invokeConstructor(constructor);
+		}
+
+		public Object get(int key) throws Exception {
+			return invoke("get", new Class<?>[] { int.class }, key);
+		}
+
+		public void put(int key, Object value) throws Exception {
+			invoke("put", new Class<?>[] { int.class, Object.class }, key, value);
+		}
+
+		public Object putIfAbsent(int key, Object value) throws Exception {
+			return invoke("putIfAbsent", new Class<?>[] { int.class, Object.class }, key, value);
+		}
+
+		public boolean replace(int key, Object expected, Object value) throws Exception {
+			return (boolean) invoke("replace", new Class<?>[] { int.class, Object.class, Object.class }, key,
+					expected, value);
+		}
+
+		public boolean remove(int key, Object expected) throws Exception {
+			return (boolean) invoke("remove", new Class<?>[] { int.class, Object.class }, key, expected);
+		}
+
+		public int size() throws Exception {
+			return (int) invoke("size", new Class<?>[] {});
+		}
+
+		public void clear() throws Exception {
+			invoke("clear", new Class<?>[] {});
+		}
+
+		private Object invoke(String name, Class<?>[] paramtypes, Object... args) throws Exception {
+			Method m = tableClass.getDeclaredMethod(name, paramtypes);
+			try {
+				return ReflectUtils.invokeMethod(table, m, args);
+			} catch (InvocationTargetException e) {
+				throw (Exception) e.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.scenario;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.EnvironmentTestCase;
+
+@SakerTest
+public class SyntheticBuildScenarioTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		SyntheticBuildScenario scenario = SyntheticBuildScenario.builder().setTaskCount(40).setFanIn(2).setFanOut(3)
+				.setFilesPerTask(3).setFileSize(256).setCpuCost(10).setOutputSize(128).build();
+
+		assertEquals(scenario.getDependencies(0).length, 0);
+		assertEquals(scenario.getDependencies(1), new int[] { 0 });
+		assertEquals(scenario.getDependencies(7), new int[] { 2, 1 });
+
+		Path dir = EnvironmentTestCase.getTestingBaseBuildDirectory().resolve(getClass().getName().replace('.', '/'));
+		SyntheticBuildScenarioRunner runner = new SyntheticBuildScenarioRunner(scenario, dir.resolve("scenario"),
+				EnvironmentTestCase.getSakerJarPath(), dir.resolve("storage"));
+		SyntheticBuildScenarioRunner.Result result = runner.run();
+
+		for (int i = 0; i < scenario.getTaskCount(); i++) {
+			Path outfile = runner.getBuildDirectory().resolve("synthetic").resolve(scenario.getTaskName(i) + ".out");
+			assertEquals(Files.size(outfile), (long) scenario.getOutputSize());
+		}
+		assertTrue(result.getClean().getDatabaseSizeBytes() > 0);
+		assertTrue(result.getNoOp().getDatabaseSizeBytes() > 0);
+		assertTrue(result.getIncremental().getDatabaseSizeBytes() > 0);
+		assertTrue(result.getClean().getPeakHeapBytes() > 0);
+	}
+
+}
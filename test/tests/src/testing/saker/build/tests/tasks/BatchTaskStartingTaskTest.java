@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks;
+
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.task.exception.IllegalTaskOperationException;
+import saker.build.task.exception.TaskExecutionDeadlockedException;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.task.utils.SimpleStructuredMapTaskResult;
+import saker.build.task.utils.SimpleStructuredObjectTaskResult;
+import saker.build.task.utils.StructuredTaskResult;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.tasks.factories.ChildTaskStarterTaskFactory;
+import testing.saker.build.tests.tasks.factories.StringTaskFactory;
+import testing.saker.build.tests.tasks.factories.TaskWaitingTaskFactory;
+
+@SakerTest
+public class BatchTaskStartingTaskTest extends CollectingMetricEnvironmentTestCase {
+	public static class BatchChildTaskStarterTaskFactory extends ChildTaskStarterTaskFactory {
+		private static final long serialVersionUID = 1L;
+
+		public BatchChildTaskStarterTaskFactory() {
+		}
+
+		@Override
+		public BatchChildTaskStarterTaskFactory add(TaskIdentifier taskid, TaskFactory<?> factory) {
+			super.add(taskid, factory);
+			return this;
+		}
+
+		@Override
+		public StructuredTaskResult run(TaskContext context) throws Exception {
+			context.getTaskUtilities().startTasks(namedChildTaskValues);
+			NavigableMap<String, StructuredTaskResult> resultmap = new TreeMap<>();
+			for (Entry<? extends TaskIdentifier, ? extends TaskFactory<?>> entry : namedChildTaskValues.entrySet()) {
+				TaskIdentifier taskid = entry.getKey();
+				resultmap.put(taskid.toString(), new SimpleStructuredObjectTaskResult(taskid));
+			}
+			return new SimpleStructuredMapTaskResult(resultmap);
+		}
+	}
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		BatchChildTaskStarterTaskFactory starter = new BatchChildTaskStarterTaskFactory();
+		starter.add(strTaskId("first"), new StringTaskFactory("firstres"));
+		starter.add(strTaskId("second"), new StringTaskFactory("secondres"));
+		starter.add(strTaskId("waiter"), new TaskWaitingTaskFactory(strTaskId("second")));
+
+		runTask(strTaskId("main"), starter);
+		assertEquals(getMetric().getRunTaskIdFactories().keySet(),
+				strTaskIdSetOf("main", "first", "second", "waiter"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("first")), "firstres");
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("second")), "secondres");
+
+		runTask(strTaskId("main"), starter);
+		assertEmpty(getMetric().getRunTaskIdFactories().keySet());
+
+		BatchChildTaskStarterTaskFactory modifiedstarter = new BatchChildTaskStarterTaskFactory();
+		modifiedstarter.add(strTaskId("first"), new StringTaskFactory("firstmod"));
+		modifiedstarter.add(strTaskId("second"), new StringTaskFactory("secondres"));
+		modifiedstarter.add(strTaskId("waiter"), new TaskWaitingTaskFactory(strTaskId("second")));
+		runTask(strTaskId("main"), modifiedstarter);
+		assertEquals(getMetric().getRunTaskIdFactories().keySet(), strTaskIdSetOf("main", "first"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("first")), "firstmod");
+
+		//the created tasks are recorded for the starter task
+		BatchChildTaskStarterTaskFactory removedstarter = new BatchChildTaskStarterTaskFactory();
+		removedstarter.add(strTaskId("first"), new StringTaskFactory("firstmod"));
+		removedstarter.add(strTaskId("waiter"), new TaskWaitingTaskFactory(strTaskId("second")));
+		assertTaskException(TaskExecutionDeadlockedException.class,
+				() -> runTask(strTaskId("main"), removedstarter));
+
+		//the task identifiers are validated before any of the tasks are started
+		BatchChildTaskStarterTaskFactory selfstarter = new BatchChildTaskStarterTaskFactory();
+		selfstarter.add(strTaskId("selffirst"), new StringTaskFactory("selffirstres"));
+		selfstarter.add(strTaskId("self"), new StringTaskFactory("selfres"));
+		assertTaskException(IllegalTaskOperationException.class, () -> runTask(strTaskId("self"), selfstarter));
+		assertFalse(getMetric().getRunTaskIdFactories().containsKey(strTaskId("selffirst")));
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks;
+
+import java.util.Collections;
+
+import saker.build.file.path.SakerPath;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.tasks.factories.ChildTaskStarterTaskFactory;
+import testing.saker.build.tests.tasks.factories.FileStringContentTaskFactory;
+import testing.saker.build.tests.tasks.factories.SequentialChildTaskStarterTaskFactory;
+import testing.saker.build.tests.tasks.factories.StringFileOutputTaskFactory;
+
+/**
+ * Tests that only the tasks which depend on the changed paths have their file dependencies checked when the changed
+ * paths are specified for the build.
+ */
+@SakerTest
+public class ChangedFilePathsTaskTest extends CollectingMetricEnvironmentTestCase {
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		try {
+			testInputChanges();
+			testOutputChanges();
+		} finally {
+			parameters.setChangedFilePaths(null);
+		}
+	}
+
+	private void testInputChanges() throws Throwable {
+		SakerPath dirpath = PATH_WORKING_DIRECTORY.resolve("dir");
+		SakerPath apath = dirpath.resolve("a.txt");
+		SakerPath bpath = dirpath.resolve("b.txt");
+		SakerPath cpath = PATH_WORKING_DIRECTORY.resolve("c.txt");
+		ChildTaskStarterTaskFactory main = new ChildTaskStarterTaskFactory()
+				.add("a", new FileStringContentTaskFactory(apath)).add("b", new FileStringContentTaskFactory(bpath))
+				.add("c", new FileStringContentTaskFactory(cpath));
+
+		files.putFile(apath, "a");
+		files.putFile(bpath, "b");
+		files.putFile(cpath, "c");
+		runTask("main", main);
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("main", "a", "b", "c"));
+
+		parameters.setChangedFilePaths(Collections.emptySet());
+		runTask("main", main);
+		assertEmpty(getMetric().getRunTaskIdResults());
+		assertEmpty(getMetric().getFileDependencyDeltasCollectedTasks());
+
+		//b is modified as well, but not reported
+		files.putFile(apath, "amod");
+		files.putFile(bpath, "bmod");
+		parameters.setChangedFilePaths(Collections.singleton(apath));
+		runTask("main", main);
+		assertEquals(getMetric().getFileDependencyDeltasCollectedTasks(), strTaskIdSetOf("a"));
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("a"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("a")), "amod");
+
+		parameters.setChangedFilePaths(null);
+		runTask("main", main);
+		assertEquals(getMetric().getFileDependencyDeltasCollectedTasks(), strTaskIdSetOf("main", "a", "b", "c"));
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("b"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("b")), "bmod");
+
+		//the files under a changed directory are considered to be changed
+		files.putFile(apath, "amod2");
+		files.putFile(bpath, "bmod2");
+		parameters.setChangedFilePaths(Collections.singleton(dirpath));
+		runTask("main", main);
+		assertEquals(getMetric().getFileDependencyDeltasCollectedTasks(), strTaskIdSetOf("a", "b"));
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("a", "b"));
+	}
+
+	private void testOutputChanges() throws Throwable {
+		SakerPath outpath = PATH_WORKING_DIRECTORY.resolve("out.txt");
+
+		parameters.setChangedFilePaths(null);
+		runTask("outmain", new SequentialChildTaskStarterTaskFactory()
+				.add(strTaskId("out"), new StringFileOutputTaskFactory(outpath, "1"))
+				.add(strTaskId("in"), new FileStringContentTaskFactory(outpath)));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("in")), "1");
+
+		//the file is modified by a task of the build, so its dependents are checked
+		parameters.setChangedFilePaths(Collections.emptySet());
+		runTask("outmain", new SequentialChildTaskStarterTaskFactory()
+				.add(strTaskId("out"), new StringFileOutputTaskFactory(outpath, "2"))
+				.add(strTaskId("in"), new FileStringContentTaskFactory(outpath)));
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("outmain", "out", "in"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("in")), "2");
+	}
+
+}
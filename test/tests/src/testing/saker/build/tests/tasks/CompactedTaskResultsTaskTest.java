@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import saker.build.file.path.SakerPath;
+import saker.build.task.BuildTaskResultDatabase;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskExecutionResult;
+import saker.build.task.TaskExecutionResult.FileDependencies;
+import saker.build.task.TaskExecutionResult.TaskDependencies;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.thirdparty.saker.util.ImmutableUtils;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
+import saker.build.util.serial.ContentReaderObjectInput;
+import saker.build.util.serial.ContentWriterObjectOutput;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.EnvironmentTestCaseConfiguration;
+import testing.saker.build.tests.tasks.factories.ChildTaskStarterTaskFactory;
+import testing.saker.build.tests.tasks.factories.FileStringContentTaskFactory;
+
+/**
+ * Tests that the task results which are kept in memory between builds work the same way after they are compacted.
+ */
+@SakerTest
+public class CompactedTaskResultsTaskTest extends CollectingMetricEnvironmentTestCase {
+	public static class TaggedFileContentTaskFactory extends FileStringContentTaskFactory {
+		private static final long serialVersionUID = 1L;
+
+		public TaggedFileContentTaskFactory() {
+		}
+
+		public TaggedFileContentTaskFactory(SakerPath path) {
+			super(path);
+		}
+
+		@Override
+		public String run(TaskContext taskcontext) throws IOException {
+			String result = super.run(taskcontext);
+			taskcontext.setTaskOutput("tag", result);
+			taskcontext.setMetaData("meta", result);
+			return result;
+		}
+	}
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		SakerPath apath = PATH_WORKING_DIRECTORY.resolve("a.txt");
+		SakerPath bpath = PATH_WORKING_DIRECTORY.resolve("b.txt");
+		ChildTaskStarterTaskFactory main = new ChildTaskStarterTaskFactory()
+				.add("a", new TaggedFileContentTaskFactory(apath)).add("b", new TaggedFileContentTaskFactory(bpath));
+
+		files.putFile(apath, "a");
+		files.putFile(bpath, "b");
+		runTask("main", main);
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("main", "a", "b"));
+		assertCompactedResults();
+
+		runTask("main", main);
+		assertEmpty(getMetric().getRunTaskIdResults());
+		assertCompactedResults();
+
+		files.putFile(apath, "amod");
+		runTask("main", main);
+		assertEquals(getMetric().getRunTaskIdResults().keySet(), strTaskIdSetOf("a"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("a")), "amod");
+		assertCompactedResults();
+
+		runTask("main", main);
+		assertEmpty(getMetric().getRunTaskIdResults());
+	}
+
+	@Override
+	protected Set<EnvironmentTestCaseConfiguration> getTestConfigurations() {
+		return EnvironmentTestCaseConfiguration.builder(super.getTestConfigurations()).setUseProject(true).build();
+	}
+
+	private void assertCompactedResults() throws Exception {
+		project.waitExecutionFinalization();
+		BuildTaskResultDatabase db = project.getExecutionContentDatabase().getTaskResultDatabase();
+		assertEquals(db.getTaskIds(), strTaskIdSetOf("main", "a", "b"));
+		for (Entry<TaskIdentifier, TaskExecutionResult<?>> entry : db.getTaskIdTaskResults().entrySet()) {
+			TaskExecutionResult<?> result = entry.getValue();
+			assertException(UnsupportedOperationException.class, () -> result.getTaggedOutputs().put("x", "x"));
+			assertException(UnsupportedOperationException.class, () -> result.getMetaDatas().put("x", "x"));
+
+			TaskExecutionResult<?> read = serializeRoundTrip(result);
+			assertEquals(read.getOutput(), result.getOutput());
+			assertEquals(read.getTaggedOutputs(), result.getTaggedOutputs());
+			assertEquals(read.getMetaDatas(), result.getMetaDatas());
+			assertEquals(read.getCreatedByTaskIds(), result.getCreatedByTaskIds());
+			assertEquals(read.getExecutionWorkingDirectory(), result.getExecutionWorkingDirectory());
+			assertEquals(read.getPrintedLines(), result.getPrintedLines());
+
+			TaskDependencies deps = result.getDependencies();
+			TaskDependencies readdeps = read.getDependencies();
+			assertEquals(readdeps.getDirectlyCreatedTaskIds(), deps.getDirectlyCreatedTaskIds());
+			assertEquals(readdeps.getTaskDependencies().keySet(), deps.getTaskDependencies().keySet());
+			assertEquals(readdeps.getEnvironmentPropertyDependencies(), deps.getEnvironmentPropertyDependencies());
+			assertEquals(readdeps.getExecutionPropertyDependencies(), deps.getExecutionPropertyDependencies());
+			assertEquals(ImmutableUtils.makeImmutableList(readdeps.getEvents()),
+					ImmutableUtils.makeImmutableList(deps.getEvents()));
+			Map<Object, FileDependencies> filedeps = deps.getTaggedFileDependencies();
+			Map<Object, FileDependencies> readfiledeps = readdeps.getTaggedFileDependencies();
+			assertEquals(readfiledeps.keySet(), filedeps.keySet());
+			for (Entry<Object, FileDependencies> fdentry : filedeps.entrySet()) {
+				FileDependencies fd = fdentry.getValue();
+				FileDependencies readfd = readfiledeps.get(fdentry.getKey());
+				assertEquals(readfd.getInputFileDependencies(), fd.getInputFileDependencies());
+				assertEquals(readfd.getOutputFileDependencies(), fd.getOutputFileDependencies());
+				assertException(UnsupportedOperationException.class,
+						() -> fd.getInputFileDependencies().put(PATH_WORKING_DIRECTORY, null));
+			}
+		}
+	}
+
+	private TaskExecutionResult<?> serializeRoundTrip(TaskExecutionResult<?> result) throws Exception {
+		ByteArrayRegion bytes;
+		try (ContentWriterObjectOutput out = new ContentWriterObjectOutput(
+				environment.getClassLoaderResolverRegistry())) {
+			out.writeObject(result);
+			bytes = out.drainToBytes();
+		}
+		try (ContentReaderObjectInput in = new ContentReaderObjectInput(environment.getClassLoaderResolverRegistry(),
+				new UnsyncByteArrayInputStream(bytes))) {
+			return (TaskExecutionResult<?>) in.readObject();
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+import saker.build.file.path.SakerPath;
+import saker.build.meta.PropertyNames;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.tasks.factories.ChildTaskStarterTaskFactory;
+import testing.saker.build.tests.tasks.factories.FileStringContentTaskFactory;
+
+@SakerTest
+public class PrefetchFileDependenciesTaskTest extends CollectingMetricEnvironmentTestCase {
+	private static final int FILE_COUNT = 16;
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		String prevprop = System.getProperty(PropertyNames.PROPERTY_PREFETCH_FILE_DEPENDENCIES);
+		System.setProperty(PropertyNames.PROPERTY_PREFETCH_FILE_DEPENDENCIES, "true");
+		try {
+			runPrefetchTest();
+		} finally {
+			if (prevprop == null) {
+				System.clearProperty(PropertyNames.PROPERTY_PREFETCH_FILE_DEPENDENCIES);
+			} else {
+				System.setProperty(PropertyNames.PROPERTY_PREFETCH_FILE_DEPENDENCIES, prevprop);
+			}
+		}
+	}
+
+	private void runPrefetchTest() throws Throwable {
+		ChildTaskStarterTaskFactory main = new ChildTaskStarterTaskFactory();
+		for (int i = 0; i < FILE_COUNT; i++) {
+			SakerPath filepath = PATH_WORKING_DIRECTORY.resolve("dir/file" + i + ".txt");
+			files.putFile(filepath, "content" + i);
+			main.add(strTaskId("file" + i), new FileStringContentTaskFactory(filepath));
+		}
+		Set<String> alltaskids = new TreeSet<>();
+		alltaskids.add("main");
+		for (int i = 0; i < FILE_COUNT; i++) {
+			alltaskids.add("file" + i);
+		}
+
+		runTask("main", main);
+		assertEquals(getMetric().getRunTaskIdFactories().keySet(), strTaskIdSetOf(alltaskids.toArray(new String[0])));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("file3")), "content3");
+
+		runTask("main", main);
+		assertEmpty(getMetric().getRunTaskIdFactories().keySet());
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("dir/file3.txt"), "modified");
+		runTask("main", main);
+		assertEquals(getMetric().getRunTaskIdFactories().keySet(), strTaskIdSetOf("file3"));
+		assertEquals(getMetric().getRunTaskIdResults().get(strTaskId("file3")), "modified");
+
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("dir/file5.txt"), "modified5");
+		files.putFile(PATH_WORKING_DIRECTORY.resolve("dir/file6.txt"), "modified6");
+		runTask("main", main);
+		assertEquals(getMetric().getRunTaskIdFactories().keySet(), strTaskIdSetOf("file5", "file6"));
+
+		runTask("main", main);
+		assertEmpty(getMetric().getRunTaskIdFactories().keySet());
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFactory;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.tasks.factories.ChildTaskStarterTaskFactory;
+
+/**
+ * Tests that the batched standard output of concurrently running tasks is written in the order the tasks flushed it.
+ */
+@SakerTest
+public class StandardOutputDrainOrderTaskTest extends CollectingMetricEnvironmentTestCase {
+	private static volatile CountDownLatch firstPrintedLatch;
+
+	private static class OrderedPrintingTaskFactory implements TaskFactory<Void>, Task<Void>, Externalizable {
+		private static final long serialVersionUID = 1L;
+
+		private String line;
+		private boolean first;
+
+		/**
+		 * For {@link Externalizable}.
+		 */
+		public OrderedPrintingTaskFactory() {
+		}
+
+		public OrderedPrintingTaskFactory(String line, boolean first) {
+			this.line = line;
+			this.first = first;
+		}
+
+		@Override
+		public Void run(TaskContext taskcontext) throws Exception {
+			if (first) {
+				taskcontext.println(line);
+				firstPrintedLatch.countDown();
+			} else {
+				if (!firstPrintedLatch.await(10, TimeUnit.SECONDS)) {
+					throw new AssertionError("First task didn't print.");
+				}
+				taskcontext.println(line);
+			}
+			//keep running, so the output is written by the drainer instead of the task finalization
+			Thread.sleep(500);
+			return null;
+		}
+
+		@Override
+		public Task<? extends Void> createTask(ExecutionContext executioncontext) {
+			return this;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			out.writeUTF(line);
+			out.writeBoolean(first);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+			line = in.readUTF();
+			first = in.readBoolean();
+		}
+
+		@Override
+		public int hashCode() {
+			return line.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			OrderedPrintingTaskFactory other = (OrderedPrintingTaskFactory) obj;
+			return first == other.first && line.equals(other.line);
+		}
+	}
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		firstPrintedLatch = new CountDownLatch(1);
+		UnsyncByteArrayOutputStream out = new UnsyncByteArrayOutputStream();
+		parameters.setStandardOutput(out);
+
+		ChildTaskStarterTaskFactory main = new ChildTaskStarterTaskFactory();
+		main.add(strTaskId("second"), new OrderedPrintingTaskFactory("second-line", false));
+		main.add(strTaskId("first"), new OrderedPrintingTaskFactory("first-line", true));
+		runTask("main", main);
+
+		String output = out.toString();
+		int firstidx = output.indexOf("first-line");
+		int secondidx = output.indexOf("second-line");
+		assertTrue(firstidx >= 0, output);
+		assertTrue(secondidx >= 0, output);
+		assertTrue(firstidx < secondidx, output);
+		assertEquals(firstidx, output.lastIndexOf("first-line"), output);
+		assertEquals(secondidx, output.lastIndexOf("second-line"), output);
+	}
+}
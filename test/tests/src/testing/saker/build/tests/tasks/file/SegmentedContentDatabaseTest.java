@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks.file;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import saker.build.file.content.ContentDatabaseImpl;
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimpleProviderHolderPathKey;
+import saker.build.file.provider.RootFileProviderKey;
+import saker.build.file.provider.SakerFileProvider;
+import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
+import saker.build.thirdparty.saker.util.io.UnsyncByteArrayInputStream;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.EnvironmentTestCaseConfiguration;
+import testing.saker.build.tests.tasks.factories.ChildTaskStarterTaskFactory;
+import testing.saker.build.tests.tasks.factories.StringFileOutputTaskFactory;
+
+/**
+ * Tests that the segmented content database file is read back the same way as it was written, and that a database
+ * file that can't be read completely is discarded as a whole.
+ */
+@SakerTest
+public class SegmentedContentDatabaseTest extends CollectingMetricEnvironmentTestCase {
+	//more than the maximum number of dependencies and task results in a single segment
+	private static final int FILE_COUNT = 1500;
+
+	private static final int STREAM_HEADER_SIZE = 3 * 4;
+	private static final int SEGMENT_HEADER_SIZE = 2 * 4;
+	private static final int SEGMENT_END = 0;
+	private static final int SEGMENT_DEPENDENCIES = 1;
+	private static final int SEGMENT_TASK_RESULTS = 2;
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		ChildTaskStarterTaskFactory main = new ChildTaskStarterTaskFactory();
+		for (int i = 0; i < FILE_COUNT; i++) {
+			//the synchronized output files are tracked by the content database
+			SakerPath path = PATH_WORKING_DIRECTORY.resolve("dir/file" + i + ".txt");
+			main.add(strTaskId("file" + i), new StringFileOutputTaskFactory(path, "content" + i));
+		}
+		runTask("main", main);
+		project.waitExecutionFinalization();
+
+		ContentDatabaseImpl db = project.getExecutionContentDatabase();
+		db.flush();
+		ProviderHolderPathKey dbpathkey = (ProviderHolderPathKey) ReflectUtils
+				.getFieldValue(ReflectUtils.getDeclaredFieldAssert(ContentDatabaseImpl.class, "descriptorsPathKey"), db);
+		ExecutionPathConfiguration pathconfig = (ExecutionPathConfiguration) ReflectUtils
+				.getFieldValue(ReflectUtils.getDeclaredFieldAssert(ContentDatabaseImpl.class, "pathConfiguration"), db);
+		SakerFileProvider dbfp = dbpathkey.getFileProvider();
+		byte[] dbbytes = dbfp.getAllBytes(dbpathkey.getPath()).copyOptionally();
+
+		int[] segmentcounts = new int[3];
+		int[] firsttaskresultsegment = { -1, 0 };
+		forEachSegment(dbbytes, (type, offset, length) -> {
+			if (type < segmentcounts.length) {
+				++segmentcounts[type];
+			}
+			if (type == SEGMENT_TASK_RESULTS && firsttaskresultsegment[0] < 0) {
+				firsttaskresultsegment[0] = offset;
+				firsttaskresultsegment[1] = length;
+			}
+		});
+		assertTrue(segmentcounts[SEGMENT_DEPENDENCIES] > 1, () -> Arrays.toString(segmentcounts));
+		assertTrue(segmentcounts[SEGMENT_TASK_RESULTS] > 1, () -> Arrays.toString(segmentcounts));
+
+		ContentDatabaseImpl read = new ContentDatabaseImpl(db.getDatabaseConfiguration(), pathconfig,
+				db.getClassLoaderResolver(), dbpathkey);
+		assertEquals(read.getTaskResultDatabase().getTaskIds(), db.getTaskResultDatabase().getTaskIds());
+		assertEquals(read.getTaskResultDatabase().getTaskIds().size(), FILE_COUNT + 1);
+		Set<RootFileProviderKey> providerkeys = db.getTrackedFileProviderKeys();
+		assertEquals(read.getTrackedFileProviderKeys(), providerkeys);
+		int trackedcount = 0;
+		for (RootFileProviderKey fpkey : providerkeys) {
+			//not all tracked handles are persisted, e.g. the ones without content
+			assertTrue(db.getTrackedFilePaths(fpkey).containsAll(read.getTrackedFilePaths(fpkey)));
+			for (SakerPath path : read.getTrackedFilePaths(fpkey)) {
+				assertEquals(read.getContentDescriptorIfPresent(fpkey, path),
+						db.getContentDescriptorIfPresent(fpkey, path), path::toString);
+				++trackedcount;
+			}
+		}
+		assertTrue(trackedcount >= FILE_COUNT, "Tracked: " + trackedcount);
+
+		//corrupt the contents of a task result segment, which is decoded concurrently to the other segments
+		byte[] corrupted = dbbytes.clone();
+		Arrays.fill(corrupted, firsttaskresultsegment[0], firsttaskresultsegment[0] + firsttaskresultsegment[1],
+				(byte) 0xFF);
+		assertDiscarded(db, pathconfig, writeDatabaseFile(dbpathkey, "corrupted.db", corrupted));
+
+		//truncate the end of the file, the preceding segments are decoded before the failure is detected
+		byte[] truncated = Arrays.copyOf(dbbytes, dbbytes.length - SEGMENT_HEADER_SIZE - 4);
+		assertDiscarded(db, pathconfig, writeDatabaseFile(dbpathkey, "truncated.db", truncated));
+	}
+
+	@Override
+	protected Set<EnvironmentTestCaseConfiguration> getTestConfigurations() {
+		return EnvironmentTestCaseConfiguration.builder(super.getTestConfigurations()).setUseProject(true).build();
+	}
+
+	private static ProviderHolderPathKey writeDatabaseFile(ProviderHolderPathKey dbpathkey, String filename,
+			byte[] bytes) throws Exception {
+		SakerFileProvider fp = dbpathkey.getFileProvider();
+		SakerPath path = dbpathkey.getPath().getParent().resolve(filename);
+		fp.writeToFile(new UnsyncByteArrayInputStream(bytes), path);
+		return new SimpleProviderHolderPathKey(fp, path);
+	}
+
+	private static void assertDiscarded(ContentDatabaseImpl db, ExecutionPathConfiguration pathconfig,
+			ProviderHolderPathKey pathkey) {
+		ContentDatabaseImpl read = new ContentDatabaseImpl(db.getDatabaseConfiguration(), pathconfig,
+				db.getClassLoaderResolver(), pathkey);
+		assertEmpty(read.getTaskResultDatabase().getTaskIds());
+		for (RootFileProviderKey fpkey : db.getTrackedFileProviderKeys()) {
+			assertEmpty(read.getTrackedFilePaths(fpkey));
+		}
+	}
+
+	private interface SegmentVisitor {
+		public void visit(int type, int offset, int length);
+	}
+
+	private static void forEachSegment(byte[] bytes, SegmentVisitor visitor) {
+		int offset = STREAM_HEADER_SIZE;
+		while (true) {
+			int type = SerialUtils.readIntFromBuffer(bytes, offset);
+			int length = SerialUtils.readIntFromBuffer(bytes, offset + 4);
+			if (type == SEGMENT_END) {
+				return;
+			}
+			offset += SEGMENT_HEADER_SIZE;
+			visitor.visit(type, offset, length);
+			offset += length;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks.file;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.OpenOption;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import saker.build.file.content.ContentDatabase.ContentUpdater;
+import saker.build.file.content.ContentDatabaseImpl;
+import saker.build.file.content.UUIDContentDescriptor;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimpleProviderHolderPathKey;
+import saker.build.file.provider.FileHashResult;
+import saker.build.meta.PropertyNames;
+import saker.build.runtime.params.DatabaseConfiguration;
+import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.MemoryFileProvider;
+
+/**
+ * Tests that the content database doesn't rewrite files that already have the synchronized contents, and that it
+ * falls back to writing the file if the contents can't be compared.
+ */
+@SakerTest
+public class SynchronizeIdenticalContentsTest extends SakerTestCase {
+	private static final SakerPath WORKING_DIRECTORY = SakerPath.valueOf("wd:/");
+	private static final SakerPath FILE_PATH = WORKING_DIRECTORY.resolve("file.txt");
+	private static final long LAST_MODIFIED = 1000;
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		String prevprop = System.getProperty(PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE);
+		System.setProperty(PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE, "1024");
+		try {
+			runSynchronizeTest();
+		} finally {
+			if (prevprop == null) {
+				System.clearProperty(PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE);
+			} else {
+				System.setProperty(PropertyNames.PROPERTY_SYNCHRONIZE_COMPARE_MAX_SIZE, prevprop);
+			}
+		}
+	}
+
+	private static void runSynchronizeTest() throws Throwable {
+		HashFailingMemoryFileProvider fp = new HashFailingMemoryFileProvider();
+		ContentDatabaseImpl db = new ContentDatabaseImpl(DatabaseConfiguration.getDefault(),
+				ExecutionPathConfiguration.forProvider(WORKING_DIRECTORY, fp));
+		SimpleProviderHolderPathKey pathkey = new SimpleProviderHolderPathKey(fp, FILE_PATH);
+
+		fp.putFile(FILE_PATH, "content");
+		fp.setLastModifiedMillis(FILE_PATH, LAST_MODIFIED);
+
+		//same contents, the file is not rewritten
+		WritingContentUpdater updater = new WritingContentUpdater(fp, "content");
+		db.synchronize(pathkey, UUIDContentDescriptor.random(), updater);
+		assertEquals(updater.updateCount, 0);
+		assertEquals(getLastModifiedMillis(fp), LAST_MODIFIED);
+		assertEquals(getContents(fp), "content");
+
+		//different contents of the same size, the file is written
+		updater = new WritingContentUpdater(fp, "changed");
+		db.synchronize(pathkey, UUIDContentDescriptor.random(), updater);
+		assertEquals(updater.updateCount, 1);
+		assertEquals(getContents(fp), "changed");
+
+		//the comparison fails, the file is written without an exception
+		fp.setLastModifiedMillis(FILE_PATH, LAST_MODIFIED);
+		fp.hashFails = true;
+		updater = new WritingContentUpdater(fp, "changed");
+		db.synchronize(pathkey, UUIDContentDescriptor.random(), updater);
+		assertEquals(updater.updateCount, 1);
+		assertEquals(getContents(fp), "changed");
+		assertNotEquals(getLastModifiedMillis(fp), LAST_MODIFIED);
+	}
+
+	private static long getLastModifiedMillis(MemoryFileProvider fp) throws IOException {
+		return fp.getFileAttributes(FILE_PATH).lastModifiedTime().toMillis();
+	}
+
+	private static String getContents(MemoryFileProvider fp) throws IOException {
+		return fp.getAllBytes(FILE_PATH).toString();
+	}
+
+	private static class HashFailingMemoryFileProvider extends MemoryFileProvider {
+		protected boolean hashFails = false;
+
+		public HashFailingMemoryFileProvider() {
+			super(Collections.singleton("wd:"), UUID.randomUUID());
+		}
+
+		@Override
+		public FileHashResult hash(SakerPath path, String algorithm, OpenOption... openoptions)
+				throws NoSuchAlgorithmException, IOException {
+			if (hashFails) {
+				throw new IOException("Hashing failed.");
+			}
+			return super.hash(path, algorithm, openoptions);
+		}
+	}
+
+	private static class WritingContentUpdater implements ContentUpdater {
+		private final MemoryFileProvider fp;
+		private final byte[] bytes;
+		protected int updateCount = 0;
+
+		public WritingContentUpdater(MemoryFileProvider fp, String content) {
+			this.fp = fp;
+			this.bytes = content.getBytes(StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void update() throws IOException {
+			++updateCount;
+			fp.putFile(FILE_PATH, bytes);
+		}
+
+		@Override
+		public ByteArrayRegion getEfficientContentBytes() {
+			return ByteArrayRegion.wrap(bytes);
+		}
+	}
+}
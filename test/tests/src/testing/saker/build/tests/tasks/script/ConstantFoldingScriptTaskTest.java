@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.tasks.script;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.trace.TraceTestUtils;
+
+/**
+ * Tests that expressions with constant sub-expressions are evaluated properly when the constant parts are folded during
+ * parsing.
+ * <p>
+ * The number of folded expressions is checked using the value that the parser records in the build trace.
+ */
+@SakerTest
+public class ConstantFoldingScriptTaskTest extends CollectingMetricEnvironmentTestCase {
+	private static final SakerPath BUILD_TRACE_PATH = PATH_WORKING_DIRECTORY.resolve("build.trace");
+
+	private static final String FOLDED_EXPRESSIONS_TRACE_VALUE = "Folded script expressions";
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		ProviderHolderPathKey tracepathkey = SakerPathFiles.getPathKey(files, BUILD_TRACE_PATH);
+		parameters.setBuildTraceOutputPathKey(tracepathkey);
+
+		CombinedTargetTaskResult result;
+
+		result = runScriptTask("build");
+		if (project != null) {
+			project.waitExecutionFinalization();
+		}
+		assertEquals(result.getTargetTaskResult("a"), 10L * 2L + 3L * 4L);
+		assertEquals(result.getTargetTaskResult("b"), 10L + (1L + 2L) * 3L);
+		assertEquals(result.getTargetTaskResult("c"), listOf(10L, 1L, 2L, 3L));
+		assertEquals(result.getTargetTaskResult("d"), 2L);
+		assertEquals(result.getTargetTaskResult("e"), 1L << 2 | 10L);
+		assertEquals(result.getTargetTaskResult("f"), true);
+		assertEquals(result.getTargetTaskResult("g"), 4L * 5L + 10L);
+		assertEquals(result.getTargetTaskResult("h"), 10L - 4L);
+
+		//only the folded operands are counted, the parenthesized expressions, lists, and the true branch of the
+		//ternary were already constantized as whole expressions
+		//    a: 3 * 4
+		//    b: (1 + 2) * 3
+		//    d: 2 * 5, 3 + 3
+		//    e: 1 << 2
+		//    f: 10 - 1, 2 < 3
+		//    h: -[3, 4][1]
+		//    $var: 4 * 5
+		assertEquals(getFoldedExpressionCount(TraceTestUtils.readBuildTrace(tracepathkey)), 9L);
+
+		result = runScriptTask("build");
+		assertEmpty(getMetric().getRunTaskIdFactories());
+	}
+
+	private static long getFoldedExpressionCount(Map<String, Object> buildtrace) {
+		long result = 0;
+		for (Object task : (List<?>) buildtrace.get("tasks")) {
+			Map<?, ?> values = (Map<?, ?>) ((Map<?, ?>) task).get("values");
+			if (values == null) {
+				continue;
+			}
+			Object count = values.get(FOLDED_EXPRESSIONS_TRACE_VALUE);
+			if (count instanceof Collection) {
+				//multiple scripts were parsed by the same task
+				for (Object c : (Collection<?>) count) {
+					result += ((Number) c).longValue();
+				}
+			} else if (count != null) {
+				result += ((Number) count).longValue();
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.trace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import saker.build.file.path.SakerPath;
+import saker.build.meta.PropertyNames;
+import saker.build.task.identifier.TaskIdentifier;
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import saker.build.trace.BuildEventStream;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+@SakerTest
+public class BuildEventStreamTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		testEventFormat();
+		testDroppedEvents();
+		testUnreadNamedPipe();
+	}
+
+	private static void testEventFormat() throws Exception {
+		ClosingOutputStream baos = new ClosingOutputStream(null);
+		TaskIdentifier taskid = TaskIdentifier.builder("task.name").field("f", "quote\"back\\slash\nline").build();
+		UUID envid = UUID.randomUUID();
+		try (BuildEventStream events = new BuildEventStream(baos)) {
+			events.buildStarted(taskid);
+			events.taskStarted(taskid);
+			events.taskCache(taskid, false);
+			events.taskClusterDispatch(taskid, envid);
+			events.fileSynchronized(SakerPath.valueOf("/out/file.txt"));
+			events.taskFinished(taskid, true);
+			events.taskUpToDate(taskid);
+			events.buildFinished(false);
+		}
+		baos.awaitClose();
+		String[] lines = new String(baos.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(lines.length, 8);
+		String escapedtaskid = taskid.toString().replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+
+		assertTrue(lines[0].startsWith("{\"event\":\"build.started\",\"time\":"), lines[0]);
+		assertTrue(lines[0].endsWith(",\"task\":\"" + escapedtaskid + "\"}"), lines[0]);
+		assertTrue(lines[1].startsWith("{\"event\":\"task.started\","), lines[1]);
+		assertTrue(lines[2].endsWith(",\"task\":\"" + escapedtaskid + "\",\"hit\":false}"), lines[2]);
+		assertTrue(lines[3].endsWith(",\"environment\":\"" + envid + "\"}"), lines[3]);
+		assertTrue(lines[4].endsWith(",\"path\":\"/out/file.txt\"}"), lines[4]);
+		assertTrue(lines[5].endsWith(",\"successful\":true}"), lines[5]);
+		assertTrue(lines[6].startsWith("{\"event\":\"task.uptodate\","), lines[6]);
+		assertTrue(lines[7].endsWith(",\"successful\":false}"), lines[7]);
+		for (String l : lines) {
+			//no raw control characters in the lines
+			for (int i = 0; i < l.length(); i++) {
+				assertTrue(l.charAt(i) >= 0x20, l);
+			}
+		}
+	}
+
+	private static void testDroppedEvents() throws Exception {
+		//an output that blocks until released, simulating a consumer that doesn't keep up
+		CountDownLatch release = new CountDownLatch(1);
+		ClosingOutputStream baos = new ClosingOutputStream(release);
+		TaskIdentifier taskid = TaskIdentifier.builder("task.name").build();
+		int eventcount = 100_000;
+		try (BuildEventStream events = new BuildEventStream(baos)) {
+			//the events are not written on the calling thread, so the reporting doesn't block
+			for (int i = 0; i < eventcount; i++) {
+				events.taskStarted(taskid);
+			}
+			release.countDown();
+		}
+		baos.awaitClose();
+		String[] lines = new String(baos.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		long written = 0;
+		long dropped = 0;
+		for (String l : lines) {
+			if (l.startsWith("{\"event\":\"task.started\",")) {
+				++written;
+			} else if (l.startsWith("{\"event\":\"events.dropped\",")) {
+				dropped += Long.parseLong(l.substring(l.indexOf(",\"count\":") + 9, l.length() - 1));
+			} else {
+				fail("Unexpected event: " + l);
+			}
+		}
+		assertTrue(dropped > 0, "dropped: " + dropped);
+		assertEquals(written + dropped, (long) eventcount);
+	}
+
+	private static void testUnreadNamedPipe() throws Exception {
+		Path dir = Files.createTempDirectory("saker-build-events");
+		Path fifo = dir.resolve("events.fifo");
+		try {
+			int mkfifores;
+			try {
+				mkfifores = new ProcessBuilder("mkfifo", fifo.toString()).inheritIO().start().waitFor();
+			} catch (IOException e) {
+				//mkfifo not available on this platform
+				return;
+			}
+			if (mkfifores != 0) {
+				return;
+			}
+			String prevprop = System.getProperty(PropertyNames.PROPERTY_BUILD_EVENT_OUTPUT);
+			System.setProperty(PropertyNames.PROPERTY_BUILD_EVENT_OUTPUT, fifo.toString());
+			BuildEventStream events;
+			try {
+				events = BuildEventStream.openConfigured();
+			} finally {
+				if (prevprop == null) {
+					System.clearProperty(PropertyNames.PROPERTY_BUILD_EVENT_OUTPUT);
+				} else {
+					System.setProperty(PropertyNames.PROPERTY_BUILD_EVENT_OUTPUT, prevprop);
+				}
+			}
+			assertNonNull(events);
+			Thread writer = (Thread) ReflectUtils
+					.getFieldValue(ReflectUtils.getDeclaredFieldAssert(BuildEventStream.class, "writerThread"), events);
+			events.buildStarted(TaskIdentifier.builder("task.name").build());
+			//no reader is attached to the pipe, the writer thread is blocked opening it
+			events.close();
+			//the writer thread exits instead of waiting for a reader, so the stale events are not written later
+			writer.join(5000);
+			assertFalse(writer.isAlive());
+		} finally {
+			Files.deleteIfExists(fifo);
+			Files.deleteIfExists(dir);
+		}
+	}
+
+	/**
+	 * Output stream that can be waited for to be closed, as the event stream is closed asynchronously by its writer
+	 * thread.
+	 */
+	private static final class ClosingOutputStream extends ByteArrayOutputStream {
+		private final CountDownLatch writeLatch;
+		private final CountDownLatch closeLatch = new CountDownLatch(1);
+
+		public ClosingOutputStream(CountDownLatch writeLatch) {
+			this.writeLatch = writeLatch;
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			if (writeLatch != null) {
+				try {
+					writeLatch.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			super.write(b, off, len);
+		}
+
+		@Override
+		public void close() throws IOException {
+			super.close();
+			closeLatch.countDown();
+		}
+
+		public void awaitClose() throws InterruptedException {
+			closeLatch.await();
+		}
+	}
+
+}
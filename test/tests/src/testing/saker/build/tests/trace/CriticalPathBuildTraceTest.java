@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.trace;
+
+import java.util.List;
+import java.util.Map;
+
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskFuture;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.tasks.SelfStatelessTaskFactory;
+
+/**
+ * Tests that the build trace contains the blocked times of the tasks, and the critical path of the execution.
+ */
+@SakerTest
+public class CriticalPathBuildTraceTest extends CollectingMetricEnvironmentTestCase {
+	private static final SakerPath BUILD_TRACE_PATH = PATH_WORKING_DIRECTORY.resolve("build.trace");
+
+	public static final class SlowTaskFactory extends SelfStatelessTaskFactory<String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String run(TaskContext taskcontext) throws Exception {
+			Thread.sleep(300);
+			return "slow";
+		}
+	}
+
+	public static final class FastTaskFactory extends SelfStatelessTaskFactory<String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String run(TaskContext taskcontext) throws Exception {
+			return "fast";
+		}
+	}
+
+	public static final class MainTaskFactory extends SelfStatelessTaskFactory<String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String run(TaskContext taskcontext) throws Exception {
+			TaskFuture<String> slow = taskcontext.startTask(strTaskId("slow"), new SlowTaskFactory(), null);
+			TaskFuture<String> fast = taskcontext.startTask(strTaskId("fast"), new FastTaskFactory(), null);
+			return fast.get() + slow.get();
+		}
+	}
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		ProviderHolderPathKey tracepathkey = SakerPathFiles.getPathKey(files, BUILD_TRACE_PATH);
+		parameters.setBuildTraceOutputPathKey(tracepathkey);
+
+		runTask("main", new MainTaskFactory());
+		if (project != null) {
+			project.waitExecutionFinalization();
+		}
+
+		Map<String, Object> bt = TraceTestUtils.readBuildTrace(tracepathkey);
+		List<?> tasks = (List<?>) TraceTestUtils.getTraceField(bt, "tasks");
+		Map<?, ?> maintrace = findTaskTrace(tasks, MainTaskFactory.class);
+		Map<?, ?> slowtrace = findTaskTrace(tasks, SlowTaskFactory.class);
+		Map<?, ?> fasttrace = findTaskTrace(tasks, FastTaskFactory.class);
+
+		//the main task waited for the slow one
+		assertTrue(((Number) maintrace.get("blocked_time")).longValue() >= 200,
+				"Blocked time: " + maintrace.get("blocked_time"));
+		List<?> waitedtasks = (List<?>) maintrace.get("waited_tasks");
+		assertTrue(containsWaitedTask(waitedtasks, slowtrace.get("trace_id")), "Waited tasks: " + waitedtasks);
+		assertEquals(slowtrace.get("blocked_time"), null);
+		assertEquals(fasttrace.get("blocked_time"), null);
+
+		//the path ends with the task that finished last
+		assertEquals(TraceTestUtils.getTraceField(bt, "analysis", "critical_path"),
+				listOf(slowtrace.get("trace_id"), maintrace.get("trace_id")));
+		assertTrue(((Number) TraceTestUtils.getTraceField(bt, "analysis", "critical_path_duration"))
+				.longValue() >= 300);
+		assertTrue(((Number) TraceTestUtils.getTraceField(bt, "analysis", "blocked_time")).longValue() >= 200);
+		List<?> parallelism = (List<?>) TraceTestUtils.getTraceField(bt, "analysis", "parallelism");
+		assertFalse(parallelism.isEmpty());
+		for (Object p : parallelism) {
+			assertTrue(((Double) p) >= 0, "Parallelism: " + parallelism);
+		}
+	}
+
+	private static boolean containsWaitedTask(List<?> waitedtasks, Object traceid) {
+		for (Object w : waitedtasks) {
+			if (traceid.equals(((Map<?, ?>) w).get("trace_id"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Map<?, ?> findTaskTrace(List<?> tasks, Class<?> factoryclass) {
+		for (Object t : tasks) {
+			Map<?, ?> tmap = (Map<?, ?>) t;
+			if (factoryclass.getName().equals(tmap.get("task_class"))) {
+				return tmap;
+			}
+		}
+		throw fail("Task trace not found for: " + factoryclass.getName());
+	}
+}
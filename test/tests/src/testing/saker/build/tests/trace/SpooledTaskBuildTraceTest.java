@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.trace;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import saker.build.file.path.ProviderHolderPathKey;
+import saker.build.file.path.SakerPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.task.TaskContext;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import testing.saker.SakerTest;
+import testing.saker.build.tests.CollectingMetricEnvironmentTestCase;
+import testing.saker.build.tests.tasks.SelfStatelessTaskFactory;
+
+/**
+ * Tests that the task traces which are written to the build trace when the tasks finish contain the same information
+ * as if they were written at the end of the build.
+ */
+@SakerTest
+public class SpooledTaskBuildTraceTest extends CollectingMetricEnvironmentTestCase {
+	private static final SakerPath BUILD_TRACE_PATH = PATH_WORKING_DIRECTORY.resolve("build.trace");
+
+	public static final class ChildTaskFactory extends SelfStatelessTaskFactory<String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String run(TaskContext taskcontext) throws Exception {
+			taskcontext.println("child-out");
+			return "child";
+		}
+	}
+
+	public static final class MainTaskFactory extends SelfStatelessTaskFactory<String> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public String run(TaskContext taskcontext) throws Exception {
+			String childres = taskcontext.getTaskUtilities().runTaskResult(strTaskId("child"), new ChildTaskFactory());
+			taskcontext.println("main-out");
+			return childres;
+		}
+	}
+
+	@Override
+	protected void runTestImpl() throws Throwable {
+		ProviderHolderPathKey tracepathkey = SakerPathFiles.getPathKey(files, BUILD_TRACE_PATH);
+		parameters.setBuildTraceOutputPathKey(tracepathkey);
+
+		runTask("main", new MainTaskFactory());
+		assertTraceTasks(tracepathkey, false);
+
+		runTask("main", new MainTaskFactory());
+		assertEmpty(getMetric().getRunTaskIdResults());
+		assertTraceTasks(tracepathkey, true);
+	}
+
+	private void assertTraceTasks(ProviderHolderPathKey tracepathkey, boolean uptodate) throws Exception {
+		if (project != null) {
+			project.waitExecutionFinalization();
+		}
+		Map<String, Object> bt = TraceTestUtils.readBuildTrace(tracepathkey);
+		List<?> tasks = (List<?>) TraceTestUtils.getTraceField(bt, "tasks");
+		assertEquals(tasks.size(), 2);
+		Map<?, ?> maintrace = findTaskTrace(tasks, MainTaskFactory.class);
+		Map<?, ?> childtrace = findTaskTrace(tasks, ChildTaskFactory.class);
+
+		assertEquals(getStdOut(maintrace), "main-out\n");
+		assertEquals(getStdOut(childtrace), "child-out\n");
+		assertEquals(maintrace.get("task_dependencies"), listOf(childtrace.get("trace_id")));
+		assertEquals(maintrace.get("created_tasks"), listOf(childtrace.get("trace_id")));
+		if (uptodate) {
+			assertEquals(maintrace.get("up_to_date"), true);
+			assertEquals(childtrace.get("up_to_date"), true);
+		} else {
+			assertEquals(maintrace.get("up_to_date"), null);
+			assertNonNull(maintrace.get("deltas"));
+		}
+	}
+
+	private static String getStdOut(Map<?, ?> tasktrace) {
+		Object stdout = tasktrace.get("stdout");
+		if (stdout instanceof ByteArrayRegion) {
+			return ((ByteArrayRegion) stdout).toString();
+		}
+		return new String((byte[]) stdout, StandardCharsets.UTF_8);
+	}
+
+	private static Map<?, ?> findTaskTrace(List<?> tasks, Class<?> factoryclass) {
+		for (Object t : tasks) {
+			Map<?, ?> tmap = (Map<?, ?>) t;
+			if (factoryclass.getName().equals(tmap.get("task_class"))) {
+				return tmap;
+			}
+		}
+		throw fail("Task trace not found for: " + factoryclass.getName());
+	}
+}
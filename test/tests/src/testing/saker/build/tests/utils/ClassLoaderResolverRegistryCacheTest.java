@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.utils;
+
+import java.util.Map;
+
+import saker.build.thirdparty.saker.util.ReflectUtils;
+import saker.build.thirdparty.saker.util.classloader.ClassLoaderResolver;
+import saker.build.thirdparty.saker.util.classloader.ClassLoaderResolverRegistry;
+import saker.build.thirdparty.saker.util.classloader.SingleClassLoaderResolver;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+
+@SakerTest
+public class ClassLoaderResolverRegistryCacheTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		ClassLoader firstcl = new ClassLoader(null) {
+		};
+		ClassLoader secondcl = new ClassLoader(null) {
+		};
+		ClassLoaderResolverRegistry registry = new ClassLoaderResolverRegistry();
+		ClassLoaderResolverRegistry inner = new ClassLoaderResolverRegistry();
+		registry.register("inner", inner);
+
+		SingleClassLoaderResolver firstresolver = new SingleClassLoaderResolver("cl", firstcl);
+		inner.register("res", firstresolver);
+		String firstid = registry.getClassLoaderIdentifier(firstcl);
+		assertNonNull(firstid);
+		//resolve multiple times to use the cache
+		assertEquals(registry.getClassLoaderIdentifier(firstcl), firstid);
+		assertIdentityEquals(registry.getClassLoaderForIdentifier(firstid), firstcl);
+		assertIdentityEquals(registry.getClassLoaderForIdentifier(firstid), firstcl);
+		assertNull(registry.getClassLoaderIdentifier(secondcl));
+
+		//modifying the inner registry invalidates the cached results of the enclosing one
+		inner.unregister("res", firstresolver);
+		assertNull(registry.getClassLoaderIdentifier(firstcl));
+		assertNull(registry.getClassLoaderForIdentifier(firstid));
+
+		SingleClassLoaderResolver secondresolver = new SingleClassLoaderResolver("cl", secondcl);
+		inner.register("res", secondresolver);
+		assertNull(registry.getClassLoaderIdentifier(firstcl));
+		assertEquals(registry.getClassLoaderIdentifier(secondcl), firstid);
+		assertIdentityEquals(registry.getClassLoaderForIdentifier(firstid), secondcl);
+
+		registry.unregister("inner", inner);
+		assertNull(registry.getClassLoaderIdentifier(secondcl));
+		assertNull(registry.getClassLoaderForIdentifier(firstid));
+
+		testUnrelatedRegistryModification();
+		testChangingResolver();
+	}
+
+	private static void testUnrelatedRegistryModification() throws Exception {
+		ClassLoaderResolverRegistry registry = new ClassLoaderResolverRegistry();
+		ClassLoaderResolverRegistry inner = new ClassLoaderResolverRegistry();
+		registry.register("inner", inner);
+		int stamp = getModificationStamp(registry);
+
+		ClassLoaderResolverRegistry unrelated = new ClassLoaderResolverRegistry();
+		SingleClassLoaderResolver resolver = new SingleClassLoaderResolver("cl", new ClassLoader(null) {
+		});
+		unrelated.register("res", resolver);
+		unrelated.unregister("res", resolver);
+		//modifying an other registry doesn't invalidate the caches
+		assertEquals(getModificationStamp(registry), stamp);
+
+		inner.register("res", resolver);
+		assertNotEquals(getModificationStamp(registry), stamp);
+	}
+
+	private static void testChangingResolver() {
+		ClassLoader firstcl = new ClassLoader(null) {
+		};
+		ClassLoader secondcl = new ClassLoader(null) {
+		};
+		ChangingClassLoaderResolver resolver = new ChangingClassLoaderResolver();
+		resolver.classLoader = firstcl;
+		ClassLoaderResolverRegistry registry = new ClassLoaderResolverRegistry(resolver);
+		registry.register("changing", resolver);
+
+		String id = registry.getClassLoaderIdentifier(firstcl);
+		assertNonNull(id);
+		assertIdentityEquals(registry.getClassLoaderForIdentifier(id), firstcl);
+
+		//the results of the custom resolvers are not cached, as they may change
+		resolver.classLoader = secondcl;
+		assertNull(registry.getClassLoaderIdentifier(firstcl));
+		assertEquals(registry.getClassLoaderIdentifier(secondcl), id);
+		assertIdentityEquals(registry.getClassLoaderForIdentifier(id), secondcl);
+	}
+
+	private static int getModificationStamp(ClassLoaderResolverRegistry registry) throws Exception {
+		return (int) ReflectUtils.getFieldValue(
+				ReflectUtils.getDeclaredFieldAssert(ClassLoaderResolverRegistry.class, "modificationStamp"), registry);
+	}
+
+	private static class ChangingClassLoaderResolver implements ClassLoaderResolver {
+		protected volatile ClassLoader classLoader;
+
+		@Override
+		public String getClassLoaderIdentifier(ClassLoader classloader) {
+			return classloader == this.classLoader ? "cl" : null;
+		}
+
+		@Override
+		public ClassLoader getClassLoaderForIdentifier(String identifier) {
+			return "cl".equals(identifier) ? classLoader : null;
+		}
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import saker.build.thirdparty.saker.util.ObjectUtils;
+import saker.build.thirdparty.saker.util.classloader.JarClassLoaderDataFinder;
+import saker.build.thirdparty.saker.util.classloader.MultiDataClassLoader;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+import testing.saker.SakerTest;
+import testing.saker.SakerTestCase;
+import testing.saker.build.tests.EnvironmentTestCase;
+import testing.saker.build.tests.TestUtils.MemoryClassLoaderDataFinder;
+
+@SakerTest
+public class MultiDataClassLoaderDirectoryIndexTest extends SakerTestCase {
+
+	@Override
+	public void runTest(Map<String, String> parameters) throws Throwable {
+		Path workingdir = EnvironmentTestCase.getTestingBaseWorkingDirectory()
+				.resolve(getClass().getName().replace('.', '/'));
+		Files.createDirectories(workingdir);
+		Path firstjar = workingdir.resolve("first.jar");
+		Path secondjar = workingdir.resolve("second.jar");
+		writeJar(firstjar, "pkg/a/res.txt", "first", "pkg/a/first.txt", "first",
+				"META-INF/versions/9/pkg/mr/versioned.txt", "versioned");
+		writeJar(secondjar, "pkg/a/res.txt", "second", "pkg/b/res.txt", "second", "root.txt", "second");
+
+		Map<String, ByteArrayRegion> memoryresources = new TreeMap<>();
+		memoryresources.put("pkg/a/res.txt", bytes("memory"));
+		memoryresources.put("pkg/c/res.txt", bytes("memory"));
+		MemoryClassLoaderDataFinder memoryfinder = new MemoryClassLoaderDataFinder(memoryresources);
+
+		try (JarClassLoaderDataFinder first = new JarClassLoaderDataFinder(firstjar);
+				JarClassLoaderDataFinder second = new JarClassLoaderDataFinder(secondjar)) {
+			assertEquals(first.getResourceDirectoryNames(), setOf("pkg/a", "pkg/mr", "META-INF/versions/9/pkg/mr"));
+			assertEquals(second.getResourceDirectoryNames(), setOf("pkg/a", "pkg/b", ""));
+
+			MultiDataClassLoader cl = new MultiDataClassLoader((ClassLoader) null, first, memoryfinder, second);
+			assertEquals(readResource(cl, "pkg/a/res.txt"), "first");
+			assertEquals(readResource(cl, "pkg/a/first.txt"), "first");
+			assertEquals(readResource(cl, "pkg/b/res.txt"), "second");
+			assertEquals(readResource(cl, "root.txt"), "second");
+			//found in the data finder that doesn't report its directories
+			assertEquals(readResource(cl, "pkg/c/res.txt"), "memory");
+			assertNull(cl.getResourceAsStream("pkg/a/nonexistent.txt"));
+			assertNull(cl.getResourceAsStream("pkg/x/nonexistent.txt"));
+
+			try (InputStream is = cl.getResource("pkg/b/res.txt").openStream()) {
+				assertEquals(StreamUtils.readStreamStringFully(is, StandardCharsets.UTF_8), "second");
+			}
+			assertNull(cl.getResource("pkg/b/nonexistent.txt"));
+
+			assertException(ClassNotFoundException.class, () -> cl.loadClass("pkg.a.Nonexistent"));
+			ClassNotFoundException cnfe = assertException(ClassNotFoundException.class,
+					() -> cl.loadClass("pkg.x.Nonexistent"));
+			//all data finders are reported, including the ones that were skipped based on the index
+			assertEquals(cnfe.getMessage(), "pkg.x.Nonexistent not found in " + memoryfinder);
+			assertEquals(cnfe.getSuppressed().length, 2);
+			assertException(ClassNotFoundException.class, () -> cl.loadClass("Nonexistent"));
+		}
+	}
+
+	private static Object setOf(String... items) {
+		return ObjectUtils.newHashSet(items);
+	}
+
+	private static ByteArrayRegion bytes(String str) {
+		return ByteArrayRegion.wrap(str.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String readResource(ClassLoader cl, String name) throws IOException {
+		try (InputStream is = cl.getResourceAsStream(name)) {
+			assertNonNull(is, name);
+			return StreamUtils.readStreamStringFully(is, StandardCharsets.UTF_8);
+		}
+	}
+
+	private static void writeJar(Path path, String... namecontents) throws IOException {
+		try (OutputStream os = Files.newOutputStream(path);
+				JarOutputStream jos = new JarOutputStream(os)) {
+			for (int i = 0; i < namecontents.length; i += 2) {
+				jos.putNextEntry(new JarEntry(namecontents[i]));
+				jos.write(namecontents[i + 1].getBytes(StandardCharsets.UTF_8));
+				jos.closeEntry();
+			}
+		}
+	}
+}
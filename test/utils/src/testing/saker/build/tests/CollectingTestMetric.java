@@ -41,6 +41,7 @@ public class CollectingTestMetric implements TaskTestMetric {
 	protected Map<TaskIdentifier, Map<Object, ?>> taskIdTaggedResults = Collections.synchronizedMap(new HashMap<>());
 	protected Map<TaskIdentifier, Map<String, ?>> taskIdMetaDatas = Collections.synchronizedMap(new HashMap<>());
 	protected Set<TaskIdentifier> abandonedTasks = ConcurrentHashMap.newKeySet();
+	protected Set<TaskIdentifier> fileDependencyDeltasCollectedTasks = ConcurrentHashMap.newKeySet();
 	protected Set<TaskIdentifier> cacheRetrievedTasks = ConcurrentHashMap.newKeySet();
 	protected Set<TaskIdentifier> cachePublishedTasks = ConcurrentHashMap.newKeySet();
 	protected Map<TaskIdentifier, List<String>> taskPrintedLines = Collections.synchronizedMap(new HashMap<>());
@@ -115,6 +116,11 @@ public class CollectingTestMetric implements TaskTestMetric {
 		abandonedTasks.add(taskIdentifier);
 	}
 
+	@Override
+	public void taskFileDependencyDeltasCollected(TaskIdentifier taskid) {
+		fileDependencyDeltasCollectedTasks.add(taskid);
+	}
+
 	@Override
 	public void taskRetrievedFromCache(TaskIdentifier taskid) {
 		cacheRetrievedTasks.add(taskid);
@@ -146,6 +152,10 @@ public class CollectingTestMetric implements TaskTestMetric {
 		return abandonedTasks;
 	}
 
+	public Set<TaskIdentifier> getFileDependencyDeltasCollectedTasks() {
+		return fileDependencyDeltasCollectedTasks;
+	}
+
 	public Map<TaskIdentifier, TaskFactory<?>> getRunTaskIdFactories() {
 		return runTaskIdFactories;
 	}
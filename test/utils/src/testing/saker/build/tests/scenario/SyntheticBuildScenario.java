@@ -0,0 +1,371 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.scenario;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import saker.build.file.path.SakerPath;
+import saker.build.runtime.repository.SakerRepositoryFactory;
+import saker.build.thirdparty.saker.util.io.StreamUtils;
+
+/**
+ * Generates reproducible synthetic builds with a configurable size and shape.
+ * <p>
+ * The generated build consists of a build script, the input files of the tasks, and a JAR of the repository that
+ * contains the {@linkplain SyntheticTaskFactory synthetic task}. The tasks are arranged in a graph where task
+ * <code>i</code> (for <code>i &gt; 0</code>) has the primary parent <code>(i - 1) / fanOut</code>, and depends on
+ * <code>fanIn</code> consecutive tasks starting from its primary parent and going backwards. A fan-out of 1 results in
+ * a deep chain of tasks, while larger values result in wide and shallow graphs.
+ * <p>
+ * The same configuration always generates the same build.
+ */
+public final class SyntheticBuildScenario implements Cloneable {
+	public static final String BUILD_SCRIPT_FILE_NAME = "saker.build";
+	public static final String BUILD_TARGET_NAME = "build";
+	public static final String REPOSITORY_JAR_FILE_NAME = "synthetic-repository.jar";
+	public static final String INPUT_DIRECTORY_NAME = "src";
+
+	private int taskCount = 100;
+	private int fanIn = 2;
+	private int fanOut = 4;
+	private int filesPerTask = 4;
+	private int fileSize = 1024;
+	private int cpuCost = 0;
+	private int outputSize = 1024;
+	private long seed = 0;
+
+	private SyntheticBuildScenario() {
+	}
+
+	public int getTaskCount() {
+		return taskCount;
+	}
+
+	public int getFanIn() {
+		return fanIn;
+	}
+
+	public int getFanOut() {
+		return fanOut;
+	}
+
+	public int getFilesPerTask() {
+		return filesPerTask;
+	}
+
+	public int getFileSize() {
+		return fileSize;
+	}
+
+	public int getCpuCost() {
+		return cpuCost;
+	}
+
+	public int getOutputSize() {
+		return outputSize;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public String getTaskName(int taskindex) {
+		return "t" + taskindex;
+	}
+
+	/**
+	 * Gets the indexes of the tasks that the given task depends on.
+	 * 
+	 * @param taskindex
+	 *            The task index.
+	 * @return The dependency task indexes.
+	 */
+	public int[] getDependencies(int taskindex) {
+		if (taskindex <= 0) {
+			return new int[0];
+		}
+		int parent = (taskindex - 1) / fanOut;
+		int count = Math.min(fanIn, parent + 1);
+		int[] result = new int[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = parent - i;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the path of the input directory of the given task relative to the working directory.
+	 * 
+	 * @param taskindex
+	 *            The task index.
+	 * @return The relative path.
+	 */
+	public SakerPath getInputDirectoryPath(int taskindex) {
+		return SakerPath.valueOf(INPUT_DIRECTORY_NAME + "/" + getTaskName(taskindex));
+	}
+
+	public String getInputFileName(int fileindex) {
+		return "f" + fileindex + ".txt";
+	}
+
+	/**
+	 * Generates the contents of the build script.
+	 * <p>
+	 * The script contains a single target named {@value #BUILD_TARGET_NAME} that invokes all of the tasks.
+	 * 
+	 * @return The build script.
+	 */
+	public String generateBuildScript() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(BUILD_TARGET_NAME);
+		sb.append("() {\n");
+		for (int i = 0; i < taskCount; i++) {
+			sb.append("\t$");
+			sb.append(getTaskName(i));
+			sb.append(" = ");
+			sb.append(SyntheticTaskRepository.TASK_NAME);
+			sb.append('(');
+			appendParameter(sb, SyntheticTaskFactory.PARAM_NAME, "\"" + getTaskName(i) + "\"");
+			if (filesPerTask > 0) {
+				sb.append(", ");
+				appendParameter(sb, SyntheticTaskFactory.PARAM_INPUT, "\"" + getInputDirectoryPath(i) + "\"");
+			}
+			int[] deps = getDependencies(i);
+			if (deps.length > 0) {
+				sb.append(", ");
+				sb.append(SyntheticTaskFactory.PARAM_DEPENDENCIES);
+				sb.append(": [");
+				for (int j = 0; j < deps.length; j++) {
+					if (j > 0) {
+						sb.append(", ");
+					}
+					sb.append('$');
+					sb.append(getTaskName(deps[j]));
+				}
+				sb.append(']');
+			}
+			sb.append(", ");
+			appendParameter(sb, SyntheticTaskFactory.PARAM_CPU_COST, Integer.toString(cpuCost));
+			sb.append(", ");
+			appendParameter(sb, SyntheticTaskFactory.PARAM_OUTPUT_SIZE, Integer.toString(outputSize));
+			sb.append(")\n");
+		}
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	/**
+	 * Writes the build script, the input files and the repository JAR to the given directory.
+	 * 
+	 * @param directory
+	 *            The directory to generate the build in.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public void writeTo(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Files.write(directory.resolve(BUILD_SCRIPT_FILE_NAME), generateBuildScript().getBytes(StandardCharsets.UTF_8));
+		exportRepositoryJar(directory.resolve(REPOSITORY_JAR_FILE_NAME));
+
+		Random random = new Random(seed);
+		byte[] content = new byte[fileSize];
+		for (int i = 0; i < taskCount; i++) {
+			Path inputdir = directory.resolve(getInputDirectoryPath(i).toString());
+			Files.createDirectories(inputdir);
+			for (int j = 0; j < filesPerTask; j++) {
+				random.nextBytes(content);
+				Files.write(inputdir.resolve(getInputFileName(j)), content);
+			}
+		}
+	}
+
+	/**
+	 * Modifies the contents of the first input file of the given task.
+	 * <p>
+	 * The modification is different for each revision, so it can be called multiple times to cause subsequent
+	 * incremental builds.
+	 * 
+	 * @param directory
+	 *            The directory where the build was generated.
+	 * @param taskindex
+	 *            The index of the task.
+	 * @param revision
+	 *            The revision number of the modification.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public void modifyInputFile(Path directory, int taskindex, int revision) throws IOException {
+		if (filesPerTask <= 0) {
+			throw new IllegalStateException("The tasks have no input files.");
+		}
+		Path file = directory.resolve(getInputDirectoryPath(taskindex).toString()).resolve(getInputFileName(0));
+		byte[] content = new byte[fileSize];
+		new Random(seed ^ (((long) taskindex << 32) + revision)).nextBytes(content);
+		Files.write(file, content);
+	}
+
+	/**
+	 * Exports the JAR that contains the repository of the synthetic tasks.
+	 * 
+	 * @param jarpath
+	 *            The path of the output JAR.
+	 * @throws IOException
+	 *             In case of I/O error.
+	 */
+	public static void exportRepositoryJar(Path jarpath) throws IOException {
+		try (OutputStream os = Files.newOutputStream(jarpath);
+				JarOutputStream jos = new JarOutputStream(os)) {
+			ZipEntry entry = new ZipEntry("META-INF/services/" + SakerRepositoryFactory.class.getName());
+			entry.setLastModifiedTime(FileTime.fromMillis(0));
+			jos.putNextEntry(entry);
+			jos.write(SyntheticTaskRepositoryFactory.class.getName().getBytes(StandardCharsets.UTF_8));
+			jos.closeEntry();
+			copyClassEntry(SyntheticTaskRepositoryFactory.class, jos);
+			copyClassEntry(SyntheticTaskRepository.class, jos);
+			copyClassEntry(SyntheticTaskFactory.class, jos);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[taskCount=" + taskCount + ", fanIn=" + fanIn + ", fanOut=" + fanOut
+				+ ", filesPerTask=" + filesPerTask + ", fileSize=" + fileSize + ", cpuCost=" + cpuCost
+				+ ", outputSize=" + outputSize + ", seed=" + seed + "]";
+	}
+
+	@Override
+	protected SyntheticBuildScenario clone() {
+		try {
+			return (SyntheticBuildScenario) super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static Builder builder(SyntheticBuildScenario copy) {
+		return new Builder(copy);
+	}
+
+	public static final class Builder {
+		private final SyntheticBuildScenario result;
+
+		Builder() {
+			this.result = new SyntheticBuildScenario();
+		}
+
+		Builder(SyntheticBuildScenario copy) {
+			this.result = copy.clone();
+		}
+
+		public Builder setTaskCount(int taskCount) {
+			if (taskCount <= 0) {
+				throw new IllegalArgumentException("Invalid task count: " + taskCount);
+			}
+			result.taskCount = taskCount;
+			return this;
+		}
+
+		public Builder setFanIn(int fanIn) {
+			if (fanIn < 0) {
+				throw new IllegalArgumentException("Invalid fan-in: " + fanIn);
+			}
+			result.fanIn = fanIn;
+			return this;
+		}
+
+		public Builder setFanOut(int fanOut) {
+			if (fanOut <= 0) {
+				throw new IllegalArgumentException("Invalid fan-out: " + fanOut);
+			}
+			result.fanOut = fanOut;
+			return this;
+		}
+
+		public Builder setFilesPerTask(int filesPerTask) {
+			if (filesPerTask < 0) {
+				throw new IllegalArgumentException("Invalid file count: " + filesPerTask);
+			}
+			result.filesPerTask = filesPerTask;
+			return this;
+		}
+
+		public Builder setFileSize(int fileSize) {
+			if (fileSize < 0) {
+				throw new IllegalArgumentException("Invalid file size: " + fileSize);
+			}
+			result.fileSize = fileSize;
+			return this;
+		}
+
+		public Builder setCpuCost(int cpuCost) {
+			if (cpuCost < 0) {
+				throw new IllegalArgumentException("Invalid CPU cost: " + cpuCost);
+			}
+			result.cpuCost = cpuCost;
+			return this;
+		}
+
+		public Builder setOutputSize(int outputSize) {
+			if (outputSize < 0) {
+				throw new IllegalArgumentException("Invalid output size: " + outputSize);
+			}
+			result.outputSize = outputSize;
+			return this;
+		}
+
+		public Builder setSeed(long seed) {
+			result.seed = seed;
+			return this;
+		}
+
+		public SyntheticBuildScenario build() {
+			return result.clone();
+		}
+	}
+
+	private static void appendParameter(StringBuilder sb, String name, String value) {
+		sb.append(name);
+		sb.append(": ");
+		sb.append(value);
+	}
+
+	private static void copyClassEntry(Class<?> clazz, JarOutputStream jos) throws IOException {
+		String entryname = clazz.getName().replace('.', '/') + ".class";
+		ZipEntry entry = new ZipEntry(entryname);
+		entry.setLastModifiedTime(FileTime.fromMillis(0));
+		jos.putNextEntry(entry);
+		try (InputStream is = clazz.getClassLoader().getResourceAsStream(entryname)) {
+			StreamUtils.copyStream(is, jos);
+		}
+		jos.closeEntry();
+		for (Class<?> dcl : clazz.getDeclaredClasses()) {
+			copyClassEntry(dcl, jos);
+		}
+	}
+}
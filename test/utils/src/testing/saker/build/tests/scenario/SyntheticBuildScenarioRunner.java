@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.scenario;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import saker.build.daemon.BuildExecutionInvoker;
+import saker.build.daemon.EnvironmentBuildExecutionInvoker;
+import saker.build.file.content.ContentDatabaseImpl;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.SimpleProviderHolderPathKey;
+import saker.build.file.provider.LocalFileProvider;
+import saker.build.runtime.classpath.JarFileClassPathLocation;
+import saker.build.runtime.classpath.ServiceLoaderClassPathServiceEnumerator;
+import saker.build.runtime.environment.BuildTaskExecutionResult;
+import saker.build.runtime.environment.EnvironmentParameters;
+import saker.build.runtime.environment.SakerEnvironmentImpl;
+import saker.build.runtime.execution.ExecutionParametersImpl;
+import saker.build.runtime.params.ExecutionPathConfiguration;
+import saker.build.runtime.params.ExecutionRepositoryConfiguration;
+import saker.build.runtime.project.SakerProjectCache;
+import saker.build.runtime.repository.SakerRepositoryFactory;
+
+/**
+ * Runs a {@link SyntheticBuildScenario} in-process and measures the performance of the builds.
+ * <p>
+ * The runner generates the scenario in the given directory, and executes the following builds through an
+ * {@link EnvironmentBuildExecutionInvoker}:
+ * <ol>
+ * <li>A clean build, after the build directory is deleted.</li>
+ * <li>A no-op build, without any modifications.</li>
+ * <li>An incremental build, after a single input file of a task has been modified.</li>
+ * </ol>
+ * For each build, the wall clock time, the peak heap usage and the size of the build database is measured.
+ */
+public class SyntheticBuildScenarioRunner {
+	public static final class BuildMeasurement {
+		private final String name;
+		private final long durationNanos;
+		private final long peakHeapBytes;
+		private final long databaseSizeBytes;
+
+		public BuildMeasurement(String name, long durationNanos, long peakHeapBytes, long databaseSizeBytes) {
+			this.name = name;
+			this.durationNanos = durationNanos;
+			this.peakHeapBytes = peakHeapBytes;
+			this.databaseSizeBytes = databaseSizeBytes;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getDurationNanos() {
+			return durationNanos;
+		}
+
+		public long getDurationMillis() {
+			return durationNanos / 1_000_000;
+		}
+
+		/**
+		 * Gets the sum of the peak usages of the heap memory pools during the build.
+		 * 
+		 * @return The peak heap usage in bytes.
+		 */
+		public long getPeakHeapBytes() {
+			return peakHeapBytes;
+		}
+
+		/**
+		 * Gets the size of the build database file after the build.
+		 * 
+		 * @return The database size in bytes, or -1 if the database file doesn't exist.
+		 */
+		public long getDatabaseSizeBytes() {
+			return databaseSizeBytes;
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + getDurationMillis() + " ms, peak heap: " + (peakHeapBytes / 1024) + " kB, database: "
+					+ (databaseSizeBytes < 0 ? "-" : (databaseSizeBytes / 1024) + " kB");
+		}
+	}
+
+	public static final class Result {
+		private final BuildMeasurement clean;
+		private final BuildMeasurement noOp;
+		private final BuildMeasurement incremental;
+
+		public Result(BuildMeasurement clean, BuildMeasurement noOp, BuildMeasurement incremental) {
+			this.clean = clean;
+			this.noOp = noOp;
+			this.incremental = incremental;
+		}
+
+		public BuildMeasurement getClean() {
+			return clean;
+		}
+
+		public BuildMeasurement getNoOp() {
+			return noOp;
+		}
+
+		public BuildMeasurement getIncremental() {
+			return incremental;
+		}
+
+		@Override
+		public String toString() {
+			return clean + "\n" + noOp + "\n" + incremental;
+		}
+	}
+
+	private final SyntheticBuildScenario scenario;
+	private final Path directory;
+	private final Path sakerJarPath;
+	private final Path storageDirectory;
+
+	private boolean useProject = true;
+	private int modifiedTaskIndex = -1;
+
+	/**
+	 * Creates a new runner.
+	 * 
+	 * @param scenario
+	 *            The scenario to run.
+	 * @param directory
+	 *            The directory to generate the scenario in. This is the working directory of the builds.
+	 * @param sakerjarpath
+	 *            The path to the saker.build JAR for the build environment.
+	 * @param storagedirectory
+	 *            The storage directory of the build environment.
+	 */
+	public SyntheticBuildScenarioRunner(SyntheticBuildScenario scenario, Path directory, Path sakerjarpath,
+			Path storagedirectory) {
+		this.scenario = scenario;
+		this.directory = directory;
+		this.sakerJarPath = sakerjarpath;
+		this.storageDirectory = storagedirectory;
+	}
+
+	/**
+	 * Sets if the builds should use a project cache that is kept between the builds, similar to the build daemon.
+	 * <p>
+	 * Default is <code>true</code>.
+	 * 
+	 * @param useProject
+	 *            <code>true</code> to use a project.
+	 */
+	public void setUseProject(boolean useProject) {
+		this.useProject = useProject;
+	}
+
+	/**
+	 * Sets the index of the task whose input file is modified before the incremental build.
+	 * <p>
+	 * By default, the task in the middle of the task list is used.
+	 * 
+	 * @param modifiedTaskIndex
+	 *            The task index.
+	 */
+	public void setModifiedTaskIndex(int modifiedTaskIndex) {
+		this.modifiedTaskIndex = modifiedTaskIndex;
+	}
+
+	public Path getBuildDirectory() {
+		return directory.resolve("build");
+	}
+
+	public Result run() throws Throwable {
+		Path builddir = getBuildDirectory();
+		LocalFileProvider.getInstance().deleteRecursively(directory);
+		scenario.writeTo(directory);
+
+		try (SakerEnvironmentImpl environment = new SakerEnvironmentImpl(
+				EnvironmentParameters.builder(sakerJarPath).setStorageDirectory(storageDirectory).build());
+				SakerProjectCache project = useProject ? new SakerProjectCache(environment) : null) {
+			BuildExecutionInvoker invoker = new EnvironmentBuildExecutionInvoker(environment);
+			ExecutionParametersImpl parameters = createExecutionParameters(builddir);
+
+			BuildMeasurement clean = runBuild("clean", invoker, parameters, project);
+			BuildMeasurement noop = runBuild("no-op", invoker, parameters, project);
+
+			int taskindex = modifiedTaskIndex < 0 ? scenario.getTaskCount() / 2 : modifiedTaskIndex;
+			scenario.modifyInputFile(directory, taskindex, 1);
+			BuildMeasurement incremental = runBuild("incremental", invoker, parameters, project);
+			return new Result(clean, noop, incremental);
+		}
+	}
+
+	private ExecutionParametersImpl createExecutionParameters(Path builddir) throws IOException {
+		SakerPath workingdir = SakerPath.valueOf(directory);
+		LocalFileProvider fp = LocalFileProvider.getInstance();
+
+		ExecutionParametersImpl parameters = new ExecutionParametersImpl();
+		parameters.setPathConfiguration(ExecutionPathConfiguration.local(workingdir));
+		parameters.setBuildDirectory(SakerPath.valueOf(builddir));
+		parameters.setRepositoryConfiguration(ExecutionRepositoryConfiguration.builder()
+				.add(new JarFileClassPathLocation(new SimpleProviderHolderPathKey(fp,
+						workingdir.resolve(SyntheticBuildScenario.REPOSITORY_JAR_FILE_NAME))),
+						new ServiceLoaderClassPathServiceEnumerator<>(SakerRepositoryFactory.class))
+				.build());
+		return parameters;
+	}
+
+	private BuildMeasurement runBuild(String name, BuildExecutionInvoker invoker, ExecutionParametersImpl parameters,
+			SakerProjectCache project) throws Throwable {
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+		SakerPath buildfilepath = SakerPath.valueOf(directory.resolve(SyntheticBuildScenario.BUILD_SCRIPT_FILE_NAME));
+
+		long start = System.nanoTime();
+		BuildTaskExecutionResult result = invoker.runBuildTarget(buildfilepath,
+				SyntheticBuildScenario.BUILD_TARGET_NAME, parameters, project);
+		long duration = System.nanoTime() - start;
+
+		long peakheap = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peakheap += pool.getPeakUsage().getUsed();
+			}
+		}
+		if (!result.getResultKind().isSuccessful()) {
+			Throwable exc = result.getException();
+			if (exc != null) {
+				throw exc;
+			}
+			throw new AssertionError("Build failed: " + result.getResultKind());
+		}
+		if (project != null) {
+			//the database is flushed asynchronously after the build
+			project.waitExecutionFinalization();
+		}
+		Path dbfile = getBuildDirectory().resolve(ContentDatabaseImpl.FILENAME_DATABASE);
+		long dbsize = Files.isRegularFile(dbfile) ? Files.size(dbfile) : -1;
+		return new BuildMeasurement(name, duration, peakheap, dbsize);
+	}
+}
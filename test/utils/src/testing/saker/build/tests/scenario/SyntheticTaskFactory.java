@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.scenario;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.NavigableMap;
+
+import saker.build.file.ByteArraySakerFile;
+import saker.build.file.SakerDirectory;
+import saker.build.file.SakerFile;
+import saker.build.file.path.SakerPath;
+import saker.build.file.path.WildcardPath;
+import saker.build.file.provider.SakerPathFiles;
+import saker.build.runtime.execution.ExecutionContext;
+import saker.build.task.ParameterizableTask;
+import saker.build.task.Task;
+import saker.build.task.TaskContext;
+import saker.build.task.TaskExecutionUtilities;
+import saker.build.task.TaskFactory;
+import saker.build.task.utils.annot.SakerInput;
+import saker.build.task.utils.dependencies.WildcardFileCollectionStrategy;
+import saker.build.thirdparty.saker.util.StringUtils;
+import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
+
+/**
+ * Task of the synthetic build scenarios that simulates the work of a real build task.
+ * <p>
+ * The task reads the files in its input directory, hashes their contents and the results of its dependencies, and
+ * writes an output file to the build directory. The CPU cost is simulated by rehashing the digest the specified
+ * number of times.
+ * <p>
+ * The result of the task is the hexadecimal representation of the computed hash, so any change in the inputs
+ * propagates to the dependent tasks.
+ */
+public class SyntheticTaskFactory implements TaskFactory<String>, Externalizable {
+	private static final long serialVersionUID = 1L;
+
+	public static final String PARAM_NAME = "Name";
+	public static final String PARAM_INPUT = "Input";
+	public static final String PARAM_DEPENDENCIES = "Dependencies";
+	public static final String PARAM_CPU_COST = "CpuCost";
+	public static final String PARAM_OUTPUT_SIZE = "OutputSize";
+
+	/**
+	 * For {@link Externalizable}.
+	 */
+	public SyntheticTaskFactory() {
+	}
+
+	@Override
+	public Task<? extends String> createTask(ExecutionContext executioncontext) {
+		return new TaskImplementation();
+	}
+
+	@Override
+	public int hashCode() {
+		return getClass().hashCode();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj != null && this.getClass() == obj.getClass();
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+	}
+
+	private static final class TaskImplementation implements ParameterizableTask<String> {
+		@SakerInput(value = PARAM_NAME, required = true)
+		public String name;
+		@SakerInput(PARAM_INPUT)
+		public SakerPath input;
+		@SakerInput(PARAM_DEPENDENCIES)
+		public List<String> dependencies;
+		@SakerInput(PARAM_CPU_COST)
+		public int cpuCost;
+		@SakerInput(PARAM_OUTPUT_SIZE)
+		public int outputSize;
+
+		@Override
+		public String run(TaskContext taskcontext) throws Exception {
+			TaskExecutionUtilities taskutils = taskcontext.getTaskUtilities();
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(name.getBytes(StandardCharsets.UTF_8));
+			if (dependencies != null) {
+				for (String dep : dependencies) {
+					digest.update(dep.getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			if (input != null) {
+				NavigableMap<SakerPath, SakerFile> inputfiles = taskutils
+						.collectFilesReportInputFileAndAdditionDependency(null,
+								WildcardFileCollectionStrategy.create(input, WildcardPath.valueOf("*")));
+				for (SakerFile file : inputfiles.values()) {
+					ByteArrayRegion bytes = file.getBytes();
+					digest.update(bytes.getArray(), bytes.getOffset(), bytes.getLength());
+				}
+			}
+			byte[] hash = digest.digest();
+			for (int i = 0; i < cpuCost; i++) {
+				hash = digest.digest(hash);
+			}
+
+			byte[] outputbytes = new byte[Math.max(outputSize, 0)];
+			for (int i = 0; i < outputbytes.length; i++) {
+				outputbytes[i] = hash[i % hash.length];
+			}
+			SakerDirectory outdir = taskutils.resolveDirectoryAtPathCreate(
+					SakerPathFiles.requireBuildDirectory(taskcontext), SakerPath.valueOf("synthetic"));
+			SakerFile outfile = new ByteArraySakerFile(name + ".out", outputbytes);
+			outdir.add(outfile);
+			taskutils.reportOutputFileDependency(null, outfile);
+			outfile.synchronize();
+
+			return StringUtils.toHexString(hash);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.scenario;
+
+import java.io.IOException;
+
+import saker.build.runtime.repository.BuildRepository;
+import saker.build.runtime.repository.RepositoryBuildEnvironment;
+import saker.build.runtime.repository.SakerRepository;
+import saker.build.runtime.repository.TaskNotFoundException;
+import saker.build.task.TaskFactory;
+import saker.build.task.TaskName;
+import saker.build.thirdparty.saker.util.classloader.SingleClassLoaderResolver;
+
+/**
+ * Repository that provides the tasks used by the build scripts of a {@link SyntheticBuildScenario}.
+ * <p>
+ * The repository contains a single task with the name {@value #TASK_NAME}.
+ */
+public class SyntheticTaskRepository implements SakerRepository {
+	public static final String TASK_NAME = "synthetic.task";
+
+	private static final String CLASS_RESOLVER_ID = "synthetic.scenario.tasks";
+
+	private final SingleClassLoaderResolver classLoaderResolver = new SingleClassLoaderResolver(
+			"synthetic.scenario.classes", SyntheticTaskRepository.class.getClassLoader());
+
+	@Override
+	public BuildRepository createBuildRepository(RepositoryBuildEnvironment environment) {
+		return new BuildRepositoryImpl(environment);
+	}
+
+	@Override
+	public void close() throws IOException {
+	}
+
+	private final class BuildRepositoryImpl implements BuildRepository {
+		private final RepositoryBuildEnvironment environment;
+
+		public BuildRepositoryImpl(RepositoryBuildEnvironment environment) {
+			this.environment = environment;
+			environment.getClassLoaderResolverRegistry().register(CLASS_RESOLVER_ID, classLoaderResolver);
+		}
+
+		@Override
+		public TaskFactory<?> lookupTask(TaskName taskname) throws TaskNotFoundException {
+			if (TASK_NAME.equals(taskname.getName()) && taskname.getTaskQualifiers().isEmpty()) {
+				return new SyntheticTaskFactory();
+			}
+			throw new TaskNotFoundException(taskname);
+		}
+
+		@Override
+		public void close() throws IOException {
+			environment.getClassLoaderResolverRegistry().unregister(CLASS_RESOLVER_ID, classLoaderResolver);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package testing.saker.build.tests.scenario;
+
+import saker.build.runtime.repository.RepositoryEnvironment;
+import saker.build.runtime.repository.SakerRepository;
+import saker.build.runtime.repository.SakerRepositoryFactory;
+
+public class SyntheticTaskRepositoryFactory implements SakerRepositoryFactory {
+	@Override
+	public SakerRepository create(RepositoryEnvironment environment) {
+		return new SyntheticTaskRepository();
+	}
+}
@@ -30,6 +30,8 @@ import saker.build.thirdparty.saker.rmi.annot.transfer.RMIWriter;
 import saker.build.thirdparty.saker.rmi.exception.RMIInvalidConfigurationException;
 import saker.build.thirdparty.saker.rmi.io.writer.RMIObjectWriteHandler;
 import saker.build.thirdparty.saker.util.ReflectUtils;
+import saker.build.thirdparty.saker.util.io.DataOutputUnsyncByteArrayOutputStream;
+import saker.build.thirdparty.saker.util.io.function.IOBiConsumer;
 
 /**
  * Common properties superclass for specifying transfer mechanism of a given executable method or constructor.
@@ -48,6 +50,12 @@ abstract class ExecutableTransferProperties<MT extends Executable> {
 	private static final RMIObjectWriteHandler[] EMPTY_WRITE_HANDLER_ARRAY = {};
 	protected MT executable;
 	protected RMIObjectWriteHandler[] parameterWriters;
+	/**
+	 * The lazily computed direct writers for the parameters.
+	 * 
+	 * @see RMIStream#getDirectTypeWriter(Class)
+	 */
+	private volatile IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>[] parameterDirectWriters;
 
 	protected ExecutableTransferProperties() {
 	}
@@ -75,6 +83,29 @@ abstract class ExecutableTransferProperties<MT extends Executable> {
 		return parameterWriters[index];
 	}
 
+	/**
+	 * Gets the direct writers for the parameters of the executable.
+	 * <p>
+	 * The elements of the returned array are <code>null</code> for the parameters which cannot be written directly.
+	 * 
+	 * @return The direct writers. Length is the same as the parameter count.
+	 * @see RMIStream#getDirectTypeWriter(Class)
+	 */
+	IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>[] getParameterDirectWriters() {
+		IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>[] result = parameterDirectWriters;
+		if (result == null) {
+			Class<?>[] paramtypes = executable.getParameterTypes();
+			@SuppressWarnings({ "unchecked", "rawtypes" })
+			IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>[] writers = new IOBiConsumer[paramtypes.length];
+			for (int i = 0; i < paramtypes.length; i++) {
+				writers[i] = RMIStream.getDirectTypeWriter(paramtypes[i]);
+			}
+			result = writers;
+			parameterDirectWriters = result;
+		}
+		return result;
+	}
+
 	/**
 	 * Gets the executable which this properties are for.
 	 * 
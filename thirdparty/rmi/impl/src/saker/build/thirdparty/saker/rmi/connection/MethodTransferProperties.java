@@ -35,6 +35,8 @@ import saker.build.thirdparty.saker.rmi.io.writer.RMIObjectWriteHandler;
 import saker.build.thirdparty.saker.util.ArrayUtils;
 import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.StringUtils;
+import saker.build.thirdparty.saker.util.io.DataOutputUnsyncByteArrayOutputStream;
+import saker.build.thirdparty.saker.util.io.function.IOBiConsumer;
 
 /**
  * Describes the properties for a method for use with RMI.
@@ -52,6 +54,13 @@ public final class MethodTransferProperties extends ExecutableTransferProperties
 	protected Method redirectMethod;
 	protected Constructor<? extends Throwable> rmiExceptionRethrowConstructor;
 	protected RMIObjectWriteHandler returnValueWriter;
+	/**
+	 * The lazily computed direct writer for the return value.
+	 * 
+	 * @see RMIStream#getDirectTypeWriter(Class)
+	 */
+	private volatile IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> returnValueDirectWriter;
+	private volatile boolean returnValueDirectWriterComputed;
 
 	private MethodTransferProperties() {
 	}
@@ -157,6 +166,20 @@ public final class MethodTransferProperties extends ExecutableTransferProperties
 		return returnValueWriter;
 	}
 
+	/**
+	 * Gets the direct writer for the return value of the method.
+	 * 
+	 * @return The direct writer or <code>null</code> if the return value cannot be written directly.
+	 * @see RMIStream#getDirectTypeWriter(Class)
+	 */
+	IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> getReturnValueDirectWriter() {
+		if (!returnValueDirectWriterComputed) {
+			returnValueDirectWriter = RMIStream.getDirectTypeWriter(getReturnType());
+			returnValueDirectWriterComputed = true;
+		}
+		return returnValueDirectWriter;
+	}
+
 	/**
 	 * Gets the return type of the method.
 	 * 
@@ -88,7 +88,7 @@ public final class RMIConnection implements AutoCloseable {
 	 * The latest protocol version.
 	 */
 	//IMPORTANT: In the event of incrementing this protocol version, tests should be made that ensures proper rmi connection handshakes
-	public static final short PROTOCOL_VERSION_LATEST = 0x0002;
+	public static final short PROTOCOL_VERSION_LATEST = 0x0003;
 
 	/**
 	 * The protocol version of the first RMI library release.
@@ -103,6 +103,15 @@ public final class RMIConnection implements AutoCloseable {
 	 * @since saker.rmi 0.8.3
 	 */
 	public static final int PROTOCOL_VERSION_2 = 0x0002;
+	/**
+	 * Version 3.
+	 * <p>
+	 * Large commands can be transferred in multiple segments, so other commands on the same stream can be written
+	 * between them.
+	 * 
+	 * @since saker.rmi 0.8.4
+	 */
+	public static final int PROTOCOL_VERSION_3 = 0x0003;
 
 	/**
 	 * I/O error listener interface to get notified about connection errors.
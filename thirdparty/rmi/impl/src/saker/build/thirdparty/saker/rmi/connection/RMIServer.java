@@ -998,8 +998,9 @@ public class RMIServer implements AutoCloseable {
 			short useversion = remoteversion > RMIConnection.PROTOCOL_VERSION_LATEST
 					? RMIConnection.PROTOCOL_VERSION_LATEST
 					: remoteversion;
-			if (useversion < RMIConnection.PROTOCOL_VERSION_LATEST) {
+			if (useversion < RMIConnection.PROTOCOL_VERSION_2) {
 				//invalid version selected
+				//clients with protocol version 2 or later are accepted, the version 3 features are not used with them
 				return;
 			}
 
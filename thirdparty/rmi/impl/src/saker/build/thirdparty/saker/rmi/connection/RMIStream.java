@@ -32,7 +32,6 @@ import java.io.UTFDataFormatException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Executable;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -52,6 +51,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
 
 import saker.build.thirdparty.saker.rmi.connection.RequestHandler.Request;
@@ -81,6 +81,7 @@ import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
 import saker.build.thirdparty.saker.util.io.DataInputUnsyncByteArrayInputStream;
 import saker.build.thirdparty.saker.util.io.DataOutputUnsyncByteArrayOutputStream;
 import saker.build.thirdparty.saker.util.io.IOUtils;
+import saker.build.thirdparty.saker.util.io.SerialUtils;
 import saker.build.thirdparty.saker.util.io.StreamPair;
 import saker.build.thirdparty.saker.util.io.StreamUtils;
 import saker.build.thirdparty.saker.util.io.UnsyncBufferedInputStream;
@@ -96,8 +97,25 @@ final class RMIStream implements Closeable {
 
 	public static final String EXCEPTION_MESSAGE_DIRECT_REQUESTS_FORBIDDEN = "Direct requests are forbidden.";
 
+	/**
+	 * The size of a command in bytes at or above which it is considered to be a bulk data transfer.
+	 * 
+	 * @see #bulkOutLock
+	 */
+	private static final int BULK_COMMAND_SIZE_THRESHOLD = 64 * 1024;
+	/**
+	 * The number of bulk command bytes that are written to the stream between checking if small commands are waiting
+	 * for the output.
+	 */
+	private static final int BULK_COMMAND_CHUNK_SIZE = 64 * 1024;
+	private static final int BULK_COMMAND_SEGMENT_HEADER_SIZE = 2 + 4;
+
 	private static final AtomicIntegerFieldUpdater<RMIStream> AIFU_streamCloseWritten = AtomicIntegerFieldUpdater
 			.newUpdater(RMIStream.class, "streamCloseWritten");
+	private static final AtomicIntegerFieldUpdater<RMIStream> AIFU_smallCommandWritesStarted = AtomicIntegerFieldUpdater
+			.newUpdater(RMIStream.class, "smallCommandWritesStarted");
+	private static final AtomicIntegerFieldUpdater<RMIStream> AIFU_smallCommandWritesFinished = AtomicIntegerFieldUpdater
+			.newUpdater(RMIStream.class, "smallCommandWritesFinished");
 
 	private static final short COMMAND_NEWINSTANCE = 1;
 	private static final short COMMAND_METHODCALL = 2;
@@ -133,8 +151,10 @@ final class RMIStream implements Closeable {
 	private static final short COMMAND_METHODCALL_CONTEXTVAR_NOT_FOUND = 31;
 	private static final short COMMAND_ASYNC_RESPONSE = 32;
 	private static final short COMMAND_METHODCALL_ASYNC_WITH_RESPONSE = 33;
+	//since protocol version 3
+	private static final short COMMAND_BULK_SEGMENT = 34;
 
-	private static final short COMMAND_END_VALUE = 34;
+	private static final short COMMAND_END_VALUE = 35;
 
 	private static final short OBJECT_NULL = 0;
 	private static final short OBJECT_BOOLEAN = 1;
@@ -499,6 +519,37 @@ final class RMIStream implements Closeable {
 	 * A non-reentrant lock for accessing the output stream.
 	 */
 	protected final Lock outLock = ThreadUtils.newExclusiveLock();
+	/**
+	 * A non-reentrant lock that is acquired before {@link #outLock} when writing bulk commands.
+	 * <p>
+	 * Only a single bulk command is written to the stream at a time. If small commands are waiting for the output, the
+	 * bulk command is ended after the current chunk, and its next segment is written after the small commands.
+	 * <p>
+	 * Bulk commands are not moved to a dedicated stream. The references released commands are ordered after the
+	 * previously received commands of the same stream (see {@link RunInputRunnable#gcAction}), and the streams are
+	 * read independently. A bulk command on another stream could transfer a reference that the references released
+	 * command on the variables stream has already released.
+	 * 
+	 * @see #BULK_COMMAND_SIZE_THRESHOLD
+	 * @see #COMMAND_BULK_SEGMENT
+	 */
+	protected final Lock bulkOutLock = ThreadUtils.newExclusiveLock();
+	/**
+	 * The number of non-bulk command writes that were started.
+	 * <p>
+	 * The counter may overflow, compare it by subtraction.
+	 */
+	protected volatile int smallCommandWritesStarted;
+	/**
+	 * The number of non-bulk command writes that were finished.
+	 * <p>
+	 * The counter may overflow, compare it by subtraction.
+	 */
+	protected volatile int smallCommandWritesFinished;
+	/**
+	 * The bulk command writer thread that waits for the small command writes to finish, or <code>null</code>.
+	 */
+	protected volatile Thread waitingBulkCommandWriter;
 
 	private final RMICommCache<ClassReflectionElementSupplier> commClasses;
 	private final RMICommCache<ClassLoaderReflectionElementSupplier> commClassLoaders;
@@ -709,6 +760,13 @@ final class RMIStream implements Closeable {
 	public final class RunInputRunnable implements Runnable {
 		// this field could be kept on a per-RMIVariables basis, but this is fine for now
 		protected ReferencesReleasedAction gcAction = new ReferencesReleasedAction();
+		/**
+		 * The bulk command that is being received, or <code>null</code> if none.
+		 * <p>
+		 * A single bulk command is written to the stream at a time, so its segments are not interleaved with other
+		 * bulk commands.
+		 */
+		protected StrongSoftReference<DataOutputUnsyncByteArrayOutputStream> bulkCommandBuffer;
 
 		/**
 		 * @return <code>false</code> if the stream handling should exit, <code>true</code> if a new read task has been
@@ -717,6 +775,7 @@ final class RMIStream implements Closeable {
 		 */
 		private boolean readHandleSingleBlock() throws IOException {
 			StrongSoftReference<DataOutputUnsyncByteArrayOutputStream> fullblock = connection.getCachedByteBuffer();
+			StrongSoftReference<DataOutputUnsyncByteArrayOutputStream> bulkcommand = null;
 			try {
 				DataOutputUnsyncByteArrayOutputStream fullblockbuf = fullblock.get();
 
@@ -724,6 +783,10 @@ final class RMIStream implements Closeable {
 				//to a new task, but rather continue on this thread, then we can restart
 				block_read_loop:
 				for (;; fullblockbuf.reset()) {
+					if (bulkcommand != null) {
+						connection.releaseCachedByteBuffer(bulkcommand);
+						bulkcommand = null;
+					}
 					blockIn.nextBlock();
 					long readcount;
 					try {
@@ -746,8 +809,28 @@ final class RMIStream implements Closeable {
 						return false;
 					}
 
+					ByteArrayRegion commandbytes = fullblockbuf.toByteArrayRegion();
+					byte[] commandarray = commandbytes.getArray();
+					int commandoffset = commandbytes.getOffset();
+					if (SerialUtils.readShortFromBuffer(commandarray, commandoffset) == COMMAND_BULK_SEGMENT) {
+						int segmentlength = commandbytes.getLength() - BULK_COMMAND_SEGMENT_HEADER_SIZE;
+						if (bulkCommandBuffer == null && SerialUtils.readIntFromBuffer(commandarray,
+								commandoffset + 2) == segmentlength) {
+							//the whole command is in a single segment, no need to copy it
+							commandbytes = ByteArrayRegion.wrap(commandarray,
+									commandoffset + BULK_COMMAND_SEGMENT_HEADER_SIZE, segmentlength);
+						} else {
+							bulkcommand = appendBulkCommandSegment(commandbytes);
+							if (bulkcommand == null) {
+								//more segments follow
+								continue block_read_loop;
+							}
+							commandbytes = bulkcommand.get().toByteArrayRegion();
+						}
+					}
+
 					try (DataInputUnsyncByteArrayInputStream in = new DataInputUnsyncByteArrayInputStream(
-							fullblockbuf.toByteArrayRegion())) {
+							commandbytes)) {
 						short command = in.readShort();
 						switch (command) {
 							case COMMAND_STREAM_CLOSED: {
@@ -794,10 +877,42 @@ final class RMIStream implements Closeable {
 				}
 			} finally {
 				connection.releaseCachedByteBuffer(fullblock);
+				if (bulkcommand != null) {
+					connection.releaseCachedByteBuffer(bulkcommand);
+				}
 			}
 			return true;
 		}
 
+		/**
+		 * @return The buffer containing the bulk command if the segment was the last one, or <code>null</code> if
+		 *             more segments follow.
+		 */
+		private StrongSoftReference<DataOutputUnsyncByteArrayOutputStream> appendBulkCommandSegment(
+				ByteArrayRegion segment) throws IOException {
+			byte[] segmentarray = segment.getArray();
+			int segmentoffset = segment.getOffset();
+			int commandsize = SerialUtils.readIntFromBuffer(segmentarray, segmentoffset + 2);
+			StrongSoftReference<DataOutputUnsyncByteArrayOutputStream> bufref = bulkCommandBuffer;
+			if (bufref == null) {
+				bufref = connection.getCachedByteBuffer();
+				bufref.get().ensureCapacity(commandsize);
+				bulkCommandBuffer = bufref;
+			}
+			DataOutputUnsyncByteArrayOutputStream buf = bufref.get();
+			buf.write(segmentarray, segmentoffset + BULK_COMMAND_SEGMENT_HEADER_SIZE,
+					segment.getLength() - BULK_COMMAND_SEGMENT_HEADER_SIZE);
+			if (buf.size() < commandsize) {
+				return null;
+			}
+			bulkCommandBuffer = null;
+			if (buf.size() != commandsize) {
+				connection.releaseCachedByteBuffer(bufref);
+				throw new IOException("Invalid bulk command size: " + buf.size() + " expected: " + commandsize);
+			}
+			return bufref;
+		}
+
 		protected void offerSelfStreamTask() {
 			connection.offerStreamTask(this);
 		}
@@ -1026,6 +1141,25 @@ final class RMIStream implements Closeable {
 		return NON_CUSTOMIZABLE_SERIALIZE_TYPES.contains(type);
 	}
 
+	/**
+	 * Gets the writer that can directly write the non-<code>null</code> values declared with the given type.
+	 * <p>
+	 * Direct writers are available for the primitive and non-customizable final types. The values declared with these
+	 * types cannot be remote proxies, and their runtime class is known, therefore the writer doesn't need to be looked
+	 * up for each value.
+	 * 
+	 * @param type
+	 *            The declared type.
+	 * @return The writer or <code>null</code> if the values of the type cannot be directly written.
+	 */
+	@SuppressWarnings("unchecked")
+	static IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> getDirectTypeWriter(Class<?> type) {
+		if (!type.isPrimitive() && !isNotCustomizableSerializeType(type)) {
+			return null;
+		}
+		return (IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>) TYPE_WRITERS.get(type);
+	}
+
 	private final Map<Class<?>, IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, ?>> reflectionTypeWriters = new HashMap<>(
 			50);
 	{
@@ -1038,8 +1172,10 @@ final class RMIStream implements Closeable {
 		reflectionTypeWriters.put(Field.class,
 				(IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Field>) this::writeObjectField);
 	}
-	private final Map<Class<?>, IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, ?>> typeWriters = new HashMap<>(50);
-	{
+	private static final Map<Class<?>, IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, ?>> TYPE_WRITERS = new HashMap<>(
+			50);
+	static {
+		final Map<Class<?>, IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, ?>> typeWriters = TYPE_WRITERS;
 		typeWriters.put(Void.class, (out, v) -> writeNullObject(out));
 		typeWriters.put(void.class, (out, v) -> writeNullObject(out));
 
@@ -1108,42 +1244,138 @@ final class RMIStream implements Closeable {
 	protected void flushCommand(StrongSoftReference<DataOutputUnsyncByteArrayOutputStream> bufferref)
 			throws RMIIOFailureException {
 		try {
-			final Lock lock = outLock;
-			lock.lock();
-			//check closed in the lock
-			//the exception from the checkClosed() doesn't need to be passed to streamError()
-			if (streamCloseWritten != 0) {
-				lock.unlock();
-				throw new RMIResourceUnavailableException("Stream already closed.");
-			}
-			try {
-				//XXX we might remove checkClosed calls from the command writers
+			DataOutputUnsyncByteArrayOutputStream buffer = bufferref.get();
+			int size = buffer.size();
+			if (size < BULK_COMMAND_SIZE_THRESHOLD) {
+				AIFU_smallCommandWritesStarted.incrementAndGet(this);
 				try {
-					BlockOutputStream out = this.blockOut;
-					bufferref.get().writeTo(out);
-					out.nextBlock();
-					//need to flush, as the underlying output stream might be buffered, or anything
-					out.flush();
+					writeCommandBlock(null, buffer.getBuffer(), 0, size);
 				} finally {
-					//we need to release the lock before handling the possible IOException
-					//as that might recursively call other writer functions to the stream
-					//(like close writing)
-					lock.unlock();
+					AIFU_smallCommandWritesFinished.incrementAndGet(this);
+					Thread bulkwriter = waitingBulkCommandWriter;
+					if (bulkwriter != null) {
+						LockSupport.unpark(bulkwriter);
+					}
 				}
-			} catch (IOException e) {
-				try {
-					streamError(e);
-				} catch (Throwable e2) {
-					e2.addSuppressed(e);
-					throw e2;
+				return;
+			}
+			final Lock bulklock = bulkOutLock;
+			bulklock.lock();
+			try {
+				if (connection.getProtocolVersion() >= RMIConnection.PROTOCOL_VERSION_3) {
+					writeBulkCommandSegments(buffer.getBuffer(), size);
+				} else {
+					writeCommandBlock(null, buffer.getBuffer(), 0, size);
 				}
-				throw new RMIIOFailureException("Failed to write RMI command to stream.", e);
+			} finally {
+				bulklock.unlock();
 			}
 		} finally {
 			connection.releaseCachedByteBuffer(bufferref);
 		}
 	}
 
+	private void writeBulkCommandSegments(byte[] command, int size) throws RMIIOFailureException {
+		//segment header: command, and the size of the whole bulk command
+		byte[] header = new byte[BULK_COMMAND_SEGMENT_HEADER_SIZE];
+		SerialUtils.writeShortToBuffer(COMMAND_BULK_SEGMENT, header, 0);
+		SerialUtils.writeIntToBuffer(size, header, 2);
+		int offset = writeCommandBlock(header, command, 0, size);
+		while (offset < size) {
+			waitSmallCommandWrites();
+			offset = writeCommandBlock(header, command, offset, size - offset);
+		}
+	}
+
+	private boolean isSmallCommandWriteWaiting() {
+		return smallCommandWritesFinished != smallCommandWritesStarted;
+	}
+
+	/**
+	 * Waits for the small command writes that were started before calling this method.
+	 * <p>
+	 * The output lock is not fair, so the bulk command writer would acquire it again before the small command writers
+	 * that were waiting for it. The writes that are started after calling this method are not waited for, so a
+	 * continuous flow of small commands doesn't stall the bulk command.
+	 * <p>
+	 * If the current thread is interrupted, the method returns without waiting, and the interrupt flag is kept. The
+	 * rest of the bulk command still needs to be written, as the stream would be corrupted otherwise.
+	 */
+	private void waitSmallCommandWrites() {
+		int started = smallCommandWritesStarted;
+		if (smallCommandWritesFinished - started >= 0) {
+			return;
+		}
+		Thread currentthread = Thread.currentThread();
+		waitingBulkCommandWriter = currentthread;
+		try {
+			while (smallCommandWritesFinished - started < 0) {
+				if (currentthread.isInterrupted()) {
+					//park() would return immediately
+					return;
+				}
+				LockSupport.park(this);
+			}
+		} finally {
+			waitingBulkCommandWriter = null;
+		}
+	}
+
+	/**
+	 * Writes the command bytes in a single block.
+	 * <p>
+	 * If the segment header is not <code>null</code>, the block is a bulk command segment, and it is ended early if
+	 * small commands are waiting for the output.
+	 * 
+	 * @return The end offset of the command bytes that were written.
+	 */
+	private int writeCommandBlock(byte[] segmentheader, byte[] command, int offset, int length)
+			throws RMIIOFailureException {
+		int end = offset + length;
+		final Lock lock = outLock;
+		lock.lock();
+		//check closed in the lock
+		//the exception from the checkClosed() doesn't need to be passed to streamError()
+		if (streamCloseWritten != 0) {
+			lock.unlock();
+			throw new RMIResourceUnavailableException("Stream already closed.");
+		}
+		try {
+			//XXX we might remove checkClosed calls from the command writers
+			try {
+				BlockOutputStream out = this.blockOut;
+				if (segmentheader == null) {
+					out.write(command, offset, length);
+					offset = end;
+				} else {
+					out.write(segmentheader);
+					do {
+						int len = Math.min(end - offset, BULK_COMMAND_CHUNK_SIZE);
+						out.write(command, offset, len);
+						offset += len;
+					} while (offset < end && !isSmallCommandWriteWaiting());
+				}
+				out.nextBlock();
+				//need to flush, as the underlying output stream might be buffered, or anything
+				out.flush();
+			} finally {
+				//we need to release the lock before handling the possible IOException
+				//as that might recursively call other writer functions to the stream
+				//(like close writing)
+				lock.unlock();
+			}
+		} catch (IOException e) {
+			try {
+				streamError(e);
+			} catch (Throwable e2) {
+				e2.addSuppressed(e);
+				throw e2;
+			}
+			throw new RMIIOFailureException("Failed to write RMI command to stream.", e);
+		}
+		return offset;
+	}
+
 	private void writeCustomizableWithWriteHandler(RMIVariables variables, Object obj, Class<?> targettype,
 			DataOutputUnsyncByteArrayOutputStream out, RMIObjectWriteHandler writehandler) throws IOException {
 		ObjectWriterKind kind = writehandler.getKind();
@@ -1272,7 +1504,7 @@ final class RMIStream implements Closeable {
 		}
 		Class<?> objclass = obj.getClass();
 		@SuppressWarnings("unchecked")
-		IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> simplewriter = (IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>) typeWriters
+		IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> simplewriter = (IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>) TYPE_WRITERS
 				.get(objclass);
 		if (simplewriter != null) {
 			simplewriter.accept(out, obj);
@@ -1315,6 +1547,15 @@ final class RMIStream implements Closeable {
 		writeObjectObjectArrayImpl(variables, out, componenttype, array, componentwriter);
 	}
 
+	private static void writeObjectWithDirectWriter(IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> writer,
+			Object obj, DataOutputUnsyncByteArrayOutputStream out) throws IOException {
+		if (obj == null) {
+			writeNullObject(out);
+			return;
+		}
+		writer.accept(out, obj);
+	}
+
 	private void writeObjectUsingWriteHandler(RMIObjectWriteHandler writehandler, RMIVariables variables, Object obj,
 			DataOutputUnsyncByteArrayOutputStream out, Class<?> targettype) throws IOException {
 		if (writeNonCustomizableWritingObject(variables, obj, out)) {
@@ -2170,10 +2411,19 @@ final class RMIStream implements Closeable {
 			return;
 		}
 		out.writeShort(arguments.length);
-		Executable exec = execproperties.getExecutable();
-		Class<?>[] paramtypes = exec.getParameterTypes();
+		IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object>[] directwriters = execproperties
+				.getParameterDirectWriters();
+		Class<?>[] paramtypes = null;
 		for (int i = 0; i < arguments.length; i++) {
 			try {
+				IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> directwriter = directwriters[i];
+				if (directwriter != null) {
+					writeObjectWithDirectWriter(directwriter, arguments[i], out);
+					continue;
+				}
+				if (paramtypes == null) {
+					paramtypes = execproperties.getExecutable().getParameterTypes();
+				}
 				Object argument = unwrapWrapperForTransfer(arguments[i], variables);
 				writeObjectUsingWriteHandler(execproperties.getParameterWriter(i), variables, argument, out,
 						paramtypes[i]);
@@ -3386,7 +3636,7 @@ final class RMIStream implements Closeable {
 		out.writeInt(remoteid);
 		out.writeInt(count);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.writeLock();
 		gclock.lockInterruptibly();
 		try {
 			flushCommand(buffer);
@@ -3721,7 +3971,7 @@ final class RMIStream implements Closeable {
 
 		writeMethod(method.getExecutable(), out);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			writeMethodParameters(variables, method, arguments, out);
@@ -3744,7 +3994,7 @@ final class RMIStream implements Closeable {
 
 		writeMethod(method.getExecutable(), out);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			writeMethodParameters(variables, method, arguments, out);
@@ -3773,7 +4023,7 @@ final class RMIStream implements Closeable {
 
 		writeMethod(method.getExecutable(), out);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			writeMethodParameters(variables, method, arguments, out);
@@ -3807,7 +4057,7 @@ final class RMIStream implements Closeable {
 
 		writeMethod(method.getExecutable(), out);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			writeMethodParameters(variables, method, arguments, out);
@@ -3835,7 +4085,7 @@ final class RMIStream implements Closeable {
 
 		writeConstructor(constructor.getExecutable(), out);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			writeMethodParameters(variables, constructor, arguments, out);
@@ -3873,7 +4123,7 @@ final class RMIStream implements Closeable {
 		}
 		out.writeInt(argumentclassnames.length);
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			for (int i = 0; i < argumentclassnames.length; i++) {
@@ -3913,12 +4163,18 @@ final class RMIStream implements Closeable {
 
 		out.writeInt(compressInterruptStatus(currentthreadinterrupted, interruptreqcount));
 
-		Lock gclock = variables.gcCommandLock;
+		Lock gclock = variables.gcCommandLock.readLock();
 		gclock.lock();
 		try {
 			try {
-				writeObjectUsingWriteHandler(executableproperties.getReturnValueWriter(), variables, returnvalue, out,
-						executableproperties.getReturnType());
+				IOBiConsumer<DataOutputUnsyncByteArrayOutputStream, Object> directwriter = executableproperties
+						.getReturnValueDirectWriter();
+				if (directwriter != null) {
+					writeObjectWithDirectWriter(directwriter, returnvalue, out);
+				} else {
+					writeObjectUsingWriteHandler(executableproperties.getReturnValueWriter(), variables, returnvalue,
+							out, executableproperties.getReturnType());
+				}
 			} catch (Exception | LinkageError | StackOverflowError | OutOfMemoryError | AssertionError
 					| ServiceConfigurationError e) {
 				//failed to write the return value for some reason
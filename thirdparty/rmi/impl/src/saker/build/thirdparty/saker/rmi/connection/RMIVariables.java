@@ -24,17 +24,20 @@ import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import saker.build.thirdparty.saker.rmi.exception.RMICallFailedException;
 import saker.build.thirdparty.saker.rmi.exception.RMICallForbiddenException;
@@ -49,7 +52,6 @@ import saker.build.thirdparty.saker.util.ReflectUtils;
 import saker.build.thirdparty.saker.util.classloader.FilteringClassLoader;
 import saker.build.thirdparty.saker.util.classloader.MultiClassLoader;
 import saker.build.thirdparty.saker.util.thread.BooleanLatch;
-import saker.build.thirdparty.saker.util.thread.ThreadUtils;
 
 /**
  * Class for enclosing RMI proxies, referenced objects, and providing invocation functionality for the RMI runtime.
@@ -130,15 +132,22 @@ public class RMIVariables implements AutoCloseable {
 	private static final long STATE_MASK_BOTH_REQUEST_COUNT = STATE_MASK_ONGOING_REQUEST_COUNT
 			| STATE_MASK_ONGOING_ASYNC_REQUEST_COUNT;
 
+	private static final int LOCAL_OBJECT_STRIPE_COUNT = 16;
+	/**
+	 * The maximum number of garbage collected references that are handled together by the gc thread.
+	 */
+	private static final int GC_BATCH_MAX_SIZE = 256;
+
 	private final RMIConnection connection;
-	private final Object refSync = new Object();
 	/**
-	 * Access while locked on {@link #refSync}.
+	 * The local object references striped by the identity hash codes of the objects.
+	 * <p>
+	 * Access while locked on the stripe map.
 	 */
-	private final Map<IdentityEqWeakReference<?>, LocalObjectReference> localObjectsToLocalReferences = new HashMap<>();
-	private final ConcurrentNavigableMap<Integer, LocalObjectReference> localIdentifiersToLocalObjects = new ConcurrentSkipListMap<>();
+	private final LocalObjectStripeMap[] localObjectsToLocalReferences = new LocalObjectStripeMap[LOCAL_OBJECT_STRIPE_COUNT];
+	private final StripedIntReferenceTable<LocalObjectReference> localIdentifiersToLocalObjects = new StripedIntReferenceTable<>();
 
-	private final ConcurrentNavigableMap<Integer, RemoteProxyReference> cachedRemoteProxies = new ConcurrentSkipListMap<>();
+	private final StripedIntReferenceTable<RemoteProxyReference> cachedRemoteProxies = new StripedIntReferenceTable<>();
 
 	private RMIProxyClassLoader proxyBaseClassLoader;
 	private ConcurrentHashMap<Set<Class<?>>, Constructor<? extends RemoteProxyObject>> proxyConstructors = new ConcurrentHashMap<>();
@@ -179,7 +188,11 @@ public class RMIVariables implements AutoCloseable {
 	private RMITransferPropertiesHolder properties;
 
 	/**
-	 * A non-reentrant lock for writing a references released command.
+	 * A lock for writing a references released command.
+	 * <p>
+	 * The write lock is acquired when writing the references released command, and the read lock is acquired when
+	 * writing other commands that may transfer objects. Other commands can be written concurrently, but the references
+	 * released command is not written while another command is being serialized or flushed.
 	 * <p>
 	 * This field is kept on a per RMIVariables basis instead of a per RMIStream basis, as the objects are tracked in
 	 * variables contexts.
@@ -189,7 +202,7 @@ public class RMIVariables implements AutoCloseable {
 	 * so interruption handling is not strictly necessary in case an other commands, however, in case when writing a gc
 	 * command, it can be handled on the gc thread.
 	 */
-	protected final Lock gcCommandLock = ThreadUtils.newExclusiveLock();
+	protected final ReadWriteLock gcCommandLock = new ReentrantReadWriteLock();
 
 	RMIVariables(int localIdentifier, int remoteIdentifier, RMIConnection connection, RMIStream stream) {
 		//XXX we could allow the user to add custom transfer properties just for this variables instance
@@ -198,6 +211,9 @@ public class RMIVariables implements AutoCloseable {
 		this.localIdentifier = localIdentifier;
 		this.remoteIdentifier = remoteIdentifier;
 		this.connection = connection;
+		for (int i = 0; i < localObjectsToLocalReferences.length; i++) {
+			localObjectsToLocalReferences[i] = new LocalObjectStripeMap();
+		}
 		this.proxyBaseClassLoader = new RMIProxyClassLoader(RMI_PROXY_CLASSLOADER_PARENT);
 		boolean hasstatistics = connection.isStatisticsCollected();
 		this.proxyMarkerClass = this.proxyBaseClassLoader.defineClass(PROXY_MARKER_CLASS_NAME,
@@ -1327,18 +1343,20 @@ public class RMIVariables implements AutoCloseable {
 	 */
 	boolean isLocalObjectKnown(Object localobject) {
 		IdentityRefSearcher refsearcher = new IdentityRefSearcher(localobject);
-		synchronized (refSync) {
+		LocalObjectStripeMap stripe = getLocalObjectStripe(refsearcher.hashCode);
+		synchronized (stripe) {
 			@SuppressWarnings("unlikely-arg-type")
-			LocalObjectReference gotobjref = localObjectsToLocalReferences.get(refsearcher);
+			LocalObjectReference gotobjref = stripe.get(refsearcher);
 			return gotobjref != null && gotobjref.strongReference != null;
 		}
 	}
 
 	int getLocalInstanceIdIncreaseReference(Object localobject) {
 		IdentityRefSearcher refsearcher = new IdentityRefSearcher(localobject);
-		synchronized (refSync) {
+		LocalObjectStripeMap stripe = getLocalObjectStripe(refsearcher.hashCode);
+		synchronized (stripe) {
 			@SuppressWarnings("unlikely-arg-type")
-			LocalObjectReference gotobjref = localObjectsToLocalReferences.get(refsearcher);
+			LocalObjectReference gotobjref = stripe.get(refsearcher);
 			if (gotobjref != null) {
 				synchronized (gotobjref) {
 					++gotobjref.remoteReferenceCount;
@@ -1351,12 +1369,18 @@ public class RMIVariables implements AutoCloseable {
 			int id = nextId();
 			IdentityEqWeakReference<?> keyref = new IdentityEqWeakReference<>(localobject, gcReferenceQueue);
 			LocalObjectReference localobjref = new LocalObjectReference(localobject, gcReferenceQueue, id);
-			localObjectsToLocalReferences.put(keyref, localobjref);
+			stripe.put(keyref, localobjref);
 			localIdentifiersToLocalObjects.put(id, localobjref);
 			return id;
 		}
 	}
 
+	private LocalObjectStripeMap getLocalObjectStripe(int identityhash) {
+		//spread the hash as the low bits of the identity hash codes may not be well distributed
+		int h = identityhash ^ (identityhash >>> 16);
+		return localObjectsToLocalReferences[h & (LOCAL_OBJECT_STRIPE_COUNT - 1)];
+	}
+
 	int getLiveLocalObjectCount() {
 		return localIdentifiersToLocalObjects.size();
 	}
@@ -1399,6 +1423,10 @@ public class RMIVariables implements AutoCloseable {
 		return stream;
 	}
 
+	private static class LocalObjectStripeMap extends HashMap<IdentityEqWeakReference<?>, LocalObjectReference> {
+		private static final long serialVersionUID = 1L;
+	}
+
 	private static class LocalObjectReference extends WeakReference<Object> {
 		final int localId;
 		Object strongReference;
@@ -1687,51 +1715,72 @@ public class RMIVariables implements AutoCloseable {
 
 	private static void runGcThread(ReferenceQueue<Object> refqueue, WeakReference<RMIVariables> varsref) {
 		RMIConnection.clearContextClassLoaderOfCurrentThread();
+		List<Reference<? extends Object>> refs = new ArrayList<>();
 		try {
 			while (true) {
-				Reference<? extends Object> ref = refqueue.remove();
+				refs.add(refqueue.remove());
+				//handle the references that were enqueued together in a single batch
+				for (Reference<? extends Object> r; refs.size() < GC_BATCH_MAX_SIZE
+						&& (r = refqueue.poll()) != null;) {
+					refs.add(r);
+				}
 				RMIVariables vars = varsref.get();
 				if (vars == null) {
 					break;
 				}
-				boolean cancontinue = vars.handleGcQueuedReference(ref);
+				boolean cancontinue = vars.handleGcQueuedReferences(refs);
 				if (!cancontinue) {
 					break;
 				}
+				refs.clear();
 			}
 		} catch (InterruptedException e) {
 		}
 	}
 
-	private boolean handleGcQueuedReference(Reference<? extends Object> ref) throws InterruptedException {
-		if (ref instanceof RemoteProxyReference) {
-			RemoteProxyReference rpr = (RemoteProxyReference) ref;
-			//reference to a proxy object became unreachable
-			//remove it from the map
-			int remoteid = rpr.getRemoteId();
-			cachedRemoteProxies.remove(remoteid, rpr);
-			//notify the remote connection about the unreachability
-			try {
-				stream.writeCommandReferencesReleased(this, remoteid, rpr.referenceCount);
-			} catch (RMIRuntimeException e) {
-				//IO error occurred when we were trying to write the released command
-				//  (or the stream is already closed?)
-				//we expect that we wont be able to write any command to the streams
-				//so we exit the gc thread
-				//any remaining references are kept, until the variables instance is closed
-				//    this does nothing wrong, but just keep some objects alive
-				//    they are going to be cleaned up as the variables get closed
+	private boolean handleGcQueuedReferences(List<Reference<? extends Object>> refs) throws InterruptedException {
+		//the released reference counts summed by the remote identifiers
+		Map<Integer, Integer> releasedremotecounts = null;
+		for (Reference<? extends Object> ref : refs) {
+			if (ref instanceof RemoteProxyReference) {
+				RemoteProxyReference rpr = (RemoteProxyReference) ref;
+				//reference to a proxy object became unreachable
+				//remove it from the map
+				int remoteid = rpr.getRemoteId();
+				cachedRemoteProxies.remove(remoteid, rpr);
+				if (releasedremotecounts == null) {
+					releasedremotecounts = new LinkedHashMap<>();
+				}
+				releasedremotecounts.merge(remoteid, rpr.referenceCount, Integer::sum);
+			} else if (ref instanceof LocalObjectReference) {
+				LocalObjectReference lor = (LocalObjectReference) ref;
+				localIdentifiersToLocalObjects.remove(lor.localId, lor);
+			} else if (ref instanceof IdentityEqWeakReference) {
+				LocalObjectStripeMap stripe = getLocalObjectStripe(ref.hashCode());
+				synchronized (stripe) {
+					stripe.remove(ref);
+				}
+			} else if (ref == gcThreadThisWeakReference) {
+				//the variables is closed, no need to notify the remote about the released references
 				return false;
 			}
-		} else if (ref instanceof LocalObjectReference) {
-			LocalObjectReference lor = (LocalObjectReference) ref;
-			localIdentifiersToLocalObjects.remove(lor.localId, ref);
-		} else if (ref instanceof IdentityEqWeakReference) {
-			synchronized (refSync) {
-				localObjectsToLocalReferences.remove(ref);
+		}
+		if (releasedremotecounts != null) {
+			//notify the remote connection about the unreachability
+			for (Entry<Integer, Integer> entry : releasedremotecounts.entrySet()) {
+				try {
+					stream.writeCommandReferencesReleased(this, entry.getKey(), entry.getValue());
+				} catch (RMIRuntimeException e) {
+					//IO error occurred when we were trying to write the released command
+					//  (or the stream is already closed?)
+					//we expect that we wont be able to write any command to the streams
+					//so we exit the gc thread
+					//any remaining references are kept, until the variables instance is closed
+					//    this does nothing wrong, but just keep some objects alive
+					//    they are going to be cleaned up as the variables get closed
+					return false;
+				}
 			}
-		} else if (ref == gcThreadThisWeakReference) {
-			return false;
 		}
 		return true;
 	}
@@ -1754,8 +1803,10 @@ public class RMIVariables implements AutoCloseable {
 
 			cachedRemoteProxies.clear();
 			localIdentifiersToLocalObjects.clear();
-			synchronized (refSync) {
-				localObjectsToLocalReferences.clear();
+			for (LocalObjectStripeMap stripe : localObjectsToLocalReferences) {
+				synchronized (stripe) {
+					stripe.clear();
+				}
 			}
 			proxyBaseClassLoader = null;
 			proxyConstructors = null;
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2020 Bence Sipka
+ *
+ * This program is free software: you can redistribute it and/or modify 
+ * it under the terms of the GNU General Public License as published by 
+ * the Free Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package saker.build.thirdparty.saker.rmi.connection;
+
+/**
+ * Concurrent hash table mapping <code>int</code> keys to non-<code>null</code> values.
+ * <p>
+ * The table is split into stripes based on the hash of the keys. Each stripe is a linear probing open addressing hash
+ * table that is locked separately. The keys are not boxed, and the values are compared by identity.
+ * 
+ * @param <V>
+ *            The type of the values.
+ */
+final class StripedIntReferenceTable<V> {
+	private static final int STRIPE_COUNT = 16;
+	private static final int STRIPE_SHIFT = 32 - Integer.numberOfTrailingZeros(STRIPE_COUNT);
+	private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+	private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+	public StripedIntReferenceTable() {
+		for (int i = 0; i < stripes.length; i++) {
+			stripes[i] = new Stripe();
+		}
+	}
+
+	public V get(int key) {
+		int hash = hash(key);
+		Stripe s = stripes[hash >>> STRIPE_SHIFT];
+		synchronized (s) {
+			int idx = s.indexOf(key, hash);
+			if (idx < 0) {
+				return null;
+			}
+			return s.value(idx);
+		}
+	}
+
+	public void put(int key, V value) {
+		int hash = hash(key);
+		Stripe s = stripes[hash >>> STRIPE_SHIFT];
+		synchronized (s) {
+			int idx = s.indexOf(key, hash);
+			if (idx < 0) {
+				s.insert(~idx, key, value);
+			} else {
+				s.values[idx] = value;
+			}
+		}
+	}
+
+	public V putIfAbsent(int key, V value) {
+		int hash = hash(key);
+		Stripe s = stripes[hash >>> STRIPE_SHIFT];
+		synchronized (s) {
+			int idx = s.indexOf(key, hash);
+			if (idx < 0) {
+				s.insert(~idx, key, value);
+				return null;
+			}
+			return s.value(idx);
+		}
+	}
+
+	public boolean replace(int key, V expected, V value) {
+		int hash = hash(key);
+		Stripe s = stripes[hash >>> STRIPE_SHIFT];
+		synchronized (s) {
+			int idx = s.indexOf(key, hash);
+			if (idx < 0 || s.values[idx] != expected) {
+				return false;
+			}
+			s.values[idx] = value;
+			return true;
+		}
+	}
+
+	public boolean remove(int key, V expected) {
+		int hash = hash(key);
+		Stripe s = stripes[hash >>> STRIPE_SHIFT];
+		synchronized (s) {
+			int idx = s.indexOf(key, hash);
+			if (idx < 0 || s.values[idx] != expected) {
+				return false;
+			}
+			s.removeAt(idx);
+			return true;
+		}
+	}
+
+	public int size() {
+		int result = 0;
+		for (Stripe s : stripes) {
+			synchronized (s) {
+				result += s.size;
+			}
+		}
+		return result;
+	}
+
+	public void clear() {
+		for (Stripe s : stripes) {
+			synchronized (s) {
+				s.clear();
+			}
+		}
+	}
+
+	private static int hash(int key) {
+		//the keys are usually sequential, spread them over the stripes and slots
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private static final class Stripe {
+		int[] keys = new int[INITIAL_STRIPE_CAPACITY];
+		Object[] values = new Object[INITIAL_STRIPE_CAPACITY];
+		int size;
+
+		/**
+		 * Gets the index of the key, or the bitwise negated index of the slot where it should be inserted.
+		 */
+		int indexOf(int key, int hash) {
+			int mask = keys.length - 1;
+			int idx = hash & mask;
+			while (values[idx] != null) {
+				if (keys[idx] == key) {
+					return idx;
+				}
+				idx = (idx + 1) & mask;
+			}
+			return ~idx;
+		}
+
+		@SuppressWarnings("unchecked")
+		<V> V value(int idx) {
+			return (V) values[idx];
+		}
+
+		void insert(int idx, int key, Object value) {
+			keys[idx] = key;
+			values[idx] = value;
+			//keep the load factor at most 2/3
+			if (++size * 3 > keys.length * 2) {
+				grow();
+			}
+		}
+
+		void removeAt(int idx) {
+			int mask = keys.length - 1;
+			values[idx] = null;
+			--size;
+			//shift back the following entries of the probe sequence, so no tombstones are needed
+			int next = idx;
+			while (true) {
+				next = (next + 1) & mask;
+				if (values[next] == null) {
+					return;
+				}
+				int home = hash(keys[next]) & mask;
+				if (idx <= next ? (idx < home && home <= next) : (idx < home || home <= next)) {
+					//the entry is still reachable from its home slot
+					continue;
+				}
+				keys[idx] = keys[next];
+				values[idx] = values[next];
+				values[next] = null;
+				idx = next;
+			}
+		}
+
+		void clear() {
+			keys = new int[INITIAL_STRIPE_CAPACITY];
+			values = new Object[INITIAL_STRIPE_CAPACITY];
+			size = 0;
+		}
+
+		private void grow() {
+			int[] oldkeys = keys;
+			Object[] oldvalues = values;
+			int ncapacity = oldkeys.length * 2;
+			int mask = ncapacity - 1;
+			int[] nkeys = new int[ncapacity];
+			Object[] nvalues = new Object[ncapacity];
+			for (int i = 0; i < oldkeys.length; i++) {
+				Object v = oldvalues[i];
+				if (v == null) {
+					continue;
+				}
+				int key = oldkeys[i];
+				int idx = hash(key) & mask;
+				while (nvalues[idx] != null) {
+					idx = (idx + 1) & mask;
+				}
+				nkeys[idx] = key;
+				nvalues[idx] = v;
+			}
+			keys = nkeys;
+			values = nvalues;
+		}
+	}
+}
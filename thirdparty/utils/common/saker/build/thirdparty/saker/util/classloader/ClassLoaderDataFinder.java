@@ -24,8 +24,10 @@ import java.net.URLConnection;
 import java.net.URLStreamHandler;
 import java.nio.file.NoSuchFileException;
 import java.util.Collections;
+import java.util.Set;
 import java.util.function.Supplier;
 
+import saker.build.thirdparty.saker.rmi.annot.invoke.RMIRedirect;
 import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
 import saker.build.thirdparty.saker.util.io.ByteSource;
@@ -118,10 +120,69 @@ public interface ClassLoaderDataFinder extends Closeable {
 		return found.get();
 	}
 
+	/**
+	 * Gets the names of the directories which contain the resources of this data finder.
+	 * <p>
+	 * The directory names are slash (<code>'/'</code>) separated paths without a trailing slash. The directory of a
+	 * resource is the part of its name before the last slash, or the empty string if the name contains no slashes.
+	 * E.g. the directory of the resource <code>com/example/Main.class</code> is <code>com/example</code>.
+	 * <p>
+	 * Classloaders can use the returned set to only query the data finders which may contain a given resource. If an
+	 * implementation returns non-<code>null</code>, then it must not find any resources in directories that are not
+	 * part of the returned set.
+	 * <p>
+	 * The default implementation returns <code>null</code>.
+	 * <p>
+	 * When called on a remote proxy, this method returns <code>null</code> without calling the remote object.
+	 * 
+	 * @return The names of the resource directories, or <code>null</code> if they cannot be determined.
+	 * @see #redirectGetResourceDirectoryNamesCall(ClassLoaderDataFinder)
+	 */
+	@RMIRedirect(method = "redirectGetResourceDirectoryNamesCall")
+	public default Set<String> getResourceDirectoryNames() {
+		return null;
+	}
+
+	/**
+	 * Redirect method for {@link #getResourceDirectoryNames()} when it is called on a remote proxy.
+	 * <p>
+	 * The resource directories of a remote data finder are not transferred, as the set may be large, while only a few
+	 * resources may be requested from the data finder. The classloaders query the remote data finders for all
+	 * resources.
+	 * 
+	 * @param proxy
+	 *            The remote proxy of the data finder.
+	 * @return Always <code>null</code>.
+	 */
+	public static Set<String> redirectGetResourceDirectoryNamesCall(ClassLoaderDataFinder proxy) {
+		return null;
+	}
+
 	@Override
 	public default void close() throws IOException {
 	}
 
+	/**
+	 * Gets the name of the directory that contains the resource with the given name.
+	 * <p>
+	 * The result is the part of the name before the last slash (<code>'/'</code>) character, or the empty string if
+	 * there are no slashes in it.
+	 * 
+	 * @param name
+	 *            The name of the resource.
+	 * @return The directory name of the resource.
+	 * @throws NullPointerException
+	 *             If the argument is <code>null</code>.
+	 * @see #getResourceDirectoryNames()
+	 */
+	public static String getResourceDirectoryName(String name) throws NullPointerException {
+		int idx = name.lastIndexOf('/');
+		if (idx < 0) {
+			return "";
+		}
+		return name.substring(0, idx);
+	}
+
 	/**
 	 * Converts the resource stream for a given name and resource supplier to an {@link URL}.
 	 * <p>
@@ -17,10 +17,18 @@ package saker.build.thirdparty.saker.util.classloader;
 
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import saker.build.thirdparty.saker.util.ObjectUtils;
 import saker.build.thirdparty.saker.util.StringUtils;
@@ -42,11 +50,33 @@ import saker.build.thirdparty.saker.util.StringUtils;
  * The registry can be constructed with a default resolver, which is called before the registered resolvers to match a
  * resolve request.
  * <p>
+ * The results of the identifier resolutions are cached by the registry. The cache is keyed by the identity of the
+ * classloaders, and references them weakly. Only the results of nested registries and {@link SingleClassLoaderResolver}
+ * instances are cached, as other resolvers may change their answers at any time. The cached results are invalidated
+ * when a resolver is registered or unregistered in the registry or in a registry nested in it, or if the resolver that
+ * resolved the identifier has been garbage collected.
+ * <p>
  * This class is thread safe, registering and unregistering can be done concurrently from multiple threads.
  */
 public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 	private static final char ID_SEPARATOR_CHARACTER = '\0';
 
+	private static final AtomicIntegerFieldUpdater<ClassLoaderResolverRegistry> AIFU_modificationStamp = AtomicIntegerFieldUpdater
+			.newUpdater(ClassLoaderResolverRegistry.class, "modificationStamp");
+	/**
+	 * Modification stamp that is incremented when this registry or a registry nested in it is modified.
+	 */
+	private volatile int modificationStamp;
+
+	/**
+	 * The registries that this registry is registered in, or used as the default resolver of.
+	 * <p>
+	 * The modifications of this registry are propagated to them, as they may have cached the results resolved by this
+	 * registry. The registries are weakly referenced, and are not removed when this registry is unregistered from them.
+	 * Synchronized on itself.
+	 */
+	private final Map<ClassLoaderResolverRegistry, Boolean> enclosingRegistries = new WeakHashMap<>();
+
 	/**
 	 * Maps resolver IDs to references of {@link ClassLoaderResolver}. The references might be weak, soft, or strong.
 	 */
@@ -54,6 +84,15 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 
 	private final ClassLoaderResolver defaultResolver;
 
+	/**
+	 * Cache of the resolved classloader identifiers. Synchronized on itself.
+	 */
+	private final Map<ClassLoader, IdentifierCacheEntry> identifierCache = new WeakHashMap<>();
+	/**
+	 * Cache of the classloaders resolved for the identifiers.
+	 */
+	private final ConcurrentHashMap<String, ClassLoaderCacheEntry> classLoaderCache = new ConcurrentHashMap<>();
+
 	/**
 	 * Creates a new instance without a default resolver.
 	 */
@@ -69,6 +108,7 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 	 */
 	public ClassLoaderResolverRegistry(ClassLoaderResolver defaultResolver) {
 		this.defaultResolver = defaultResolver;
+		addEnclosingRegistry(defaultResolver);
 	}
 
 	/**
@@ -100,6 +140,8 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 			throw new IllegalArgumentException("Resolver id contains illegal character: '\\0' at index: " + sepidx);
 		}
 		registerImpl(resolverid, resolver, new WeakReference<>(resolver));
+		addEnclosingRegistry(resolver);
+		invalidateCaches();
 	}
 
 	/**
@@ -126,7 +168,9 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 		if (gotresolver != resolver) {
 			return;
 		}
-		resolvers.remove(resolverid, ref);
+		if (resolvers.remove(resolverid, ref)) {
+			invalidateCaches();
+		}
 	}
 
 	private void registerImpl(String resolverid, ClassLoaderResolver resolver,
@@ -154,10 +198,22 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 
 	@Override
 	public String getClassLoaderIdentifier(ClassLoader cl) {
+		int stamp = modificationStamp;
+		IdentifierCacheEntry cached;
+		synchronized (identifierCache) {
+			cached = identifierCache.get(cl);
+		}
+		if (cached != null && cached.isValid(stamp)) {
+			return cached.identifier;
+		}
 		if (defaultResolver != null) {
 			String defaultresolverid = defaultResolver.getClassLoaderIdentifier(cl);
 			if (defaultresolverid != null) {
-				return ID_SEPARATOR_CHARACTER + defaultresolverid;
+				String result = ID_SEPARATOR_CHARACTER + defaultresolverid;
+				if (isCacheableResolver(defaultResolver)) {
+					cacheIdentifier(cl, new IdentifierCacheEntry(stamp, result, null));
+				}
+				return result;
 			}
 		}
 		for (Iterator<? extends Entry<String, ? extends Reference<? extends ClassLoaderResolver>>> it = resolvers
@@ -170,9 +226,14 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 			}
 			String id = resolver.getClassLoaderIdentifier(cl);
 			if (id != null) {
-				return entry.getKey() + ID_SEPARATOR_CHARACTER + id;
+				String result = entry.getKey() + ID_SEPARATOR_CHARACTER + id;
+				if (isCacheableResolver(resolver)) {
+					cacheIdentifier(cl, new IdentifierCacheEntry(stamp, result, entry.getValue()));
+				}
+				return result;
 			}
 		}
+		//don't cache if not found, as the resolvers may find it later
 		return null;
 	}
 
@@ -181,6 +242,14 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 		if (id == null) {
 			return null;
 		}
+		int stamp = modificationStamp;
+		ClassLoaderCacheEntry cached = classLoaderCache.get(id);
+		if (cached != null) {
+			ClassLoader cl = cached.getClassLoader(stamp);
+			if (cl != null) {
+				return cl;
+			}
+		}
 		int idx = id.indexOf(ID_SEPARATOR_CHARACTER);
 		if (idx < 0) {
 			throw new IllegalArgumentException("Invalid id: " + id);
@@ -188,12 +257,17 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 		if (idx == 0) {
 			if (defaultResolver != null) {
 				String clid = id.substring(1);
-				return defaultResolver.getClassLoaderForIdentifier(clid);
+				ClassLoader cl = defaultResolver.getClassLoaderForIdentifier(clid);
+				if (cl != null && isCacheableResolver(defaultResolver)) {
+					classLoaderCache.put(id, new ClassLoaderCacheEntry(stamp, cl, null));
+				}
+				return cl;
 			}
 			return null;
 		}
 		String resolverid = id.substring(0, idx);
-		ClassLoaderResolver clresolver = ObjectUtils.getReference(resolvers.get(resolverid));
+		Reference<? extends ClassLoaderResolver> resolverref = resolvers.get(resolverid);
+		ClassLoaderResolver clresolver = ObjectUtils.getReference(resolverref);
 		if (clresolver == null) {
 			//resolver not found, fallback to null
 			return null;
@@ -204,9 +278,103 @@ public class ClassLoaderResolverRegistry implements ClassLoaderResolver {
 			//classloader not found, fallback to null
 			return null;
 		}
+		if (isCacheableResolver(clresolver)) {
+			classLoaderCache.put(id, new ClassLoaderCacheEntry(stamp, cl, resolverref));
+		}
 		return cl;
 	}
 
+	private void cacheIdentifier(ClassLoader cl, IdentifierCacheEntry entry) {
+		synchronized (identifierCache) {
+			identifierCache.put(cl, entry);
+		}
+	}
+
+	private void addEnclosingRegistry(ClassLoaderResolver resolver) {
+		if (!(resolver instanceof ClassLoaderResolverRegistry)) {
+			return;
+		}
+		Map<ClassLoaderResolverRegistry, Boolean> enclosings = ((ClassLoaderResolverRegistry) resolver).enclosingRegistries;
+		synchronized (enclosings) {
+			enclosings.put(this, Boolean.TRUE);
+		}
+	}
+
+	private void invalidateCaches() {
+		//the registries may be registered in each other, so keep track of the visited ones
+		Set<ClassLoaderResolverRegistry> invalidated = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<ClassLoaderResolverRegistry> registries = new ArrayDeque<>();
+		registries.add(this);
+		for (ClassLoaderResolverRegistry reg; (reg = registries.poll()) != null;) {
+			if (!invalidated.add(reg)) {
+				continue;
+			}
+			reg.invalidateOwnCaches();
+			synchronized (reg.enclosingRegistries) {
+				registries.addAll(reg.enclosingRegistries.keySet());
+			}
+		}
+	}
+
+	private void invalidateOwnCaches() {
+		AIFU_modificationStamp.incrementAndGet(this);
+		synchronized (identifierCache) {
+			identifierCache.clear();
+		}
+		classLoaderCache.clear();
+	}
+
+	/**
+	 * Checks if the results of the argument resolver can be cached.
+	 * <p>
+	 * The nested registries notify this registry about their modifications, and the {@link SingleClassLoaderResolver}
+	 * class always returns the same results. The results of other resolvers may change without notice, so they're not
+	 * cached.
+	 */
+	private static boolean isCacheableResolver(ClassLoaderResolver resolver) {
+		return resolver instanceof ClassLoaderResolverRegistry || resolver.getClass() == SingleClassLoaderResolver.class;
+	}
+
+	private static final class IdentifierCacheEntry {
+		protected final int stamp;
+		protected final String identifier;
+		protected final Reference<? extends ClassLoaderResolver> resolverReference;
+
+		public IdentifierCacheEntry(int stamp, String identifier,
+				Reference<? extends ClassLoaderResolver> resolverReference) {
+			this.stamp = stamp;
+			this.identifier = identifier;
+			this.resolverReference = resolverReference;
+		}
+
+		public boolean isValid(int currentstamp) {
+			return stamp == currentstamp && (resolverReference == null || resolverReference.get() != null);
+		}
+	}
+
+	private static final class ClassLoaderCacheEntry {
+		protected final int stamp;
+		protected final Reference<ClassLoader> classLoaderReference;
+		protected final Reference<? extends ClassLoaderResolver> resolverReference;
+
+		public ClassLoaderCacheEntry(int stamp, ClassLoader classLoader,
+				Reference<? extends ClassLoaderResolver> resolverReference) {
+			this.stamp = stamp;
+			this.classLoaderReference = new WeakReference<>(classLoader);
+			this.resolverReference = resolverReference;
+		}
+
+		public ClassLoader getClassLoader(int currentstamp) {
+			if (stamp != currentstamp) {
+				return null;
+			}
+			if (resolverReference != null && resolverReference.get() == null) {
+				return null;
+			}
+			return classLoaderReference.get();
+		}
+	}
+
 	@Override
 	public String toString() {
 		return getClass().getSimpleName() + "["
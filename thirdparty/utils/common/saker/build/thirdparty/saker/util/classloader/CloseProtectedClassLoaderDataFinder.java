@@ -17,6 +17,7 @@ package saker.build.thirdparty.saker.util.classloader;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Supplier;
 
 import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
@@ -64,6 +65,11 @@ public class CloseProtectedClassLoaderDataFinder implements ClassLoaderDataFinde
 		return delegate.getResourceBytes(name);
 	}
 
+	@Override
+	public Set<String> getResourceDirectoryNames() {
+		return delegate.getResourceDirectoryNames();
+	}
+
 	/**
 	 * Does nothing.
 	 */
@@ -21,8 +21,12 @@ import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Supplier;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 
@@ -42,6 +46,8 @@ import saker.build.thirdparty.saker.util.io.UnsyncByteArrayOutputStream;
  * Subclasses may modify this behaviour.
  */
 public class JarClassLoaderDataFinder implements ClassLoaderDataFinder {
+	private static final String MULTI_RELEASE_VERSIONS_DIRECTORY_PREFIX = "META-INF/versions/";
+
 	/**
 	 * The opened JAR file.
 	 */
@@ -176,6 +182,31 @@ public class JarClassLoaderDataFinder implements ClassLoaderDataFinder {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The directory names are determined based on the entries of the JAR file. The entries in the versioned
+	 * directories of a multi-release JAR are considered to be in the directory without the
+	 * <code>META-INF/versions/&lt;version&gt;/</code> prefix.
+	 */
+	@Override
+	public Set<String> getResourceDirectoryNames() {
+		Set<String> result = new HashSet<>();
+		for (Enumeration<JarEntry> it = jar.entries(); it.hasMoreElements();) {
+			String name = it.nextElement().getName();
+			if (name.startsWith(MULTI_RELEASE_VERSIONS_DIRECTORY_PREFIX)) {
+				int versionend = name.indexOf('/', MULTI_RELEASE_VERSIONS_DIRECTORY_PREFIX.length());
+				if (versionend >= 0) {
+					//add the entry itself as well, as it can be retrieved using its full name
+					addResourceDirectoryNames(result, name);
+					name = name.substring(versionend + 1);
+				}
+			}
+			addResourceDirectoryNames(result, name);
+		}
+		return result;
+	}
+
 	@Override
 	public void close() throws IOException {
 		closeJar();
@@ -194,6 +225,15 @@ public class JarClassLoaderDataFinder implements ClassLoaderDataFinder {
 		jar.close();
 	}
 
+	private static void addResourceDirectoryNames(Set<String> result, String name) {
+		if (name.endsWith("/")) {
+			//directory entry, it can be retrieved with or without the trailing slash
+			name = name.substring(0, name.length() - 1);
+			result.add(name);
+		}
+		result.add(ClassLoaderDataFinder.getResourceDirectoryName(name));
+	}
+
 	@Override
 	public String toString() {
 		JarFile jar = this.jar;
@@ -20,14 +20,20 @@ import java.io.InputStream;
 import java.lang.ref.PhantomReference;
 import java.net.URL;
 import java.security.ProtectionDomain;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
+import saker.build.thirdparty.saker.util.ArrayUtils;
 import saker.build.thirdparty.saker.util.io.ByteArrayRegion;
 import saker.build.thirdparty.saker.util.io.ByteSource;
 
@@ -47,6 +53,11 @@ import saker.build.thirdparty.saker.util.io.ByteSource;
  * it, and return the first match that is found for the resource. The data finders are iterated in the order as it was
  * specified during initialization.
  * <p>
+ * The classloader indexes the data finders by the {@linkplain ClassLoaderDataFinder#getResourceDirectoryNames()
+ * directories of their resources} when the first resource is requested. The resource and class lookups only query the
+ * data finders which may contain resources in the directory of the requested resource. Remote data finders are not
+ * indexed.
+ * <p>
  * The classloader doesn't implement the {@link #findLibrary(String)} function. It should be overridden by subclasses if
  * they need it.
  */
@@ -55,8 +66,12 @@ public class MultiDataClassLoader extends ClassLoader {
 		registerAsParallelCapable();
 	}
 
+	private static final ClassLoaderDataFinder[] EMPTY_DATA_FINDER_ARRAY = new ClassLoaderDataFinder[0];
+
 	private final Collection<ClassLoaderDataFinder> datasFinders = new LinkedHashSet<>();
 
+	private volatile DirectoryIndex directoryIndex;
+
 	/**
 	 * Creates a new instance.
 	 * <p>
@@ -151,8 +166,10 @@ public class MultiDataClassLoader extends ClassLoader {
 
 	@Override
 	protected Class<?> findClass(String name) throws ClassNotFoundException {
-		Collection<ClassLoaderDataFinder> datafinders = datasFinders;
-		if (!datafinders.isEmpty()) {
+		int dotidx = name.lastIndexOf('.');
+		ClassLoaderDataFinder[] datafinders = getDataFinders(
+				dotidx < 0 ? "" : name.substring(0, dotidx).replace('.', '/'));
+		if (!datasFinders.isEmpty()) {
 			ClassNotFoundException exc = null;
 			for (ClassLoaderDataFinder d : datafinders) {
 				ByteArrayRegion bar;
@@ -178,17 +195,18 @@ public class MultiDataClassLoader extends ClassLoader {
 						exc.addSuppressed(e);
 					}
 				} else {
-					ClassNotFoundException e = new ClassNotFoundException(name + " not found in " + d);
-					if (exc == null) {
-						exc = e;
-					} else {
-						exc.addSuppressed(e);
-					}
+					exc = addNotFoundException(exc, name, d);
 				}
 			}
-			if (exc != null) {
-				throw exc;
+			if (datafinders.length != datasFinders.size()) {
+				//the data finders that were skipped based on the index don't contain the class either
+				for (ClassLoaderDataFinder d : datasFinders) {
+					if (ArrayUtils.arrayIndexOf(datafinders, d) < 0) {
+						exc = addNotFoundException(exc, name, d);
+					}
+				}
 			}
+			throw exc;
 		}
 		return super.findClass(name);
 	}
@@ -207,7 +225,7 @@ public class MultiDataClassLoader extends ClassLoader {
 				return res;
 			}
 		}
-		for (ClassLoaderDataFinder d : datasFinders) {
+		for (ClassLoaderDataFinder d : getDataFinders(ClassLoaderDataFinder.getResourceDirectoryName(name))) {
 			ByteSource res = d.getResourceAsStream(name);
 			if (res != null) {
 				return ByteSource.toInputStream(res);
@@ -232,7 +250,7 @@ public class MultiDataClassLoader extends ClassLoader {
 
 	private Set<? extends Supplier<? extends ByteSource>> findResourceSuppliersImpl(String name) {
 		Set<Supplier<? extends ByteSource>> result = new LinkedHashSet<>();
-		for (ClassLoaderDataFinder d : datasFinders) {
+		for (ClassLoaderDataFinder d : getDataFinders(ClassLoaderDataFinder.getResourceDirectoryName(name))) {
 			Supplier<? extends ByteSource> url = d.getResource(name);
 			if (url != null) {
 				result.add(url);
@@ -243,7 +261,7 @@ public class MultiDataClassLoader extends ClassLoader {
 
 	private Set<URL> findResourceURLsImpl(String name) {
 		Set<URL> result = new LinkedHashSet<>();
-		for (ClassLoaderDataFinder d : datasFinders) {
+		for (ClassLoaderDataFinder d : getDataFinders(ClassLoaderDataFinder.getResourceDirectoryName(name))) {
 			URL url = ClassLoaderDataFinder.toURL(name, d.getResource(name));
 			if (url != null) {
 				result.add(url);
@@ -252,6 +270,80 @@ public class MultiDataClassLoader extends ClassLoader {
 		return result;
 	}
 
+	private static ClassNotFoundException addNotFoundException(ClassNotFoundException exc, String name,
+			ClassLoaderDataFinder datafinder) {
+		ClassNotFoundException e = new ClassNotFoundException(name + " not found in " + datafinder);
+		if (exc == null) {
+			return e;
+		}
+		exc.addSuppressed(e);
+		return exc;
+	}
+
+	private ClassLoaderDataFinder[] getDataFinders(String directory) {
+		DirectoryIndex index = directoryIndex;
+		if (index == null) {
+			synchronized (datasFinders) {
+				index = directoryIndex;
+				if (index == null) {
+					index = new DirectoryIndex(datasFinders);
+					directoryIndex = index;
+				}
+			}
+		}
+		ClassLoaderDataFinder[] result = index.directoryFinders.get(directory);
+		if (result != null) {
+			return result;
+		}
+		return index.unindexedFinders;
+	}
+
+	private static final class DirectoryIndex {
+		/**
+		 * The data finders that didn't report their resource directories. These are queried for all directories.
+		 */
+		protected final ClassLoaderDataFinder[] unindexedFinders;
+		/**
+		 * The data finders to query for a given directory, in the order of the classloader data finders.
+		 */
+		protected final Map<String, ClassLoaderDataFinder[]> directoryFinders;
+
+		public DirectoryIndex(Collection<ClassLoaderDataFinder> datafinders) {
+			List<ClassLoaderDataFinder> unindexed = new ArrayList<>();
+			Map<String, List<ClassLoaderDataFinder>> directories = new HashMap<>();
+			for (ClassLoaderDataFinder d : datafinders) {
+				Set<String> dirnames;
+				try {
+					dirnames = d.getResourceDirectoryNames();
+				} catch (RuntimeException e) {
+					//in case of implementation error, or some others like zip is closed
+					dirnames = null;
+				}
+				if (dirnames == null) {
+					unindexed.add(d);
+					for (List<ClassLoaderDataFinder> finders : directories.values()) {
+						finders.add(d);
+					}
+					continue;
+				}
+				for (String dir : dirnames) {
+					List<ClassLoaderDataFinder> finders = directories.get(dir);
+					if (finders == null) {
+						//the preceding unindexed finders need to be queried for the directory as well
+						finders = new ArrayList<>(unindexed);
+						directories.put(dir, finders);
+					}
+					finders.add(d);
+				}
+			}
+			this.unindexedFinders = unindexed.toArray(EMPTY_DATA_FINDER_ARRAY);
+			this.directoryFinders = new HashMap<>(directories.size() * 4 / 3 + 1);
+			for (Entry<String, List<ClassLoaderDataFinder>> entry : directories.entrySet()) {
+				this.directoryFinders.put(entry.getKey(), entry.getValue().toArray(EMPTY_DATA_FINDER_ARRAY));
+			}
+		}
+	}
+
 	/**
 	 * Gets the protection domain that should be used when defining a class.
 	 * <p>